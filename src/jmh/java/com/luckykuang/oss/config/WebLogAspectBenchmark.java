@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.luckykuang.oss.base.ApiResult;
+import com.luckykuang.oss.vo.ChunkUploadCompleteVO;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebLogAspect 入参采集与 WebLogWriter 序列化基准
+ * @author luckykuang
+ * @date 2026/10/19 14:15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WebLogAspectBenchmark {
+
+    private static final String[] PARAMETER_NAMES = {"bucketName", "prefix", "size", "chunkUploadCompleteVO"};
+
+    @Param({"10", "1000"})
+    private int resultSize;
+
+    @Param({"2048"})
+    private int maxPayloadLength;
+
+    private WebLogWriter webLogWriter;
+    private WebLogAspect webLogAspect;
+    private Object[] args;
+    private Map<String, Object> params;
+    private ApiResult<List<String>> result;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        WebLogProperties properties = new WebLogProperties();
+        properties.setMaxPayloadLength(maxPayloadLength);
+        webLogWriter = new WebLogWriter(new ObjectMapper(), properties);
+        webLogAspect = new WebLogAspect(webLogWriter, properties);
+
+        ChunkUploadCompleteVO vo = new ChunkUploadCompleteVO("video.mp4", "d41d8cd98f00b204e9800998ecf8427e",
+                "8f14e45fceea167a5a36dedd4bea2543", 128, "public");
+        args = new Object[]{"public", "2026/10/", 100, vo};
+        params = webLogAspect.captureParams(args, PARAMETER_NAMES);
+
+        List<String> files = new ArrayList<>(resultSize);
+        for (int i = 0; i < resultSize; i++) {
+            files.add("2026/10/19/015dcf1955124393bce7e37fb664e" + i + ".png");
+        }
+        result = ApiResult.success(files);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        webLogWriter.shutdown();
+    }
+
+    @Benchmark
+    public Map<String, Object> captureParams() throws ReflectiveOperationException {
+        return webLogAspect.captureParams(args, PARAMETER_NAMES);
+    }
+
+    @Benchmark
+    public String serializeParams() {
+        return webLogWriter.toJson(params, maxPayloadLength);
+    }
+
+    @Benchmark
+    public String serializeResult() {
+        return webLogWriter.toJson(result, maxPayloadLength);
+    }
+}
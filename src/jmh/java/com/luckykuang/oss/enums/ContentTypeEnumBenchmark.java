@@ -0,0 +1,41 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.enums;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ContentTypeEnum 后缀查找基准
+ * @author luckykuang
+ * @date 2026/10/19 14:12
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ContentTypeEnumBenchmark {
+
+    // 命中首项、命中末项、大小写不同、未命中
+    @Param({"jpg", "rp", "PNG", "mp4"})
+    private String ext;
+
+    @Benchmark
+    public String getContentType() {
+        return ContentTypeEnum.getContentType(ext);
+    }
+}
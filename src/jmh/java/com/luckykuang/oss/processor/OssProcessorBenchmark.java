@@ -0,0 +1,97 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.processor;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OssProcessor 纯计算路径基准：对象路径生成、策略拼接、分片名解析
+ * @author luckykuang
+ * @date 2026/10/19 14:10
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OssProcessorBenchmark {
+
+    private static final String CUSTOM_POLICY = "{\n" +
+            "  \"Version\": \"2012-10-17\",\n" +
+            "  \"Statement\": [\n" +
+            "    {\n" +
+            "      \"Effect\": \"Allow\",\n" +
+            "      \"Principal\": {\"AWS\": [\"*\"]},\n" +
+            "      \"Action\": [\"s3:GetBucketLocation\", \"s3:ListBucket\"],\n" +
+            "      \"Resource\": [\"arn:aws:s3:::{bucket}\"]\n" +
+            "    },\n" +
+            "    {\n" +
+            "      \"Effect\": \"Allow\",\n" +
+            "      \"Principal\": {\"AWS\": [\"*\"]},\n" +
+            "      \"Action\": [\"s3:GetObject\"],\n" +
+            "      \"Resource\": [\"arn:aws:s3:::{bucket}/*\"]\n" +
+            "    }\n" +
+            "  ]\n" +
+            "}";
+
+    // 每次调用解析的分片名数量，按单个分片名报告耗时
+    private static final int CHUNK_COUNT = 1000;
+
+    private List<String> customPolicies;
+
+    private List<String> chunkObjectNames;
+
+    @Setup
+    public void setup() {
+        customPolicies = List.of(CUSTOM_POLICY);
+        chunkObjectNames = new ArrayList<>(CHUNK_COUNT);
+        for (int i = 0; i < CHUNK_COUNT; i++) {
+            chunkObjectNames.add(".chunk-uploads/8f14e45fceea167a5a36dedd4bea2543/d41d8cd98f00b204e9800998ecf8427e/" + i + ".chunk");
+        }
+    }
+
+    @Benchmark
+    public String generateObjectName() {
+        return OssProcessor.generateObjectName(".png");
+    }
+
+    @Benchmark
+    public String readOnlyBucketPolicy() {
+        return OssProcessor.readOnlyBucketPolicy("public");
+    }
+
+    @Benchmark
+    public String defaultBucketPolicy() {
+        return OssProcessor.defaultBucketPolicy("public");
+    }
+
+    @Benchmark
+    public String customBucketPolicy() {
+        return OssProcessor.customBucketPolicy("public", customPolicies);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK_COUNT)
+    public void parseChunkNumber(Blackhole blackhole) {
+        for (String objectName : chunkObjectNames) {
+            blackhole.consume(OssProcessor.parseChunkNumber(objectName));
+        }
+    }
+}
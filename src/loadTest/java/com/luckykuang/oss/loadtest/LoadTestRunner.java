@@ -0,0 +1,1174 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.luckykuang.oss.OssApplication;
+import com.luckykuang.oss.storage.StorageRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipInputStream;
+
+/**
+ * 端到端压测：启动进程内 S3 替身与 oss-server，按配置的并发驱动上传、分片上传、下载、范围下载和列表接口，
+ * 输出 p50/p99/p999 延迟和吞吐
+ * <p>执行 gradle loadTest，参数通过 -Pload.xxx=value 传入：</p>
+ * <ul>
+ *     <li>load.scenarios：场景，逗号分隔，默认 upload,download,range,list,chunk</li>
+ *     <li>load.concurrency：并发数，默认 16</li>
+ *     <li>load.requests：每个场景的请求数（chunk 场景为完整上传流程数），默认 500</li>
+ *     <li>load.fileSize：上传文件大小(字节)，默认 1048576</li>
+ *     <li>load.rangeSize：范围下载长度(字节)，默认 262144</li>
+ *     <li>load.chunkSize / load.chunkCount：分片大小与分片数，默认 5MB x 4</li>
+ *     <li>load.batchFiles / load.batchFileSize：batch 场景单次请求的文件数与文件大小(字节)，默认 50 x 16384</li>
+ *     <li>load.archiveFiles / load.archiveFormat：archive 场景单个压缩包的文件数与格式，默认 20 个 zip；
+ *     请求中重复一个路径，校验只打包一次</li>
+ *     <li>load.presignObjects：presign 场景单次请求的对象数，默认 500</li>
+ *     <li>compress 场景：开启 gzip 透明压缩上传约 load.fileSize 大小的 JSON，校验透传、解压与范围下载的内容</li>
+ *     <li>rawchunk 场景：与 chunk 相同，分片以请求体 PUT 上传，不经过 multipart；最后一个分片的 X-File-Name 编码有误</li>
+ *     <li>advised 场景：初始化时不指定分片大小，按服务端建议的分片大小与并发数上传 load.chunkSize x load.chunkCount 大小的文件；
+ *     合并前指定另一分片大小重新初始化，校验续传沿用首次选定的分片大小</li>
+ *     <li>sweep 场景：上传一个分片后放弃会话，等待后台任务清理（ttl 2 秒、间隔 1 秒）</li>
+ *     <li>policy 场景：新建存储桶后两次批量应用同一策略模板，校验先写入、后跳过</li>
+ *     <li>throttle 场景：携带 API Key 下载，该 API Key 限速 load.throttleRate(字节/秒，默认 4194304)，MB/s 应接近限速</li>
+ *     <li>isolation 场景：load.floodConcurrency(默认 32) 个线程持续下载占满 transfer 舱壁(限制 8、排队 8)的同时调用 listBuckets，
+ *     统计元数据调用延迟与下载被拒绝(503)的次数</li>
+ *     <li>revalidate 场景：首次下载记录 ETag，之后携带 If-None-Match 下载，校验返回 304</li>
+ *     <li>direct 场景：偶数请求按 load.fileSize 单个 PUT 直传，奇数请求按 load.chunkSize x load.chunkCount 分片直传</li>
+ *     <li>copy 场景：上传 load.fileSize 大小的文件后拷贝到 copies 存储桶、再在 copies 内移动，校验下载内容；
+ *     超过 load.fileSize / 2 的对象使用 5MB 分片拷贝</li>
+ *     <li>migrate 场景：单次上传 load.batchFiles 个对象到独立前缀后按前缀迁移到 copies 存储桶（按 copy 场景分片拷贝），
+ *     校验首次全部拷贝、重新提交全部跳过；移动前把其中一个目标替换为大小相同、写入更晚的无关对象，
+ *     校验移动时重新拷贝该对象、其余跳过，移动后源前缀为空且目标内容与源对象一致</li>
+ *     <li>parallel 场景：上传 load.parallelFileSize（默认 8MB）大小的文件后下载并校验内容；超过其一半的对象按 1MB 分片、
+ *     4 个并发范围读取，结束后校验确实发生了并行下载（仅 minio 后端）</li>
+ *     <li>sequential 场景：上传 load.fileSize 大小的文件后按 load.rangeSize 从头到尾逐块下载并校验内容；
+ *     load.readAhead=false 时关闭顺序预读作为对照</li>
+ *     <li>dedup 场景：向开启去重（块 16KB/64KB/256KB）的 dedup 存储桶上传 load.fileSize 大小的文件及在中间插入数据的新版本，
+ *     校验下载、范围下载与桶内拷贝的内容、文件列表不含 .dedup/、接口拒绝删除与读取 .dedup/ 下的对象，用普通对象覆盖拷贝出的去重文件，
+ *     删除全部文件后校验块与引用计数均已清空</li>
+ *     <li>load.storage：memory 或 disk，默认 memory</li>
+ *     <li>load.latencyMs / load.jitterMs：S3 替身注入的固定/随机延迟，默认 0</li>
+ *     <li>load.bandwidth：S3 替身单连接带宽(字节/秒)，默认不限速</li>
+ *     <li>load.nodes：S3 替身节点数（共享数据），默认 1</li>
+ *     <li>load.slowNodeLatencyMs：最后一个节点额外注入的延迟(ms)，默认 0</li>
+ *     <li>load.webLog：是否开启请求日志，默认 false</li>
+ *     <li>load.backend：应用使用的存储后端 minio 或 local，默认 minio（local 时 S3 替身不参与）</li>
+ * </ul>
+ * @author luckykuang
+ * @date 2026/10/19 15:40
+ */
+@Slf4j
+public class LoadTestRunner {
+
+    private static final String BUCKET = "public";
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("yyyy/MM/dd/");
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String THROTTLED_API_KEY = "loadtest-throttled";
+    private static final String COPY_BUCKET = "copies";
+    private static final String DEDUP_BUCKET = "dedup";
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final String cdnPrefix;
+    private final int concurrency;
+    private final int requests;
+    private final int fileSize;
+    private final int parallelFileSize;
+    private final int rangeSize;
+    private final int chunkSize;
+    private final int chunkCount;
+    private final int batchFiles;
+    private final int batchFileSize;
+    private final int archiveFiles;
+    private final String archiveFormat;
+    private final int presignObjects;
+    private final List<String> uploadedUrls = new CopyOnWriteArrayList<>();
+    // revalidate 场景：访问路径 -> 首次下载返回的 ETag
+    private final Map<String, String> validators = new ConcurrentHashMap<>();
+    // 直接查看存储后端，校验文件列表接口不返回的内部对象
+    private final StorageRouter storageRouter;
+    private final MeterRegistry meterRegistry;
+
+    LoadTestRunner(String baseUrl, String cdnPrefix, StorageRouter storageRouter, MeterRegistry meterRegistry) {
+        this.baseUrl = baseUrl;
+        this.cdnPrefix = cdnPrefix;
+        this.storageRouter = storageRouter;
+        this.meterRegistry = meterRegistry;
+        this.concurrency = intProperty("load.concurrency", 16);
+        this.requests = intProperty("load.requests", 500);
+        this.fileSize = intProperty("load.fileSize", 1024 * 1024);
+        this.parallelFileSize = intProperty("load.parallelFileSize", 8 * 1024 * 1024);
+        this.rangeSize = intProperty("load.rangeSize", 256 * 1024);
+        this.chunkSize = intProperty("load.chunkSize", 5 * 1024 * 1024);
+        this.chunkCount = intProperty("load.chunkCount", 4);
+        this.batchFiles = intProperty("load.batchFiles", 50);
+        this.batchFileSize = intProperty("load.batchFileSize", 16 * 1024);
+        this.archiveFiles = intProperty("load.archiveFiles", 20);
+        this.archiveFormat = System.getProperty("load.archiveFormat", "zip");
+        this.presignObjects = intProperty("load.presignObjects", 500);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newFixedThreadPool(Math.max(4, concurrency)))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        String storage = System.getProperty("load.storage", "memory");
+        Path diskRoot = "disk".equalsIgnoreCase(storage) ? Files.createTempDirectory("s3-standin") : null;
+        try (S3StandIn standIn = new S3StandIn(diskRoot,
+                longProperty("load.latencyMs", 0), longProperty("load.jitterMs", 0), longProperty("load.bandwidth", 0)).start()) {
+            standIn.createBucket(BUCKET);
+            standIn.createBucket(COPY_BUCKET);
+            standIn.createBucket(DEDUP_BUCKET);
+            String cdnPrefix = standIn.endpoint() + "/";
+            // 多节点：其余节点与第一个节点共享数据，最后一个节点可注入额外延迟模拟慢节点
+            List<S3StandIn> replicas = new ArrayList<>();
+            int nodes = intProperty("load.nodes", 1);
+            for (int i = 1; i < nodes; i++) {
+                long latencyMs = longProperty("load.latencyMs", 0)
+                        + (i == nodes - 1 ? longProperty("load.slowNodeLatencyMs", 0) : 0);
+                replicas.add(standIn.replica(latencyMs, longProperty("load.jitterMs", 0)).start());
+            }
+            // 以命令行参数传入，优先级高于 application.yml
+            List<String> appArgs = new ArrayList<>(List.of(args));
+            appArgs.add("--server.port=0");
+            appArgs.add("--minio.endpoint=" + standIn.endpoint());
+            if (!replicas.isEmpty()) {
+                appArgs.add("--minio.endpoints[0]=" + standIn.endpoint());
+                for (int i = 0; i < replicas.size(); i++) {
+                    appArgs.add("--minio.endpoints[" + (i + 1) + "]=" + replicas.get(i).endpoint());
+                }
+            }
+            appArgs.add("--minio.endpoint-cdn=" + cdnPrefix);
+            appArgs.add("--minio.bucket-name=" + BUCKET);
+            if (System.getProperty("load.scenarios", "").contains("compress")) {
+                appArgs.add("--minio.compression.buckets." + BUCKET + "=gzip");
+            }
+            if (System.getProperty("load.scenarios", "").contains("sweep")) {
+                // sweep 场景：废弃会话 2 秒后即被清理
+                appArgs.add("--minio.chunk-cleanup.ttl=2s");
+                appArgs.add("--minio.chunk-cleanup.interval=1s");
+            }
+            if (System.getProperty("load.scenarios", "").contains("throttle")) {
+                // throttle 场景：只限制携带该 API Key 的请求，不影响同一次运行的其他场景
+                long rate = longProperty("load.throttleRate", 4 * 1024 * 1024);
+                appArgs.add("--minio.bandwidth.enabled=true");
+                appArgs.add("--minio.bandwidth.api-keys." + THROTTLED_API_KEY + ".download-rate=" + rate);
+                appArgs.add("--minio.bandwidth.api-keys." + THROTTLED_API_KEY + ".upload-rate=" + rate);
+            }
+            if (System.getProperty("load.scenarios", "").contains("isolation")) {
+                // isolation 场景：缩小 transfer 舱壁，使持续下载超出容量
+                appArgs.add("--minio.bulkhead.transfer.initial-limit=8");
+                appArgs.add("--minio.bulkhead.transfer.min-limit=4");
+                appArgs.add("--minio.bulkhead.transfer.max-limit=8");
+                appArgs.add("--minio.bulkhead.transfer.max-queue=8");
+                appArgs.add("--minio.bulkhead.transfer.queue-timeout=200ms");
+            }
+            if (System.getProperty("load.scenarios", "").contains("copy")
+                    || System.getProperty("load.scenarios", "").contains("migrate")) {
+                // copy / migrate 场景：超过半个 load.fileSize 的对象使用分片拷贝
+                appArgs.add("--minio.copy.multipart-threshold=" + intProperty("load.fileSize", 1024 * 1024) / 2);
+                appArgs.add("--minio.copy.part-size=" + 5 * 1024 * 1024);
+            }
+            if (System.getProperty("load.scenarios", "").contains("parallel")) {
+                // parallel 场景：小分片使一次下载拆成多个范围读取
+                appArgs.add("--minio.ranged-download.threshold="
+                        + intProperty("load.parallelFileSize", 8 * 1024 * 1024) / 2);
+                appArgs.add("--minio.ranged-download.min-part-size=" + 1024 * 1024);
+                appArgs.add("--minio.ranged-download.max-part-size=" + 1024 * 1024);
+                appArgs.add("--minio.ranged-download.parallelism=4");
+            }
+            if (System.getProperty("load.scenarios", "").contains("sequential")) {
+                appArgs.add("--minio.read-ahead.enabled=" + System.getProperty("load.readAhead", "true"));
+            }
+            if (System.getProperty("load.scenarios", "").contains("dedup")) {
+                appArgs.add("--minio.dedup.buckets[0]=" + DEDUP_BUCKET);
+                appArgs.add("--minio.dedup.min-chunk-size=" + 16 * 1024);
+                appArgs.add("--minio.dedup.avg-chunk-size=" + 64 * 1024);
+                appArgs.add("--minio.dedup.max-chunk-size=" + 256 * 1024);
+            }
+            // direct 场景：大于 load.fileSize 的文件走分片直传
+            appArgs.add("--minio.direct-upload.single-put-threshold=" + intProperty("load.fileSize", 1024 * 1024));
+            appArgs.add("--minio.access-key=loadtest");
+            appArgs.add("--minio.secret-key=loadtest-secret");
+            appArgs.add("--web-log.enabled=" + System.getProperty("load.webLog", "false"));
+            String backend = System.getProperty("load.backend", "minio");
+            appArgs.add("--storage.default-backend=" + backend);
+            if ("local".equalsIgnoreCase(backend)) {
+                Path localRoot = Files.createTempDirectory("oss-local");
+                Files.createDirectories(localRoot.resolve(BUCKET));
+                Files.createDirectories(localRoot.resolve(COPY_BUCKET));
+                Files.createDirectories(localRoot.resolve(DEDUP_BUCKET));
+                appArgs.add("--storage.local.root=" + localRoot);
+            }
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(OssApplication.class)
+                    .run(appArgs.toArray(new String[0]));
+            try {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                LoadTestRunner runner = new LoadTestRunner("http://127.0.0.1:" + port, cdnPrefix,
+                        context.getBean(StorageRouter.class), context.getBean(MeterRegistry.class));
+                List<Result> results = runner.runAll(System.getProperty("load.scenarios", "upload,download,range,list,chunk"));
+                printResults(results);
+                writeResults(results);
+                log.info("S3 stand-in served {} requests", standIn.requestCount());
+                for (S3StandIn replica : replicas) {
+                    log.info("S3 stand-in replica {} served {} requests", replica.endpoint(), replica.requestCount());
+                }
+                printCounters(context.getBean(MeterRegistry.class));
+            } finally {
+                context.close();
+                replicas.forEach(S3StandIn::close);
+            }
+        }
+        System.exit(0);
+    }
+
+    List<Result> runAll(String scenarios) throws Exception {
+        List<Result> results = new ArrayList<>();
+        for (String scenario : scenarios.split(",")) {
+            switch (scenario.trim()) {
+                case "upload" -> results.add(run("upload", requests, this::upload));
+                case "download" -> results.add(run("download", requests, this::download));
+                case "range" -> results.add(run("range", requests, this::rangedDownload));
+                case "revalidate" -> results.add(run("revalidate", requests, this::revalidate));
+                case "throttle" -> results.add(run("throttle", requests, this::throttledDownload));
+                case "isolation" -> results.add(isolation());
+                case "list" -> results.add(run("list", requests, this::list));
+                case "chunk" -> results.add(run("chunk", Math.max(1, requests / 10), i -> chunkUpload(i, false)));
+                case "rawchunk" -> results.add(run("rawchunk", Math.max(1, requests / 10), i -> chunkUpload(i, true)));
+                case "advised" -> results.add(run("advised", Math.max(1, requests / 10), this::advisedChunkUpload));
+                case "sweep" -> results.add(run("sweep", Math.max(1, requests / 10), this::abandonedChunkUpload));
+                case "batch" -> results.add(run("batch", Math.max(1, requests / 10), this::batchUpload));
+                case "archive" -> results.add(run("archive", Math.max(1, requests / 10), this::archiveDownload));
+                case "presign" -> results.add(run("presign", requests, this::batchPresign));
+                case "policy" -> results.add(run("policy", Math.max(1, requests / 10), this::policyRollout));
+                case "compress" -> results.add(run("compress", Math.max(1, requests / 10), this::compressedRoundTrip));
+                case "direct" -> results.add(run("direct", Math.max(1, requests / 10), this::directUpload));
+                case "copy" -> results.add(run("copy", Math.max(1, requests / 10), this::copyAndMove));
+                case "migrate" -> results.add(run("migrate", Math.max(1, requests / 10), this::migration));
+                case "parallel" -> {
+                    results.add(run("parallel", Math.max(1, requests / 10), this::parallelDownload));
+                    checkParallelDownloaded();
+                }
+                case "sequential" -> results.add(run("sequential", Math.max(1, requests / 10), this::sequentialDownload));
+                case "dedup" -> {
+                    results.add(run("dedup", Math.max(1, requests / 10), this::dedupRoundTrip));
+                    checkDedupReleased();
+                }
+                default -> log.warn("unknown scenario: {}", scenario);
+            }
+        }
+        return results;
+    }
+
+    // ==================== 场景 ====================
+
+    @FunctionalInterface
+    interface Operation {
+        /**
+         * @param index 请求序号
+         * @return 本次请求传输的字节数
+         */
+        long execute(int index) throws Exception;
+    }
+
+    private long upload(int index) throws Exception {
+        byte[] payload = randomBytes(fileSize);
+        String url = multipartUpload(payload, "file-" + index + ".bin");
+        uploadedUrls.add(url);
+        return payload.length;
+    }
+
+    private long download(int index) throws Exception {
+        String url = pickUploaded(index);
+        HttpResponse<InputStream> response = send(HttpRequest.newBuilder(URI.create(baseUrl
+                + "/oss/downloadFile?bucketName=" + BUCKET + "&filePath=" + encode(url))).GET().build());
+        return drain(response);
+    }
+
+    private long throttledDownload(int index) throws Exception {
+        String url = pickUploaded(index);
+        HttpResponse<InputStream> response = send(HttpRequest.newBuilder(URI.create(baseUrl
+                        + "/oss/downloadFile?bucketName=" + BUCKET + "&filePath=" + encode(url)))
+                .header("X-Api-Key", THROTTLED_API_KEY).GET().build());
+        return drain(response);
+    }
+
+    /**
+     * 后台持续下载占满 transfer 舱壁，前台测量 listBuckets 延迟
+     */
+    private Result isolation() throws Exception {
+        int floodConcurrency = intProperty("load.floodConcurrency", 32);
+        URI download = URI.create(baseUrl + "/oss/downloadFile?bucketName=" + BUCKET + "&filePath=" + encode(pickUploaded(0)));
+        HttpClient floodClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicInteger downloads = new AtomicInteger();
+        AtomicInteger shed = new AtomicInteger();
+        AtomicInteger missingRetryAfter = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        ExecutorService flood = Executors.newFixedThreadPool(floodConcurrency);
+        for (int i = 0; i < floodConcurrency; i++) {
+            flood.execute(() -> {
+                while (!stop.get()) {
+                    try {
+                        HttpResponse<InputStream> response = floodClient.send(HttpRequest.newBuilder(download).GET().build(),
+                                HttpResponse.BodyHandlers.ofInputStream());
+                        drain(response);
+                        if (response.statusCode() == 503) {
+                            shed.incrementAndGet();
+                            // 按 Retry-After 退避
+                            Optional<String> retryAfter = response.headers().firstValue("Retry-After");
+                            if (retryAfter.isEmpty()) {
+                                missingRetryAfter.incrementAndGet();
+                            }
+                            Thread.sleep(TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.orElse("1"))));
+                        } else if (response.statusCode() == 200) {
+                            downloads.incrementAndGet();
+                        } else {
+                            failed.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                    }
+                }
+            });
+        }
+        try {
+            Thread.sleep(500);
+            return run("isolation", requests, this::listBuckets);
+        } finally {
+            stop.set(true);
+            flood.shutdown();
+            flood.awaitTermination(1, TimeUnit.MINUTES);
+            log.info("isolation flood: {} downloads, {} shed with 503 ({} without Retry-After), {} failed",
+                    downloads.get(), shed.get(), missingRetryAfter.get(), failed.get());
+        }
+    }
+
+    private long listBuckets(int index) throws Exception {
+        return drain(send(HttpRequest.newBuilder(URI.create(baseUrl + "/oss/listBuckets")).GET().build()));
+    }
+
+    private long revalidate(int index) throws Exception {
+        String url = pickUploaded(index);
+        URI download = URI.create(baseUrl + "/oss/downloadFile?bucketName=" + BUCKET + "&filePath=" + encode(url));
+        long transferred = 0;
+        String etag = validators.get(url);
+        if (etag == null) {
+            HttpResponse<InputStream> response = send(HttpRequest.newBuilder(download).GET().build());
+            etag = response.headers().firstValue("ETag")
+                    .orElseThrow(() -> new IOException("missing ETag: " + response.headers().map()));
+            validators.put(url, etag);
+            transferred = drain(response);
+        }
+        // 携带校验值的重复下载应返回 304 且没有响应体
+        HttpResponse<InputStream> response = send(HttpRequest.newBuilder(download).header("If-None-Match", etag).GET().build());
+        long bytes = drain(response);
+        if (response.statusCode() != 304 || bytes != 0) {
+            throw new IOException("expected 304, got " + response.statusCode() + " with " + bytes + " bytes");
+        }
+        return transferred;
+    }
+
+    private long rangedDownload(int index) throws Exception {
+        String objectName = pickUploaded(index).substring((cdnPrefix + BUCKET).length());
+        int length = Math.min(rangeSize, fileSize);
+        long offset = fileSize > length ? ThreadLocalRandom.current().nextLong(fileSize - length) : 0;
+        HttpResponse<InputStream> response = send(HttpRequest.newBuilder(URI.create(baseUrl
+                + "/oss/downloadFileChunk?bucketName=" + BUCKET + "&objectName=" + encode(objectName)
+                + "&offset=" + offset + "&length=" + length)).GET().build());
+        return drain(response);
+    }
+
+    private long list(int index) throws Exception {
+        String prefix = LocalDate.now().format(DAY);
+        HttpResponse<InputStream> response = send(HttpRequest.newBuilder(URI.create(baseUrl
+                + "/oss/listFilesByBucketName?bucketName=" + BUCKET + "&prefix=" + encode(prefix) + "&size=100")).GET().build());
+        return drain(response);
+    }
+
+    private long chunkUpload(int index, boolean raw) throws Exception {
+        String sessionId = UUID.randomUUID().toString().replace("-", "");
+        String fileMd5 = UUID.randomUUID().toString().replace("-", "");
+        String fileName = "chunked-" + index + ".bin";
+        long totalSize = (long) chunkSize * chunkCount;
+
+        Map<String, Object> init = new LinkedHashMap<>();
+        init.put("fileName", fileName);
+        init.put("fileMd5", fileMd5);
+        init.put("totalSize", totalSize);
+        init.put("chunkSize", chunkSize);
+        init.put("uploadSessionId", sessionId);
+        postJson("/oss/initChunkUpload", init);
+
+        byte[] chunk = randomBytes(chunkSize);
+        for (int i = 0; i < chunkCount; i++) {
+            if (raw) {
+                // 请求体即分片内容，元数据在路径与请求头中
+                checkApiResult(send(HttpRequest.newBuilder(URI.create(baseUrl + "/oss/uploadChunk/" + sessionId
+                                + "/" + fileMd5 + "/" + i))
+                        .header("Content-Type", "application/octet-stream")
+                        .header("X-Total-Chunks", String.valueOf(chunkCount))
+                        // 最后一个分片带格式有误的文件名，文件名只用于日志，不应导致上传失败
+                        .header("X-File-Name", i == chunkCount - 1 ? encode(fileName) + "%zz" : encode(fileName))
+                        .PUT(HttpRequest.BodyPublishers.ofByteArray(chunk))
+                        .build()));
+                continue;
+            }
+            Map<String, String> fields = new LinkedHashMap<>();
+            fields.put("fileName", fileName);
+            fields.put("fileMd5", fileMd5);
+            fields.put("uploadSessionId", sessionId);
+            fields.put("chunkNumber", String.valueOf(i));
+            fields.put("totalChunks", String.valueOf(chunkCount));
+            fields.put("chunkSize", String.valueOf(chunkSize));
+            fields.put("totalSize", String.valueOf(totalSize));
+            checkApiResult(sendMultipart("/oss/uploadChunk", fields, chunk, i + ".chunk"));
+        }
+
+        Map<String, Object> complete = new LinkedHashMap<>();
+        complete.put("fileName", fileName);
+        complete.put("fileMd5", fileMd5);
+        complete.put("uploadSessionId", sessionId);
+        complete.put("totalChunks", chunkCount);
+        complete.put("bucketName", BUCKET);
+        postJson("/oss/completeChunkUpload", complete);
+        return totalSize;
+    }
+
+    private long advisedChunkUpload(int index) throws Exception {
+        String sessionId = UUID.randomUUID().toString().replace("-", "");
+        String fileMd5 = UUID.randomUUID().toString().replace("-", "");
+        String fileName = "advised-" + index + ".bin";
+        long totalSize = (long) chunkSize * chunkCount;
+
+        // 不指定分片大小，按服务端建议分片并发上传
+        Map<String, Object> init = new LinkedHashMap<>();
+        init.put("fileName", fileName);
+        init.put("fileMd5", fileMd5);
+        init.put("totalSize", totalSize);
+        init.put("uploadSessionId", sessionId);
+        JsonNode status = postJson("/oss/initChunkUpload", init).path("data");
+        long advisedSize = status.path("chunkSize").asLong();
+        int totalChunks = status.path("totalChunks").asInt();
+        int parallelism = status.path("recommendedConcurrency").asInt(1);
+        if (advisedSize != status.path("recommendedChunkSize").asLong() || totalChunks < 1 || parallelism < 1) {
+            throw new IOException("unexpected advice: " + status);
+        }
+        if (index == 0) {
+            log.info("advised: {} bytes -> chunkSize {}, chunks {}, concurrency {}", totalSize, advisedSize,
+                    totalChunks, parallelism);
+        }
+        byte[] data = randomBytes((int) Math.min(advisedSize, totalSize));
+        try (ExecutorService executor = Executors.newFixedThreadPool(parallelism)) {
+            List<Future<JsonNode>> futures = new ArrayList<>();
+            for (int i = 0; i < totalChunks; i++) {
+                int chunk = i;
+                int length = (int) Math.min(advisedSize, totalSize - chunk * advisedSize);
+                futures.add(executor.submit(() -> checkApiResult(send(HttpRequest.newBuilder(URI.create(baseUrl
+                                + "/oss/uploadChunk/" + sessionId + "/" + fileMd5 + "/" + chunk))
+                        .header("X-Total-Chunks", String.valueOf(totalChunks))
+                        .PUT(HttpRequest.BodyPublishers.ofByteArray(data, 0, length))
+                        .build()))));
+            }
+            for (Future<JsonNode> future : futures) {
+                future.get();
+            }
+        }
+        // 续传：即使指定了不同的分片大小，也沿用会话首次选定的分片大小
+        init.put("chunkSize", advisedSize + 5 * 1024 * 1024);
+        JsonNode resumed = postJson("/oss/initChunkUpload", init).path("data");
+        if (resumed.path("chunkSize").asLong() != advisedSize || !resumed.path("isCompleted").asBoolean()) {
+            throw new IOException("resumed session changed chunk size: " + resumed);
+        }
+        Map<String, Object> complete = new LinkedHashMap<>();
+        complete.put("fileName", fileName);
+        complete.put("fileMd5", fileMd5);
+        complete.put("uploadSessionId", sessionId);
+        complete.put("totalChunks", totalChunks);
+        complete.put("bucketName", BUCKET);
+        postJson("/oss/completeChunkUpload", complete);
+        return totalSize;
+    }
+
+    private long abandonedChunkUpload(int index) throws Exception {
+        String sessionId = UUID.randomUUID().toString().replace("-", "");
+        String fileMd5 = UUID.randomUUID().toString().replace("-", "");
+        String fileName = "abandoned-" + index + ".bin";
+        long totalSize = (long) chunkSize * chunkCount;
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("fileName", fileName);
+        fields.put("fileMd5", fileMd5);
+        fields.put("uploadSessionId", sessionId);
+        fields.put("chunkNumber", "0");
+        fields.put("totalChunks", String.valueOf(chunkCount));
+        fields.put("chunkSize", String.valueOf(chunkSize));
+        fields.put("totalSize", String.valueOf(totalSize));
+        checkApiResult(sendMultipart("/oss/uploadChunk", fields, randomBytes(chunkSize), "0.chunk"));
+
+        // 不合并也不取消，等待后台任务清理该会话的分片
+        Map<String, Object> init = new LinkedHashMap<>();
+        init.put("fileName", fileName);
+        init.put("fileMd5", fileMd5);
+        init.put("totalSize", totalSize);
+        init.put("chunkSize", chunkSize);
+        init.put("uploadSessionId", sessionId);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!postJson("/oss/initChunkUpload", init).path("data").path("uploadedChunks").isEmpty()) {
+            if (System.nanoTime() > deadline) {
+                throw new IOException("abandoned session not swept: " + sessionId);
+            }
+            Thread.sleep(500);
+        }
+        return chunkSize;
+    }
+
+    private long batchUpload(int index) throws Exception {
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        for (int i = 0; i < batchFiles; i++) {
+            files.put("batch-" + index + "-" + i + ".bin", randomBytes(batchFileSize));
+        }
+        JsonNode result = checkApiResult(sendMultipart("/oss/uploadFiles", Map.of("bucketName", BUCKET), "files", files));
+        for (JsonNode file : result.get("data")) {
+            if (!"0000".equals(file.path("code").asText())) {
+                throw new IOException("batch file failed: " + file);
+            }
+        }
+        return (long) batchFiles * batchFileSize;
+    }
+
+    private long archiveDownload(int index) throws Exception {
+        List<String> objectNames = new ArrayList<>(archiveFiles);
+        for (int i = 0; i < archiveFiles; i++) {
+            objectNames.add(pickUploaded(index * archiveFiles + i));
+        }
+        // 重复的路径只打包一次
+        objectNames.add(objectNames.get(0));
+        int expected = new HashSet<>(objectNames).size();
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("bucketName", BUCKET);
+        payload.put("objectNames", objectNames);
+        payload.put("format", archiveFormat);
+        HttpResponse<InputStream> response = send(HttpRequest.newBuilder(URI.create(baseUrl + "/oss/downloadArchive"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(MAPPER.writeValueAsBytes(payload)))
+                .build());
+        if (!"zip".equals(archiveFormat)) {
+            return drain(response);
+        }
+        // 校验压缩包完整：条目数与去重后的请求一致
+        long total = 0;
+        int entries = 0;
+        try (ZipInputStream zip = new ZipInputStream(response.body())) {
+            byte[] buffer = new byte[64 * 1024];
+            while (zip.getNextEntry() != null) {
+                entries++;
+                int n;
+                while ((n = zip.read(buffer)) >= 0) {
+                    total += n;
+                }
+            }
+        }
+        if (entries != expected) {
+            throw new IOException("archive has " + entries + " entries, expected " + expected);
+        }
+        return total;
+    }
+
+    private long policyRollout(int index) throws Exception {
+        String bucketName = "policy-" + index + "-" + ThreadLocalRandom.current().nextInt(1_000_000);
+        checkApiResult(send(HttpRequest.newBuilder(URI.create(baseUrl + "/oss/createBucket?bucketName="
+                + bucketName)).GET().build()));
+        // 新建存储桶为只读策略：首次应用 public 模板写入，再次应用时策略未变化
+        String first = postJson("/oss/applyPolicyTemplates", Map.of("templateName", "public",
+                "bucketNames", List.of(bucketName))).path("data").path(0).path("status").asText();
+        String second = postJson("/oss/applyPolicyTemplates", Map.of("templateName", "public",
+                "bucketPattern", bucketName)).path("data").path(0).path("status").asText();
+        if (!"applied".equals(first) || !"unchanged".equals(second)) {
+            throw new IOException("unexpected rollout status: " + first + ", " + second);
+        }
+        return 0;
+    }
+
+    private long batchPresign(int index) throws Exception {
+        List<Map<String, Object>> objects = new ArrayList<>(presignObjects);
+        for (int i = 0; i < presignObjects; i++) {
+            objects.add(Map.of("bucketName", BUCKET, "objectName", "gallery/" + index + "/" + i + ".jpg"));
+        }
+        HttpResponse<InputStream> response = send(HttpRequest.newBuilder(URI.create(baseUrl + "/oss/getPresignedObjectUrls"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(MAPPER.writeValueAsBytes(Map.of("objects", objects))))
+                .build());
+        JsonNode result = checkApiResult(response);
+        for (JsonNode object : result.get("data")) {
+            if (object.path("url").isNull() || object.path("url").isMissingNode()) {
+                throw new IOException("presign failed: " + object);
+            }
+        }
+        return 0;
+    }
+
+    private long compressedRoundTrip(int index) throws Exception {
+        StringBuilder json = new StringBuilder(fileSize + 128).append('[');
+        for (int i = 0; json.length() < fileSize; i++) {
+            json.append("{\"id\":").append(i).append(",\"level\":\"INFO\",\"message\":\"request ")
+                    .append(ThreadLocalRandom.current().nextInt(1000)).append(" served\"},");
+        }
+        byte[] payload = json.append("{}]").toString().getBytes(StandardCharsets.UTF_8);
+        JsonNode result = checkApiResult(sendMultipart("/oss/uploadFile", Map.of("bucketName", BUCKET), "file",
+                Map.of("log-" + index + ".json", payload), "application/json"));
+        String url = result.get("data").asText();
+        URI download = URI.create(baseUrl + "/oss/downloadFile?bucketName=" + BUCKET + "&filePath=" + encode(url));
+
+        // 支持 gzip 的客户端收到压缩数据
+        HttpResponse<InputStream> gzip = send(HttpRequest.newBuilder(download).header("Accept-Encoding", "gzip").GET().build());
+        if (!"gzip".equals(gzip.headers().firstValue("Content-Encoding").orElse(null))) {
+            throw new IOException("expected gzip passthrough: " + gzip.headers().map());
+        }
+        byte[] compressed;
+        try (InputStream in = gzip.body()) {
+            compressed = in.readAllBytes();
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            if (!Arrays.equals(payload, in.readAllBytes())) {
+                throw new IOException("gzip passthrough content mismatch");
+            }
+        }
+        // 不支持的客户端收到解压后的数据
+        try (InputStream in = send(HttpRequest.newBuilder(download).header("Accept-Encoding", "identity").GET().build()).body()) {
+            if (!Arrays.equals(payload, in.readAllBytes())) {
+                throw new IOException("decompressed content mismatch");
+            }
+        }
+        // 范围下载按解压后的偏移
+        String objectName = url.substring((cdnPrefix + BUCKET).length());
+        int offset = payload.length / 3;
+        int length = Math.min(rangeSize, payload.length - offset);
+        try (InputStream in = send(HttpRequest.newBuilder(URI.create(baseUrl + "/oss/downloadFileChunk?bucketName="
+                + BUCKET + "&objectName=" + encode(objectName) + "&offset=" + offset + "&length=" + length)).GET().build()).body()) {
+            if (!Arrays.equals(Arrays.copyOfRange(payload, offset, offset + length), in.readAllBytes())) {
+                throw new IOException("ranged content mismatch");
+            }
+        }
+        if (index == 0) {
+            log.info("compress: {} bytes stored as {} bytes", payload.length, compressed.length);
+        }
+        return payload.length;
+    }
+
+    private long directUpload(int index) throws Exception {
+        boolean multipart = index % 2 == 1;
+        long size = multipart ? (long) chunkSize * chunkCount : fileSize;
+        Map<String, Object> init = new LinkedHashMap<>();
+        init.put("bucketName", BUCKET);
+        init.put("fileName", "direct-" + index + ".bin");
+        init.put("size", size);
+        init.put("contentType", "application/octet-stream");
+        init.put("partSize", chunkSize);
+        JsonNode grant = postJson("/oss/initDirectUpload", init).get("data");
+
+        Map<String, Object> complete = new LinkedHashMap<>();
+        complete.put("bucketName", BUCKET);
+        complete.put("objectName", grant.get("objectName").asText());
+        if (multipart) {
+            byte[] part = randomBytes(chunkSize);
+            List<Map<String, Object>> parts = new ArrayList<>();
+            JsonNode partUrls = grant.get("partUrls");
+            for (int i = 0; i < partUrls.size(); i++) {
+                HttpResponse<InputStream> response = send(HttpRequest.newBuilder(URI.create(partUrls.get(i).asText()))
+                        .PUT(HttpRequest.BodyPublishers.ofByteArray(part)).build());
+                drain(response);
+                parts.add(Map.of("partNumber", i + 1, "etag", response.headers().firstValue("ETag").orElseThrow()));
+            }
+            complete.put("uploadId", grant.get("uploadId").asText());
+            // 一半请求不回传分片，由服务端查询存储服务
+            if (index % 4 == 1) {
+                complete.put("parts", parts);
+            }
+        } else {
+            drain(send(HttpRequest.newBuilder(URI.create(grant.get("putUrl").asText()))
+                    .PUT(HttpRequest.BodyPublishers.ofByteArray(randomBytes(fileSize))).build()));
+        }
+        uploadedUrls.add(postJson("/oss/completeDirectUpload", complete).get("data").asText());
+        return size;
+    }
+
+    private long copyAndMove(int index) throws Exception {
+        byte[] payload = randomBytes(fileSize);
+        String objectName = multipartUpload(payload, "copy-" + index + ".bin").substring((cdnPrefix + BUCKET).length());
+        postJson("/oss/copyObject", Map.of("sourceBucketName", BUCKET, "sourceObjectName", objectName,
+                "bucketName", COPY_BUCKET));
+        String moved = postJson("/oss/moveObject", Map.of("sourceBucketName", COPY_BUCKET, "sourceObjectName", objectName,
+                "objectName", "/moved" + objectName)).get("data").asText();
+        try (InputStream in = send(HttpRequest.newBuilder(URI.create(baseUrl + "/oss/downloadFile?bucketName="
+                + COPY_BUCKET + "&filePath=" + encode(moved))).GET().build()).body()) {
+            if (!Arrays.equals(payload, in.readAllBytes())) {
+                throw new IOException("copied content mismatch: " + moved);
+            }
+        }
+        return payload.length * 2L;
+    }
+
+    private long migration(int index) throws Exception {
+        String prefix = "migrate-" + index + "-" + ThreadLocalRandom.current().nextInt(1_000_000) + "/";
+        // 源对象单次上传（ETag 为内容 MD5），超过分片拷贝阈值时目标为分片拷贝的复合 ETag
+        byte[] expected = randomBytes(fileSize);
+        for (int i = 0; i < batchFiles; i++) {
+            storageRouter.forBucket(BUCKET).putObject(BUCKET, "/" + prefix + i + ".bin",
+                    new ByteArrayInputStream(expected), expected.length, "application/octet-stream");
+        }
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("migrationId", prefix.substring(0, prefix.length() - 1));
+        request.put("sourceBucketName", BUCKET);
+        request.put("bucketName", COPY_BUCKET);
+        request.put("prefix", prefix);
+        request.put("targetPrefix", "migrated/" + prefix);
+        // 首次全部拷贝，重新提交全部跳过
+        JsonNode first = awaitMigration(postJson("/oss/migrateObjects", request).get("data"));
+        JsonNode second = awaitMigration(postJson("/oss/migrateObjects", request).get("data"));
+        // 目标替换为大小相同、写入更晚的无关对象，ETag 不同，移动时必须重新拷贝而不是直接删除源对象
+        String unrelated = multipartUpload(randomBytes(expected.length), prefix.replace('/', '-') + "unrelated.bin")
+                .substring((cdnPrefix + BUCKET).length());
+        postJson("/oss/copyObject", Map.of("sourceBucketName", BUCKET, "sourceObjectName", unrelated,
+                "bucketName", COPY_BUCKET, "objectName", "/migrated/" + prefix + "0.bin"));
+        request.put("move", true);
+        JsonNode third = awaitMigration(postJson("/oss/migrateObjects", request).get("data"));
+        if (first.get("copied").asInt() != batchFiles || second.get("skipped").asInt() != batchFiles
+                || third.get("copied").asInt() != 1 || third.get("skipped").asInt() != batchFiles - 1
+                || !"completed".equals(third.get("state").asText())) {
+            throw new IOException("unexpected migration progress: " + first + ", " + second + ", " + third);
+        }
+        try (InputStream in = send(HttpRequest.newBuilder(URI.create(baseUrl + "/oss/downloadFile?bucketName="
+                + COPY_BUCKET + "&filePath=" + encode("/migrated/" + prefix + "0.bin"))).GET().build()).body()) {
+            if (!Arrays.equals(expected, in.readAllBytes())) {
+                throw new IOException("moved object overwritten by unrelated target: " + prefix + "0.bin");
+            }
+        }
+        JsonNode remaining = checkApiResult(send(HttpRequest.newBuilder(URI.create(baseUrl
+                + "/oss/listFilesByBucketName?bucketName=" + BUCKET + "&prefix=" + prefix + "&size=1000")).GET().build())).get("data");
+        if (!remaining.isEmpty()) {
+            throw new IOException("source prefix not empty after move: " + remaining);
+        }
+        return first.get("bytes").asLong();
+    }
+
+    private long parallelDownload(int index) throws Exception {
+        byte[] payload = randomBytes(parallelFileSize);
+        String url = multipartUpload(payload, "parallel-" + index + ".bin");
+        try (InputStream in = send(HttpRequest.newBuilder(URI.create(baseUrl + "/oss/downloadFile?bucketName="
+                + BUCKET + "&filePath=" + encode(url))).GET().build()).body()) {
+            if (!Arrays.equals(payload, in.readAllBytes())) {
+                throw new IOException("parallel download content mismatch: " + url);
+            }
+        }
+        return payload.length;
+    }
+
+    private long sequentialDownload(int index) throws Exception {
+        byte[] payload = randomBytes(fileSize);
+        String objectName = multipartUpload(payload, "sequential-" + index + ".bin").substring((cdnPrefix + BUCKET).length());
+        ByteArrayOutputStream received = new ByteArrayOutputStream(fileSize);
+        for (long offset = 0; offset < fileSize; offset += rangeSize) {
+            long length = Math.min(rangeSize, fileSize - offset);
+            try (InputStream in = send(HttpRequest.newBuilder(URI.create(baseUrl
+                    + "/oss/downloadFileChunk?bucketName=" + BUCKET + "&objectName=" + encode(objectName)
+                    + "&offset=" + offset + "&length=" + length)).GET().build()).body()) {
+                in.transferTo(received);
+            }
+        }
+        if (!Arrays.equals(payload, received.toByteArray())) {
+            throw new IOException("sequential download content mismatch: " + objectName);
+        }
+        return payload.length;
+    }
+
+    private long dedupRoundTrip(int index) throws Exception {
+        byte[] base = randomBytes(fileSize);
+        // 新版本：在中间插入 100 字节，只有插入点附近的块与旧版本不同
+        byte[] inserted = randomBytes(100);
+        byte[] edited = new byte[base.length + inserted.length];
+        int middle = base.length / 2;
+        System.arraycopy(base, 0, edited, 0, middle);
+        System.arraycopy(inserted, 0, edited, middle, inserted.length);
+        System.arraycopy(base, middle, edited, middle + inserted.length, base.length - middle);
+        String first = dedupUpload(base, "dedup-" + index + ".bin");
+        String second = dedupUpload(edited, "dedup-" + index + "-v2.bin");
+        String copy = postJson("/oss/copyObject", Map.of("sourceBucketName", DEDUP_BUCKET, "sourceObjectName", first,
+                "objectName", "/copied" + first)).get("data").asText().substring((cdnPrefix + DEDUP_BUCKET).length());
+        expectDedupContent(second, edited);
+        JsonNode listed = checkApiResult(send(HttpRequest.newBuilder(URI.create(baseUrl
+                + "/oss/listFilesByBucketName?bucketName=" + DEDUP_BUCKET + "&size=100")).GET().build())).get("data");
+        for (JsonNode item : listed) {
+            if (item.asText().startsWith(".dedup/")) {
+                throw new IOException("dedup internal objects listed: " + listed);
+            }
+        }
+        removeDedup(first);
+        expectDedupContent(copy, base);
+        int length = Math.min(rangeSize, edited.length);
+        long offset = ThreadLocalRandom.current().nextLong(edited.length - length + 1);
+        try (InputStream in = send(HttpRequest.newBuilder(URI.create(baseUrl
+                + "/oss/downloadFileChunk?bucketName=" + DEDUP_BUCKET + "&objectName=" + encode(second)
+                + "&offset=" + offset + "&length=" + length)).GET().build()).body()) {
+            if (!Arrays.equals(Arrays.copyOfRange(edited, (int) offset, (int) offset + length), in.readAllBytes())) {
+                throw new IOException("dedup range content mismatch: " + second);
+            }
+        }
+        // 内部对象不能通过接口删除或读取
+        for (HttpRequest internal : List.of(
+                HttpRequest.newBuilder(URI.create(baseUrl + "/oss/removeFile/" + DEDUP_BUCKET + "?filePath="
+                        + encode("/.dedup/refs/00"))).DELETE().build(),
+                HttpRequest.newBuilder(URI.create(baseUrl + "/oss/downloadFile?bucketName=" + DEDUP_BUCKET
+                        + "&filePath=" + encode("/a/../.dedup/chunks/00/x.bin"))).GET().build())) {
+            JsonNode result;
+            try (InputStream in = send(internal).body()) {
+                result = MAPPER.readTree(in);
+            }
+            if (!"1007".equals(result.path("code").asText())) {
+                throw new IOException("internal object not rejected: " + internal.uri() + " -> " + result);
+            }
+        }
+        // 普通对象覆盖去重文件，被覆盖清单的块引用应释放
+        byte[] plain = randomBytes(1024);
+        String plainSource = multipartUpload(plain, "dedup-plain-" + index + ".bin").substring((cdnPrefix + BUCKET).length());
+        postJson("/oss/copyObject", Map.of("sourceBucketName", BUCKET, "sourceObjectName", plainSource,
+                "bucketName", DEDUP_BUCKET, "objectName", copy));
+        expectDedupContent(copy, plain);
+        removeDedup(copy);
+        removeDedup(second);
+        return base.length + edited.length;
+    }
+
+    private String dedupUpload(byte[] payload, String fileName) throws Exception {
+        JsonNode result = checkApiResult(sendMultipart("/oss/uploadFile", Map.of("bucketName", DEDUP_BUCKET),
+                payload, fileName));
+        return result.get("data").asText().substring((cdnPrefix + DEDUP_BUCKET).length());
+    }
+
+    private void expectDedupContent(String objectName, byte[] expected) throws Exception {
+        try (InputStream in = send(HttpRequest.newBuilder(URI.create(baseUrl + "/oss/downloadFile?bucketName="
+                + DEDUP_BUCKET + "&filePath=" + encode(objectName))).GET().build()).body()) {
+            if (!Arrays.equals(expected, in.readAllBytes())) {
+                throw new IOException("dedup content mismatch: " + objectName);
+            }
+        }
+    }
+
+    private void removeDedup(String objectName) throws Exception {
+        drain(send(HttpRequest.newBuilder(URI.create(baseUrl + "/oss/removeFile/" + DEDUP_BUCKET + "?filePath="
+                + encode(objectName))).DELETE().build()));
+    }
+
+    /**
+     * 全部去重文件删除后块与引用计数应已清空
+     */
+    private void checkParallelDownloaded() throws IOException {
+        // 本地存储使用零拷贝，不走并行范围下载
+        if (!"minio".equals(System.getProperty("load.backend", "minio"))) {
+            return;
+        }
+        Counter parallel = meterRegistry.find("oss.download.ranged").tag("mode", "parallel").counter();
+        if (parallel == null || parallel.count() == 0) {
+            throw new IOException("no parallel ranged download happened, object size: " + parallelFileSize);
+        }
+    }
+
+    private void checkDedupReleased() throws Exception {
+        for (String prefix : List.of(".dedup/chunks/", ".dedup/refs/")) {
+            List<?> remaining = storageRouter.forBucket(DEDUP_BUCKET).listObjects(DEDUP_BUCKET, prefix, true, 0)
+                    .stream().filter(item -> !item.dir()).toList();
+            if (!remaining.isEmpty()) {
+                throw new IOException("dedup store not released under " + prefix + ": " + remaining);
+            }
+        }
+    }
+
+    private JsonNode awaitMigration(JsonNode status) throws Exception {
+        while (status.path("endTime").isNull() || status.path("endTime").isMissingNode()) {
+            Thread.sleep(20);
+            status = checkApiResult(send(HttpRequest.newBuilder(URI.create(baseUrl + "/oss/getMigrationStatus?migrationId="
+                    + encode(status.get("migrationId").asText()))).GET().build())).get("data");
+        }
+        return status;
+    }
+
+    // ==================== 执行与统计 ====================
+
+    record Result(String scenario, int operations, int errors, long p50Nanos, long p99Nanos, long p999Nanos,
+                  double seconds, long bytes) {
+        double opsPerSecond() {
+            return operations / seconds;
+        }
+
+        double megabytesPerSecond() {
+            return bytes / 1024.0 / 1024.0 / seconds;
+        }
+    }
+
+    private Result run(String scenario, int total, Operation operation) throws InterruptedException {
+        log.info("running scenario [{}]: {} operations, concurrency {}", scenario, total, concurrency);
+        long[] latencies = new long[total];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        AtomicLong bytes = new AtomicLong();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        for (int w = 0; w < concurrency; w++) {
+            workers.execute(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < total) {
+                    long begin = System.nanoTime();
+                    try {
+                        bytes.addAndGet(operation.execute(i));
+                        latencies[completed.getAndIncrement()] = System.nanoTime() - begin;
+                    } catch (Exception e) {
+                        if (errors.incrementAndGet() <= 5) {
+                            log.warn("scenario [{}] request {} failed: {}", scenario, i, e.toString());
+                        }
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.HOURS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long[] ok = Arrays.copyOf(latencies, completed.get());
+        Arrays.sort(ok);
+        return new Result(scenario, ok.length, errors.get(), percentile(ok, 0.50), percentile(ok, 0.99),
+                percentile(ok, 0.999), seconds, bytes.get());
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    /**
+     * 输出对冲、负载均衡、容错相关的计数器
+     */
+    private static void printCounters(MeterRegistry meterRegistry) {
+        for (Counter counter : meterRegistry.find("oss.hedge.requests").counters()) {
+            log.info("{} {} = {}", counter.getId().getName(), counter.getId().getTags(), (long) counter.count());
+        }
+        for (Counter counter : meterRegistry.find("oss.balancer.ejections").counters()) {
+            log.info("{} {} = {}", counter.getId().getName(), counter.getId().getTags(), (long) counter.count());
+        }
+        for (Counter counter : meterRegistry.find("oss.bulkhead.rejected").counters()) {
+            log.info("{} {} = {}", counter.getId().getName(), counter.getId().getTags(), (long) counter.count());
+        }
+        for (Gauge gauge : meterRegistry.find("oss.bulkhead.limit").gauges()) {
+            log.info("{} {} = {}", gauge.getId().getName(), gauge.getId().getTags(), (long) gauge.value());
+        }
+        for (Counter counter : meterRegistry.find("oss.migration.objects").counters()) {
+            log.info("{} {} = {}", counter.getId().getName(), counter.getId().getTags(), (long) counter.count());
+        }
+        for (Counter counter : meterRegistry.find("oss.download.ranged").counters()) {
+            log.info("{} {} = {}", counter.getId().getName(), counter.getId().getTags(), (long) counter.count());
+        }
+        for (Gauge gauge : meterRegistry.find("oss.download.ranged.buffer").gauges()) {
+            log.info("{} {} = {}", gauge.getId().getName(), gauge.getId().getTags(), (long) gauge.value());
+        }
+        for (Counter counter : meterRegistry.find("oss.download.readahead").counters()) {
+            log.info("{} {} = {}", counter.getId().getName(), counter.getId().getTags(), (long) counter.count());
+        }
+        for (Counter counter : meterRegistry.find("oss.download.readahead.dropped").counters()) {
+            log.info("{} {} = {}", counter.getId().getName(), counter.getId().getTags(), (long) counter.count());
+        }
+        for (Counter counter : meterRegistry.find("oss.dedup.bytes").counters()) {
+            log.info("{} {} = {}", counter.getId().getName(), counter.getId().getTags(), (long) counter.count());
+        }
+        for (FunctionCounter counter : meterRegistry.find("oss.bucket.egress.bytes").functionCounters()) {
+            log.info("{} {} = {}", counter.getId().getName(), counter.getId().getTags(), (long) counter.count());
+        }
+        for (Gauge gauge : meterRegistry.find("oss.bandwidth.rate").gauges()) {
+            log.info("{} {} = {}", gauge.getId().getName(), gauge.getId().getTags(), (long) gauge.value());
+        }
+    }
+
+    private static void printResults(List<Result> results) {
+        StringBuilder sb = new StringBuilder("\n");
+        sb.append(String.format("%-10s %8s %7s %10s %10s %10s %10s %10s%n",
+                "scenario", "ops", "errors", "p50(ms)", "p99(ms)", "p999(ms)", "ops/s", "MB/s"));
+        for (Result r : results) {
+            sb.append(String.format("%-10s %8d %7d %10.2f %10.2f %10.2f %10.1f %10.2f%n",
+                    r.scenario(), r.operations(), r.errors(), r.p50Nanos() / 1e6, r.p99Nanos() / 1e6,
+                    r.p999Nanos() / 1e6, r.opsPerSecond(), r.megabytesPerSecond()));
+        }
+        log.info(sb.toString());
+    }
+
+    private static void writeResults(List<Result> results) throws IOException {
+        Path file = Path.of(System.getProperty("load.resultsFile", "build/results/loadtest/results.json"));
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Result r : results) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("scenario", r.scenario());
+            row.put("operations", r.operations());
+            row.put("errors", r.errors());
+            row.put("p50Ms", r.p50Nanos() / 1e6);
+            row.put("p99Ms", r.p99Nanos() / 1e6);
+            row.put("p999Ms", r.p999Nanos() / 1e6);
+            row.put("opsPerSecond", r.opsPerSecond());
+            row.put("mbPerSecond", r.megabytesPerSecond());
+            rows.add(row);
+        }
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), rows);
+        log.info("results written to {}", file.toAbsolutePath());
+    }
+
+    // ==================== HTTP 工具 ====================
+
+    private String multipartUpload(byte[] payload, String fileName) throws Exception {
+        JsonNode result = checkApiResult(sendMultipart("/oss/uploadFile", Map.of("bucketName", BUCKET), payload, fileName));
+        return result.get("data").asText();
+    }
+
+    private HttpResponse<InputStream> sendMultipart(String path, Map<String, String> fields, byte[] file,
+                                                    String fileName) throws Exception {
+        return sendMultipart(path, fields, "file", Map.of(fileName, file));
+    }
+
+    private HttpResponse<InputStream> sendMultipart(String path, Map<String, String> fields, String partName,
+                                                    Map<String, byte[]> files) throws Exception {
+        return sendMultipart(path, fields, partName, files, "application/octet-stream");
+    }
+
+    private HttpResponse<InputStream> sendMultipart(String path, Map<String, String> fields, String partName,
+                                                    Map<String, byte[]> files, String contentType) throws Exception {
+        String boundary = "----loadtest" + UUID.randomUUID().toString().replace("-", "");
+        ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            body.write(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + field.getKey()
+                    + "\"\r\n\r\n" + field.getValue() + "\r\n").getBytes(StandardCharsets.UTF_8));
+        }
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            body.write(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + partName + "\"; filename=\""
+                    + file.getKey() + "\"\r\nContent-Type: " + contentType + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+            body.write(file.getValue());
+            body.write("\r\n".getBytes(StandardCharsets.UTF_8));
+        }
+        body.write(("--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build());
+    }
+
+    private JsonNode postJson(String path, Map<String, Object> payload) throws Exception {
+        return checkApiResult(send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(MAPPER.writeValueAsBytes(payload)))
+                .build()));
+    }
+
+    private HttpResponse<InputStream> send(HttpRequest request) throws Exception {
+        HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() >= 400) {
+            drain(response);
+            throw new IOException("HTTP " + response.statusCode() + " " + request.uri());
+        }
+        return response;
+    }
+
+    private static JsonNode checkApiResult(HttpResponse<InputStream> response) throws IOException {
+        try (InputStream in = response.body()) {
+            JsonNode node = MAPPER.readTree(in);
+            if (!"0000".equals(node.path("code").asText())) {
+                throw new IOException("API error: " + node);
+            }
+            return node;
+        }
+    }
+
+    private static long drain(HttpResponse<InputStream> response) throws IOException {
+        try (InputStream in = response.body()) {
+            byte[] buffer = new byte[64 * 1024];
+            long total = 0;
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                total += n;
+            }
+            return total;
+        }
+    }
+
+    private String pickUploaded(int index) throws IOException {
+        if (uploadedUrls.isEmpty()) {
+            // 下载类场景单独运行时先准备一个对象
+            try {
+                upload(-1);
+            } catch (Exception e) {
+                throw new IOException("prepare object failed", e);
+            }
+        }
+        return uploadedUrls.get(Math.floorMod(index, uploadedUrls.size()));
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] data = new byte[size];
+        ThreadLocalRandom.current().nextBytes(data);
+        return data;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static int intProperty(String name, int defaultValue) {
+        return Integer.parseInt(System.getProperty(name, String.valueOf(defaultValue)));
+    }
+
+    private static long longProperty(String name, long defaultValue) {
+        return Long.parseLong(System.getProperty(name, String.valueOf(defaultValue)));
+    }
+}
@@ -0,0 +1,792 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.loadtest;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 进程内 S3 兼容服务，仅实现本服务用到的 MinIO 接口子集，用于离线压测
+ * <p>支持：存储桶增删查、存储桶策略、对象 PUT/GET(Range)/HEAD/DELETE、批量删除、ListObjects V1/V2、
+ * 服务端复制、分片上传（含 UploadPartCopy）。不做签名校验。</p>
+ * <p>可注入固定延迟 + 随机抖动，以及单连接带宽上限，用于模拟远端 MinIO 集群</p>
+ * @author luckykuang
+ * @date 2026/10/19 15:02
+ */
+@Slf4j
+public class S3StandIn implements AutoCloseable {
+
+    private static final String XML_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n";
+    private static final String NS = " xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\"";
+    private static final DateTimeFormatter ISO = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+    private static final Pattern PART_PATTERN = Pattern.compile("<PartNumber>(\\d+)</PartNumber>");
+    private static final Pattern KEY_PATTERN = Pattern.compile("<Key>(.*?)</Key>");
+    private static final int IO_BLOCK = 64 * 1024;
+    private static final String HEALTH_PATH = "/minio/health/live";
+
+    private final HttpServer server;
+    private final Path diskRoot;
+    private final long latencyMs;
+    private final long jitterMs;
+    private final long bandwidthBytesPerSecond;
+
+    private final Map<String, Bucket> buckets;
+    private final Map<String, Upload> uploads;
+    private final AtomicLong uploadIds;
+    private final AtomicLong requests = new AtomicLong();
+
+    /**
+     * @param diskRoot 对象数据存放目录，为 null 时存放在内存
+     * @param latencyMs 每个请求注入的固定延迟(ms)
+     * @param jitterMs 额外的随机延迟上限(ms)
+     * @param bandwidthBytesPerSecond 单连接带宽上限，<=0 表示不限速
+     */
+    public S3StandIn(Path diskRoot, long latencyMs, long jitterMs, long bandwidthBytesPerSecond) throws IOException {
+        this(diskRoot, latencyMs, jitterMs, bandwidthBytesPerSecond,
+                new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), new AtomicLong());
+    }
+
+    private S3StandIn(Path diskRoot, long latencyMs, long jitterMs, long bandwidthBytesPerSecond,
+                      Map<String, Bucket> buckets, Map<String, Upload> uploads, AtomicLong uploadIds) throws IOException {
+        this.buckets = buckets;
+        this.uploads = uploads;
+        this.uploadIds = uploadIds;
+        this.diskRoot = diskRoot;
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+        this.bandwidthBytesPerSecond = bandwidthBytesPerSecond;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        this.server.createContext("/", this::handle);
+    }
+
+    /**
+     * 创建共享同一份数据的另一个节点，模拟多节点集群
+     * @param latencyMs 该节点注入的固定延迟(ms)
+     * @param jitterMs 该节点额外的随机延迟上限(ms)
+     * @return 未启动的节点
+     */
+    public S3StandIn replica(long latencyMs, long jitterMs) throws IOException {
+        return new S3StandIn(diskRoot, latencyMs, jitterMs, bandwidthBytesPerSecond, buckets, uploads, uploadIds);
+    }
+
+    public S3StandIn start() {
+        server.start();
+        log.info("S3 stand-in listening on {} (storage: {}, latency: {}ms+{}ms, bandwidth: {} B/s)",
+                endpoint(), diskRoot == null ? "memory" : diskRoot, latencyMs, jitterMs, bandwidthBytesPerSecond);
+        return this;
+    }
+
+    public String endpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long requestCount() {
+        return requests.get();
+    }
+
+    /**
+     * 直接创建存储桶，不经过 HTTP
+     */
+    public void createBucket(String name) {
+        buckets.computeIfAbsent(name, n -> new Bucket());
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    // ==================== 数据结构 ====================
+
+    private static final class Bucket {
+        final ConcurrentSkipListMap<String, StoredObject> objects = new ConcurrentSkipListMap<>();
+        volatile String policy = "";
+        volatile String lifecycle = "";
+    }
+
+    private record StoredObject(long size, String etag, Instant lastModified, Map<String, String> headers,
+                                byte[] data, Path file) {
+    }
+
+    private static final class Upload {
+        final String bucket;
+        final String key;
+        final Map<String, String> headers;
+        final Map<Integer, byte[]> parts = new ConcurrentSkipListMap<>();
+
+        Upload(String bucket, String key, Map<String, String> headers) {
+            this.bucket = bucket;
+            this.key = key;
+            this.headers = headers;
+        }
+    }
+
+    // ==================== 请求分发 ====================
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try (exchange) {
+            injectLatency();
+            String rawPath = exchange.getRequestURI().getRawPath();
+            if (HEALTH_PATH.equals(rawPath)) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            String path = rawPath.startsWith("/") ? rawPath.substring(1) : rawPath;
+            int slash = path.indexOf('/');
+            String bucket = decode(slash == -1 ? path : path.substring(0, slash));
+            String key = slash == -1 ? "" : stripLeadingSlashes(decode(path.substring(slash + 1)));
+            String method = exchange.getRequestMethod();
+
+            if (bucket.isEmpty()) {
+                listBuckets(exchange);
+            } else if (key.isEmpty()) {
+                handleBucket(exchange, method, bucket, query);
+            } else {
+                handleObject(exchange, method, bucket, key, query);
+            }
+        } catch (Exception e) {
+            log.warn("S3 stand-in request failed: {} {}", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+            try {
+                sendError(exchange, 500, "InternalError", String.valueOf(e.getMessage()));
+            } catch (Exception ignored) {
+                // 响应头可能已发送
+            }
+        }
+    }
+
+    private void handleBucket(HttpExchange exchange, String method, String name, Map<String, String> query) throws IOException {
+        Bucket bucket = buckets.get(name);
+        switch (method) {
+            case "HEAD" -> {
+                if (bucket == null) {
+                    sendEmpty(exchange, 404);
+                } else {
+                    sendEmpty(exchange, 200);
+                }
+                return;
+            }
+            case "PUT" -> {
+                if (query.containsKey("policy")) {
+                    if (bucket == null) {
+                        sendError(exchange, 404, "NoSuchBucket", name);
+                        return;
+                    }
+                    bucket.policy = new String(readBody(exchange), StandardCharsets.UTF_8);
+                    sendEmpty(exchange, 204);
+                    return;
+                }
+                if (query.containsKey("lifecycle")) {
+                    String lifecycle = new String(readBody(exchange), StandardCharsets.UTF_8);
+                    if (bucket != null) {
+                        bucket.lifecycle = lifecycle;
+                    }
+                    sendEmpty(exchange, 200);
+                    return;
+                }
+                readBody(exchange);
+                if (buckets.putIfAbsent(name, new Bucket()) != null) {
+                    sendError(exchange, 409, "BucketAlreadyOwnedByYou", name);
+                } else {
+                    sendEmpty(exchange, 200);
+                }
+                return;
+            }
+            case "DELETE" -> {
+                if (query.containsKey("policy")) {
+                    if (bucket != null) {
+                        bucket.policy = "";
+                    }
+                    sendEmpty(exchange, 204);
+                    return;
+                }
+                if (bucket != null && !bucket.objects.isEmpty()) {
+                    sendError(exchange, 409, "BucketNotEmpty", name);
+                    return;
+                }
+                buckets.remove(name);
+                sendEmpty(exchange, 204);
+                return;
+            }
+            default -> {
+            }
+        }
+        if (query.containsKey("location")) {
+            sendXml(exchange, 200, "<LocationConstraint" + NS + "></LocationConstraint>");
+            return;
+        }
+        if (bucket == null) {
+            sendError(exchange, 404, "NoSuchBucket", name);
+            return;
+        }
+        if ("POST".equals(method) && query.containsKey("delete")) {
+            deleteObjects(exchange, bucket);
+        } else if (query.containsKey("lifecycle")) {
+            if (bucket.lifecycle.isEmpty()) {
+                sendError(exchange, 404, "NoSuchLifecycleConfiguration", name);
+            } else {
+                sendXml(exchange, 200, bucket.lifecycle);
+            }
+        } else if (query.containsKey("policy")) {
+            if (bucket.policy.isEmpty()) {
+                sendError(exchange, 404, "NoSuchBucketPolicy", name);
+            } else {
+                sendBytes(exchange, 200, "application/json", bucket.policy.getBytes(StandardCharsets.UTF_8));
+            }
+        } else {
+            listObjects(exchange, name, bucket, query);
+        }
+    }
+
+    private void handleObject(HttpExchange exchange, String method, String bucketName, String key,
+                              Map<String, String> query) throws Exception {
+        Bucket bucket = buckets.get(bucketName);
+        if (bucket == null) {
+            readBody(exchange);
+            sendError(exchange, 404, "NoSuchBucket", bucketName);
+            return;
+        }
+        switch (method) {
+            case "PUT" -> {
+                if (query.containsKey("uploadId")) {
+                    uploadPart(exchange, query);
+                } else if (exchange.getRequestHeaders().containsKey("x-amz-copy-source")) {
+                    copyObject(exchange, bucketName, bucket, key);
+                } else {
+                    byte[] body = readBody(exchange);
+                    StoredObject stored = store(bucketName, key, body, requestHeaders(exchange));
+                    bucket.objects.put(key, stored);
+                    exchange.getResponseHeaders().set("ETag", quote(stored.etag()));
+                    sendEmpty(exchange, 200);
+                }
+            }
+            case "POST" -> {
+                if (query.containsKey("uploads")) {
+                    readBody(exchange);
+                    String uploadId = "upload-" + uploadIds.incrementAndGet();
+                    uploads.put(uploadId, new Upload(bucketName, key, requestHeaders(exchange)));
+                    sendXml(exchange, 200, "<InitiateMultipartUploadResult" + NS + "><Bucket>" + xml(bucketName)
+                            + "</Bucket><Key>" + xml(key) + "</Key><UploadId>" + uploadId
+                            + "</UploadId></InitiateMultipartUploadResult>");
+                } else if (query.containsKey("uploadId")) {
+                    completeUpload(exchange, bucket, query.get("uploadId"));
+                } else {
+                    sendError(exchange, 400, "InvalidRequest", "unsupported POST");
+                }
+            }
+            case "DELETE" -> {
+                if (query.containsKey("uploadId")) {
+                    uploads.remove(query.get("uploadId"));
+                } else {
+                    StoredObject removed = bucket.objects.remove(key);
+                    if (removed != null && removed.file() != null) {
+                        Files.deleteIfExists(removed.file());
+                    }
+                }
+                sendEmpty(exchange, 204);
+            }
+            case "HEAD" -> {
+                StoredObject object = bucket.objects.get(key);
+                if (object == null) {
+                    sendEmpty(exchange, 404);
+                    return;
+                }
+                writeObjectHeaders(exchange, object);
+                exchange.getResponseHeaders().set("Content-Length", String.valueOf(object.size()));
+                exchange.sendResponseHeaders(200, -1);
+            }
+            case "GET" -> {
+                if (query.containsKey("uploadId")) {
+                    listParts(exchange, bucketName, key, query);
+                } else {
+                    getObject(exchange, bucket, key);
+                }
+            }
+            default -> sendError(exchange, 405, "MethodNotAllowed", method);
+        }
+    }
+
+    // ==================== 存储桶操作 ====================
+
+    private void listBuckets(HttpExchange exchange) throws IOException {
+        StringBuilder sb = new StringBuilder("<ListAllMyBucketsResult" + NS + "><Owner><ID>standin</ID>"
+                + "<DisplayName>standin</DisplayName></Owner><Buckets>");
+        for (String name : new TreeSet<>(buckets.keySet())) {
+            sb.append("<Bucket><Name>").append(xml(name)).append("</Name><CreationDate>")
+                    .append(ISO.format(Instant.EPOCH)).append("</CreationDate></Bucket>");
+        }
+        sb.append("</Buckets></ListAllMyBucketsResult>");
+        sendXml(exchange, 200, sb.toString());
+    }
+
+    private void listObjects(HttpExchange exchange, String name, Bucket bucket, Map<String, String> query) throws IOException {
+        boolean v2 = "2".equals(query.get("list-type"));
+        String prefix = query.getOrDefault("prefix", "");
+        String delimiter = query.getOrDefault("delimiter", "");
+        int maxKeys = Integer.parseInt(query.getOrDefault("max-keys", "1000"));
+        String after = v2 ? query.getOrDefault("continuation-token", query.getOrDefault("start-after", ""))
+                : query.getOrDefault("marker", "");
+
+        NavigableMap<String, StoredObject> view = after.isEmpty() ? bucket.objects : bucket.objects.tailMap(after, false);
+        List<String> contents = new ArrayList<>();
+        Set<String> commonPrefixes = new LinkedHashSet<>();
+        String lastKey = null;
+        boolean truncated = false;
+        for (String key : view.keySet()) {
+            if (!key.startsWith(prefix)) {
+                if (key.compareTo(prefix) > 0) {
+                    break;
+                }
+                continue;
+            }
+            if (contents.size() + commonPrefixes.size() >= maxKeys) {
+                truncated = true;
+                break;
+            }
+            if (!delimiter.isEmpty()) {
+                int idx = key.indexOf(delimiter, prefix.length());
+                if (idx >= 0) {
+                    String common = key.substring(0, idx + delimiter.length());
+                    if (common.compareTo(after) > 0) {
+                        commonPrefixes.add(common);
+                    }
+                    lastKey = key;
+                    continue;
+                }
+            }
+            contents.add(key);
+            lastKey = key;
+        }
+
+        StringBuilder sb = new StringBuilder("<ListBucketResult" + NS + "><Name>").append(xml(name)).append("</Name>")
+                .append("<Prefix>").append(xml(prefix)).append("</Prefix>")
+                .append("<MaxKeys>").append(maxKeys).append("</MaxKeys>")
+                .append("<IsTruncated>").append(truncated).append("</IsTruncated>");
+        if (!delimiter.isEmpty()) {
+            sb.append("<Delimiter>").append(xml(delimiter)).append("</Delimiter>");
+        }
+        if (v2) {
+            sb.append("<KeyCount>").append(contents.size() + commonPrefixes.size()).append("</KeyCount>");
+            if (truncated && lastKey != null) {
+                sb.append("<NextContinuationToken>").append(xml(lastKey)).append("</NextContinuationToken>");
+            }
+        } else if (truncated && lastKey != null) {
+            sb.append("<NextMarker>").append(xml(lastKey)).append("</NextMarker>");
+        }
+        for (String key : contents) {
+            StoredObject object = bucket.objects.get(key);
+            if (object == null) {
+                continue;
+            }
+            sb.append("<Contents><Key>").append(xml(key)).append("</Key>")
+                    .append("<LastModified>").append(ISO.format(object.lastModified())).append("</LastModified>")
+                    .append("<ETag>").append(xml(quote(object.etag()))).append("</ETag>")
+                    .append("<Size>").append(object.size()).append("</Size>")
+                    .append("<StorageClass>STANDARD</StorageClass></Contents>");
+        }
+        for (String common : commonPrefixes) {
+            sb.append("<CommonPrefixes><Prefix>").append(xml(common)).append("</Prefix></CommonPrefixes>");
+        }
+        sb.append("</ListBucketResult>");
+        sendXml(exchange, 200, sb.toString());
+    }
+
+    private void deleteObjects(HttpExchange exchange, Bucket bucket) throws IOException {
+        String body = new String(readBody(exchange), StandardCharsets.UTF_8);
+        Matcher matcher = KEY_PATTERN.matcher(body);
+        StringBuilder sb = new StringBuilder("<DeleteResult" + NS + ">");
+        boolean quiet = body.contains("<Quiet>true</Quiet>");
+        while (matcher.find()) {
+            String key = unxml(matcher.group(1));
+            StoredObject removed = bucket.objects.remove(key);
+            if (removed != null && removed.file() != null) {
+                Files.deleteIfExists(removed.file());
+            }
+            if (!quiet) {
+                sb.append("<Deleted><Key>").append(xml(key)).append("</Key></Deleted>");
+            }
+        }
+        sb.append("</DeleteResult>");
+        sendXml(exchange, 200, sb.toString());
+    }
+
+    // ==================== 对象操作 ====================
+
+    private void getObject(HttpExchange exchange, Bucket bucket, String key) throws IOException {
+        StoredObject object = bucket.objects.get(key);
+        if (object == null) {
+            sendError(exchange, 404, "NoSuchKey", key);
+            return;
+        }
+        long start = 0;
+        long end = object.size() - 1;
+        int status = 200;
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        if (range != null && range.startsWith("bytes=")) {
+            String[] bounds = range.substring(6).split("-", 2);
+            if (!bounds[0].isEmpty()) {
+                start = Long.parseLong(bounds[0]);
+                if (bounds.length > 1 && !bounds[1].isEmpty()) {
+                    end = Math.min(end, Long.parseLong(bounds[1]));
+                }
+            } else if (bounds.length > 1) {
+                start = Math.max(0, object.size() - Long.parseLong(bounds[1]));
+            }
+            if (start > end || start >= object.size()) {
+                sendError(exchange, 416, "InvalidRange", range);
+                return;
+            }
+            status = 206;
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + object.size());
+        }
+        writeObjectHeaders(exchange, object);
+        long length = end - start + 1;
+        exchange.sendResponseHeaders(status, length == 0 ? -1 : length);
+        try (InputStream in = open(object, start, length); OutputStream out = exchange.getResponseBody()) {
+            copyThrottled(in, out, length);
+        }
+    }
+
+    private void copyObject(HttpExchange exchange, String bucketName, Bucket bucket, String key) throws IOException {
+        readBody(exchange);
+        StoredObject source = resolveCopySource(exchange);
+        if (source == null) {
+            sendError(exchange, 404, "NoSuchKey", exchange.getRequestHeaders().getFirst("x-amz-copy-source"));
+            return;
+        }
+        Map<String, String> headers = "REPLACE".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("x-amz-metadata-directive"))
+                ? requestHeaders(exchange) : source.headers();
+        StoredObject copy = store(bucketName, key, readAll(source), headers);
+        bucket.objects.put(key, copy);
+        sendXml(exchange, 200, "<CopyObjectResult" + NS + "><LastModified>" + ISO.format(copy.lastModified())
+                + "</LastModified><ETag>" + xml(quote(copy.etag())) + "</ETag></CopyObjectResult>");
+    }
+
+    private void uploadPart(HttpExchange exchange, Map<String, String> query) throws IOException {
+        Upload upload = uploads.get(query.get("uploadId"));
+        if (upload == null) {
+            readBody(exchange);
+            sendError(exchange, 404, "NoSuchUpload", query.get("uploadId"));
+            return;
+        }
+        int partNumber = Integer.parseInt(query.get("partNumber"));
+        Headers headers = exchange.getRequestHeaders();
+        if (headers.containsKey("x-amz-copy-source")) {
+            readBody(exchange);
+            StoredObject source = resolveCopySource(exchange);
+            if (source == null) {
+                sendError(exchange, 404, "NoSuchKey", headers.getFirst("x-amz-copy-source"));
+                return;
+            }
+            byte[] data = readAll(source);
+            String copyRange = headers.getFirst("x-amz-copy-source-range");
+            if (copyRange != null && copyRange.startsWith("bytes=")) {
+                String[] bounds = copyRange.substring(6).split("-", 2);
+                data = Arrays.copyOfRange(data, Integer.parseInt(bounds[0]), Integer.parseInt(bounds[1]) + 1);
+            }
+            upload.parts.put(partNumber, data);
+            sendXml(exchange, 200, "<CopyPartResult" + NS + "><LastModified>" + ISO.format(Instant.now())
+                    + "</LastModified><ETag>" + xml(quote(md5(data))) + "</ETag></CopyPartResult>");
+            return;
+        }
+        byte[] data = readBody(exchange);
+        upload.parts.put(partNumber, data);
+        exchange.getResponseHeaders().set("ETag", quote(md5(data)));
+        sendEmpty(exchange, 200);
+    }
+
+    private void listParts(HttpExchange exchange, String bucketName, String key, Map<String, String> query)
+            throws IOException {
+        String uploadId = query.get("uploadId");
+        Upload upload = uploads.get(uploadId);
+        if (upload == null) {
+            sendError(exchange, 404, "NoSuchUpload", uploadId);
+            return;
+        }
+        int marker = Integer.parseInt(query.getOrDefault("part-number-marker", "0"));
+        StringBuilder sb = new StringBuilder("<ListPartsResult" + NS + "><Bucket>" + xml(bucketName) + "</Bucket><Key>"
+                + xml(key) + "</Key><UploadId>" + uploadId + "</UploadId><Initiator><ID>loadtest</ID>"
+                + "<DisplayName>loadtest</DisplayName></Initiator><Owner><ID>loadtest</ID><DisplayName>loadtest"
+                + "</DisplayName></Owner><StorageClass>STANDARD</StorageClass><PartNumberMarker>" + marker
+                + "</PartNumberMarker><NextPartNumberMarker>0</NextPartNumberMarker><MaxParts>1000</MaxParts>"
+                + "<IsTruncated>false</IsTruncated>");
+        for (Map.Entry<Integer, byte[]> part : upload.parts.entrySet()) {
+            if (part.getKey() > marker) {
+                sb.append("<Part><PartNumber>").append(part.getKey()).append("</PartNumber><ETag>")
+                        .append(xml(quote(md5(part.getValue())))).append("</ETag><Size>")
+                        .append(part.getValue().length).append("</Size><LastModified>")
+                        .append(ISO.format(Instant.now())).append("</LastModified></Part>");
+            }
+        }
+        sendXml(exchange, 200, sb.append("</ListPartsResult>").toString());
+    }
+
+    private void completeUpload(HttpExchange exchange, Bucket bucket, String uploadId) throws IOException {
+        String body = new String(readBody(exchange), StandardCharsets.UTF_8);
+        Upload upload = uploads.remove(uploadId);
+        if (upload == null) {
+            sendError(exchange, 404, "NoSuchUpload", uploadId);
+            return;
+        }
+        Matcher matcher = PART_PATTERN.matcher(body);
+        List<byte[]> parts = new ArrayList<>();
+        long total = 0;
+        while (matcher.find()) {
+            byte[] part = upload.parts.get(Integer.parseInt(matcher.group(1)));
+            if (part == null) {
+                sendError(exchange, 400, "InvalidPart", matcher.group(1));
+                return;
+            }
+            parts.add(part);
+            total += part.length;
+        }
+        byte[] data = new byte[Math.toIntExact(total)];
+        // 与 S3/MinIO 相同的分片上传 ETag：各分片 MD5 拼接后再取 MD5，后缀分片数
+        byte[] partDigests = new byte[parts.size() * 16];
+        int offset = 0;
+        for (int i = 0; i < parts.size(); i++) {
+            byte[] part = parts.get(i);
+            System.arraycopy(part, 0, data, offset, part.length);
+            offset += part.length;
+            System.arraycopy(HexFormat.of().parseHex(md5(part)), 0, partDigests, i * 16, 16);
+        }
+        StoredObject stored = store(upload.bucket, upload.key, data, upload.headers,
+                md5(partDigests) + "-" + parts.size());
+        bucket.objects.put(upload.key, stored);
+        sendXml(exchange, 200, "<CompleteMultipartUploadResult" + NS + "><Location>" + xml(endpoint() + "/"
+                + upload.bucket + "/" + upload.key) + "</Location><Bucket>" + xml(upload.bucket)
+                + "</Bucket><Key>" + xml(upload.key) + "</Key><ETag>" + xml(quote(stored.etag()))
+                + "</ETag></CompleteMultipartUploadResult>");
+    }
+
+    private StoredObject resolveCopySource(HttpExchange exchange) {
+        String source = decode(exchange.getRequestHeaders().getFirst("x-amz-copy-source"));
+        int q = source.indexOf('?');
+        if (q >= 0) {
+            source = source.substring(0, q);
+        }
+        source = stripLeadingSlashes(source);
+        int slash = source.indexOf('/');
+        if (slash == -1) {
+            return null;
+        }
+        Bucket bucket = buckets.get(source.substring(0, slash));
+        return bucket == null ? null : bucket.objects.get(stripLeadingSlashes(source.substring(slash + 1)));
+    }
+
+    // ==================== 存储 ====================
+
+    private StoredObject store(String bucket, String key, byte[] data, Map<String, String> headers) throws IOException {
+        return store(bucket, key, data, headers, md5(data));
+    }
+
+    private StoredObject store(String bucket, String key, byte[] data, Map<String, String> headers, String etag)
+            throws IOException {
+        Path file = null;
+        if (diskRoot != null) {
+            file = diskRoot.resolve(bucket).resolve(UUID.randomUUID().toString());
+            Files.createDirectories(file.getParent());
+            Files.write(file, data);
+        }
+        return new StoredObject(data.length, etag, Instant.now(), headers, diskRoot == null ? data : null, file);
+    }
+
+    private InputStream open(StoredObject object, long offset, long length) throws IOException {
+        if (object.data() != null) {
+            return new ByteArrayInputStream(object.data(), (int) offset, (int) length);
+        }
+        InputStream in = Files.newInputStream(object.file());
+        in.skipNBytes(offset);
+        return in;
+    }
+
+    private byte[] readAll(StoredObject object) throws IOException {
+        return object.data() != null ? object.data() : Files.readAllBytes(object.file());
+    }
+
+    private static Map<String, String> requestHeaders(HttpExchange exchange) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> entry : exchange.getRequestHeaders().entrySet()) {
+            String name = entry.getKey().toLowerCase(Locale.ROOT);
+            if (name.startsWith("x-amz-meta-") || name.equals("content-type") || name.equals("content-encoding")
+                    || name.equals("cache-control") || name.equals("content-disposition")) {
+                headers.put(name, entry.getValue().getFirst());
+            }
+        }
+        headers.putIfAbsent("content-type", "application/octet-stream");
+        return headers;
+    }
+
+    private static void writeObjectHeaders(HttpExchange exchange, StoredObject object) {
+        Headers headers = exchange.getResponseHeaders();
+        object.headers().forEach(headers::set);
+        headers.set("ETag", quote(object.etag()));
+        headers.set("Last-Modified", DateTimeFormatter.RFC_1123_DATE_TIME.format(object.lastModified().atZone(ZoneOffset.UTC)));
+        headers.set("Accept-Ranges", "bytes");
+    }
+
+    // ==================== IO 与限速 ====================
+
+    private void injectLatency() {
+        long delay = latencyMs + (jitterMs > 0 ? ThreadLocalRandom.current().nextLong(jitterMs + 1) : 0);
+        if (delay > 0) {
+            sleep(delay);
+        }
+    }
+
+    private byte[] readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            if (bandwidthBytesPerSecond <= 0) {
+                return in.readAllBytes();
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            copyThrottled(in, out, Long.MAX_VALUE);
+            return out.toByteArray();
+        }
+    }
+
+    private void copyThrottled(InputStream in, OutputStream out, long limit) throws IOException {
+        byte[] buffer = new byte[IO_BLOCK];
+        long copied = 0;
+        long startNanos = System.nanoTime();
+        while (copied < limit) {
+            int n = in.read(buffer, 0, (int) Math.min(buffer.length, limit - copied));
+            if (n < 0) {
+                break;
+            }
+            out.write(buffer, 0, n);
+            copied += n;
+            if (bandwidthBytesPerSecond > 0) {
+                long expectedNanos = copied * 1_000_000_000L / bandwidthBytesPerSecond;
+                long aheadNanos = expectedNanos - (System.nanoTime() - startNanos);
+                if (aheadNanos > 1_000_000) {
+                    sleep(aheadNanos / 1_000_000);
+                }
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sendEmpty(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    private static void sendXml(HttpExchange exchange, int status, String body) throws IOException {
+        sendBytes(exchange, status, "application/xml", (XML_HEADER + body).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void sendBytes(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String code, String message) throws IOException {
+        sendXml(exchange, status, "<Error><Code>" + code + "</Code><Message>" + xml(message) + "</Message>"
+                + "<Resource>" + xml(exchange.getRequestURI().getPath()) + "</Resource><RequestId>standin</RequestId>"
+                + "<HostId>standin</HostId></Error>");
+    }
+
+    // ==================== 工具方法 ====================
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = decode(eq == -1 ? pair : pair.substring(0, eq));
+            String value = eq == -1 ? "" : decode(pair.substring(eq + 1));
+            query.put(name, value);
+        }
+        return query;
+    }
+
+    private static String decode(String value) {
+        return value == null ? "" : URLDecoder.decode(value.replace("+", "%2B"), StandardCharsets.UTF_8);
+    }
+
+    private static String stripLeadingSlashes(String value) {
+        int i = 0;
+        while (i < value.length() && value.charAt(i) == '/') {
+            i++;
+        }
+        return value.substring(i);
+    }
+
+    private static String quote(String etag) {
+        return "\"" + etag + "\"";
+    }
+
+    private static String xml(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    private static String unxml(String value) {
+        return value.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"").replace("&amp;", "&");
+    }
+
+    private static String md5(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(data));
+        } catch (Exception e) {
+            throw new UncheckedIOException(new IOException(e));
+        }
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.archive;
+
+import com.luckykuang.oss.compress.ObjectCompressor;
+import com.luckykuang.oss.config.OssProperties;
+import com.luckykuang.oss.dedup.DedupStore;
+import com.luckykuang.oss.metrics.OssMetrics;
+import com.luckykuang.oss.storage.ObjectStat;
+import com.luckykuang.oss.storage.StorageBackend;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 流式打包下载：边读取对象边写出 ZIP/TAR，不落临时文件、不整体缓存
+ * <ul>
+ *     <li>预读：最多 prefetch 个对象同时向存储后端发起读取，写出顺序与条目顺序一致</li>
+ *     <li>小对象（不超过 buffer-threshold）整体读入内存，已压缩的媒体文件以 STORED 方式写入 ZIP</li>
+ *     <li>大对象直接转发对象流；ZIP 流式写入无法预先计算 CRC，已压缩的媒体文件使用 0 级压缩（只加块头，不消耗 CPU）</li>
+ *     <li>ZIP 条目数或大小超过 ZIP 限制时自动使用 ZIP64；TAR 使用 POSIX 扩展头支持长文件名与大文件</li>
+ *     <li>开启透明压缩的存储桶，压缩存储的对象解压后写入；开启去重的存储桶，去重存储的文件按清单读取各块后写入</li>
+ * </ul>
+ * @author luckykuang
+ * @date 2026/10/19 16:00
+ */
+@Slf4j
+@Component
+public class ObjectArchiver {
+
+    public static final String ZIP = "zip";
+    public static final String TAR = "tar";
+
+    // 已压缩的文件类型，再次压缩只浪费 CPU
+    private static final Set<String> COMPRESSED_EXTENSIONS = Set.of(
+            "jpg", "jpeg", "jfif", "png", "gif", "webp", "heic", "heif", "avif",
+            "mp4", "m4v", "mov", "mkv", "webm", "avi", "flv", "wmv",
+            "mp3", "m4a", "aac", "ogg", "opus", "flac",
+            "zip", "gz", "tgz", "bz2", "xz", "zst", "7z", "rar", "jar", "apk",
+            "docx", "xlsx", "pptx", "pdf");
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Resource
+    private OssProperties ossProperties;
+
+    @Resource
+    private OssMetrics ossMetrics;
+
+    @Resource
+    private ObjectCompressor objectCompressor;
+
+    @Resource
+    private DedupStore dedupStore;
+
+    /**
+     * 打包条目
+     * @param objectName 对象名称
+     * @param entryName 压缩包内的路径
+     * @param size 对象大小，未知时为 -1
+     */
+    public record Entry(String objectName, String entryName, long size) {
+    }
+
+    /**
+     * 将对象依次写入压缩包
+     * @param backend 存储后端
+     * @param bucketName 存储桶名称
+     * @param entries 打包条目
+     * @param format zip / tar
+     * @param out 输出流，不会被关闭
+     * @return 写入输出流的字节数（压缩包实际大小）
+     */
+    public long write(StorageBackend backend, String bucketName, List<Entry> entries, String format,
+                      OutputStream out) throws Exception {
+        OssProperties.Archive config = ossProperties.getArchive();
+        int prefetch = Math.max(1, config.getPrefetch());
+        long bufferThreshold = config.getBufferThreshold();
+        Deque<CompletableFuture<Fetched>> window = new ArrayDeque<>(prefetch);
+        int next = 0;
+        NonClosingOutputStream target = new NonClosingOutputStream(out);
+        // 流出字节数按实际写出的压缩包字节统计，与单文件下载统计传输字节一致
+        long recorded = 0;
+        try (ArchiveSink sink = TAR.equals(format) ? new TarSink(target) : new ZipSink(target)) {
+            while (next < entries.size() && window.size() < prefetch) {
+                window.add(fetch(backend, bucketName, entries.get(next++), bufferThreshold));
+            }
+            while (!window.isEmpty()) {
+                Fetched fetched = await(window.poll());
+                // 取出一个后立即补充预读，让后端读取与写出重叠
+                if (next < entries.size()) {
+                    window.add(fetch(backend, bucketName, entries.get(next++), bufferThreshold));
+                }
+                try (fetched) {
+                    sink.write(fetched);
+                }
+                ossMetrics.recordEgress(OssMetrics.GET, bucketName, target.written - recorded);
+                recorded = target.written;
+            }
+            sink.finish();
+            ossMetrics.recordEgress(OssMetrics.GET, bucketName, target.written - recorded);
+        } finally {
+            // 客户端断开或读取失败：已打开的对象流在读取完成后关闭，不中断读取线程
+            for (CompletableFuture<Fetched> pending : window) {
+                pending.thenAccept(Fetched::close);
+            }
+        }
+        return target.written;
+    }
+
+    private CompletableFuture<Fetched> fetch(StorageBackend backend, String bucketName, Entry entry,
+                                             long bufferThreshold) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                // 开启压缩的存储桶中列表返回的是压缩后的大小、开启去重的存储桶中是清单的大小，需查询对象信息得到原始大小
+                ObjectStat stat = entry.size() < 0 || objectCompressor.isEnabled(bucketName)
+                        || dedupStore.isEnabled(bucketName) ? backend.statObject(bucketName, entry.objectName()) : null;
+                long size = stat == null ? entry.size()
+                        : DedupStore.isManifest(stat) ? DedupStore.size(stat) : ObjectCompressor.uncompressedSize(stat);
+                InputStream in = open(backend, bucketName, entry.objectName(), stat);
+                if (size > bufferThreshold) {
+                    return new Fetched(entry.entryName(), size, null, 0, in);
+                }
+                try (in) {
+                    byte[] data = in.readAllBytes();
+                    CRC32 crc = new CRC32();
+                    crc.update(data);
+                    return new Fetched(entry.entryName(), data.length, data, crc.getValue(), null);
+                }
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * 打开对象流，压缩存储的对象边读边解压，去重存储的文件按清单读取各块
+     */
+    private InputStream open(StorageBackend backend, String bucketName, String objectName, ObjectStat stat)
+            throws Exception {
+        if (stat != null && DedupStore.isManifest(stat)) {
+            return dedupStore.open(backend, stat, 0, null);
+        }
+        InputStream in = backend.getObject(bucketName, objectName, 0, null);
+        if (stat == null || stat.contentEncoding() == null) {
+            return in;
+        }
+        try {
+            return objectCompressor.decompress(in, stat.contentEncoding());
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private static Fetched await(CompletableFuture<Fetched> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 是否为已压缩的文件类型
+     */
+    static boolean isCompressed(String entryName) {
+        int index = entryName.lastIndexOf('.');
+        return index != -1 && COMPRESSED_EXTENSIONS.contains(entryName.substring(index + 1).toLowerCase(Locale.ROOT));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 已读取的对象：小对象为内存数据，大对象为未读取的对象流
+     */
+    private record Fetched(String entryName, long size, byte[] data, long crc, InputStream stream) implements Closeable {
+        @Override
+        public void close() {
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException e) {
+                    log.debug("关闭对象流异常", e);
+                }
+            }
+        }
+    }
+
+    private interface ArchiveSink extends Closeable {
+        void write(Fetched fetched) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private static final class ZipSink implements ArchiveSink {
+        private final ZipOutputStream zip;
+
+        ZipSink(NonClosingOutputStream out) {
+            this.zip = new ZipOutputStream(out);
+        }
+
+        @Override
+        public void write(Fetched fetched) throws IOException {
+            ZipEntry entry = new ZipEntry(fetched.entryName());
+            boolean compressed = isCompressed(fetched.entryName());
+            if (fetched.data() != null && compressed) {
+                // 已知 CRC 与大小，可以直接存储
+                entry.setMethod(ZipEntry.STORED);
+                entry.setSize(fetched.size());
+                entry.setCompressedSize(fetched.size());
+                entry.setCrc(fetched.crc());
+            } else {
+                entry.setMethod(ZipEntry.DEFLATED);
+                zip.setLevel(compressed ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+            }
+            zip.putNextEntry(entry);
+            if (fetched.data() != null) {
+                zip.write(fetched.data());
+            } else {
+                fetched.stream().transferTo(zip);
+            }
+            zip.closeEntry();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            zip.finish();
+        }
+
+        @Override
+        public void close() throws IOException {
+            zip.close();
+        }
+    }
+
+    private static final class TarSink implements ArchiveSink {
+        private final TarArchiveOutputStream tar;
+
+        TarSink(NonClosingOutputStream out) {
+            this.tar = new TarArchiveOutputStream(out);
+            this.tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            this.tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+        }
+
+        @Override
+        public void write(Fetched fetched) throws IOException {
+            TarArchiveEntry entry = new TarArchiveEntry(fetched.entryName());
+            entry.setSize(fetched.size());
+            tar.putArchiveEntry(entry);
+            if (fetched.data() != null) {
+                tar.write(fetched.data());
+            } else {
+                fetched.stream().transferTo(tar);
+            }
+            tar.closeArchiveEntry();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            tar.finish();
+        }
+
+        @Override
+        public void close() throws IOException {
+            tar.close();
+        }
+    }
+
+    /**
+     * 压缩流关闭时不关闭响应流，由调用方决定；同时统计写入响应流的字节数
+     */
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+        // 只在写出线程中更新与读取
+        long written;
+
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            written++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            written += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -16,7 +16,12 @@
 
 package com.luckykuang.oss.base;
 
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
@@ -38,6 +43,23 @@ public class DefaultExceptionHandler {
         return ApiResult.failed(ex.getCode(), ex.getMessage());
     }
 
+    /**
+     * 存储服务不可用：返回 503 与 Retry-After，客户端按该时间退避，避免后端故障期间盲目重试
+     */
+    @ExceptionHandler(value = ServiceUnavailableException.class)
+    public ResponseEntity<ApiResult<?>> serviceUnavailableExceptionHandler(ServiceUnavailableException ex,
+                                                                          HttpServletResponse response) {
+        log.info("[serviceUnavailableExceptionHandler]:{}", ex.getMessage());
+        // 下载接口可能已设置文件下载相关的响应头
+        if (!response.isCommitted()) {
+            response.reset();
+        }
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(ApiResult.failed(ex.getCode(), ex.getMessage()));
+    }
+
     /**
      * 兜底所有异常处理
      */
@@ -32,6 +32,10 @@ public enum ErrorCode {
     NOT_UPLOAD_EMPTY_TYPE("1006","禁止上传无文件类型的文件"),
     FILE_PATH_INCORRECT("1007","文件路径有误"),
     INVALID_PARAMETER("1008","参数错误"),
+    STORAGE_NOT_SUPPORTED("1009","存储后端不支持该操作"),
+    SERVICE_UNAVAILABLE("1010","存储服务暂不可用，请稍后重试"),
+    UPLOAD_NOT_COMPLETED("1011","文件未上传完成"),
+    MIGRATION_NOT_FOUND("1012","迁移任务不存在或已过期"),
     ;
     private final String code;
     private final String message;
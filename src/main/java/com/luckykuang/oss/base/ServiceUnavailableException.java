@@ -0,0 +1,41 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.base;
+
+import lombok.Getter;
+
+import java.io.Serial;
+
+/**
+ * 存储服务不可用异常，返回 503 与 Retry-After
+ * @author luckykuang
+ * @date 2026/10/19 14:50
+ */
+@Getter
+public class ServiceUnavailableException extends BusinessException {
+    @Serial
+    private static final long serialVersionUID = 3121466416328764907L;
+    /**
+     * 建议客户端重试的等待时间(秒)
+     */
+    private final long retryAfterSeconds;
+
+    public ServiceUnavailableException(long retryAfterSeconds) {
+        super(ErrorCode.SERVICE_UNAVAILABLE);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+}
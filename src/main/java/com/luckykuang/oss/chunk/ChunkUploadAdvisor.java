@@ -0,0 +1,192 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.chunk;
+
+import com.luckykuang.oss.config.OssProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 分片上传建议：按文件大小、存储服务分片限制、服务端进行中的分片上传数和该客户端网络近期的上传速度，
+ * 给出分片大小与并发数
+ * <ul>
+ *     <li>分片大小：使单个分片在近期单连接速度下约 targetChunkDuration 上传完成，
+ *     分片数不少于并发数，不低于 5MB（composeObject 要求）且分片数不超过 10000</li>
+ *     <li>并发数：服务端分片上传容量 maxInflight 按正在上传的客户端网段平分，没有速度样本的客户端
+ *     不超过 defaultConcurrency，有样本的不超过 maxConcurrency，且都不超过总分片数</li>
+ * </ul>
+ * <p>客户端按 IPv4 /24、IPv6 /64 网段统计，同一出口网络的客户端共用上传速度样本</p>
+ * @author luckykuang
+ * @date 2026/10/19 18:30
+ */
+@Component
+public class ChunkUploadAdvisor {
+
+    // composeObject 要求除最后一个分片外不低于 5MB
+    public static final long MIN_CHUNK_SIZE = 5L * 1024 * 1024;
+
+    // 合并的分片数上限
+    public static final int MAX_CHUNKS = 10000;
+
+    // 分片大小按 1MB 对齐
+    private static final long ALIGNMENT = 1024 * 1024;
+
+    // 上传速度指数加权平均的新样本权重
+    private static final double ALPHA = 0.3;
+
+    private final OssProperties ossProperties;
+    private final AtomicInteger inflight = new AtomicInteger();
+    // 正在写入分片的客户端网段 -> 进行中的分片数
+    private final Map<String, AtomicInteger> uploading = new ConcurrentHashMap<>();
+    private final Map<String, Throughput> throughputs = new ConcurrentHashMap<>();
+
+    /**
+     * 网段近期的单连接上传速度
+     * @param bytesPerSecond 指数加权平均速度(字节/秒)
+     * @param updatedNanos 最后更新时间
+     */
+    private record Throughput(double bytesPerSecond, long updatedNanos) {
+    }
+
+    /**
+     * 建议值
+     * @param chunkSize 分片大小(字节)
+     * @param concurrency 并发上传的分片数
+     */
+    public record Advice(long chunkSize, int concurrency) {
+    }
+
+    public ChunkUploadAdvisor(OssProperties ossProperties, MeterRegistry meterRegistry) {
+        this.ossProperties = ossProperties;
+        Gauge.builder("oss.chunk.inflight", inflight, AtomicInteger::get)
+                .description("Chunk uploads currently being written to the backend")
+                .register(meterRegistry);
+        Gauge.builder("oss.chunk.advisor.clients", throughputs, Map::size)
+                .description("Client networks with recent chunk upload throughput samples")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 计算分片大小与并发数建议
+     * @param clientKey 客户端网段，见 {@link #clientKey(HttpServletRequest)}
+     * @param totalSize 文件总大小
+     * @return 建议值
+     */
+    public Advice advise(String clientKey, long totalSize) {
+        OssProperties.ChunkAdvice config = ossProperties.getChunkAdvice();
+        long now = System.nanoTime();
+        Throughput throughput = throughputs.get(clientKey);
+        if (throughput != null && now - throughput.updatedNanos() > config.getSampleTtl().toNanos()) {
+            throughput = null;
+        }
+
+        // 服务端容量按正在上传的客户端网段（含本次）平分
+        int activeClients = uploading.size() + (uploading.containsKey(clientKey) ? 0 : 1);
+        int concurrency = Math.max(1, Math.min(config.getMaxInflight() / activeClients,
+                throughput == null ? config.getDefaultConcurrency() : config.getMaxConcurrency()));
+
+        long chunkSize = throughput == null ? config.getDefaultChunkSize()
+                : (long) (throughput.bytesPerSecond() * config.getTargetChunkDuration().toMillis() / 1000);
+        chunkSize = Math.min(chunkSize, Math.max(config.getMaxChunkSize(), MIN_CHUNK_SIZE));
+        // 分片数至少与并发数相同，否则并发用不满
+        chunkSize = Math.min(chunkSize, ceilDiv(totalSize, concurrency));
+        // 分片数不超过上限，且不低于 5MB
+        chunkSize = Math.max(chunkSize, ceilDiv(totalSize, MAX_CHUNKS));
+        chunkSize = Math.max(MIN_CHUNK_SIZE, ceilDiv(chunkSize, ALIGNMENT) * ALIGNMENT);
+
+        int totalChunks = (int) Math.max(1, ceilDiv(totalSize, chunkSize));
+        return new Advice(chunkSize, Math.min(concurrency, totalChunks));
+    }
+
+    /**
+     * 开始写入一个分片
+     * @param clientKey 客户端网段
+     */
+    public void begin(String clientKey) {
+        inflight.incrementAndGet();
+        uploading.compute(clientKey, (key, count) -> {
+            AtomicInteger value = count == null ? new AtomicInteger() : count;
+            value.incrementAndGet();
+            return value;
+        });
+    }
+
+    /**
+     * 分片写入结束，记录该网段的上传速度样本
+     * @param clientKey 客户端网段
+     * @param bytes 分片大小
+     * @param elapsedNanos 写入耗时
+     * @param sample 是否记录样本：写入失败，或耗时不包含读取客户端请求体（如已落盘的 multipart 文件）时不记录
+     */
+    public void end(String clientKey, long bytes, long elapsedNanos, boolean sample) {
+        inflight.decrementAndGet();
+        uploading.computeIfPresent(clientKey, (key, count) -> count.decrementAndGet() <= 0 ? null : count);
+        if (!sample || elapsedNanos <= 0 || bytes < MIN_CHUNK_SIZE / 4) {
+            return;
+        }
+        double rate = bytes * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        long now = System.nanoTime();
+        throughputs.compute(clientKey, (key, old) -> old == null
+                ? new Throughput(rate, now)
+                : new Throughput(ALPHA * rate + (1 - ALPHA) * old.bytesPerSecond(), now));
+        if (throughputs.size() > ossProperties.getChunkAdvice().getMaxClients()) {
+            long ttl = ossProperties.getChunkAdvice().getSampleTtl().toNanos();
+            throughputs.values().removeIf(t -> now - t.updatedNanos() > ttl);
+        }
+    }
+
+    /**
+     * 客户端网段：IPv4 取 /24，IPv6 取 /64
+     * <p>按字节截取前缀，"::" 压缩写法、IPv4 映射地址与带 zone 的地址都能正确归并</p>
+     * @param request 请求
+     * @return 网段标识
+     */
+    public static String clientKey(HttpServletRequest request) {
+        String address = request.getRemoteAddr();
+        if (address == null) {
+            return "";
+        }
+        byte[] bytes;
+        try {
+            // 远端地址是 IP 字面量，不会触发 DNS 解析
+            bytes = InetAddress.getByName(address).getAddress();
+        } catch (UnknownHostException e) {
+            return address;
+        }
+        int prefixBytes = bytes.length == 4 ? 3 : 8;
+        Arrays.fill(bytes, prefixBytes, bytes.length, (byte) 0);
+        try {
+            return InetAddress.getByAddress(bytes).getHostAddress() + "/" + prefixBytes * 8;
+        } catch (UnknownHostException e) {
+            return address;
+        }
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return (x + y - 1) / y;
+    }
+}
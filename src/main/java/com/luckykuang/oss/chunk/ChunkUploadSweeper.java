@@ -0,0 +1,193 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.chunk;
+
+import com.luckykuang.oss.base.BusinessException;
+import com.luckykuang.oss.base.ErrorCode;
+import com.luckykuang.oss.config.OssProperties;
+import com.luckykuang.oss.processor.OssProcessor;
+import com.luckykuang.oss.storage.ObjectItem;
+import com.luckykuang.oss.storage.StorageBackend;
+import com.luckykuang.oss.storage.StorageRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 废弃分片上传会话清理
+ * <ul>
+ *     <li>启动时在默认存储桶上设置 .chunk-uploads/ 的生命周期规则，由存储服务按分片创建时间兜底删除</li>
+ *     <li>后台定时列出 .chunk-uploads/，按会话目录统计最后写入时间，超过 ttl 的会话按限速批量删除</li>
+ * </ul>
+ * @author luckykuang
+ * @date 2026/10/19 17:50
+ */
+@Slf4j
+@Component
+public class ChunkUploadSweeper {
+
+    // 生命周期规则 id，重复设置时替换同 id 的规则
+    public static final String LIFECYCLE_RULE_ID = "oss-chunk-uploads-expiry";
+
+    // 列表分页大小
+    private static final int LIST_PAGE_SIZE = 1000;
+
+    private final StorageRouter storageRouter;
+    private final OssProperties ossProperties;
+    private final Counter sessionCounter;
+    private final Counter objectCounter;
+    private final ScheduledExecutorService scheduler;
+
+    public ChunkUploadSweeper(StorageRouter storageRouter, OssProperties ossProperties, MeterRegistry meterRegistry) {
+        this.storageRouter = storageRouter;
+        this.ossProperties = ossProperties;
+        this.sessionCounter = Counter.builder("oss.chunk.sweeper.sessions")
+                .description("Abandoned chunk upload sessions removed by the sweeper")
+                .register(meterRegistry);
+        this.objectCounter = Counter.builder("oss.chunk.sweeper.objects")
+                .description("Chunk objects removed by the sweeper")
+                .register(meterRegistry);
+        OssProperties.ChunkCleanup cleanup = ossProperties.getChunkCleanup();
+        if (!cleanup.isEnabled() && cleanup.getLifecycleDays() <= 0) {
+            this.scheduler = null;
+            return;
+        }
+        // 生命周期规则与清理都在后台线程执行，存储服务不可用时不影响启动
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("chunk-upload-sweeper").daemon(true).factory());
+        if (cleanup.getLifecycleDays() > 0) {
+            scheduler.execute(this::installLifecycleRule);
+        }
+        if (cleanup.isEnabled()) {
+            long interval = cleanup.getInterval().toMillis();
+            scheduler.scheduleWithFixedDelay(this::sweepQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void installLifecycleRule() {
+        String bucketName = ossProperties.getBucketName();
+        int days = ossProperties.getChunkCleanup().getLifecycleDays();
+        try {
+            storageRouter.forBucket(bucketName).setExpirationRule(bucketName, LIFECYCLE_RULE_ID,
+                    OssProcessor.CHUNK_UPLOAD_PREFIX, days);
+            log.info("已设置分片临时文件生命周期规则 - 存储桶: {}, 前缀: {}, 过期天数: {}", bucketName,
+                    OssProcessor.CHUNK_UPLOAD_PREFIX, days);
+        } catch (BusinessException e) {
+            if (ErrorCode.STORAGE_NOT_SUPPORTED.getCode().equals(e.getCode())) {
+                log.info("存储桶 {} 的存储后端不支持生命周期规则，分片临时文件只由后台任务清理", bucketName);
+            } else {
+                log.warn("设置分片临时文件生命周期规则失败 - 存储桶: {}, {}", bucketName, e.getMessage());
+            }
+        } catch (Exception e) {
+            log.warn("设置分片临时文件生命周期规则失败 - 存储桶: {}", bucketName, e);
+        }
+    }
+
+    private void sweepQuietly() {
+        try {
+            sweep();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("清理废弃分片上传会话失败", e);
+        }
+    }
+
+    /**
+     * 清理一次废弃的分片上传会话
+     * @return 删除的对象数
+     */
+    public int sweep() throws Exception {
+        OssProperties.ChunkCleanup cleanup = ossProperties.getChunkCleanup();
+        String bucketName = ossProperties.getBucketName();
+        StorageBackend backend = storageRouter.forBucket(bucketName);
+        String prefix = OssProcessor.CHUNK_UPLOAD_PREFIX;
+
+        // 会话目录（.chunk-uploads/ 下第一级目录）-> 分片与最后写入时间
+        Map<String, List<String>> sessionObjects = new LinkedHashMap<>();
+        Map<String, Instant> lastWrites = new HashMap<>();
+        Instant now = Instant.now();
+        for (ObjectItem item : backend.listObjects(bucketName, prefix, true, LIST_PAGE_SIZE)) {
+            String objectName = item.objectName();
+            int start = objectName.indexOf(prefix);
+            if (item.dir() || start < 0) {
+                continue;
+            }
+            int end = objectName.indexOf('/', start + prefix.length());
+            String session = end < 0 ? objectName : objectName.substring(0, end + 1);
+            sessionObjects.computeIfAbsent(session, s -> new ArrayList<>()).add(objectName);
+            // 修改时间未知时按刚写入处理，不清理
+            Instant modified = item.lastModified() == null ? now : item.lastModified().toInstant();
+            lastWrites.merge(session, modified, (a, b) -> a.isAfter(b) ? a : b);
+        }
+
+        Instant deadline = now.minus(cleanup.getTtl());
+        List<String> expired = new ArrayList<>();
+        int sessions = 0;
+        for (Map.Entry<String, List<String>> entry : sessionObjects.entrySet()) {
+            if (lastWrites.get(entry.getKey()).isBefore(deadline)) {
+                expired.addAll(entry.getValue());
+                sessions++;
+            }
+        }
+        if (expired.isEmpty()) {
+            log.debug("没有需要清理的分片上传会话 - 会话数: {}", sessionObjects.size());
+            return 0;
+        }
+
+        // 按批删除，批次耗时不足 batch/deleteRate 秒时补足等待
+        int batchSize = Math.max(1, cleanup.getBatchSize());
+        double deleteRate = Math.max(1, cleanup.getDeleteRate());
+        int removed = 0;
+        int failed = 0;
+        for (int from = 0; from < expired.size(); from += batchSize) {
+            List<String> batch = expired.subList(from, Math.min(expired.size(), from + batchSize));
+            long start = System.nanoTime();
+            int batchFailed = backend.removeObjects(bucketName, batch).size();
+            removed += batch.size() - batchFailed;
+            failed += batchFailed;
+            long pause = (long) (batch.size() / deleteRate * 1e9) - (System.nanoTime() - start);
+            if (pause > 0) {
+                TimeUnit.NANOSECONDS.sleep(pause);
+            }
+        }
+        sessionCounter.increment(sessions);
+        objectCounter.increment(removed);
+        log.info("清理废弃分片上传会话 - 存储桶: {}, 会话数: {}, 删除对象数: {}, 失败数: {}", bucketName, sessions,
+                removed, failed);
+        return removed;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
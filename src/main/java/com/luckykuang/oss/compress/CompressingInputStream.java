@@ -0,0 +1,139 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.compress;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 边读边压缩的输入流：每次从源流读取一块数据写入编码器，再把编码器的输出交给读取方
+ * <p>不需要额外线程或管道，内存占用为一块读缓冲加一块压缩输出</p>
+ * @author luckykuang
+ * @date 2026/10/19 17:40
+ */
+final class CompressingInputStream extends InputStream {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final InputStream source;
+    private final Output output = new Output();
+    private final OutputStream encoder;
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+    private final Runnable onFinish;
+    private int position;
+    private boolean finished;
+    private long consumed;
+    private long produced;
+
+    /**
+     * @param source 源流
+     * @param encoderFactory 基于输出缓冲创建编码器
+     * @param onFinish 源流读完且编码器输出全部生成后回调
+     */
+    CompressingInputStream(InputStream source, EncoderFactory encoderFactory, Runnable onFinish) throws IOException {
+        this.source = source;
+        this.encoder = encoderFactory.create(output);
+        this.onFinish = onFinish;
+    }
+
+    @FunctionalInterface
+    interface EncoderFactory {
+        OutputStream create(OutputStream out) throws IOException;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (position >= output.size()) {
+            if (finished) {
+                return -1;
+            }
+            fill();
+        }
+        int n = Math.min(len, output.size() - position);
+        System.arraycopy(output.buffer(), position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    private void fill() throws IOException {
+        output.reset();
+        position = 0;
+        int n = source.read(chunk);
+        if (n < 0) {
+            // 写出压缩尾部
+            encoder.close();
+            finished = true;
+            produced += output.size();
+            onFinish.run();
+            return;
+        }
+        consumed += n;
+        encoder.write(chunk, 0, n);
+        produced += output.size();
+    }
+
+    /**
+     * 已读取的原始字节数
+     */
+    long consumed() {
+        return consumed;
+    }
+
+    /**
+     * 已生成的压缩字节数
+     */
+    long produced() {
+        return produced;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (!finished) {
+                finished = true;
+                // 释放编码器资源（zstd 为堆外内存），输出丢弃
+                encoder.close();
+            }
+        } finally {
+            source.close();
+        }
+    }
+
+    /**
+     * 暴露内部数组，避免每块输出再拷贝一次
+     */
+    private static final class Output extends ByteArrayOutputStream {
+        Output() {
+            super(CHUNK_SIZE);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.compress;
+
+import com.luckykuang.oss.config.OssProperties;
+import com.luckykuang.oss.storage.ObjectStat;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorInputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorOutputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdUtils;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 对象透明压缩
+ * <ul>
+ *     <li>上传：存储桶开启压缩、文件类型可压缩且不小于 min-size 时，先试压缩开头 sample-size 字节，
+ *     压缩率足够再边读边压缩写入存储，对象元数据记录 Content-Encoding 与原始大小</li>
+ *     <li>下载：客户端 Accept-Encoding 支持该编码时原样返回压缩数据，否则边读边解压</li>
+ * </ul>
+ * <p>zstd 依赖 zstd-jni，classpath 中没有时配置为 zstd 的存储桶使用 gzip</p>
+ * @author luckykuang
+ * @date 2026/10/19 17:45
+ */
+@Slf4j
+@Component
+public class ObjectCompressor {
+
+    public static final String GZIP = "gzip";
+    public static final String ZSTD = "zstd";
+
+    /**
+     * 用户元数据：压缩前的大小
+     */
+    public static final String UNCOMPRESSED_SIZE = "uncompressed-size";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final OssProperties.Compression config;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, String> bucketEncodings = new HashMap<>();
+
+    public ObjectCompressor(OssProperties ossProperties, MeterRegistry meterRegistry) {
+        this.config = ossProperties.getCompression();
+        this.meterRegistry = meterRegistry;
+        boolean zstdAvailable = ZstdUtils.isZstdCompressionAvailable();
+        config.getBuckets().forEach((bucketName, algorithm) -> {
+            String encoding = algorithm == null ? GZIP : algorithm.trim().toLowerCase(Locale.ROOT);
+            if (!GZIP.equals(encoding) && !ZSTD.equals(encoding)) {
+                throw new IllegalArgumentException("unsupported compression for bucket " + bucketName + ": " + algorithm);
+            }
+            if (ZSTD.equals(encoding) && !zstdAvailable) {
+                log.warn("存储桶 {} 配置了 zstd 压缩，但 classpath 中没有 zstd-jni，改用 gzip", bucketName);
+                encoding = GZIP;
+            }
+            bucketEncodings.put(bucketName, encoding);
+        });
+    }
+
+    /**
+     * 待写入存储的对象
+     * @param stream 写入的数据
+     * @param size 写入的大小，压缩时为 -1
+     * @param contentEncoding 内容编码，未压缩时为 null
+     * @param metadata 用户元数据
+     */
+    public record Prepared(InputStream stream, long size, String contentEncoding, Map<String, String> metadata) {
+
+        /**
+         * 实际写入存储的字节数，需在数据读完后调用
+         */
+        public long storedSize() {
+            return stream instanceof CompressingInputStream compressing ? compressing.produced() : size;
+        }
+    }
+
+    /**
+     * 存储桶是否开启了压缩
+     * @param bucketName 存储桶名称
+     */
+    public boolean isEnabled(String bucketName) {
+        return bucketEncodings.containsKey(bucketName);
+    }
+
+    /**
+     * 准备上传：判断是否压缩，需要压缩时返回边读边压缩的流
+     * @param bucketName 存储桶名称
+     * @param contentType 文件类型
+     * @param in 文件内容，返回的流关闭时一并关闭
+     * @param size 文件大小
+     * @return 待写入存储的对象
+     */
+    public Prepared prepare(String bucketName, String contentType, InputStream in, long size) throws IOException {
+        String encoding = bucketEncodings.get(bucketName);
+        if (encoding == null || size < config.getMinSize() || !isCompressibleType(contentType)) {
+            return new Prepared(in, size, null, Map.of());
+        }
+        // 读取开头的数据试压缩，读取的数据再拼回流的开头
+        byte[] sample = in.readNBytes((int) Math.min(size, Math.max(1, config.getSampleSize())));
+        InputStream stream = new SequenceInputStream(new ByteArrayInputStream(sample), in);
+        if (sampleRatio(sample) > config.getMaxSampleRatio()) {
+            meterRegistry.counter("oss.compression.skipped", "bucket", bucketName).increment();
+            return new Prepared(stream, size, null, Map.of());
+        }
+        Counter raw = bytesCounter(bucketName, encoding, "raw");
+        Counter stored = bytesCounter(bucketName, encoding, "stored");
+        CompressingInputStream[] holder = new CompressingInputStream[1];
+        holder[0] = new CompressingInputStream(stream, out -> encoder(encoding, out), () -> {
+            raw.increment(holder[0].consumed());
+            stored.increment(holder[0].produced());
+        });
+        return new Prepared(holder[0], -1, encoding, Map.of(UNCOMPRESSED_SIZE, String.valueOf(size)));
+    }
+
+    /**
+     * 解压对象流
+     * @param in 存储中的对象流
+     * @param contentEncoding 对象的内容编码
+     * @return 解压后的流，关闭时一并关闭对象流
+     */
+    public InputStream decompress(InputStream in, String contentEncoding) throws IOException {
+        return switch (contentEncoding.toLowerCase(Locale.ROOT)) {
+            case GZIP -> new GZIPInputStream(in, BUFFER_SIZE);
+            case ZSTD -> new ZstdCompressorInputStream(in);
+            default -> throw new IOException("unsupported content encoding: " + contentEncoding);
+        };
+    }
+
+    /**
+     * 对象解压后的大小，未压缩时为对象大小
+     * @param stat 对象信息
+     */
+    public static long uncompressedSize(ObjectStat stat) {
+        if (stat.contentEncoding() != null) {
+            String size = stat.metadata().get(UNCOMPRESSED_SIZE);
+            if (size != null) {
+                return Long.parseLong(size);
+            }
+        }
+        return stat.size();
+    }
+
+    /**
+     * 客户端是否接受该内容编码
+     * @param acceptEncoding 请求头 Accept-Encoding
+     * @param contentEncoding 对象的内容编码
+     */
+    public static boolean accepts(String acceptEncoding, String contentEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return false;
+        }
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.split(";");
+            String coding = parts[0].trim();
+            if (!coding.equalsIgnoreCase(contentEncoding) && !"*".equals(coding)) {
+                continue;
+            }
+            double quality = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            return quality > 0;
+        }
+        return false;
+    }
+
+    private boolean isCompressibleType(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        int semicolon = contentType.indexOf(';');
+        String mediaType = (semicolon == -1 ? contentType : contentType.substring(0, semicolon))
+                .trim().toLowerCase(Locale.ROOT);
+        List<String> patterns = config.getContentTypes();
+        for (String pattern : patterns) {
+            String p = pattern.trim().toLowerCase(Locale.ROOT);
+            if (p.endsWith("/*") ? mediaType.startsWith(p.substring(0, p.length() - 1)) : mediaType.equals(p)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 以最快级别试压缩样本，返回压缩率；超过样本大小即停止
+     */
+    private static double sampleRatio(byte[] sample) {
+        if (sample.length == 0) {
+            return 1.0;
+        }
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(sample);
+            deflater.finish();
+            byte[] buffer = new byte[8192];
+            long compressed = 0;
+            while (!deflater.finished() && compressed < sample.length) {
+                compressed += deflater.deflate(buffer);
+            }
+            return (double) compressed / sample.length;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private OutputStream encoder(String encoding, OutputStream out) throws IOException {
+        int level = config.getLevel();
+        if (ZSTD.equals(encoding)) {
+            return level < 0 ? new ZstdCompressorOutputStream(out) : new ZstdCompressorOutputStream(out, level);
+        }
+        return new GZIPOutputStream(out, BUFFER_SIZE) {
+            {
+                if (level >= 0) {
+                    def.setLevel(level);
+                }
+            }
+        };
+    }
+
+    private Counter bytesCounter(String bucketName, String encoding, String stage) {
+        return Counter.builder("oss.compression.bytes")
+                .baseUnit("bytes")
+                .description("Bytes before (raw) and after (stored) transparent compression")
+                .tags("bucket", bucketName, "encoding", encoding, "stage", stage)
+                .register(meterRegistry);
+    }
+}
@@ -16,10 +16,23 @@
 
 package com.luckykuang.oss.config;
 
+import com.luckykuang.oss.metrics.HttpTransportMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.minio.MinioClient;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import org.springframework.context.annotation.Bean;
 import org.springframework.stereotype.Component;
 
+import javax.net.SocketFactory;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 /**
  * minio 客户端配置
  * @author luckykuang
@@ -29,28 +42,120 @@ import org.springframework.stereotype.Component;
 public class OssConfig {
 
     /**
-     * 实例化客户端（使用 MinIO 原始 endpoint）
+     * 实例化 HTTP 客户端，连接池、调度器、超时、缓冲区均来自 minio.http 配置
+     * <p>各 MinIO 节点客户端（见 MinioNodeBalancer）与 CDN 客户端共用连接池与调度器，
+     * 协议列表按各自 endpoint 的协议通过 {@link #forEndpoint} 单独设置</p>
      * @param ossProperties 配置加载类
-     * @return minio 客户端
+     * @param meterRegistry 指标注册中心
+     * @return OkHttp 客户端
      */
-    @Bean(name = "minioClient")
-    public MinioClient minioClient(OssProperties ossProperties){
-        return MinioClient.builder()
-                .endpoint(ossProperties.getEndpoint())
-                .credentials(ossProperties.getAccessKey(), ossProperties.getSecretKey())
-                .build();
+    @Bean(name = "minioHttpClient")
+    public OkHttpClient minioHttpClient(OssProperties ossProperties, MeterRegistry meterRegistry){
+        OssProperties.Http http = ossProperties.getHttp();
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(http.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(http.getMaxRequestsPerHost());
+        ConnectionPool connectionPool = new ConnectionPool(http.getMaxIdleConnections(),
+                http.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS);
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(connectionPool)
+                .connectTimeout(http.getConnectTimeout())
+                .readTimeout(http.getReadTimeout())
+                .writeTimeout(http.getWriteTimeout())
+                .protocols(http.isHttp2() ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1) : List.of(Protocol.HTTP_1_1))
+                .eventListener(new HttpTransportMetrics(meterRegistry, connectionPool, dispatcher));
+        if (http.getSendBufferSize() > 0 || http.getReceiveBufferSize() > 0) {
+            builder.socketFactory(new BufferedSocketFactory(http.getSendBufferSize(), http.getReceiveBufferSize()));
+        }
+        return builder.build();
     }
 
     /**
      * 实例化客户端（使用 CDN endpoint）- 用于生成 presigned URL
      * @param ossProperties 配置加载类
+     * @param minioHttpClient HTTP 客户端
      * @return minio 客户端
      */
     @Bean(name = "minioCdnClient")
-    public MinioClient minioCdnClient(OssProperties ossProperties){
+    public MinioClient minioCdnClient(OssProperties ossProperties, OkHttpClient minioHttpClient){
         return MinioClient.builder()
                 .endpoint(ossProperties.getEndpointCdn())
                 .credentials(ossProperties.getAccessKey(), ossProperties.getSecretKey())
+                .httpClient(forEndpoint(minioHttpClient, ossProperties.getEndpointCdn(), ossProperties.getHttp().isHttp2()))
                 .build();
     }
+
+    /**
+     * 按 endpoint 协议派生客户端（共用连接池、调度器与指标监听）
+     * <p>https 通过 ALPN 协商 HTTP/2；明文 http 开启 HTTP/2 时只能使用 prior knowledge，
+     * 不能与 https endpoint 共用同一协议列表</p>
+     * @param client 共享的 HTTP 客户端
+     * @param endpoint 服务地址
+     * @param http2 是否开启 HTTP/2
+     * @return 该 endpoint 使用的 HTTP 客户端
+     */
+    public static OkHttpClient forEndpoint(OkHttpClient client, String endpoint, boolean http2) {
+        List<Protocol> protocols = protocols(endpoint, http2);
+        return protocols.equals(client.protocols()) ? client : client.newBuilder().protocols(protocols).build();
+    }
+
+    private static List<Protocol> protocols(String endpoint, boolean http2) {
+        if (!http2) {
+            return List.of(Protocol.HTTP_1_1);
+        }
+        // 明文 HTTP 无法协商，只能使用 prior knowledge 方式
+        return endpoint != null && endpoint.startsWith("https")
+                ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1)
+                : List.of(Protocol.H2_PRIOR_KNOWLEDGE);
+    }
+
+    /**
+     * 创建套接字时设置 TCP 收发缓冲区（需在连接建立前设置才能影响窗口协商）
+     */
+    private static final class BufferedSocketFactory extends SocketFactory {
+        private final SocketFactory delegate = SocketFactory.getDefault();
+        private final int sendBufferSize;
+        private final int receiveBufferSize;
+
+        BufferedSocketFactory(int sendBufferSize, int receiveBufferSize) {
+            this.sendBufferSize = sendBufferSize;
+            this.receiveBufferSize = receiveBufferSize;
+        }
+
+        @Override
+        public Socket createSocket() throws IOException {
+            return configure(delegate.createSocket());
+        }
+
+        @Override
+        public Socket createSocket(String host, int port) throws IOException {
+            return configure(delegate.createSocket(host, port));
+        }
+
+        @Override
+        public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+            return configure(delegate.createSocket(host, port, localHost, localPort));
+        }
+
+        @Override
+        public Socket createSocket(InetAddress host, int port) throws IOException {
+            return configure(delegate.createSocket(host, port));
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+            return configure(delegate.createSocket(address, port, localAddress, localPort));
+        }
+
+        private Socket configure(Socket socket) throws IOException {
+            if (sendBufferSize > 0) {
+                socket.setSendBufferSize(sendBufferSize);
+            }
+            if (receiveBufferSize > 0) {
+                socket.setReceiveBufferSize(receiveBufferSize);
+            }
+            return socket;
+        }
+    }
 }
@@ -21,6 +21,12 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * minio 配置加载类
  * @author luckykuang
@@ -34,6 +40,9 @@ public class OssProperties {
     // API 端点
     private String endpoint;
 
+    // 多节点 API 端点，配置后请求在节点间负载均衡；为空时只使用 endpoint
+    private List<String> endpoints = new ArrayList<>();
+
     // API 端点(CDN)
     private String endpointCdn;
 
@@ -45,4 +54,589 @@ public class OssProperties {
 
     // Secret Key
     private String secretKey;
+
+    // 区域，进程内预签名时使用，需与 MinIO 服务端配置一致
+    private String region = "us-east-1";
+
+    // 客户端 HTTP 传输配置
+    private Http http = new Http();
+
+    // 多节点负载均衡配置
+    private Balancer balancer = new Balancer();
+
+    // 对冲读配置
+    private Hedge hedge = new Hedge();
+
+    // 幂等操作重试配置
+    private Retry retry = new Retry();
+
+    // 节点熔断配置
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    // 批量操作配置
+    private Batch batch = new Batch();
+
+    // 打包下载配置
+    private Archive archive = new Archive();
+
+    // 客户端直传配置
+    private DirectUpload directUpload = new DirectUpload();
+
+    // 透明压缩配置
+    private Compression compression = new Compression();
+
+    // 下载缓存配置
+    private Cache cache = new Cache();
+
+    // 分片上传临时文件清理配置
+    private ChunkCleanup chunkCleanup = new ChunkCleanup();
+
+    // 分片上传建议配置
+    private ChunkAdvice chunkAdvice = new ChunkAdvice();
+
+    // 上传/下载带宽限制配置
+    private Bandwidth bandwidth = new Bandwidth();
+
+    // 接口舱壁配置
+    private Bulkhead bulkhead = new Bulkhead();
+
+    // 服务端拷贝与批量迁移配置
+    private Copy copy = new Copy();
+
+    // 大对象并行范围下载配置
+    private RangedDownload rangedDownload = new RangedDownload();
+
+    // 分块下载顺序预读配置
+    private ReadAhead readAhead = new ReadAhead();
+
+    // 去重存储配置
+    private Dedup dedup = new Dedup();
+
+    /**
+     * MinIO 客户端 HTTP(OkHttp) 传输配置，minioClient 与 minioCdnClient 共用连接池与调度器
+     */
+    @Getter
+    @Setter
+    public static class Http {
+        // 连接池最大空闲连接数
+        private int maxIdleConnections = 64;
+
+        // 空闲连接保活时间，超时后被连接池回收
+        private Duration keepAlive = Duration.ofMinutes(5);
+
+        // 调度器最大并发请求数
+        private int maxRequests = 256;
+
+        // 调度器单个节点最大并发请求数，超出后请求在调度器中排队
+        private int maxRequestsPerHost = 64;
+
+        // 建立连接超时
+        private Duration connectTimeout = Duration.ofSeconds(10);
+
+        // 读超时（两次读之间的最大间隔）
+        private Duration readTimeout = Duration.ofMinutes(5);
+
+        // 写超时（两次写之间的最大间隔）
+        private Duration writeTimeout = Duration.ofMinutes(5);
+
+        // TCP 发送缓冲区大小(字节)，0 表示使用系统默认值
+        private int sendBufferSize = 0;
+
+        // TCP 接收缓冲区大小(字节)，0 表示使用系统默认值
+        private int receiveBufferSize = 0;
+
+        // 是否启用 HTTP/2：https 端点通过 ALPN 协商，http 端点使用 h2c(prior knowledge)，需服务端支持
+        private boolean http2 = false;
+    }
+
+    /**
+     * 多节点负载均衡配置
+     */
+    @Getter
+    @Setter
+    public static class Balancer {
+        // 节点选择策略：p2c（随机取两个节点选负载低者）/ least-outstanding（进行中请求最少者）
+        private String strategy = "p2c";
+
+        // 健康检查路径
+        private String healthPath = "/minio/health/live";
+
+        // 健康检查间隔
+        private Duration healthCheckInterval = Duration.ofSeconds(5);
+
+        // 健康检查超时
+        private Duration healthCheckTimeout = Duration.ofSeconds(2);
+
+        // 连续失败多少次后摘除节点
+        private int failureThreshold = 3;
+
+        // 摘除时长，同一节点再次被摘除时翻倍，最长 maxEjectDuration
+        private Duration ejectDuration = Duration.ofSeconds(30);
+
+        // 最长摘除时长
+        private Duration maxEjectDuration = Duration.ofMinutes(5);
+
+        // 慢节点判定：同类操作（不含上传、拷贝等耗时随对象大小变化的操作）的平均延迟超过可用节点中位数的倍数
+        private double slowFactor = 3.0;
+
+        // 慢节点判定的最小平均延迟，避免整体延迟很低时误判
+        private Duration slowMinLatency = Duration.ofMillis(200);
+
+        // 最多允许摘除的节点比例，单节点时不会摘除
+        private double maxEjectionRatio = 0.5;
+    }
+
+    /**
+     * 对冲读配置：读请求超过延迟阈值仍未返回时，向另一个节点发送相同请求，先返回者胜出
+     */
+    @Getter
+    @Setter
+    public static class Hedge {
+        // 是否开启对冲读（下载、范围下载、获取对象信息）
+        private boolean enabled = false;
+
+        // 对冲延迟取该操作近期延迟的分位数
+        private double percentile = 0.95;
+
+        // 对冲延迟下限
+        private Duration minDelay = Duration.ofMillis(10);
+
+        // 对冲延迟上限，样本不足时使用该值
+        private Duration maxDelay = Duration.ofSeconds(1);
+
+        // 对冲请求最多占读请求的比例
+        private double budgetRatio = 0.05;
+
+        // 预算最多累积的对冲次数，限制突发
+        private int budgetBurst = 10;
+    }
+
+    /**
+     * 幂等操作（读取、列表、删除、策略设置）重试配置，只重试网络异常与 5xx
+     */
+    @Getter
+    @Setter
+    public static class Retry {
+        // 最大尝试次数（含首次），1 表示不重试
+        private int maxAttempts = 3;
+
+        // 首次重试退避时间，之后每次翻倍，实际等待时间在 [0, 退避时间] 内随机
+        private Duration initialBackoff = Duration.ofMillis(50);
+
+        // 最大退避时间
+        private Duration maxBackoff = Duration.ofSeconds(1);
+
+        // 全局重试预算：重试最多占请求的比例
+        private double budgetRatio = 0.1;
+
+        // 预算最多累积的重试次数
+        private int budgetBurst = 20;
+    }
+
+    /**
+     * 节点熔断配置：按节点统计最近请求的失败率，超过阈值后熔断，全部节点熔断时直接返回 503
+     */
+    @Getter
+    @Setter
+    public static class CircuitBreaker {
+        // 是否开启熔断
+        private boolean enabled = true;
+
+        // 统计窗口大小（最近请求数）
+        private int windowSize = 20;
+
+        // 窗口内至少多少个请求才计算失败率
+        private int minimumCalls = 10;
+
+        // 失败率阈值
+        private double failureRateThreshold = 0.5;
+
+        // 熔断时长，到期后进入半开状态
+        private Duration openDuration = Duration.ofSeconds(10);
+
+        // 半开状态允许的试探请求数，全部成功后关闭熔断
+        private int halfOpenCalls = 3;
+    }
+
+    /**
+     * 批量操作配置
+     */
+    @Getter
+    @Setter
+    public static class Batch {
+        // 批量上传单次请求最多文件数
+        private int maxUploadFiles = 500;
+
+        // 批量上传单次请求同时上传到存储后端的文件数
+        private int uploadParallelism = 8;
+
+        // 批量预签名单次请求最多对象数
+        private int maxPresignObjects = 1000;
+
+        // 批量应用策略模板时同时读写策略的存储桶数
+        private int policyParallelism = 8;
+    }
+
+    /**
+     * 打包下载配置
+     */
+    @Getter
+    @Setter
+    public static class Archive {
+        // 单个压缩包最多条目数
+        private int maxEntries = 10000;
+
+        // 同时向存储后端预读的对象数
+        private int prefetch = 4;
+
+        // 不超过该大小(字节)的对象整体读入内存，已压缩的媒体文件以 STORED 方式写入 ZIP
+        private long bufferThreshold = 1024 * 1024;
+    }
+
+    /**
+     * 客户端直传配置：服务端只签发 URL，文件内容由客户端直接上传到存储服务
+     */
+    @Getter
+    @Setter
+    public static class DirectUpload {
+        // 不超过该大小(字节)的文件使用单个 PUT / POST 表单上传，超过时使用分片上传
+        private long singlePutThreshold = 64L * 1024 * 1024;
+
+        // 默认分片大小(字节)，不低于 5MB；分片数超过 10000 时自动放大
+        private long defaultPartSize = 16L * 1024 * 1024;
+
+        // 上传 URL 有效期
+        private Duration urlExpiry = Duration.ofHours(1);
+    }
+
+    /**
+     * 透明压缩配置：按存储桶开启，上传时边读边压缩，下载时按 Accept-Encoding 原样返回或解压
+     */
+    @Getter
+    @Setter
+    public static class Compression {
+        // 开启压缩的存储桶，key 为存储桶名称，value 为压缩算法 gzip / zstd
+        private Map<String, String> buckets = new LinkedHashMap<>();
+
+        // 可压缩的文件类型，支持 text/* 形式的通配
+        private List<String> contentTypes = new ArrayList<>(List.of("text/*", "application/json",
+                "application/x-ndjson", "application/xml", "application/javascript", "application/csv",
+                "application/yaml", "application/x-yaml", "image/svg+xml"));
+
+        // 小于该大小(字节)的文件不压缩
+        private long minSize = 1024;
+
+        // 采样大小(字节)：压缩前试压缩文件开头的数据，判断是否值得压缩
+        private int sampleSize = 64 * 1024;
+
+        // 采样压缩率（压缩后/压缩前）高于该值时不压缩
+        private double maxSampleRatio = 0.9;
+
+        // 压缩级别，-1 使用算法默认级别（gzip 6，zstd 3）
+        private int level = -1;
+    }
+
+    /**
+     * 下载缓存配置：下载响应携带 ETag / Last-Modified 校验值与 Cache-Control，按存储桶配置缓存策略
+     */
+    @Getter
+    @Setter
+    public static class Cache {
+        // 未单独配置的存储桶使用的缓存策略，默认每次向服务端校验
+        private CachePolicy defaults = new CachePolicy();
+
+        // 按存储桶配置的缓存策略，key 为存储桶名称
+        private Map<String, CachePolicy> buckets = new LinkedHashMap<>();
+    }
+
+    /**
+     * 分片上传临时文件清理配置：既未合并也未取消的上传会话，其分片会一直留在默认存储桶的 .chunk-uploads/ 下
+     */
+    @Getter
+    @Setter
+    public static class ChunkCleanup {
+        // 是否开启后台清理
+        private boolean enabled = true;
+
+        // 会话最后一次写入分片后超过该时长视为废弃
+        private Duration ttl = Duration.ofHours(24);
+
+        // 清理间隔
+        private Duration interval = Duration.ofHours(1);
+
+        // 每秒最多删除的对象数，避免清理与前台请求争抢存储服务
+        private int deleteRate = 500;
+
+        // 单次批量删除的对象数
+        private int batchSize = 200;
+
+        // 启动时在存储服务上设置生命周期规则，分片创建多少天后由存储服务删除，0 表示不设置；
+        // 规则按分片创建时间计算，需大于最长上传时长
+        private int lifecycleDays = 7;
+    }
+
+    /**
+     * 分片上传建议配置：initChunkUpload 返回建议的分片大小与并发数
+     */
+    @Getter
+    @Setter
+    public static class ChunkAdvice {
+        // 没有上传速度样本时建议的分片大小(字节)
+        private long defaultChunkSize = 8L * 1024 * 1024;
+
+        // 建议的最大分片大小(字节)，文件过大导致分片数超过 10000 时会超出
+        private long maxChunkSize = 64L * 1024 * 1024;
+
+        // 单个分片期望的上传时长：分片大小 = 近期单连接上传速度 x 该时长
+        private Duration targetChunkDuration = Duration.ofSeconds(4);
+
+        // 没有上传速度样本时建议的并发数
+        private int defaultConcurrency = 3;
+
+        // 建议的最大并发数
+        private int maxConcurrency = 8;
+
+        // 服务端同时写入的分片数容量，按正在上传的客户端网段平分
+        private int maxInflight = 64;
+
+        // 上传速度样本有效期
+        private Duration sampleTtl = Duration.ofMinutes(10);
+
+        // 最多保留多少个客户端网段的速度样本，超出时清理过期样本
+        private int maxClients = 10000;
+    }
+
+    /**
+     * 上传/下载带宽限制配置：按客户端 IP、API Key、存储桶分别限速，一次传输受所有命中维度的约束
+     */
+    @Getter
+    @Setter
+    public static class Bandwidth {
+        // 是否开启带宽限制
+        private boolean enabled = false;
+
+        // 携带 API Key 的请求头
+        private String apiKeyHeader = "X-Api-Key";
+
+        // 每个客户端 IP 的限速
+        private BandwidthLimit client = new BandwidthLimit();
+
+        // 每个 API Key 的限速，未携带 API Key 的请求不受该项限制
+        private BandwidthLimit apiKey = new BandwidthLimit();
+
+        // 每个存储桶的限速，由访问该存储桶的所有请求共享
+        private BandwidthLimit bucket = new BandwidthLimit();
+
+        // 按 API Key 单独配置的限速，覆盖 apiKey
+        private Map<String, BandwidthLimit> apiKeys = new LinkedHashMap<>();
+
+        // 按存储桶单独配置的限速，覆盖 bucket
+        private Map<String, BandwidthLimit> buckets = new LinkedHashMap<>();
+
+        // 速率指标统计周期
+        private Duration sampleInterval = Duration.ofSeconds(1);
+
+        // 限速器空闲超过该时长后回收
+        private Duration idleTimeout = Duration.ofMinutes(10);
+
+        // 最多保留的限速器数，超出后新的客户端 IP / API Key 共用一个溢出限速器
+        private int maxKeys = 10000;
+    }
+
+    /**
+     * 带宽限制
+     */
+    @Getter
+    @Setter
+    public static class BandwidthLimit {
+        // 上传速率(字节/秒)，0 表示不限制
+        private long uploadRate = 0;
+
+        // 下载速率(字节/秒)，0 表示不限制
+        private long downloadRate = 0;
+
+        // 允许的突发字节数，0 表示取 1 秒的速率
+        private long burst = 0;
+    }
+
+    /**
+     * 接口舱壁配置：按负载类型分别限制并发与排队，并发限制随后端延迟自适应调整；
+     * 请求排队时占用 Tomcat 线程，transfer 与 merge 的 maxLimit + maxQueue 之和需明显小于 Tomcat 最大线程数(默认 200)
+     */
+    @Getter
+    @Setter
+    public static class Bulkhead {
+        // 是否开启
+        private boolean enabled = true;
+
+        // 按后端延迟调整并发限制的周期
+        private Duration sampleInterval = Duration.ofSeconds(1);
+
+        // 延迟容忍系数：短期延迟超过长期延迟的该倍数后开始收缩并发限制
+        private double tolerance = 1.5;
+
+        // 每次调整向新值移动的比例
+        private double smoothing = 0.2;
+
+        // 上传下载等大文件传输
+        private BulkheadLimit transfer = new BulkheadLimit(32, 8, 96, 32, Duration.ofSeconds(5));
+
+        // 存储桶、策略、列表、预签名等元数据调用
+        private BulkheadLimit metadata = new BulkheadLimit(64, 8, 128, 64, Duration.ofMillis(500));
+
+        // 分片合并
+        private BulkheadLimit merge = new BulkheadLimit(8, 2, 16, 16, Duration.ofSeconds(10));
+    }
+
+    /**
+     * 单个负载类型的并发限制
+     */
+    @Getter
+    @Setter
+    public static class BulkheadLimit {
+        // 初始并发限制
+        private int initialLimit;
+
+        // 并发限制下限
+        private int minLimit;
+
+        // 并发限制上限
+        private int maxLimit;
+
+        // 最多排队的请求数，超出直接返回 503
+        private int maxQueue;
+
+        // 最长排队时间，超时返回 503
+        private Duration queueTimeout;
+
+        public BulkheadLimit() {
+        }
+
+        public BulkheadLimit(int initialLimit, int minLimit, int maxLimit, int maxQueue, Duration queueTimeout) {
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            this.maxQueue = maxQueue;
+            this.queueTimeout = queueTimeout;
+        }
+    }
+
+    /**
+     * 服务端拷贝与批量迁移配置：对象内容由存储服务直接拷贝，不经过本服务
+     */
+    @Getter
+    @Setter
+    public static class Copy {
+        // 超过该大小(字节)的对象使用分片拷贝(UploadPartCopy)，单次 CopyObject 最大 5GB
+        private long multipartThreshold = 128L * 1024 * 1024;
+
+        // 分片拷贝的分片大小(字节)，不低于 5MB；分片数超过 10000 时自动放大
+        private long partSize = 64L * 1024 * 1024;
+
+        // 单个对象同时拷贝的分片数
+        private int partParallelism = 8;
+
+        // 单个迁移任务同时拷贝的对象数
+        private int migrationParallelism = 16;
+
+        // 同时运行的迁移任务数，超出的任务排队
+        private int maxRunningMigrations = 2;
+
+        // 迁移任务最多记录的失败对象数
+        private int maxReportedFailures = 100;
+
+        // 迁移任务结束后保留进度的时长
+        private Duration retention = Duration.ofHours(1);
+    }
+
+    /**
+     * 大对象并行范围下载配置：downloadFile 对 MinIO 中的大对象并发发起范围读取，按顺序写给客户端
+     */
+    @Getter
+    @Setter
+    public static class RangedDownload {
+        // 是否开启
+        private boolean enabled = true;
+
+        // 不小于该大小(字节)的对象使用并行范围下载
+        private long threshold = 64L * 1024 * 1024;
+
+        // 分片大小下限(字节)，按对象大小在上下限之间选取
+        private long minPartSize = 8L * 1024 * 1024;
+
+        // 分片大小上限(字节)
+        private long maxPartSize = 32L * 1024 * 1024;
+
+        // 单个下载同时读取的分片数
+        private int parallelism = 8;
+
+        // 单个下载的分片缓冲区上限(字节)，决定缓冲区环的大小
+        private long maxBufferPerDownload = 256L * 1024 * 1024;
+
+        // 全部下载共用的分片缓冲区上限(字节)，超出时退回单流下载
+        private long maxBufferMemory = 1024L * 1024 * 1024;
+    }
+
+    /**
+     * 分块下载顺序预读配置：同一客户端按偏移递增读取同一对象时，提前读取后续的块
+     */
+    @Getter
+    @Setter
+    public static class ReadAhead {
+        // 是否开启
+        private boolean enabled = true;
+
+        // 单个读取流预读窗口上限(字节)，超过该大小的块不预读
+        private long maxWindow = 16L * 1024 * 1024;
+
+        // 全部读取流共用的预读内存上限(字节)，超出时不再预读
+        private long maxMemory = 256L * 1024 * 1024;
+
+        // 同时跟踪的读取流上限
+        private int maxStreams = 1024;
+
+        // 读取流空闲超过该时长后丢弃预读数据
+        private Duration idleTimeout = Duration.ofSeconds(30);
+    }
+
+    /**
+     * 去重存储配置：文件按内容定义分块，相同内容的块只存储一次，文件存储为块清单
+     */
+    @Getter
+    @Setter
+    public static class Dedup {
+        // 开启去重的存储桶；开启后不要再关闭，否则删除已写入的去重文件时不再释放块引用
+        private List<String> buckets = new ArrayList<>();
+
+        // 块大小下限(字节)
+        private int minChunkSize = 256 * 1024;
+
+        // 平均块大小(字节)，按 2 的幂取整
+        private int avgChunkSize = 1024 * 1024;
+
+        // 块大小上限(字节)
+        private int maxChunkSize = 4 * 1024 * 1024;
+
+        // 上传时同时写入的块数
+        private int uploadParallelism = 8;
+
+        // 下载时预读的块数
+        private int prefetch = 4;
+    }
+
+    /**
+     * 存储桶缓存策略
+     */
+    @Getter
+    @Setter
+    public static class CachePolicy {
+        // 缓存时长，0 表示缓存前必须向服务端校验(no-cache)
+        private Duration maxAge = Duration.ZERO;
+
+        // 对象写入后不再覆盖（如 uploadFile 生成的 UUID 路径），浏览器在有效期内不再发起校验请求
+        private boolean immutable = false;
+
+        // 是否允许 CDN 等共享缓存缓存，否则只允许浏览器缓存
+        private boolean shared = true;
+    }
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 存储后端配置加载类
+ * @author luckykuang
+ * @date 2026/10/19 11:45
+ */
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "storage")
+public class StorageProperties {
+    // 默认存储后端：minio / local
+    private String defaultBackend = "minio";
+
+    // 按存储桶指定存储后端，key 为存储桶名称，value 为 minio / local
+    private Map<String, String> buckets = new LinkedHashMap<>();
+
+    // 本地文件系统后端配置
+    private Local local = new Local();
+
+    @Getter
+    @Setter
+    public static class Local {
+        // 根目录，每个存储桶对应其下的一个子目录
+        private String root = "./data";
+
+        // 小于该大小的读取使用内存映射(mmap)，单位字节
+        private long mmapThreshold = 256 * 1024;
+    }
+}
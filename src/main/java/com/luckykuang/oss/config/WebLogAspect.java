@@ -1,8 +1,8 @@
 package com.luckykuang.oss.config;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ServletResponse;
 import jakarta.servlet.http.HttpServletRequest;
-import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
@@ -16,155 +16,187 @@ import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.beans.BeanInfo;
+import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
+import java.io.InputStream;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Enumeration;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * 全局日志捕获
+ * <p>日志关闭或未命中采样时直接放行；命中时请求线程只采集原始引用，序列化交给 {@link WebLogWriter} 异步完成</p>
  * @author Pontus
  * @since 2025/1/7 13:59
  */
 @Aspect
 @Component
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class WebLogAspect {
     private final Logger logger = LoggerFactory.getLogger(WebLogAspect.class);
-    private final ObjectMapper objectMapper;
+    private final WebLogWriter webLogWriter;
+    private final WebLogProperties webLogProperties;
+
+    // 方法元数据缓存
+    private final Map<Method, MethodMeta> methodMetaCache = new ConcurrentHashMap<>();
+
+    // DTO/QO/VO 字段读取方法缓存，非实体类为 null
+    private static final ClassValue<PropertyAccessor[]> ENTITY_ACCESSORS = new ClassValue<>() {
+        @Override
+        protected PropertyAccessor[] computeValue(Class<?> type) {
+            return resolveAccessors(type);
+        }
+    };
+
+    private record MethodMeta(String qualifiedName, String[] parameterNames) {
+    }
+
+    private record PropertyAccessor(String name, Method getter) {
+    }
 
     @Pointcut("execution(public * com.luckykuang.oss.controller..*.*(..))")
     public void controllerLog(){}
 
     @Around("controllerLog()")
     public Object logControllerMethod(ProceedingJoinPoint joinPoint) throws Throwable {
+        // 快速路径：日志关闭或未命中采样，不做任何采集
+        if (!webLogProperties.isEnabled() || !logger.isInfoEnabled() || !sampled()) {
+            return joinPoint.proceed();
+        }
         RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
-        HttpServletRequest httpServletRequest = ((ServletRequestAttributes) Objects.requireNonNull(requestAttributes)).getRequest();
+        if (!(requestAttributes instanceof ServletRequestAttributes servletRequestAttributes)) {
+            return joinPoint.proceed();
+        }
+        HttpServletRequest httpServletRequest = servletRequestAttributes.getRequest();
         MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        Method method = signature.getMethod();
+        MethodMeta meta = methodMetaCache.computeIfAbsent(signature.getMethod(),
+                m -> new MethodMeta(m.getDeclaringClass().getName() + "#" + m.getName(), signature.getParameterNames()));
 
-        Object[] args = joinPoint.getArgs();
-        String[] parameterNames = signature.getParameterNames();
+        // 请求对象会被容器回收，必须在请求线程上读取
+        String url = httpServletRequest.getRequestURL().toString();
+        String ip = httpServletRequest.getRemoteAddr();
+        String[] headers = webLogProperties.isLogHeaders() ? captureHeaders(httpServletRequest) : null;
+        Map<String, Object> params = captureParams(joinPoint.getArgs(), meta.parameterNames());
 
-        Map<String, Object> headerMap = new HashMap<>();
-        Map<String, Object> paramMap = new HashMap<>();
+        long start = System.nanoTime();
+        Object result = null;
+        Throwable error = null;
+        try {
+            result = joinPoint.proceed();
+            return result;
+        } catch (Throwable e) {
+            error = e;
+            throw e;
+        } finally {
+            long cost = (System.nanoTime() - start) / 1_000_000;
+            webLogWriter.submit(new WebLogWriter.Entry(url, meta.qualifiedName(), ip, headers, params, result, error, cost));
+        }
+    }
+
+    private boolean sampled() {
+        double sampleRate = webLogProperties.getSampleRate();
+        return sampleRate >= 1.0 || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
 
-        // 请求头信息
-        Enumeration<String> headerNames = httpServletRequest.getHeaderNames();
+    private String[] captureHeaders(HttpServletRequest request) {
+        List<String> list = new ArrayList<>(32);
+        Enumeration<String> headerNames = request.getHeaderNames();
         while (headerNames.hasMoreElements()) {
             String headerName = headerNames.nextElement();
             // 跳过token信息打印
             if ("Authorization".equalsIgnoreCase(headerName)) {
                 continue;
             }
-            String headerValue = httpServletRequest.getHeader(headerName);
-            headerMap.put(headerName, headerValue);
+            list.add(headerName);
+            list.add(request.getHeader(headerName));
         }
+        return list.toArray(new String[0]);
+    }
 
-        boolean requestFlag = false;
-        boolean multipartFileFlag = false;
-        boolean requestFlag2 = false;
-        boolean multipartFileFlag2 = false;
-
-        // 请求参数
-        for (int i = 0; i < parameterNames.length; i++) {
-            // HttpServletRequest入参获取
-            if (args[i] instanceof HttpServletRequest) {
-                HttpServletRequest request = (HttpServletRequest) args[i];
-                Map<String, String[]> parameterMap = request.getParameterMap();
-                for (Map.Entry<String, String[]> entry : parameterMap.entrySet()) {
-                    paramMap.put(entry.getKey(), String.join(",", entry.getValue()));
-                }
-                requestFlag = true;
-            }
-            // 文件入参获取
-            if (args[i] instanceof MultipartFile) {
-                MultipartFile file = (MultipartFile) args[i];
-                paramMap.put(parameterNames[i], file.getOriginalFilename());
-                multipartFileFlag = true;
+    /**
+     * 采集请求参数，只保留引用或轻量字符串，序列化在异步线程完成
+     */
+    Map<String, Object> captureParams(Object[] args, String[] parameterNames) throws ReflectiveOperationException {
+        if (args.length == 0) {
+            return null;
+        }
+        Map<String, Object> paramMap = new LinkedHashMap<>(args.length * 2);
+        for (int i = 0; i < args.length; i++) {
+            String name = parameterNames != null && i < parameterNames.length ? parameterNames[i] : "arg" + i;
+            Object arg = args[i];
+            if (arg == null) {
+                paramMap.put(name, null);
+                continue;
             }
-            // 其他入参获取
-            if (!(args[i] instanceof HttpServletRequest) && !requestFlag && !multipartFileFlag) {
-                if (args[i] instanceof String && args[i].toString().endsWith(",")) {
-                    paramMap.put(parameterNames[i], args[i].toString().substring(0, args[i].toString().lastIndexOf(",")));
-                } else if (this.isEntityClass(args[i])) {
-                    Class<?> aClass = args[i].getClass();
-                    Field[] fields = aClass.getDeclaredFields();
-                    for (Field field : fields) {
-//                        field.setAccessible(true);
-                        String name = field.getName();
-                        // 跳过序列化id
-                        if ("serialVersionUID".equals(name)) {
-                            continue;
-                        }
-                        /*
-                         * 得到字段值 通过get属性获得
-                         * */
-                        PropertyDescriptor pd = new PropertyDescriptor(name, aClass);
-                        Method getMethod = pd.getReadMethod();
-                        Object invoke = getMethod.invoke(args[i]);
-                        // HttpServletRequest入参获取
-                        if (invoke instanceof HttpServletRequest) {
-                            HttpServletRequest request = (HttpServletRequest) invoke;
-                            Map<String, String[]> parameterMap = request.getParameterMap();
-                            for (Map.Entry<String, String[]> entry : parameterMap.entrySet()) {
-                                paramMap.put(entry.getKey(), String.join(",", entry.getValue()));
-                            }
-                            requestFlag2 = true;
-                        }
-                        // 文件入参获取
-                        if (invoke instanceof MultipartFile) {
-                            MultipartFile file = (MultipartFile) invoke;
-                            paramMap.put(name, file.getOriginalFilename());
-                            multipartFileFlag2 = true;
-                        }
-                        // 其他
-                        if (!requestFlag2 && !multipartFileFlag2) {
-                            paramMap.put(name, invoke);
-                        }
-                    }
-                } else {
-                    paramMap.put(parameterNames[i], args[i]);
+            PropertyAccessor[] accessors = ENTITY_ACCESSORS.get(arg.getClass());
+            if (accessors != null) {
+                for (PropertyAccessor accessor : accessors) {
+                    putValue(paramMap, accessor.name(), accessor.getter().invoke(arg));
                 }
+            } else if (arg instanceof String str && str.endsWith(",")) {
+                paramMap.put(name, str.substring(0, str.length() - 1));
+            } else {
+                putValue(paramMap, name, arg);
             }
         }
+        return paramMap;
+    }
 
-        // 记录请求参数
-        try {
-            String headers = objectMapper.writeValueAsString(headerMap);
-            String params = objectMapper.writeValueAsString(paramMap);
-            logger.info("################The Request Url: [{}], Class: [{}#{}], IP: [{}], Headers:[{}] Params: [{}]",
-                    httpServletRequest.getRequestURL(),method.getDeclaringClass().getName(),method.getName(),httpServletRequest.getRemoteAddr(),headers,params);
-        } catch (Exception e) {
-            logger.error("################The Request Url: [{}], Class: [{}#{}], IP: [{}], errorMsg: [{}]",
-                    httpServletRequest.getRequestURL(),method.getDeclaringClass().getName(),method.getName(),httpServletRequest.getRemoteAddr(),e.getMessage());
+    private void putValue(Map<String, Object> paramMap, String name, Object value) {
+        // HttpServletRequest入参获取
+        if (value instanceof HttpServletRequest request) {
+            for (Map.Entry<String, String[]> entry : request.getParameterMap().entrySet()) {
+                paramMap.put(entry.getKey(), String.join(",", entry.getValue()));
+            }
+        // 文件入参获取
+        } else if (value instanceof MultipartFile file) {
+            paramMap.put(name, file.getOriginalFilename());
+        } else if (value instanceof MultipartFile[] files) {
+            String[] names = new String[files.length];
+            for (int i = 0; i < files.length; i++) {
+                names[i] = files[i].getOriginalFilename();
+            }
+            paramMap.put(name, names);
+        } else if (value instanceof InputStream || value instanceof ServletResponse) {
+            paramMap.put(name, value.getClass().getSimpleName());
+        } else {
+            paramMap.put(name, value);
         }
-        long start = System.currentTimeMillis();
-        Object result = joinPoint.proceed();
-        long end = System.currentTimeMillis();
+    }
 
-        // 记录返回结果
+    private static PropertyAccessor[] resolveAccessors(Class<?> type) {
+        String simpleName = type.getSimpleName();
+        // DTO 或 QO 或 VO 结尾
+        if (!(simpleName.endsWith("DTO") || simpleName.endsWith("QO") || simpleName.endsWith("VO"))) {
+            return null;
+        }
         try {
-            String response = objectMapper.writeValueAsString(result);
-            logger.info("################The Response Url: [{}], Class: [{}#{}], IP: [{}], Time(ms): [{}], Result: [{}]",
-                    httpServletRequest.getRequestURL(), method.getDeclaringClass().getName(), method.getName(),httpServletRequest.getRemoteAddr(), end - start, response);
+            BeanInfo beanInfo = Introspector.getBeanInfo(type, Object.class);
+            Map<String, Method> getters = new LinkedHashMap<>();
+            for (PropertyDescriptor pd : beanInfo.getPropertyDescriptors()) {
+                if (pd.getReadMethod() != null) {
+                    getters.put(pd.getName(), pd.getReadMethod());
+                }
+            }
+            // 按字段声明顺序输出，跳过序列化id等静态字段
+            List<PropertyAccessor> accessors = new ArrayList<>();
+            for (Field field : type.getDeclaredFields()) {
+                Method getter = getters.get(field.getName());
+                if (getter != null && !Modifier.isStatic(field.getModifiers())) {
+                    accessors.add(new PropertyAccessor(field.getName(), getter));
+                }
+            }
+            return accessors.toArray(new PropertyAccessor[0]);
         } catch (Exception e) {
-            logger.error("################The Response Url: [{}], Class: {}#{}, IP: [{}], Time(ms): [{}]",
-                    httpServletRequest.getRequestURL(), method.getDeclaringClass().getName(), method.getName(),httpServletRequest.getRemoteAddr(),end - start,e);
+            return null;
         }
-
-        return result;
-    }
-
-    private boolean isEntityClass(Object entity) {
-        if (entity == null) {
-            return false;
-        }
-        String simpleName = entity.getClass().getSimpleName();
-        // DTO 或 QO 或 VO 结尾
-        return simpleName.endsWith("DTO") || simpleName.endsWith("QO") || simpleName.endsWith("VO");
     }
 }
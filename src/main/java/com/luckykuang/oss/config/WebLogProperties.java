@@ -0,0 +1,48 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 请求日志配置加载类
+ * @author luckykuang
+ * @date 2026/10/19 10:12
+ */
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "web-log")
+public class WebLogProperties {
+    // 是否开启请求日志
+    private boolean enabled = true;
+
+    // 采样率 0.0 ~ 1.0，1.0 表示全部记录
+    private double sampleRate = 1.0;
+
+    // 是否记录请求头
+    private boolean logHeaders = true;
+
+    // 参数/返回结果序列化后的最大字符数，超出部分截断
+    private int maxPayloadLength = 2048;
+
+    // 异步写入队列容量，队列满时直接丢弃日志，不阻塞请求线程
+    private int queueCapacity = 4096;
+}
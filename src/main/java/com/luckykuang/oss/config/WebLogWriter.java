@@ -0,0 +1,194 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 请求日志异步写入器
+ * <p>请求线程只负责把原始引用放入队列，序列化与输出全部在后台线程完成；队列满时丢弃日志，保证不阻塞请求</p>
+ * @author luckykuang
+ * @date 2026/10/19 10:20
+ */
+@Component
+public class WebLogWriter {
+    private final Logger logger = LoggerFactory.getLogger(WebLogAspect.class);
+    private final ObjectMapper objectMapper;
+    private final WebLogProperties webLogProperties;
+    private final BlockingQueue<Entry> queue;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    public WebLogWriter(ObjectMapper objectMapper, WebLogProperties webLogProperties) {
+        this.objectMapper = objectMapper;
+        this.webLogProperties = webLogProperties;
+        this.queue = new ArrayBlockingQueue<>(Math.max(16, webLogProperties.getQueueCapacity()));
+        this.worker = Thread.ofPlatform().name("web-log-writer").daemon(true).unstarted(this::drain);
+        this.worker.start();
+    }
+
+    /**
+     * 单条请求日志，字段均为请求线程上采集的原始引用
+     * @param url 请求地址
+     * @param method 类名#方法名
+     * @param ip 客户端地址
+     * @param headers 请求头，name/value 交替存放，可为 null
+     * @param params 请求参数，可为 null
+     * @param result 返回结果
+     * @param error 异常信息
+     * @param costMs 耗时(ms)
+     */
+    public record Entry(String url, String method, String ip, String[] headers, Map<String, Object> params,
+                        Object result, Throwable error, long costMs) {
+    }
+
+    /**
+     * 提交日志，不阻塞
+     * @param entry 日志
+     */
+    public void submit(Entry entry) {
+        if (!queue.offer(entry)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void drain() {
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry entry = queue.poll(1, TimeUnit.SECONDS);
+                if (entry != null) {
+                    write(entry);
+                }
+                long lost = dropped.getAndSet(0);
+                if (lost > 0) {
+                    logger.warn("################Web log queue full, dropped [{}] records", lost);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("################Web log write failed", e);
+            }
+        }
+    }
+
+    private void write(Entry entry) {
+        int limit = webLogProperties.getMaxPayloadLength();
+        logger.info("################The Request Url: [{}], Class: [{}], IP: [{}], Headers:[{}] Params: [{}]",
+                entry.url(), entry.method(), entry.ip(), headersToString(entry.headers()), toJson(entry.params(), limit));
+        if (entry.error() != null) {
+            logger.error("################The Response Url: [{}], Class: [{}], IP: [{}], Time(ms): [{}], errorMsg: [{}]",
+                    entry.url(), entry.method(), entry.ip(), entry.costMs(), entry.error().toString());
+        } else {
+            logger.info("################The Response Url: [{}], Class: [{}], IP: [{}], Time(ms): [{}], Result: [{}]",
+                    entry.url(), entry.method(), entry.ip(), entry.costMs(), toJson(entry.result(), limit));
+        }
+    }
+
+    private String headersToString(String[] headers) {
+        if (headers == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(headers.length * 16);
+        for (int i = 0; i + 1 < headers.length; i += 2) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(headers[i]).append('=').append(headers[i + 1]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 序列化为 JSON，超过 limit 个字符后立即中止序列化，避免大列表占用 CPU
+     */
+    String toJson(Object value, int limit) {
+        if (value == null) {
+            return "null";
+        }
+        LimitedWriter writer = new LimitedWriter(limit);
+        try {
+            objectMapper.writeValue(writer, value);
+        } catch (Exception e) {
+            if (!writer.isTruncated()) {
+                return "<serialize failed: " + e.getMessage() + ">";
+            }
+        }
+        return writer.isTruncated() ? writer + "...(truncated)" : writer.toString();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        worker.join(TimeUnit.SECONDS.toMillis(3));
+    }
+
+    /**
+     * 有长度上限的 Writer，超出上限后抛出异常中止 Jackson 序列化
+     */
+    private static final class LimitedWriter extends Writer {
+        private final StringBuilder sb;
+        private final int limit;
+        private boolean truncated;
+
+        LimitedWriter(int limit) {
+            this.limit = Math.max(0, limit);
+            this.sb = new StringBuilder(Math.min(this.limit, 256));
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            int remaining = limit - sb.length();
+            if (len > remaining) {
+                sb.append(cbuf, off, remaining);
+                truncated = true;
+                throw new IOException("web log payload limit reached");
+            }
+            sb.append(cbuf, off, len);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        boolean isTruncated() {
+            return truncated;
+        }
+
+        @Override
+        public String toString() {
+            return sb.toString();
+        }
+    }
+}
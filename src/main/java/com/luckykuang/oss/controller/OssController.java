@@ -17,12 +17,15 @@
 package com.luckykuang.oss.controller;
 
 import com.luckykuang.oss.base.ApiResult;
+import com.luckykuang.oss.enums.WorkloadEnum;
 import com.luckykuang.oss.service.OssService;
+import com.luckykuang.oss.throttle.Workload;
 import com.luckykuang.oss.vo.*;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -74,25 +77,44 @@ public class OssController {
     }
 
     @Operation(summary = "文件上传", description = "上传File文件")
+    @Workload(WorkloadEnum.TRANSFER)
     @PostMapping(value = "uploadFile",consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ApiResult<String> uploadFile(@Schema(description = "上传的文件",type = "file") @RequestPart MultipartFile file,
                                         @Schema(description = "存储桶名称") @RequestPart String bucketName){
         return ossService.uploadFile(file,bucketName);
     }
 
+    @Operation(summary = "批量文件上传", description = "一次请求上传多个文件，按顺序返回每个文件的上传结果")
+    @Workload(WorkloadEnum.TRANSFER)
+    @PostMapping(value = "uploadFiles",consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ApiResult<List<BatchUploadResultVO>> uploadFiles(@Schema(description = "上传的文件") @RequestPart List<MultipartFile> files,
+                                                           @Schema(description = "存储桶名称") @RequestPart(required = false) String bucketName){
+        return ossService.uploadFiles(files,bucketName);
+    }
+
     @Operation(summary = "文件上传", description = "上传文件流")
+    @Workload(WorkloadEnum.TRANSFER)
     @PostMapping(value = "uploadFileByStream",consumes = MediaType.APPLICATION_JSON_VALUE)
     public ApiResult<String> uploadFileByStream(@RequestBody @Validated UploadFileVO uploadFileVO){
         return ossService.uploadFileByStream(uploadFileVO);
     }
 
-    @Operation(summary = "下载文件", description = "下载文件", parameters = {
+    @Operation(summary = "下载文件", description = "下载文件，支持 If-None-Match / If-Modified-Since 条件请求", parameters = {
             @Parameter(name = "bucketName",description = "存储桶名称"),
             @Parameter(name = "filePath",description = "下载的文件路径")
     })
+    @Workload(WorkloadEnum.TRANSFER)
     @GetMapping("downloadFile")
-    public void downloadFile(@NotBlank String bucketName, @NotBlank String filePath, HttpServletResponse response){
-        ossService.downloadFile(bucketName,filePath,response);
+    public void downloadFile(@NotBlank String bucketName, @NotBlank String filePath, HttpServletRequest request,
+                             HttpServletResponse response){
+        ossService.downloadFile(bucketName,filePath,request,response);
+    }
+
+    @Operation(summary = "打包下载", description = "按路径前缀或文件路径列表打包下载，支持 zip / tar")
+    @Workload(WorkloadEnum.TRANSFER)
+    @PostMapping(value = "downloadArchive", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public void downloadArchive(@RequestBody ArchiveDownloadVO archiveDownloadVO, HttpServletResponse response){
+        ossService.downloadArchive(archiveDownloadVO, response);
     }
 
     @Operation(summary = "删除文件", description = "删除文件", parameters = {
@@ -139,6 +161,12 @@ public class OssController {
         return ApiResult.success(ossService.getPresignedObjectUrl(bucketName, objectName, expirySeconds));
     }
 
+    @Operation(summary = "批量生成临时访问url", description = "一次请求为多个对象生成临时访问url，按顺序返回每个对象的结果")
+    @PostMapping(value = "getPresignedObjectUrls", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ApiResult<List<BatchPresignResultVO>> getPresignedObjectUrls(@RequestBody @Validated BatchPresignVO batchPresignVO){
+        return ossService.getPresignedObjectUrls(batchPresignVO);
+    }
+
     @Operation(summary = "获取文件分片数量", description = "根据指定步长，得到文件被分片的数量", parameters = {
             @Parameter(name = "bucketName",description = "存储桶名称"),
             @Parameter(name = "objectName",description = "文件路径"),
@@ -155,19 +183,22 @@ public class OssController {
             @Parameter(name = "offset",description = "起始字节的位置"),
             @Parameter(name = "length",description = "分片长度 - 如果为空则代表读到文件结尾")
     })
+    @Workload(WorkloadEnum.TRANSFER)
     @GetMapping("downloadFileChunk")
     public void downloadFileChunk(@NotBlank String bucketName, @NotBlank String objectName, @NotNull Long offset,
                                   @RequestParam(required = false) Long length, HttpServletResponse response){
         ossService.downloadFileChunk(bucketName,objectName,offset,length,response);
     }
 
-    @Operation(summary = "初始化分片上传", description = "初始化分片上传，检查并返回已上传的分片状态")
+    @Operation(summary = "初始化分片上传", description = "初始化分片上传，检查并返回已上传的分片状态及建议的分片大小与并发数")
     @PostMapping(value = "initChunkUpload", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ApiResult<ChunkUploadStatusVO> initChunkUpload(@RequestBody @Validated ChunkUploadInitVO chunkUploadInitVO){
-        return ossService.initChunkUpload(chunkUploadInitVO);
+    public ApiResult<ChunkUploadStatusVO> initChunkUpload(@RequestBody @Validated ChunkUploadInitVO chunkUploadInitVO,
+                                                          HttpServletRequest request){
+        return ossService.initChunkUpload(chunkUploadInitVO, request);
     }
 
     @Operation(summary = "上传文件分片", description = "上传文件分片")
+    @Workload(WorkloadEnum.TRANSFER)
     @PostMapping(value = "uploadChunk", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ApiResult<String> uploadChunk(@RequestParam @NotBlank String fileName,
                                           @RequestParam @NotBlank String fileMd5,
@@ -176,7 +207,8 @@ public class OssController {
                                           @RequestParam @NotNull Integer totalChunks,
                                           @RequestParam @NotNull Long chunkSize,
                                           @RequestParam @NotNull Long totalSize,
-                                          @RequestParam @NotNull MultipartFile file){
+                                          @RequestParam @NotNull MultipartFile file,
+                                          HttpServletRequest request){
         ChunkUploadVO chunkUploadVO = new ChunkUploadVO();
         chunkUploadVO.setFileName(fileName);
         chunkUploadVO.setFileMd5(fileMd5);
@@ -186,10 +218,28 @@ public class OssController {
         chunkUploadVO.setChunkSize(chunkSize);
         chunkUploadVO.setTotalSize(totalSize);
         chunkUploadVO.setFile(file);
-        return ossService.uploadChunk(chunkUploadVO);
+        return ossService.uploadChunk(chunkUploadVO, request);
+    }
+
+    @Operation(summary = "上传文件分片(请求体)", description = "请求体即分片内容，需携带 Content-Length，不做 multipart 解析", parameters = {
+            @Parameter(name = "uploadSessionId", description = "上传会话ID"),
+            @Parameter(name = "fileMd5", description = "文件MD5"),
+            @Parameter(name = "chunkNumber", description = "分片序号，从0开始"),
+            @Parameter(name = "X-Total-Chunks", description = "总分片数"),
+            @Parameter(name = "X-File-Name", description = "文件名(URL 编码)，只用于日志")
+    })
+    @Workload(WorkloadEnum.TRANSFER)
+    @PutMapping("uploadChunk/{uploadSessionId}/{fileMd5}/{chunkNumber}")
+    public ApiResult<String> uploadChunk(@PathVariable String uploadSessionId, @PathVariable String fileMd5,
+                                         @PathVariable Integer chunkNumber,
+                                         @RequestHeader("X-Total-Chunks") Integer totalChunks,
+                                         @RequestHeader(value = "X-File-Name", required = false) String fileName,
+                                         HttpServletRequest request){
+        return ossService.uploadChunk(uploadSessionId, fileMd5, chunkNumber, totalChunks, fileName, request);
     }
 
     @Operation(summary = "完成分片上传", description = "合并所有分片文件并完成上传")
+    @Workload(WorkloadEnum.MERGE)
     @PostMapping(value = "completeChunkUpload", consumes = MediaType.APPLICATION_JSON_VALUE)
     public ApiResult<String> completeChunkUpload(@RequestBody @Validated ChunkUploadCompleteVO chunkUploadCompleteVO){
         return ossService.completeChunkUpload(chunkUploadCompleteVO);
@@ -217,6 +267,68 @@ public class OssController {
         return ossService.cancelChunkUpload(fileMd5, bucketName, uploadSessionId);
     }
 
+    @Operation(summary = "初始化直传", description = "签发上传凭证，客户端直接上传到存储服务：小文件使用 PUT / POST 表单，大文件使用分片上传")
+    @PostMapping(value = "initDirectUpload", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ApiResult<DirectUploadVO> initDirectUpload(@RequestBody @Validated DirectUploadInitVO directUploadInitVO){
+        return ossService.initDirectUpload(directUploadInitVO);
+    }
+
+    @Operation(summary = "完成直传", description = "合并已上传的分片并登记文件，返回文件访问URL")
+    @Workload(WorkloadEnum.MERGE)
+    @PostMapping(value = "completeDirectUpload", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ApiResult<String> completeDirectUpload(@RequestBody @Validated DirectUploadCompleteVO directUploadCompleteVO){
+        return ossService.completeDirectUpload(directUploadCompleteVO);
+    }
+
+    @Operation(summary = "取消直传", description = "取消分片上传并删除已上传的分片", parameters = {
+            @Parameter(name = "bucketName",description = "存储桶名称"),
+            @Parameter(name = "objectName",description = "文件路径"),
+            @Parameter(name = "uploadId",description = "分片上传ID")
+    })
+    @DeleteMapping("abortDirectUpload")
+    public ApiResult<String> abortDirectUpload(@RequestParam(required = false) String bucketName,
+                                               @NotBlank String objectName, @NotBlank String uploadId){
+        return ossService.abortDirectUpload(bucketName, objectName, uploadId);
+    }
+
+    // ==================== 服务端拷贝与迁移 ====================
+
+    @Operation(summary = "拷贝文件", description = "服务端拷贝文件，文件内容不经过本服务；大文件使用分片拷贝，返回目标文件访问URL")
+    @Workload(WorkloadEnum.MERGE)
+    @PostMapping(value = "copyObject", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ApiResult<String> copyObject(@RequestBody @Validated CopyObjectVO copyObjectVO){
+        return ossService.copyObject(copyObjectVO);
+    }
+
+    @Operation(summary = "移动文件", description = "服务端拷贝文件后删除源文件，返回目标文件访问URL")
+    @Workload(WorkloadEnum.MERGE)
+    @PostMapping(value = "moveObject", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ApiResult<String> moveObject(@RequestBody @Validated CopyObjectVO copyObjectVO){
+        return ossService.moveObject(copyObjectVO);
+    }
+
+    @Operation(summary = "批量迁移文件", description = "按前缀或文件列表在存储桶之间拷贝/移动文件，后台执行；目标已是最新的文件跳过，重新提交可续传")
+    @PostMapping(value = "migrateObjects", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ApiResult<MigrationStatusVO> migrateObjects(@RequestBody @Validated MigrationVO migrationVO){
+        return ossService.migrateObjects(migrationVO);
+    }
+
+    @Operation(summary = "查询迁移进度", description = "查询批量迁移进度", parameters = {
+            @Parameter(name = "migrationId",description = "迁移ID")
+    })
+    @GetMapping("getMigrationStatus")
+    public ApiResult<MigrationStatusVO> getMigrationStatus(@NotBlank String migrationId){
+        return ossService.getMigrationStatus(migrationId);
+    }
+
+    @Operation(summary = "取消迁移", description = "不再开始新的文件拷贝，已拷贝的文件保留", parameters = {
+            @Parameter(name = "migrationId",description = "迁移ID")
+    })
+    @DeleteMapping("cancelMigration")
+    public ApiResult<MigrationStatusVO> cancelMigration(@NotBlank String migrationId){
+        return ossService.cancelMigration(migrationId);
+    }
+
     // ==================== 策略模板管理 ====================
 
     @Operation(summary = "创建策略模板", description = "创建策略模板")
@@ -261,4 +373,10 @@ public class OssController {
     public ApiResult<String> applyPolicyTemplate(@NotBlank String bucketName, @NotBlank String templateName){
         return ossService.applyPolicyTemplate(bucketName, templateName);
     }
+
+    @Operation(summary = "批量应用策略模板", description = "按存储桶列表、通配或全部存储桶应用策略模板，策略未变化的存储桶跳过")
+    @PostMapping(value = "applyPolicyTemplates", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ApiResult<List<PolicyRolloutResultVO>> applyPolicyTemplates(@RequestBody @Validated PolicyRolloutVO policyRolloutVO){
+        return ossService.applyPolicyTemplates(policyRolloutVO);
+    }
 }
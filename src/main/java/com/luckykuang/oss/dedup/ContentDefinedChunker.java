@@ -0,0 +1,125 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.dedup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * 内容定义分块(FastCDC)：按内容的滚动哈希确定块边界，文件中间插入或删除数据只影响附近的块，其余块与旧版本相同
+ * <ul>
+ *     <li>Gear 滚动哈希：h = (h << 1) + GEAR[b]，哈希只取决于最近 64 个字节</li>
+ *     <li>不足 minSize 的数据不检测边界；avgSize 之前使用更严格的掩码、之后使用更宽松的掩码，块大小集中在 avgSize 附近</li>
+ *     <li>达到 maxSize 时强制切分</li>
+ * </ul>
+ * <p>GEAR 表由固定种子生成，块边界在不同进程、重启前后保持一致，修改种子会使已存储的块无法复用</p>
+ * @author luckykuang
+ * @date 2026/10/19 21:10
+ */
+public final class ContentDefinedChunker {
+
+    private static final long[] GEAR = new long[256];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x6f73732d64656475L);
+        for (int i = 0; i < GEAR.length; i++) {
+            GEAR[i] = random.nextLong();
+        }
+    }
+
+    private final InputStream in;
+    private final int minSize;
+    private final int avgSize;
+    private final long maskS;
+    private final long maskL;
+    private final byte[] buffer;
+    private int length;
+    private boolean eof;
+
+    /**
+     * @param in 输入流，由调用方关闭
+     * @param minSize 块大小下限
+     * @param avgSize 平均块大小
+     * @param maxSize 块大小上限
+     */
+    public ContentDefinedChunker(InputStream in, int minSize, int avgSize, int maxSize) {
+        if (minSize <= 0 || minSize > avgSize || avgSize > maxSize) {
+            throw new IllegalArgumentException("invalid chunk sizes: " + minSize + "/" + avgSize + "/" + maxSize);
+        }
+        this.in = in;
+        this.minSize = minSize;
+        this.avgSize = avgSize;
+        int bits = 31 - Integer.numberOfLeadingZeros(avgSize);
+        this.maskS = mask(bits + 2);
+        this.maskL = mask(Math.max(1, bits - 2));
+        this.buffer = new byte[maxSize];
+    }
+
+    /**
+     * 读取下一个块
+     * @return 块数据，流结束时返回 null
+     */
+    public byte[] next() throws IOException {
+        while (!eof && length < buffer.length) {
+            int n = in.read(buffer, length, buffer.length - length);
+            if (n < 0) {
+                eof = true;
+            } else {
+                length += n;
+            }
+        }
+        if (length == 0) {
+            return null;
+        }
+        int cut = cutPoint(length);
+        byte[] chunk = Arrays.copyOf(buffer, cut);
+        System.arraycopy(buffer, cut, buffer, 0, length - cut);
+        length -= cut;
+        return chunk;
+    }
+
+    private int cutPoint(int n) {
+        if (n <= minSize) {
+            return n;
+        }
+        long hash = 0;
+        int normal = Math.min(avgSize, n);
+        int i = minSize;
+        for (; i < normal; i++) {
+            hash = (hash << 1) + GEAR[buffer[i] & 0xff];
+            if ((hash & maskS) == 0) {
+                return i + 1;
+            }
+        }
+        for (; i < n; i++) {
+            hash = (hash << 1) + GEAR[buffer[i] & 0xff];
+            if ((hash & maskL) == 0) {
+                return i + 1;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * 取哈希的高 bits 位：Gear 哈希的高位由窗口内全部字节决定
+     */
+    private static long mask(int bits) {
+        return -1L << (64 - Math.min(63, bits));
+    }
+}
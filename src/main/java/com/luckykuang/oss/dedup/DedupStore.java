@@ -0,0 +1,682 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.dedup;
+
+import com.luckykuang.oss.config.OssProperties;
+import com.luckykuang.oss.metrics.BackendCall;
+import com.luckykuang.oss.storage.ObjectStat;
+import com.luckykuang.oss.storage.StorageBackend;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 去重存储：开启去重的存储桶中，文件按内容定义分块({@link ContentDefinedChunker})，相同内容的块只存储一次，文件本身存储为块清单
+ * <ul>
+ *     <li>块按 SHA-256 寻址，存放在同一存储桶的 .dedup/chunks/ 下；清单存放在文件路径上，用户元数据 dedup-size 记录文件大小</li>
+ *     <li>引用计数按哈希前两位分为 256 个分片对象(.dedup/refs/)：写入清单前增加，删除清单后减少，减到 0 的块随之删除</li>
+ *     <li>下载按清单顺序读取块并预读 prefetch 个块，范围读取只读取覆盖该范围的块</li>
+ *     <li>引用计数分片的读改写、上传中尚未计入引用的块由本服务进程内的锁保护，同一存储桶的去重写入与删除需由同一实例处理</li>
+ * </ul>
+ * @author luckykuang
+ * @date 2026/10/19 21:10
+ */
+@Slf4j
+@Component
+public class DedupStore {
+
+    /**
+     * 用户元数据：去重文件的大小，存在即表示对象为块清单
+     */
+    public static final String DEDUP_SIZE = "dedup-size";
+
+    /**
+     * 去重数据目录
+     */
+    public static final String DEDUP_PREFIX = ".dedup/";
+
+    private static final String CHUNK_PREFIX = DEDUP_PREFIX + "chunks/";
+    private static final String REF_PREFIX = DEDUP_PREFIX + "refs/";
+    private static final String MANIFEST_HEADER = "oss-dedup-manifest 1";
+    private static final String CHUNK_CONTENT_TYPE = "application/octet-stream";
+    private static final String TEXT_CONTENT_TYPE = "text/plain";
+
+    private final OssProperties.Dedup config;
+    private final Set<String> buckets;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    // 引用计数分片锁与清单路径锁；会在持锁时访问存储后端，使用 ReentrantLock 避免虚拟线程占住载体线程
+    private final ReentrantLock[] shardLocks = new ReentrantLock[256];
+    private final ReentrantLock[] objectLocks = new ReentrantLock[64];
+    // 上传中已写入或确认存在、尚未计入引用的块，引用计数减到 0 时不删除
+    private final Map<String, Integer> pinned = new ConcurrentHashMap<>();
+
+    /**
+     * 清单中的一个块
+     * @param hash SHA-256 十六进制
+     * @param size 块大小
+     */
+    public record ChunkRef(String hash, int size) {
+    }
+
+    public DedupStore(OssProperties ossProperties, MeterRegistry meterRegistry) {
+        this.config = ossProperties.getDedup();
+        this.buckets = Set.copyOf(config.getBuckets());
+        this.meterRegistry = meterRegistry;
+        // 配置错误时启动失败，不等到第一次上传
+        new ContentDefinedChunker(InputStream.nullInputStream(), config.getMinChunkSize(), config.getAvgChunkSize(),
+                config.getMaxChunkSize());
+        for (int i = 0; i < shardLocks.length; i++) {
+            shardLocks[i] = new ReentrantLock();
+        }
+        for (int i = 0; i < objectLocks.length; i++) {
+            objectLocks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * 存储桶是否开启了去重
+     * @param bucketName 存储桶名称
+     */
+    public boolean isEnabled(String bucketName) {
+        return buckets.contains(bucketName);
+    }
+
+    /**
+     * 对象是否为去重文件的块清单
+     * @param stat 对象信息
+     */
+    public static boolean isManifest(ObjectStat stat) {
+        return stat.metadata() != null && stat.metadata().containsKey(DEDUP_SIZE);
+    }
+
+    /**
+     * 去重文件的大小，非去重文件为对象大小
+     * @param stat 对象信息
+     */
+    public static long size(ObjectStat stat) {
+        return isManifest(stat) ? Long.parseLong(stat.metadata().get(DEDUP_SIZE)) : stat.size();
+    }
+
+    /**
+     * 分块写入文件：新块写入块存储，已存在的块只增加引用，最后写入清单；覆盖已有的去重文件时释放其引用
+     * @param backend 存储后端
+     * @param bucketName 存储桶名称
+     * @param objectName 文件路径
+     * @param in 文件内容，由调用方关闭
+     * @param contentType 文件类型，可为 null
+     * @return 实际写入块存储的字节数
+     */
+    public long put(StorageBackend backend, String bucketName, String objectName, InputStream in, String contentType)
+            throws Exception {
+        ContentDefinedChunker chunker = new ContentDefinedChunker(in, config.getMinChunkSize(),
+                config.getAvgChunkSize(), config.getMaxChunkSize());
+        MessageDigest digest = sha256();
+        List<ChunkRef> chunks = new ArrayList<>();
+        Set<String> pins = new HashSet<>();
+        Map<String, Future<Boolean>> writes = new LinkedHashMap<>();
+        Semaphore permits = new Semaphore(Math.max(1, config.getUploadParallelism()));
+        AtomicBoolean failed = new AtomicBoolean();
+        long size = 0;
+        long stored = 0;
+        boolean referenced = false;
+        try {
+            byte[] data;
+            // 任一块写入失败后不再提交新的块
+            while (!failed.get() && (data = chunker.next()) != null) {
+                String hash = HexFormat.of().formatHex(digest.digest(data));
+                chunks.add(new ChunkRef(hash, data.length));
+                size += data.length;
+                if (!pins.add(hash)) {
+                    continue;
+                }
+                pin(bucketName, hash);
+                permits.acquire();
+                byte[] chunk = data;
+                writes.put(hash, executor.submit(() -> {
+                    try {
+                        return writeChunk(backend, bucketName, hash, chunk);
+                    } catch (Exception e) {
+                        failed.set(true);
+                        throw e;
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            Map<String, Integer> sizes = new HashMap<>();
+            chunks.forEach(chunk -> sizes.put(chunk.hash(), chunk.size()));
+            for (Map.Entry<String, Future<Boolean>> write : writes.entrySet()) {
+                if (await(write.getValue())) {
+                    stored += sizes.get(write.getKey());
+                }
+            }
+            addRefs(backend, bucketName, chunks, 1);
+            referenced = true;
+            writeManifest(backend, bucketName, objectName, chunks, size, contentType);
+        } catch (Exception e) {
+            writes.values().forEach(write -> write.cancel(true));
+            unpin(bucketName, pins);
+            rollback(backend, bucketName, objectName, chunks, referenced, writes);
+            throw e;
+        }
+        unpin(bucketName, pins);
+        bytesCounter(bucketName, "logical").increment(size);
+        bytesCounter(bucketName, "stored").increment(stored);
+        log.info("去重写入完成 - 存储桶: {}, 文件路径: {}, 大小: {}, 块数: {}, 新写入: {}", bucketName, objectName, size,
+                chunks.size(), stored);
+        return stored;
+    }
+
+    /**
+     * 读取去重文件（或其中一段），按清单顺序读取块并预读
+     * @param backend 存储后端
+     * @param stat 清单对象信息
+     * @param offset 起始位置
+     * @param length 读取长度，null 表示读到末尾
+     * @return 文件内容，由调用方关闭
+     */
+    public InputStream open(StorageBackend backend, ObjectStat stat, long offset, Long length) throws Exception {
+        List<ChunkRef> chunks = readManifest(backend, stat.bucketName(), stat.objectName());
+        long size = size(stat);
+        long end = length == null ? size : Math.min(size, offset + length);
+        return new ChunkInputStream(backend, stat.bucketName(), chunks, offset, end);
+    }
+
+    /**
+     * 拷贝去重文件：同一存储桶内只拷贝清单并增加引用；跨存储桶时按块读出后写入目标存储桶
+     * @param backend 存储后端
+     * @param source 源清单对象信息
+     * @param bucketName 目标存储桶名称
+     * @param objectName 目标文件路径
+     */
+    public void copy(StorageBackend backend, ObjectStat source, String bucketName, String objectName) throws Exception {
+        if (source.bucketName().equals(bucketName)) {
+            List<ChunkRef> chunks = readManifest(backend, source.bucketName(), source.objectName());
+            ReentrantLock lock = objectLock(bucketName, objectName);
+            lock.lock();
+            try {
+                List<ChunkRef> previous = readManifestQuietly(backend, bucketName, objectName);
+                addRefs(backend, bucketName, chunks, 1);
+                try {
+                    backend.copyObject(source.bucketName(), source.objectName(), bucketName, objectName);
+                } catch (Exception e) {
+                    // 源清单已被删除等：撤销增加的引用
+                    releaseQuietly(backend, bucketName, chunks);
+                    throw e;
+                }
+                if (previous != null) {
+                    addRefs(backend, bucketName, previous, -1);
+                }
+            } finally {
+                lock.unlock();
+            }
+            return;
+        }
+        try (InputStream in = open(backend, source, 0, null)) {
+            if (isEnabled(bucketName)) {
+                put(backend, bucketName, objectName, in, source.contentType());
+            } else {
+                Map<String, String> metadata = new HashMap<>(source.metadata());
+                metadata.remove(DEDUP_SIZE);
+                backend.putObject(bucketName, objectName, in, size(source), source.contentType(), null, metadata);
+            }
+        }
+    }
+
+    /**
+     * 以普通对象覆盖去重存储桶中的路径（如拷贝非去重对象）：在对象锁内写入，覆盖的是清单时释放其块引用
+     * @param backend 存储后端
+     * @param bucketName 存储桶名称
+     * @param objectName 文件路径
+     * @param write 写入普通对象的后端调用
+     */
+    public void overwrite(StorageBackend backend, String bucketName, String objectName, BackendCall<?> write)
+            throws Exception {
+        ReentrantLock lock = objectLock(bucketName, objectName);
+        lock.lock();
+        try {
+            List<ChunkRef> previous = readManifestQuietly(backend, bucketName, objectName);
+            write.call();
+            if (previous != null) {
+                releaseQuietly(backend, bucketName, previous);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 删除文件：去重文件删除清单后释放块引用，其他对象直接删除
+     * @param backend 存储后端
+     * @param bucketName 存储桶名称
+     * @param objectName 文件路径
+     */
+    public void remove(StorageBackend backend, String bucketName, String objectName) throws Exception {
+        if (!isEnabled(bucketName)) {
+            backend.removeObject(bucketName, objectName);
+            return;
+        }
+        // 同一清单的并发删除只释放一次引用
+        ReentrantLock lock = objectLock(bucketName, objectName);
+        lock.lock();
+        try {
+            List<ChunkRef> chunks = readManifestQuietly(backend, bucketName, objectName);
+            backend.removeObject(bucketName, objectName);
+            if (chunks != null) {
+                addRefs(backend, bucketName, chunks, -1);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 块不存在时写入
+     * @return 是否新写入
+     */
+    private boolean writeChunk(StorageBackend backend, String bucketName, String hash, byte[] data) throws Exception {
+        String chunkPath = chunkPath(hash);
+        try {
+            if (backend.statObject(bucketName, chunkPath).size() == data.length) {
+                return false;
+            }
+        } catch (Exception e) {
+            if (!backend.isNotFound(e)) {
+                throw e;
+            }
+        }
+        backend.putObject(bucketName, chunkPath, new ByteArrayInputStream(data), data.length, CHUNK_CONTENT_TYPE);
+        return true;
+    }
+
+    /**
+     * 写入失败：撤销已增加的引用；新写入、没有任何引用的块直接删除
+     */
+    private void rollback(StorageBackend backend, String bucketName, String objectName, List<ChunkRef> chunks,
+                          boolean referenced, Map<String, Future<Boolean>> writes) {
+        if (referenced) {
+            releaseQuietly(backend, bucketName, chunks);
+            return;
+        }
+        List<String> written = new ArrayList<>();
+        for (Map.Entry<String, Future<Boolean>> write : writes.entrySet()) {
+            try {
+                if (write.getValue().isDone() && !write.getValue().isCancelled() && write.getValue().get()) {
+                    written.add(write.getKey());
+                }
+            } catch (Exception e) {
+                // 写入失败的块不需要删除
+            }
+        }
+        Map<String, Map<String, Integer>> byShard = new TreeMap<>();
+        written.forEach(hash -> byShard.computeIfAbsent(shard(hash), s -> new HashMap<>()).put(hash, 0));
+        for (Map.Entry<String, Map<String, Integer>> entry : byShard.entrySet()) {
+            try {
+                updateShard(backend, bucketName, entry.getKey(), entry.getValue());
+            } catch (Exception e) {
+                log.warn("去重写入失败后清理块失败 - 存储桶: {}, 文件路径: {}", bucketName, objectName, e);
+            }
+        }
+    }
+
+    private void releaseQuietly(StorageBackend backend, String bucketName, List<ChunkRef> chunks) {
+        try {
+            addRefs(backend, bucketName, chunks, -1);
+        } catch (Exception e) {
+            log.warn("释放块引用失败 - 存储桶: {}, 块数: {}", bucketName, chunks.size(), e);
+        }
+    }
+
+    /**
+     * 按分片增加或减少引用计数
+     * @param delta 每次出现增加的引用数，1 或 -1
+     */
+    private void addRefs(StorageBackend backend, String bucketName, List<ChunkRef> chunks, int delta)
+            throws Exception {
+        // 按分片顺序加锁
+        Map<String, Map<String, Integer>> byShard = new TreeMap<>();
+        for (ChunkRef chunk : chunks) {
+            byShard.computeIfAbsent(shard(chunk.hash()), s -> new HashMap<>()).merge(chunk.hash(), delta, Integer::sum);
+        }
+        for (Map.Entry<String, Map<String, Integer>> entry : byShard.entrySet()) {
+            updateShard(backend, bucketName, entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * 读改写一个引用计数分片，计数减到 0 且不在上传中的块随之删除
+     * @param deltas 块哈希与引用计数的变化
+     */
+    private void updateShard(StorageBackend backend, String bucketName, String shard, Map<String, Integer> deltas)
+            throws Exception {
+        ReentrantLock lock = shardLock(bucketName, shard);
+        lock.lock();
+        try {
+            Map<String, Long> counts = readShard(backend, bucketName, shard);
+            List<String> unreferenced = new ArrayList<>();
+            deltas.forEach((hash, delta) -> {
+                long count = counts.getOrDefault(hash, 0L) + delta;
+                if (count > 0) {
+                    counts.put(hash, count);
+                } else {
+                    counts.remove(hash);
+                    if (!pinned.containsKey(bucketName + "/" + hash)) {
+                        unreferenced.add(hash);
+                    }
+                }
+            });
+            writeShard(backend, bucketName, shard, counts);
+            // 先写入计数再删除块：删除失败只会残留块，不会出现被引用的块丢失
+            for (String hash : unreferenced) {
+                backend.removeObject(bucketName, chunkPath(hash));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Map<String, Long> readShard(StorageBackend backend, String bucketName, String shard) throws Exception {
+        Map<String, Long> counts = new HashMap<>();
+        String text;
+        try (InputStream in = backend.getObject(bucketName, REF_PREFIX + shard, 0, null)) {
+            text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            if (backend.isNotFound(e)) {
+                return counts;
+            }
+            throw e;
+        }
+        for (String line : text.split("\n")) {
+            int space = line.indexOf(' ');
+            if (space > 0) {
+                counts.put(line.substring(0, space), Long.parseLong(line.substring(space + 1).trim()));
+            }
+        }
+        return counts;
+    }
+
+    private void writeShard(StorageBackend backend, String bucketName, String shard, Map<String, Long> counts)
+            throws Exception {
+        if (counts.isEmpty()) {
+            backend.removeObject(bucketName, REF_PREFIX + shard);
+            return;
+        }
+        StringBuilder sb = new StringBuilder(counts.size() * 72);
+        counts.forEach((hash, count) -> sb.append(hash).append(' ').append(count).append('\n'));
+        byte[] data = sb.toString().getBytes(StandardCharsets.UTF_8);
+        backend.putObject(bucketName, REF_PREFIX + shard, new ByteArrayInputStream(data), data.length,
+                TEXT_CONTENT_TYPE);
+    }
+
+    /**
+     * 写入清单，覆盖已有的去重文件时释放其引用
+     */
+    private void writeManifest(StorageBackend backend, String bucketName, String objectName, List<ChunkRef> chunks,
+                               long size, String contentType) throws Exception {
+        StringBuilder sb = new StringBuilder(MANIFEST_HEADER.length() + chunks.size() * 76);
+        sb.append(MANIFEST_HEADER).append('\n');
+        for (ChunkRef chunk : chunks) {
+            sb.append(chunk.hash()).append(' ').append(chunk.size()).append('\n');
+        }
+        byte[] data = sb.toString().getBytes(StandardCharsets.UTF_8);
+        ReentrantLock lock = objectLock(bucketName, objectName);
+        lock.lock();
+        try {
+            List<ChunkRef> previous = readManifestQuietly(backend, bucketName, objectName);
+            backend.putObject(bucketName, objectName, new ByteArrayInputStream(data), data.length, contentType, null,
+                    Map.of(DEDUP_SIZE, String.valueOf(size)));
+            if (previous != null) {
+                releaseQuietly(backend, bucketName, previous);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<ChunkRef> readManifest(StorageBackend backend, String bucketName, String objectName) throws Exception {
+        String text;
+        try (InputStream in = backend.getObject(bucketName, objectName, 0, null)) {
+            text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        String[] lines = text.split("\n");
+        if (lines.length == 0 || !MANIFEST_HEADER.equals(lines[0])) {
+            throw new IOException("invalid dedup manifest: " + bucketName + "/" + objectName);
+        }
+        List<ChunkRef> chunks = new ArrayList<>(lines.length - 1);
+        for (int i = 1; i < lines.length; i++) {
+            int space = lines[i].indexOf(' ');
+            if (space > 0) {
+                chunks.add(new ChunkRef(lines[i].substring(0, space), Integer.parseInt(lines[i].substring(space + 1))));
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * 读取路径上已有的清单，不存在或不是去重文件时返回 null
+     */
+    private List<ChunkRef> readManifestQuietly(StorageBackend backend, String bucketName, String objectName)
+            throws Exception {
+        ObjectStat stat;
+        try {
+            stat = backend.statObject(bucketName, objectName);
+        } catch (Exception e) {
+            if (backend.isNotFound(e)) {
+                return null;
+            }
+            throw e;
+        }
+        return isManifest(stat) ? readManifest(backend, bucketName, objectName) : null;
+    }
+
+    /**
+     * 标记上传中的块，与引用计数减到 0 时的删除在同一把锁内互斥
+     */
+    private void pin(String bucketName, String hash) {
+        ReentrantLock lock = shardLock(bucketName, shard(hash));
+        lock.lock();
+        try {
+            pinned.merge(bucketName + "/" + hash, 1, Integer::sum);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void unpin(String bucketName, Collection<String> hashes) {
+        for (String hash : hashes) {
+            pinned.computeIfPresent(bucketName + "/" + hash, (key, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    private ReentrantLock shardLock(String bucketName, String shard) {
+        return shardLocks[Math.floorMod(31 * bucketName.hashCode() + shard.hashCode(), shardLocks.length)];
+    }
+
+    private ReentrantLock objectLock(String bucketName, String objectName) {
+        return objectLocks[Math.floorMod(31 * bucketName.hashCode() + objectName.hashCode(), objectLocks.length)];
+    }
+
+    private static String shard(String hash) {
+        return hash.substring(0, 2);
+    }
+
+    private static String chunkPath(String hash) {
+        return CHUNK_PREFIX + shard(hash) + "/" + hash;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static <T> T await(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private Counter bytesCounter(String bucketName, String stage) {
+        return Counter.builder("oss.dedup.bytes")
+                .baseUnit("bytes")
+                .description("Bytes uploaded to (logical) and newly written by (stored) the dedup store")
+                .tags("bucket", bucketName, "stage", stage)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 按清单顺序读取块：预读 prefetch 个块，首个块跳过 offset 之前的数据，读到 end 为止
+     */
+    private final class ChunkInputStream extends InputStream {
+        private final StorageBackend backend;
+        private final String bucketName;
+        private final List<ChunkRef> chunks;
+        private final Deque<CompletableFuture<byte[]>> window = new ArrayDeque<>();
+        private final int prefetch = Math.max(1, config.getPrefetch());
+        private final long end;
+        // 下一个提交读取的块及其在文件中的起始位置
+        private int next;
+        private long nextStart;
+        // 当前块中待返回的数据
+        private byte[] current;
+        private int position;
+        private int limit;
+        private long remaining;
+        private long skip;
+
+        ChunkInputStream(StorageBackend backend, String bucketName, List<ChunkRef> chunks, long offset, long end) {
+            this.backend = backend;
+            this.bucketName = bucketName;
+            this.chunks = chunks;
+            this.end = end;
+            this.remaining = Math.max(0, end - offset);
+            // 跳过 offset 之前的块
+            while (next < chunks.size() && nextStart + chunks.get(next).size() <= offset) {
+                nextStart += chunks.get(next++).size();
+            }
+            this.skip = offset - nextStart;
+            fill();
+        }
+
+        private void fill() {
+            while (next < chunks.size() && window.size() < prefetch && nextStart < end) {
+                ChunkRef chunk = chunks.get(next++);
+                nextStart += chunk.size();
+                window.add(CompletableFuture.supplyAsync(() -> {
+                    try (InputStream in = backend.getObject(bucketName, chunkPath(chunk.hash()), 0, null)) {
+                        byte[] data = in.readAllBytes();
+                        if (data.length != chunk.size()) {
+                            throw new IOException("dedup chunk size mismatch: " + chunk.hash());
+                        }
+                        return data;
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor));
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (remaining <= 0) {
+                return -1;
+            }
+            if (current == null || position >= limit) {
+                if (window.isEmpty()) {
+                    throw new IOException("dedup manifest shorter than file size");
+                }
+                try {
+                    current = await(window.poll());
+                } catch (IOException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IOException(e);
+                }
+                fill();
+                position = (int) skip;
+                skip = 0;
+                limit = (int) Math.min(current.length, position + remaining);
+            }
+            int n = Math.min(len, limit - position);
+            System.arraycopy(current, position, b, off, n);
+            position += n;
+            remaining -= n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+            // 已提交的读取完成后丢弃，不中断读取线程
+            window.clear();
+            current = null;
+            remaining = 0;
+        }
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.download;
+
+import com.luckykuang.oss.config.OssProperties;
+import com.luckykuang.oss.storage.MinioStorageBackend;
+import com.luckykuang.oss.storage.ObjectStat;
+import com.luckykuang.oss.storage.StorageBackend;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分块下载顺序预读：客户端按偏移递增逐块调用 downloadFileChunk 时，每块都要等待一次后端延迟；
+ * 识别出顺序读取后提前读取后续的块，下一次请求直接从内存返回
+ * <ul>
+ *     <li>读取流按客户端(IP + API Key)、存储桶、对象区分；连续两次请求首尾相接即视为顺序读取</li>
+ *     <li>预读窗口 = 客户端读取速率 × 后端读取延迟 + 一块，两者均为滑动平均，不超过 max-window；读得慢的客户端只预读一块</li>
+ *     <li>请求与预读的块不一致（随机访问、改变块大小）、对象 ETag 变化或空闲超过 idle-timeout 时丢弃预读数据</li>
+ *     <li>全部读取流的预读数据合计不超过 max-memory，超出时不再预读；预读带 If-Match，对象被覆盖时预读失败，退回直接读取</li>
+ * </ul>
+ * <p>只用于 MinIO 后端中未压缩存储的对象：本地存储直接读文件，压缩存储的对象需从头解压</p>
+ * @author luckykuang
+ * @date 2026/10/19 20:55
+ */
+@Slf4j
+@Component
+public class ChunkReadAhead {
+
+    // 滑动平均权重
+    private static final double ALPHA = 0.3;
+
+    private final OssProperties.ReadAhead config;
+    private final String apiKeyHeader;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService sweeper;
+    private final Map<Key, Stream> streams = new ConcurrentHashMap<>();
+    // 预读内存，单位字节
+    private final Semaphore memory;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter droppedCounter;
+
+    private record Key(String client, String bucketName, String objectName) {
+    }
+
+    /**
+     * 一段预读数据
+     * @param offset 起始位置
+     * @param length 长度
+     * @param data 读取结果
+     */
+    private record Prefetch(long offset, int length, CompletableFuture<byte[]> data) {
+    }
+
+    /**
+     * 读取流状态，字段均在持有该对象锁时读写
+     */
+    private static final class Stream {
+        private final Deque<Prefetch> prefetched = new ArrayDeque<>();
+        private String etag;
+        // 上一次请求的结束位置，顺序读取时即下一次请求的起始位置
+        private long nextOffset = -1;
+        private long lastAccessNanos = System.nanoTime();
+        // 客户端读取速率(字节/秒)与后端读取延迟(秒)的滑动平均
+        private double rate;
+        private double latency;
+        private boolean closed;
+    }
+
+    public ChunkReadAhead(OssProperties ossProperties, MeterRegistry meterRegistry) {
+        this.config = ossProperties.getReadAhead();
+        this.apiKeyHeader = ossProperties.getBandwidth().getApiKeyHeader();
+        int permits = (int) Math.max(0, Math.min(Integer.MAX_VALUE, config.getMaxMemory()));
+        this.memory = new Semaphore(permits);
+        Gauge.builder("oss.download.readahead.buffer", memory, m -> permits - m.availablePermits())
+                .baseUnit("bytes")
+                .description("Bytes held by chunk download read-ahead")
+                .register(meterRegistry);
+        Gauge.builder("oss.download.readahead.streams", streams, Map::size)
+                .description("Tracked sequential chunk download streams")
+                .register(meterRegistry);
+        this.hitCounter = Counter.builder("oss.download.readahead")
+                .description("Chunk downloads served from / missing the read-ahead buffer")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("oss.download.readahead")
+                .description("Chunk downloads served from / missing the read-ahead buffer")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("oss.download.readahead.dropped")
+                .baseUnit("bytes")
+                .description("Read-ahead bytes discarded without being served")
+                .register(meterRegistry);
+        if (!config.isEnabled()) {
+            this.sweeper = null;
+            return;
+        }
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("read-ahead-sweeper").daemon(true).factory());
+        long interval = Math.max(100, config.getIdleTimeout().toMillis() / 2);
+        sweeper.scheduleAtFixedRate(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 把对象的一块写入输出流：命中预读时直接写出内存数据，否则读取后端；顺序读取时同时预读后续的块
+     * @param backend 存储后端
+     * @param stat 对象信息
+     * @param offset 起始位置
+     * @param length 读取长度，null 表示读到末尾（不预读）
+     * @param out 输出流，由调用方关闭
+     * @return 写出的字节数
+     */
+    public long transferTo(StorageBackend backend, ObjectStat stat, long offset, Long length, OutputStream out)
+            throws Exception {
+        Stream stream = accepts(backend, length) ? stream(stat) : null;
+        if (stream == null) {
+            return backend.transferTo(stat.bucketName(), stat.objectName(), offset, length, out);
+        }
+        int chunk = length.intValue();
+        Prefetch hit;
+        synchronized (stream) {
+            if (stream.closed) {
+                hit = null;
+            } else {
+                hit = advance(stream, stat, offset, chunk);
+                // 顺序读取（速率只在顺序读取时有值）：先发起预读再写出当前块，让后端读取与客户端接收重叠
+                if (stream.rate > 0) {
+                    prefetch(backend, stat, stream, chunk);
+                }
+            }
+        }
+        if (hit != null) {
+            try {
+                byte[] data = hit.data().join();
+                out.write(data, 0, hit.length());
+                hitCounter.increment();
+                return hit.length();
+            } catch (CompletionException e) {
+                // 预读失败（如对象已被覆盖），退回直接读取
+                log.debug("预读失败，直接读取，存储桶: {}, 文件路径: {}, 偏移: {}", stat.bucketName(), stat.objectName(),
+                        offset, e.getCause());
+            } finally {
+                release(hit);
+            }
+        }
+        missCounter.increment();
+        return backend.transferTo(stat.bucketName(), stat.objectName(), offset, length, out);
+    }
+
+    private boolean accepts(StorageBackend backend, Long length) {
+        return config.isEnabled() && length != null && length > 0 && length <= config.getMaxWindow()
+                && MinioStorageBackend.TYPE.equals(backend.type());
+    }
+
+    /**
+     * 当前请求对该对象的读取流，读取流数量达到上限时不再跟踪新的读取流
+     */
+    private Stream stream(ObjectStat stat) {
+        if (stat.contentEncoding() != null) {
+            return null;
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletRequestAttributes)) {
+            return null;
+        }
+        HttpServletRequest request = servletRequestAttributes.getRequest();
+        Key key = new Key(request.getRemoteAddr() + "|" + Objects.toString(request.getHeader(apiKeyHeader), ""),
+                stat.bucketName(), stat.objectName());
+        Stream stream = streams.get(key);
+        if (stream == null && streams.size() < config.getMaxStreams()) {
+            stream = streams.computeIfAbsent(key, k -> new Stream());
+        }
+        return stream;
+    }
+
+    /**
+     * 记录一次请求：取出与请求一致的预读数据，不一致时丢弃全部预读数据，并更新客户端读取速率
+     * @return 命中的预读数据
+     */
+    private Prefetch advance(Stream stream, ObjectStat stat, long offset, int chunk) {
+        long now = System.nanoTime();
+        boolean sequential = offset == stream.nextOffset && Objects.equals(stat.etag(), stream.etag);
+        Prefetch head = stream.prefetched.peekFirst();
+        Prefetch hit = null;
+        if (sequential && head != null && head.offset() == offset && head.length() == chunk) {
+            hit = stream.prefetched.pollFirst();
+        } else {
+            drop(stream);
+        }
+        if (sequential) {
+            double seconds = Math.max(1e-6, (now - stream.lastAccessNanos) / 1e9);
+            stream.rate = ewma(stream.rate, chunk / seconds);
+        } else {
+            stream.rate = 0;
+        }
+        stream.etag = stat.etag();
+        stream.nextOffset = offset + chunk;
+        stream.lastAccessNanos = now;
+        return hit;
+    }
+
+    /**
+     * 按窗口补充预读：窗口 = 客户端读取速率 × 后端读取延迟 + 一块
+     */
+    private void prefetch(StorageBackend backend, ObjectStat stat, Stream stream, int chunk) {
+        double window = Math.min(config.getMaxWindow(), stream.rate * stream.latency + chunk);
+        Prefetch last = stream.prefetched.peekLast();
+        long end = last == null ? stream.nextOffset : last.offset() + last.length();
+        while (end - stream.nextOffset < window && end < stat.size()) {
+            int length = (int) Math.min(chunk, stat.size() - end);
+            if (!memory.tryAcquire(length)) {
+                break;
+            }
+            stream.prefetched.add(new Prefetch(end, length, fetch(backend, stat, stream, end, length)));
+            end += length;
+        }
+    }
+
+    private CompletableFuture<byte[]> fetch(StorageBackend backend, ObjectStat stat, Stream stream, long offset,
+                                            int length) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            try (InputStream in = backend.getObject(stat.bucketName(), stat.objectName(), offset, (long) length,
+                    stat.etag())) {
+                byte[] data = in.readNBytes(length);
+                if (data.length != length) {
+                    throw new IOException("预读不完整，偏移: " + offset + ", 期望: " + length + ", 实际: " + data.length);
+                }
+                synchronized (stream) {
+                    stream.latency = ewma(stream.latency, (System.nanoTime() - start) / 1e9);
+                }
+                return data;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    private void drop(Stream stream) {
+        Prefetch prefetch;
+        while ((prefetch = stream.prefetched.pollFirst()) != null) {
+            droppedCounter.increment(prefetch.length());
+            release(prefetch);
+        }
+    }
+
+    /**
+     * 预读完成后才归还内存，不中断读取线程
+     */
+    private void release(Prefetch prefetch) {
+        prefetch.data().whenComplete((data, e) -> memory.release(prefetch.length()));
+    }
+
+    /**
+     * 丢弃空闲的读取流
+     */
+    private void sweep() {
+        long idle = config.getIdleTimeout().toNanos();
+        long now = System.nanoTime();
+        streams.values().removeIf(stream -> {
+            synchronized (stream) {
+                if (now - stream.lastAccessNanos <= idle) {
+                    return false;
+                }
+                stream.closed = true;
+                drop(stream);
+                return true;
+            }
+        });
+    }
+
+    private static double ewma(double average, double sample) {
+        return average == 0 ? sample : average + ALPHA * (sample - average);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.download;
+
+import com.luckykuang.oss.config.OssProperties;
+import com.luckykuang.oss.storage.MinioStorageBackend;
+import com.luckykuang.oss.storage.ObjectStat;
+import com.luckykuang.oss.storage.StorageBackend;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 大对象并行范围下载：单个对象流的吞吐受限于单条连接，大对象按分片并发发起范围读取，再按顺序写给客户端
+ * <ul>
+ *     <li>分片大小按对象大小在 min-part-size 与 max-part-size 之间选取，使每个并发至少读取若干个分片</li>
+ *     <li>缓冲区环：每个下载固定若干个分片缓冲区，分片写出后缓冲区才用于读取下一个分片，客户端读取慢时后端读取随之暂停</li>
+ *     <li>全部下载的缓冲区合计不超过 max-buffer-memory，超出时退回单流下载</li>
+ *     <li>每个分片读取都带 If-Match，对象在下载期间被覆盖时下载失败，不会拼接出不同版本的内容</li>
+ * </ul>
+ * @author luckykuang
+ * @date 2026/10/19 20:40
+ */
+@Slf4j
+@Component
+public class RangedDownloader {
+
+    private static final long MB = 1024 * 1024;
+
+    // 每个并发至少读取的分片数：分片过大时首个分片到达前客户端等待过久
+    private static final int PARTS_PER_WORKER = 4;
+
+    private final OssProperties ossProperties;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    // 缓冲区内存，单位 MB
+    private final Semaphore memory;
+    private final Counter parallelCounter;
+    private final Counter singleCounter;
+    private final Counter fallbackCounter;
+
+    /**
+     * 下载计划
+     * @param partSize 分片大小
+     * @param parts 分片数
+     * @param parallelism 同时读取的分片数
+     * @param buffers 缓冲区环大小，比 parallelism 多一个用于写出
+     */
+    record Plan(long partSize, int parts, int parallelism, int buffers) {
+    }
+
+    public RangedDownloader(OssProperties ossProperties, MeterRegistry meterRegistry) {
+        this.ossProperties = ossProperties;
+        int permits = (int) Math.max(1, Math.min(Integer.MAX_VALUE,
+                ossProperties.getRangedDownload().getMaxBufferMemory() / MB));
+        this.memory = new Semaphore(permits);
+        Gauge.builder("oss.download.ranged.buffer", memory, m -> (double) (permits - m.availablePermits()) * MB)
+                .baseUnit("bytes")
+                .description("Buffer memory reserved by parallel ranged downloads")
+                .register(meterRegistry);
+        this.parallelCounter = Counter.builder("oss.download.ranged")
+                .description("Large object downloads by transfer mode")
+                .tag("mode", "parallel")
+                .register(meterRegistry);
+        this.singleCounter = Counter.builder("oss.download.ranged")
+                .description("Large object downloads by transfer mode")
+                .tag("mode", "single")
+                .register(meterRegistry);
+        this.fallbackCounter = Counter.builder("oss.download.ranged")
+                .description("Large object downloads by transfer mode")
+                .tag("mode", "fallback")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 对象是否使用并行范围下载
+     * @param backend 存储后端
+     * @param size 对象大小
+     */
+    public boolean accepts(StorageBackend backend, long size) {
+        OssProperties.RangedDownload config = ossProperties.getRangedDownload();
+        // 本地存储使用零拷贝，不需要并行读取
+        return config.isEnabled() && size >= config.getThreshold() && MinioStorageBackend.TYPE.equals(backend.type());
+    }
+
+    /**
+     * 并行读取对象并按顺序写入输出流，对象不足两个分片或缓冲区内存不足时使用单流下载
+     * @param backend 存储后端
+     * @param stat 对象信息
+     * @param out 输出流，不会被关闭
+     * @return 写出的字节数
+     */
+    public long transferTo(StorageBackend backend, ObjectStat stat, OutputStream out) throws Exception {
+        Plan plan = plan(stat.size());
+        int permits = (int) ceilDiv(plan.buffers() * plan.partSize(), MB);
+        if (plan.parts() < 2) {
+            // 对象只够一个分片，并行读取没有收益
+            singleCounter.increment();
+            return backend.transferTo(stat.bucketName(), stat.objectName(), 0, null, out);
+        }
+        if (!memory.tryAcquire(permits)) {
+            fallbackCounter.increment();
+            log.debug("并行下载缓冲区不足，使用单流下载，存储桶: {}, 文件路径: {}", stat.bucketName(), stat.objectName());
+            return backend.transferTo(stat.bucketName(), stat.objectName(), 0, null, out);
+        }
+        parallelCounter.increment();
+        Deque<CompletableFuture<byte[]>> window = new ArrayDeque<>(plan.parallelism());
+        try {
+            return transfer(backend, stat, plan, window, out);
+        } finally {
+            if (window.isEmpty()) {
+                memory.release(permits);
+            } else {
+                // 客户端断开或读取失败：进行中的分片读取完成后才释放缓冲区内存，不中断读取线程
+                CompletableFuture.allOf(window.toArray(CompletableFuture[]::new))
+                        .whenComplete((result, e) -> memory.release(permits));
+            }
+        }
+    }
+
+    private long transfer(StorageBackend backend, ObjectStat stat, Plan plan, Deque<CompletableFuture<byte[]>> window,
+                          OutputStream out) throws Exception {
+        Deque<byte[]> free = new ArrayDeque<>(plan.buffers());
+        for (int i = 0; i < plan.buffers(); i++) {
+            free.add(new byte[(int) Math.min(plan.partSize(), stat.size())]);
+        }
+        int next = fill(backend, stat, plan, window, free, 0);
+        long total = 0;
+        for (int part = 0; part < plan.parts(); part++) {
+            byte[] buffer = await(window.poll());
+            // 写出前先用空闲缓冲区补充读取，让后端读取与写出重叠
+            next = fill(backend, stat, plan, window, free, next);
+            int length = partLength(stat.size(), plan.partSize(), part);
+            out.write(buffer, 0, length);
+            total += length;
+            free.add(buffer);
+        }
+        return total;
+    }
+
+    private int fill(StorageBackend backend, ObjectStat stat, Plan plan, Deque<CompletableFuture<byte[]>> window,
+                     Deque<byte[]> free, int next) {
+        while (next < plan.parts() && window.size() < plan.parallelism() && !free.isEmpty()) {
+            window.add(fetch(backend, stat, (long) next * plan.partSize(),
+                    partLength(stat.size(), plan.partSize(), next), free.poll()));
+            next++;
+        }
+        return next;
+    }
+
+    private CompletableFuture<byte[]> fetch(StorageBackend backend, ObjectStat stat, long offset, int length,
+                                            byte[] buffer) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (InputStream in = backend.getObject(stat.bucketName(), stat.objectName(), offset, (long) length,
+                    stat.etag())) {
+                int n = in.readNBytes(buffer, 0, length);
+                if (n != length) {
+                    throw new IOException("分片读取不完整，偏移: " + offset + ", 期望: " + length + ", 实际: " + n);
+                }
+                return buffer;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * 按对象大小计算分片大小与缓冲区环
+     */
+    Plan plan(long size) {
+        OssProperties.RangedDownload config = ossProperties.getRangedDownload();
+        int parallelism = Math.max(1, config.getParallelism());
+        long minPartSize = Math.max(MB, config.getMinPartSize());
+        long maxPartSize = Math.min(Integer.MAX_VALUE, Math.max(minPartSize, config.getMaxPartSize()));
+        long partSize = ceilDiv(ceilDiv(size, (long) parallelism * PARTS_PER_WORKER), MB) * MB;
+        partSize = Math.min(maxPartSize, Math.max(minPartSize, partSize));
+        int parts = (int) ceilDiv(size, partSize);
+        // 单个下载的缓冲区上限不足 parallelism + 1 个分片时减少并发，至少保留一个读取、一个写出
+        int buffers = (int) Math.max(2, Math.min(parallelism + 1L, config.getMaxBufferPerDownload() / partSize));
+        buffers = Math.min(buffers, parts);
+        return new Plan(partSize, parts, Math.max(1, Math.min(parallelism, buffers - 1)), buffers);
+    }
+
+    private static int partLength(long size, long partSize, int part) {
+        return (int) Math.min(partSize, size - part * partSize);
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return (x + y - 1) / y;
+    }
+
+    private static byte[] await(CompletableFuture<byte[]> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.enums;
+
+import lombok.Getter;
+
+/**
+ * 接口负载类型，每类使用独立的并发限制与排队
+ * @author luckykuang
+ * @date 2026/10/19 19:50
+ */
+@Getter
+public enum WorkloadEnum {
+    TRANSFER("transfer", "上传下载等大文件传输"),
+    METADATA("metadata", "存储桶、策略、列表、预签名等元数据调用"),
+    MERGE("merge", "分片合并");
+
+    private final String tag;
+
+    private final String description;
+
+    WorkloadEnum(String tag, String description) {
+        this.tag = tag;
+        this.description = description;
+    }
+}
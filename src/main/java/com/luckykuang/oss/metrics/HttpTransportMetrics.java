@@ -0,0 +1,82 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+
+/**
+ * OkHttp 传输层指标
+ * <ul>
+ *     <li>oss.http.pool.connections：连接池连接数（state=total/idle）</li>
+ *     <li>oss.http.dispatcher.calls：调度器请求数（state=running/queued），queued 持续大于 0 说明并发上限不足</li>
+ *     <li>oss.http.connections.opened / oss.http.connections.failed：新建/失败的 TCP 连接数，用于观察连接抖动</li>
+ * </ul>
+ * @author luckykuang
+ * @date 2026/10/19 13:10
+ */
+public class HttpTransportMetrics extends EventListener {
+
+    private final Counter opened;
+    private final Counter failed;
+
+    public HttpTransportMetrics(MeterRegistry meterRegistry, ConnectionPool connectionPool, Dispatcher dispatcher) {
+        Gauge.builder("oss.http.pool.connections", connectionPool, ConnectionPool::connectionCount)
+                .description("Connections held by the object storage HTTP connection pool")
+                .tag("state", "total")
+                .register(meterRegistry);
+        Gauge.builder("oss.http.pool.connections", connectionPool, ConnectionPool::idleConnectionCount)
+                .description("Connections held by the object storage HTTP connection pool")
+                .tag("state", "idle")
+                .register(meterRegistry);
+        Gauge.builder("oss.http.dispatcher.calls", dispatcher, Dispatcher::runningCallsCount)
+                .description("Object storage HTTP calls in the dispatcher")
+                .tag("state", "running")
+                .register(meterRegistry);
+        Gauge.builder("oss.http.dispatcher.calls", dispatcher, Dispatcher::queuedCallsCount)
+                .description("Object storage HTTP calls in the dispatcher")
+                .tag("state", "queued")
+                .register(meterRegistry);
+        this.opened = Counter.builder("oss.http.connections.opened")
+                .description("TCP connections opened to the object storage backend")
+                .register(meterRegistry);
+        this.failed = Counter.builder("oss.http.connections.failed")
+                .description("Failed TCP connection attempts to the object storage backend")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        opened.increment();
+    }
+
+    @Override
+    public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol,
+                              IOException ioe) {
+        failed.increment();
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.metrics;
+
+import com.luckykuang.oss.config.OssProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 对象存储后端调用指标
+ * <ul>
+ *     <li>oss.backend.requests：耗时直方图，SLO 分桶在 application.yml 的 management.metrics.distribution.slo 中配置</li>
+ *     <li>oss.backend.inflight：进行中的请求数</li>
+ *     <li>oss.backend.errors：异常次数</li>
+ *     <li>oss.backend.bytes：按操作统计的字节数</li>
+ *     <li>oss.bucket.ingress.bytes / oss.bucket.egress.bytes：按存储桶统计的流入/流出字节数（LongAdder 分段计数）</li>
+ * </ul>
+ * <p>另按操作累计成功调用的次数与耗时，供并发限制按周期取出平均延迟，见 {@link #drainLatency(String)}</p>
+ * @author luckykuang
+ * @date 2026/10/19 11:05
+ */
+@Component
+public class OssMetrics {
+
+    public static final String PUT = "put";
+    public static final String GET = "get";
+    public static final String STAT = "stat";
+    public static final String LIST = "list";
+    public static final String COMPOSE = "compose";
+    public static final String REMOVE = "remove";
+    public static final String COPY = "copy";
+    public static final String PRESIGN = "presign";
+    public static final String MULTIPART = "multipart";
+    public static final String BUCKET = "bucket";
+
+    private final MeterRegistry meterRegistry;
+    private final String endpoint;
+    private final String cdnEndpoint;
+
+    private final Map<Tags, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<Tags, AtomicInteger> inflight = new ConcurrentHashMap<>();
+    private final Map<Tags, Counter> errors = new ConcurrentHashMap<>();
+    private final Map<Tags, Counter> bytes = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> ingress = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> egress = new ConcurrentHashMap<>();
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+    /**
+     * 一个统计周期内的成功调用
+     * @param count 调用次数
+     * @param totalNanos 总耗时
+     */
+    public record Latency(long count, long totalNanos) {
+    }
+
+    private static final class LatencyWindow {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+    }
+
+    public OssMetrics(MeterRegistry meterRegistry, OssProperties ossProperties) {
+        this.meterRegistry = meterRegistry;
+        this.endpoint = endpointTag(ossProperties.getEndpoint());
+        this.cdnEndpoint = endpointTag(ossProperties.getEndpointCdn());
+    }
+
+    /**
+     * MinIO 原始 endpoint 标签
+     */
+    public String endpoint() {
+        return endpoint;
+    }
+
+    /**
+     * CDN endpoint 标签
+     */
+    public String cdnEndpoint() {
+        return cdnEndpoint;
+    }
+
+    /**
+     * 记录一次对原始 endpoint 的后端调用
+     * @param operation 操作
+     * @param bucket 存储桶名称
+     * @param call 后端调用
+     * @return 调用结果
+     */
+    public <T> T record(String operation, String bucket, BackendCall<T> call) throws Exception {
+        return record(operation, bucket, endpoint, call);
+    }
+
+    /**
+     * 记录一次后端调用：耗时、进行中数量、异常次数
+     * @param operation 操作
+     * @param bucket 存储桶名称
+     * @param endpoint endpoint 标签
+     * @param call 后端调用
+     * @return 调用结果
+     */
+    public <T> T record(String operation, String bucket, String endpoint, BackendCall<T> call) throws Exception {
+        Tags tags = Tags.of("operation", operation, "bucket", nullToEmpty(bucket), "endpoint", endpoint);
+        AtomicInteger active = inflight.computeIfAbsent(tags, t -> {
+            AtomicInteger value = new AtomicInteger();
+            Gauge.builder("oss.backend.inflight", value, AtomicInteger::get)
+                    .description("In-flight object storage backend calls")
+                    .tags(t)
+                    .register(meterRegistry);
+            return value;
+        });
+        active.incrementAndGet();
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            return call.call();
+        } catch (Exception e) {
+            outcome = "error";
+            errors.computeIfAbsent(tags.and("exception", e.getClass().getSimpleName()),
+                    t -> Counter.builder("oss.backend.errors")
+                            .description("Failed object storage backend calls")
+                            .tags(t)
+                            .register(meterRegistry))
+                    .increment();
+            throw e;
+        } finally {
+            active.decrementAndGet();
+            long elapsed = System.nanoTime() - start;
+            timers.computeIfAbsent(tags.and("outcome", outcome),
+                    t -> Timer.builder("oss.backend.requests")
+                            .description("Object storage backend call latency")
+                            .tags(t)
+                            .register(meterRegistry))
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            if ("success".equals(outcome)) {
+                LatencyWindow window = latencies.computeIfAbsent(operation, o -> new LatencyWindow());
+                window.count.increment();
+                window.totalNanos.add(elapsed);
+            }
+        }
+    }
+
+    /**
+     * 取出操作自上次取出以来的成功调用次数与总耗时，并清零
+     * @param operation 操作
+     * @return 本周期的调用
+     */
+    public Latency drainLatency(String operation) {
+        LatencyWindow window = latencies.get(operation);
+        if (window == null) {
+            return new Latency(0, 0);
+        }
+        return new Latency(window.count.sumThenReset(), window.totalNanos.sumThenReset());
+    }
+
+    /**
+     * 记录上传到存储桶的字节数
+     * @param operation 操作
+     * @param bucket 存储桶名称
+     * @param size 字节数
+     */
+    public void recordIngress(String operation, String bucket, long size) {
+        if (size <= 0) {
+            return;
+        }
+        byteCounter(operation, bucket, "in").increment(size);
+        adder(ingress, "oss.bucket.ingress.bytes", bucket).add(size);
+    }
+
+    /**
+     * 记录从存储桶读出的字节数
+     * @param operation 操作
+     * @param bucket 存储桶名称
+     * @param size 字节数
+     */
+    public void recordEgress(String operation, String bucket, long size) {
+        if (size <= 0) {
+            return;
+        }
+        byteCounter(operation, bucket, "out").increment(size);
+        adder(egress, "oss.bucket.egress.bytes", bucket).add(size);
+    }
+
+    /**
+     * 包装后端返回的对象流，关闭时统计实际读出的字节数
+     * @param operation 操作
+     * @param bucket 存储桶名称
+     * @param in 对象流
+     * @return 带计数的对象流
+     */
+    public InputStream countEgress(String operation, String bucket, InputStream in) {
+        LongAdder bucketEgress = adder(egress, "oss.bucket.egress.bytes", bucket);
+        Counter counter = byteCounter(operation, bucket, "out");
+        return new FilterInputStream(in) {
+            private long count;
+            private boolean closed;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    count++;
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n > 0) {
+                    count += n;
+                }
+                return n;
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (!closed) {
+                    closed = true;
+                    counter.increment(count);
+                    bucketEgress.add(count);
+                }
+                super.close();
+            }
+        };
+    }
+
+    private Counter byteCounter(String operation, String bucket, String direction) {
+        Tags tags = Tags.of("operation", operation, "bucket", nullToEmpty(bucket), "endpoint", endpoint,
+                "direction", direction);
+        return bytes.computeIfAbsent(tags, t -> Counter.builder("oss.backend.bytes")
+                .baseUnit("bytes")
+                .description("Bytes transferred to/from the object storage backend")
+                .tags(t)
+                .register(meterRegistry));
+    }
+
+    private LongAdder adder(Map<String, LongAdder> adders, String name, String bucket) {
+        return adders.computeIfAbsent(nullToEmpty(bucket), b -> {
+            LongAdder adder = new LongAdder();
+            FunctionCounter.builder(name, adder, LongAdder::sum)
+                    .baseUnit("bytes")
+                    .tags("bucket", b)
+                    .register(meterRegistry);
+            return adder;
+        });
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    /**
+     * endpoint 标签：host:port
+     * @param url endpoint 地址
+     * @return 标签值
+     */
+    public static String endpointTag(String url) {
+        if (url == null) {
+            return "";
+        }
+        try {
+            URI uri = URI.create(url);
+            return uri.getPort() == -1 ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+        } catch (Exception e) {
+            return url;
+        }
+    }
+}
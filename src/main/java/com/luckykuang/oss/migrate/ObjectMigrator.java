@@ -0,0 +1,533 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.migrate;
+
+import com.luckykuang.oss.base.BusinessException;
+import com.luckykuang.oss.base.ErrorCode;
+import com.luckykuang.oss.config.OssProperties;
+import com.luckykuang.oss.dedup.DedupStore;
+import com.luckykuang.oss.processor.OssProcessor;
+import com.luckykuang.oss.storage.ObjectItem;
+import com.luckykuang.oss.storage.ObjectStat;
+import com.luckykuang.oss.storage.StorageBackend;
+import com.luckykuang.oss.storage.StorageRouter;
+import com.luckykuang.oss.storage.UploadPart;
+import com.luckykuang.oss.vo.MigrationStatusVO;
+import com.luckykuang.oss.vo.MigrationVO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 服务端拷贝与批量迁移：对象内容由存储服务直接拷贝，不经过本服务
+ * <ul>
+ *     <li>不超过 minio.copy.multipart-threshold 的对象使用单次 CopyObject；更大的对象创建分片上传，按 part-size 切分后
+ *     并行 UploadPartCopy，任一分片失败时取消分片上传</li>
+ *     <li>批量迁移在后台执行：按前缀列出或按对象列表，以 migration-parallelism 并行拷贝，可选拷贝成功后删除源对象</li>
+ *     <li>续传：目标对象已存在、大小与 ETag 相同且修改时间不早于源对象时跳过，失败、取消或重启后重新提交即可；
+ *     分片拷贝的目标 ETag 为分片复合 ETag，改为比较拷贝时记录在用户元数据 {@value #COPY_SOURCE_ETAG} 中的源对象 ETag</li>
+ *     <li>进度只保存在内存中，任务结束后保留 retention</li>
+ * </ul>
+ * @author luckykuang
+ * @date 2026/10/19 20:25
+ */
+@Slf4j
+@Component
+public class ObjectMigrator {
+
+    // 分片上传最多 10000 个分片
+    private static final int MAX_PARTS = 10000;
+
+    // 分片最小 5MB（最后一个分片除外）
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    // 列表分页大小
+    private static final int LIST_PAGE_SIZE = 1000;
+
+    // 分片拷贝时记录源对象 ETag 的用户元数据
+    public static final String COPY_SOURCE_ETAG = "copy-source-etag";
+
+    private final StorageRouter storageRouter;
+    private final OssProperties ossProperties;
+    private final DedupStore dedupStore;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    // 迁移任务的列表与调度：MinIO SDK 的列表迭代器持有对象锁，放在虚拟线程上会占住载体线程，因此使用平台线程；
+    // 线程数即同时运行的迁移任务数，超出的任务排队
+    private final ExecutorService coordinator;
+    private final Map<String, Migration> migrations = new ConcurrentHashMap<>();
+    private final Counter copiedCounter;
+    private final Counter skippedCounter;
+    private final Counter failedCounter;
+    private final Counter bytesCounter;
+
+    public ObjectMigrator(StorageRouter storageRouter, OssProperties ossProperties, DedupStore dedupStore,
+                          MeterRegistry meterRegistry) {
+        this.storageRouter = storageRouter;
+        this.ossProperties = ossProperties;
+        this.dedupStore = dedupStore;
+        this.coordinator = Executors.newFixedThreadPool(Math.max(1, ossProperties.getCopy().getMaxRunningMigrations()),
+                Thread.ofPlatform().name("object-migrator-", 0).daemon(true).factory());
+        this.copiedCounter = objectCounter(meterRegistry, "copied");
+        this.skippedCounter = objectCounter(meterRegistry, "skipped");
+        this.failedCounter = objectCounter(meterRegistry, "failed");
+        this.bytesCounter = Counter.builder("oss.migration.bytes")
+                .baseUnit("bytes")
+                .description("Bytes copied server-side by object migrations")
+                .register(meterRegistry);
+    }
+
+    private static Counter objectCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("oss.migration.objects")
+                .description("Objects processed by object migrations")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 服务端拷贝单个对象，超过分片拷贝阈值时使用分片拷贝；存储后端不支持分片上传时使用单次拷贝；
+     * 去重存储的文件由 {@link DedupStore#copy} 拷贝清单并增加块引用，普通对象拷贝到去重存储桶时
+     * 由 {@link DedupStore#overwrite} 释放被覆盖清单的块引用
+     * @param backend 存储后端，源与目标存储桶共用
+     * @param source 源对象信息
+     * @param bucketName 目标存储桶名称
+     * @param objectName 目标对象路径
+     */
+    public void copy(StorageBackend backend, ObjectStat source, String bucketName, String objectName) throws Exception {
+        if (DedupStore.isManifest(source)) {
+            dedupStore.copy(backend, source, bucketName, objectName);
+            return;
+        }
+        if (dedupStore.isEnabled(bucketName)) {
+            // 普通对象覆盖去重存储桶中的去重文件时释放其块引用
+            dedupStore.overwrite(backend, bucketName, objectName, () -> {
+                copyObject(backend, source, bucketName, objectName);
+                return null;
+            });
+            return;
+        }
+        copyObject(backend, source, bucketName, objectName);
+    }
+
+    private void copyObject(StorageBackend backend, ObjectStat source, String bucketName, String objectName)
+            throws Exception {
+        if (source.size() > ossProperties.getCopy().getMultipartThreshold()) {
+            try {
+                multipartCopy(backend, source, bucketName, objectName);
+                return;
+            } catch (BusinessException e) {
+                if (!ErrorCode.STORAGE_NOT_SUPPORTED.getCode().equals(e.getCode())) {
+                    throw e;
+                }
+            }
+        }
+        backend.copyObject(source.bucketName(), source.objectName(), bucketName, objectName);
+    }
+
+    private void multipartCopy(StorageBackend backend, ObjectStat source, String bucketName, String objectName)
+            throws Exception {
+        OssProperties.Copy config = ossProperties.getCopy();
+        long size = source.size();
+        long partSize = Math.max(Math.max(config.getPartSize(), MIN_PART_SIZE), ceilDiv(size, MAX_PARTS));
+        int partCount = (int) ceilDiv(size, partSize);
+        Map<String, String> metadata = new HashMap<>(source.metadata());
+        if (StringUtils.isNotBlank(source.etag())) {
+            metadata.put(COPY_SOURCE_ETAG, source.etag());
+        }
+        String uploadId = backend.createMultipartUpload(bucketName, objectName, source.contentType(),
+                source.contentEncoding(), metadata);
+        Semaphore permits = new Semaphore(Math.max(1, config.getPartParallelism()));
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Future<UploadPart>> futures = new ArrayList<>(partCount);
+        try {
+            // 任一分片失败后不再提交新的分片
+            for (int i = 0; i < partCount && !failed.get(); i++) {
+                int partNumber = i + 1;
+                long offset = i * partSize;
+                long length = Math.min(partSize, size - offset);
+                permits.acquire();
+                futures.add(executor.submit(() -> {
+                    try {
+                        return backend.uploadPartCopy(bucketName, objectName, uploadId, partNumber,
+                                source.bucketName(), source.objectName(), offset, length);
+                    } catch (Exception e) {
+                        failed.set(true);
+                        throw e;
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            List<UploadPart> parts = new ArrayList<>(partCount);
+            for (Future<UploadPart> future : futures) {
+                parts.add(await(future));
+            }
+            backend.completeMultipartUpload(bucketName, objectName, uploadId, parts);
+            log.info("分片拷贝完成 - 源存储桶: {}, 源文件路径: {}, 目标存储桶: {}, 目标文件路径: {}, 大小: {}, 分片数: {}",
+                    source.bucketName(), source.objectName(), bucketName, objectName, size, partCount);
+        } catch (Exception e) {
+            futures.forEach(future -> future.cancel(true));
+            try {
+                backend.abortMultipartUpload(bucketName, objectName, uploadId);
+            } catch (Exception abortError) {
+                log.warn("取消分片拷贝失败 - 存储桶: {}, 文件路径: {}, 分片上传ID: {}", bucketName, objectName, uploadId,
+                        abortError);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 提交批量迁移，在后台执行；迁移ID与运行中的任务相同时不重复提交
+     * @param migrationVO 迁移参数，源存储桶已确定
+     * @return 迁移进度
+     */
+    public MigrationStatusVO submit(MigrationVO migrationVO) {
+        evictExpired();
+        String migrationId = StringUtils.isBlank(migrationVO.getMigrationId())
+                ? UUID.randomUUID().toString().replace("-", "") : migrationVO.getMigrationId();
+        int maxParallelism = Math.max(1, ossProperties.getCopy().getMigrationParallelism());
+        int parallelism = migrationVO.getParallelism() == null || migrationVO.getParallelism() <= 0
+                ? maxParallelism : Math.min(migrationVO.getParallelism(), maxParallelism);
+        Migration migration = new Migration(migrationId, migrationVO, parallelism);
+        Migration current = migrations.compute(migrationId,
+                (id, existing) -> existing != null && existing.endTime == 0 ? existing : migration);
+        if (current == migration) {
+            log.info("迁移任务提交 - ID: {}, 源存储桶: {}, 目标存储桶: {}, 前缀: {}, 对象数: {}, 移动: {}", migrationId,
+                    migration.sourceBucketName, migration.bucketName, migration.prefix,
+                    migration.objectNames == null ? null : migration.objectNames.size(), migration.move);
+            coordinator.execute(() -> run(migration));
+        }
+        return current.status();
+    }
+
+    /**
+     * 查询迁移进度
+     * @param migrationId 迁移ID
+     * @return 迁移进度，不存在或已过保留期时为 null
+     */
+    public MigrationStatusVO status(String migrationId) {
+        evictExpired();
+        Migration migration = migrations.get(migrationId);
+        return migration == null ? null : migration.status();
+    }
+
+    /**
+     * 取消迁移：不再开始新的对象拷贝，进行中的拷贝完成后结束
+     * @param migrationId 迁移ID
+     * @return 迁移进度，不存在时为 null
+     */
+    public MigrationStatusVO cancel(String migrationId) {
+        Migration migration = migrations.get(migrationId);
+        if (migration == null) {
+            return null;
+        }
+        migration.cancelled = true;
+        return migration.status();
+    }
+
+    private void run(Migration migration) {
+        try {
+            if (!migration.cancelled) {
+                migrate(migration);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            migration.cancelled = true;
+        } catch (Exception e) {
+            log.error("迁移任务异常 - ID: {}", migration.id, e);
+            migration.fail("", e);
+        } finally {
+            migration.finish();
+            log.info("迁移任务结束 - ID: {}, 状态: {}, 总数: {}, 拷贝: {}, 跳过: {}, 失败: {}, 字节数: {}", migration.id,
+                    migration.state, migration.total.get(), migration.copied.get(), migration.skipped.get(),
+                    migration.failed.get(), migration.bytes.get());
+        }
+    }
+
+    private void migrate(Migration migration) throws Exception {
+        StorageBackend backend = storageRouter.forBucket(migration.sourceBucketName);
+        migration.state = MigrationStatusVO.LISTING;
+        List<Candidate> candidates = migration.objectNames == null
+                ? listCandidates(backend, migration) : migration.objectNames.stream()
+                        .map(objectName -> new Candidate(objectName, objectName, null, false, null))
+                        .toList();
+        migration.total.set(candidates.size());
+        migration.state = MigrationStatusVO.RUNNING;
+        Semaphore permits = new Semaphore(migration.parallelism);
+        for (Candidate candidate : candidates) {
+            if (migration.cancelled) {
+                break;
+            }
+            permits.acquire();
+            executor.execute(() -> {
+                try {
+                    migrateObject(backend, migration, candidate);
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+        // 等待进行中的拷贝完成
+        permits.acquire(migration.parallelism);
+    }
+
+    /**
+     * 列出前缀下的源对象与目标位置已有的对象，目标路径按 targetPrefix 替换前缀
+     */
+    private List<Candidate> listCandidates(StorageBackend backend, Migration migration) throws Exception {
+        String prefix = stripLeadingSlash(migration.prefix);
+        String targetPrefix = migration.targetPrefix == null ? prefix : stripLeadingSlash(migration.targetPrefix);
+        Map<String, ObjectItem> existing = new HashMap<>();
+        for (ObjectItem item : backend.listObjects(migration.bucketName, targetPrefix, true, LIST_PAGE_SIZE)) {
+            if (!item.dir()) {
+                existing.put(stripLeadingSlash(item.objectName()), item);
+            }
+        }
+        List<Candidate> candidates = new ArrayList<>();
+        for (ObjectItem item : backend.listObjects(migration.sourceBucketName, prefix, true, LIST_PAGE_SIZE)) {
+            String key = stripLeadingSlash(item.objectName());
+            if (item.dir() || !key.startsWith(prefix) || OssProcessor.isInternalObject(key)) {
+                continue;
+            }
+            String objectName = targetPrefix + key.substring(prefix.length());
+            candidates.add(new Candidate(item.objectName(), objectName, item, true, existing.get(objectName)));
+        }
+        return candidates;
+    }
+
+    private void migrateObject(StorageBackend backend, Migration migration, Candidate candidate) {
+        if (migration.cancelled) {
+            return;
+        }
+        String sourceObjectName = candidate.sourceObjectName();
+        try {
+            ObjectItem source = candidate.source();
+            ObjectStat sourceStat = null;
+            if (source == null) {
+                sourceStat = backend.statObject(migration.sourceBucketName, sourceObjectName);
+                source = new ObjectItem(sourceObjectName, sourceStat.size(), false, sourceStat.lastModified(),
+                        sourceStat.etag());
+            }
+            long size = source.size();
+            ObjectItem target = candidate.listed() ? candidate.target()
+                    : statQuietly(backend, migration.bucketName, candidate.objectName());
+            if (isUpToDate(backend, migration.bucketName, target, source)) {
+                migration.skipped.incrementAndGet();
+                skippedCounter.increment();
+            } else {
+                // 大对象需按对象信息分片拷贝，去重存储桶中的对象需识别清单、覆盖清单时需释放引用
+                if (sourceStat == null && (size > ossProperties.getCopy().getMultipartThreshold()
+                        || dedupStore.isEnabled(migration.sourceBucketName)
+                        || dedupStore.isEnabled(migration.bucketName))) {
+                    sourceStat = backend.statObject(migration.sourceBucketName, sourceObjectName);
+                }
+                if (sourceStat != null) {
+                    copy(backend, sourceStat, migration.bucketName, candidate.objectName());
+                } else {
+                    backend.copyObject(migration.sourceBucketName, sourceObjectName, migration.bucketName,
+                            candidate.objectName());
+                }
+                migration.copied.incrementAndGet();
+                migration.bytes.addAndGet(size);
+                copiedCounter.increment();
+                bytesCounter.increment(size);
+            }
+            // 目标已拷贝或 ETag 一致时同样删除源对象，中断后重新提交的移动任务可以继续
+            if (migration.move) {
+                dedupStore.remove(backend, migration.sourceBucketName, sourceObjectName);
+            }
+        } catch (Exception e) {
+            log.warn("迁移对象失败 - ID: {}, 源存储桶: {}, 源文件路径: {}, 目标存储桶: {}, 目标文件路径: {}", migration.id,
+                    migration.sourceBucketName, sourceObjectName, migration.bucketName, candidate.objectName(), e);
+            migration.fail(sourceObjectName, e);
+            failedCounter.increment();
+        }
+    }
+
+    /**
+     * 目标对象已存在、大小与 ETag 均相同且不早于源对象写入，视为已拷贝；
+     * 只比较大小与修改时间时，目标位置后写入的同大小无关对象会被误判，移动时源对象随之被删除。
+     * 目标为分片复合 ETag（含 "-"）时查询目标对象，比较分片拷贝时记录的源对象 ETag
+     */
+    private static boolean isUpToDate(StorageBackend backend, String bucketName, ObjectItem target,
+                                      ObjectItem source) {
+        if (target == null || target.size() != source.size() || target.etag() == null || source.etag() == null
+                || target.lastModified() == null || source.lastModified() == null
+                || target.lastModified().isBefore(source.lastModified())) {
+            return false;
+        }
+        if (target.etag().equals(source.etag())) {
+            return true;
+        }
+        if (!target.etag().contains("-")) {
+            return false;
+        }
+        try {
+            ObjectStat stat = backend.statObject(bucketName, target.objectName());
+            return target.etag().equals(stat.etag()) && source.etag().equals(stat.metadata().get(COPY_SOURCE_ETAG));
+        } catch (Exception e) {
+            // 无法确认时重新拷贝
+            return false;
+        }
+    }
+
+    private static ObjectItem statQuietly(StorageBackend backend, String bucketName, String objectName) {
+        try {
+            ObjectStat stat = backend.statObject(bucketName, objectName);
+            return new ObjectItem(objectName, stat.size(), false, stat.lastModified(), stat.etag());
+        } catch (Exception e) {
+            // 不存在或无法确认时按不存在处理，重新拷贝
+            return null;
+        }
+    }
+
+    private void evictExpired() {
+        long expireBefore = System.currentTimeMillis() - ossProperties.getCopy().getRetention().toMillis();
+        migrations.values().removeIf(migration -> migration.endTime != 0 && migration.endTime < expireBefore);
+    }
+
+    private static <T> T await(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+
+    private static String stripLeadingSlash(String key) {
+        int i = 0;
+        while (i < key.length() && key.charAt(i) == '/') {
+            i++;
+        }
+        return key.substring(i);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        migrations.values().forEach(migration -> migration.cancelled = true);
+        coordinator.shutdown();
+        executor.shutdown();
+    }
+
+    /**
+     * 待迁移的对象
+     * @param sourceObjectName 源对象路径
+     * @param objectName 目标对象路径
+     * @param source 列出的源对象，按对象列表迁移时为 null
+     * @param listed 目标位置是否已列出，否则拷贝前单独查询
+     * @param target 目标位置已有的对象，不存在时为 null
+     */
+    private record Candidate(String sourceObjectName, String objectName, ObjectItem source, boolean listed,
+                             ObjectItem target) {
+    }
+
+    /**
+     * 迁移任务进度
+     */
+    private final class Migration {
+        private final String id;
+        private final String sourceBucketName;
+        private final String bucketName;
+        private final String prefix;
+        private final String targetPrefix;
+        private final List<String> objectNames;
+        private final boolean move;
+        private final int parallelism;
+        private final long startTime = System.currentTimeMillis();
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong copied = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private final List<String> failures = new ArrayList<>();
+        private volatile String state = MigrationStatusVO.QUEUED;
+        private volatile boolean cancelled;
+        private volatile long endTime;
+
+        Migration(String id, MigrationVO migrationVO, int parallelism) {
+            this.id = id;
+            this.sourceBucketName = migrationVO.getSourceBucketName();
+            this.bucketName = migrationVO.getBucketName();
+            this.prefix = migrationVO.getPrefix();
+            this.targetPrefix = migrationVO.getTargetPrefix();
+            this.objectNames = migrationVO.getObjectNames() == null || migrationVO.getObjectNames().isEmpty()
+                    ? null : List.copyOf(new LinkedHashSet<>(migrationVO.getObjectNames()));
+            this.move = Boolean.TRUE.equals(migrationVO.getMove());
+            this.parallelism = parallelism;
+        }
+
+        void fail(String objectName, Exception e) {
+            failed.incrementAndGet();
+            synchronized (failures) {
+                if (failures.size() < ossProperties.getCopy().getMaxReportedFailures()) {
+                    failures.add(objectName + ": " + e);
+                }
+            }
+        }
+
+        void finish() {
+            state = cancelled ? MigrationStatusVO.CANCELLED
+                    : failed.get() > 0 ? MigrationStatusVO.FAILED : MigrationStatusVO.COMPLETED;
+            endTime = System.currentTimeMillis();
+        }
+
+        MigrationStatusVO status() {
+            MigrationStatusVO status = new MigrationStatusVO();
+            status.setMigrationId(id);
+            status.setState(state);
+            status.setSourceBucketName(sourceBucketName);
+            status.setBucketName(bucketName);
+            status.setMove(move);
+            status.setTotal(total.get());
+            status.setCopied(copied.get());
+            status.setSkipped(skipped.get());
+            status.setFailed(failed.get());
+            status.setBytes(bytes.get());
+            status.setStartTime(startTime);
+            status.setEndTime(endTime == 0 ? null : endTime);
+            synchronized (failures) {
+                status.setFailures(List.copyOf(failures));
+            }
+            return status;
+        }
+    }
+}
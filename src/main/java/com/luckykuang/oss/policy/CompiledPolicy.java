@@ -0,0 +1,155 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.policy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 预编译的存储桶策略模板
+ * <p>模板按 {bucket} 占位符切分为固定片段，渲染时只做一次按长度预分配的拼接</p>
+ * <p>{@link #digest(String)} 计算策略的规范化摘要：对象键排序、字符串数组排序、单元素数组与字符串等价、
+ * 没有 Statement 的策略与未设置策略等价，用于判断存储桶当前策略与模板渲染结果是否一致
+ * （存储服务返回的策略会被重新格式化，不能直接比较原文）</p>
+ * @author luckykuang
+ * @date 2026/10/19 17:20
+ */
+public final class CompiledPolicy {
+
+    // 存储桶名称占位符
+    public static final String BUCKET_PLACEHOLDER = "{bucket}";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final String source;
+    private final String[] fragments;
+    private final int fixedLength;
+
+    private CompiledPolicy(String source, String[] fragments) {
+        this.source = source;
+        this.fragments = fragments;
+        int length = 0;
+        for (String fragment : fragments) {
+            length += fragment.length();
+        }
+        this.fixedLength = length;
+    }
+
+    /**
+     * 编译策略模板
+     * @param template 含 {bucket} 占位符的策略 JSON
+     * @return 编译后的模板
+     */
+    public static CompiledPolicy compile(String template) {
+        String source = template == null ? "" : template;
+        List<String> fragments = new ArrayList<>();
+        int from = 0;
+        int index;
+        while ((index = source.indexOf(BUCKET_PLACEHOLDER, from)) >= 0) {
+            fragments.add(source.substring(from, index));
+            from = index + BUCKET_PLACEHOLDER.length();
+        }
+        fragments.add(source.substring(from));
+        return new CompiledPolicy(source, fragments.toArray(new String[0]));
+    }
+
+    /**
+     * 模板原文
+     */
+    public String source() {
+        return source;
+    }
+
+    /**
+     * 渲染存储桶策略
+     * @param bucketName 存储桶名称
+     * @return 策略 JSON
+     */
+    public String render(String bucketName) {
+        StringBuilder sb = new StringBuilder(fixedLength + (fragments.length - 1) * bucketName.length());
+        sb.append(fragments[0]);
+        for (int i = 1; i < fragments.length; i++) {
+            sb.append(bucketName).append(fragments[i]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 策略的规范化摘要(SHA-256)，空策略返回空字符串的摘要
+     * @param policy 策略 JSON，可为空
+     * @return 十六进制摘要
+     */
+    public static String digest(String policy) {
+        byte[] canonical;
+        if (StringUtils.isBlank(policy)) {
+            canonical = new byte[0];
+        } else {
+            try {
+                JsonNode root = MAPPER.readTree(policy);
+                JsonNode statement = root.path("Statement");
+                canonical = statement.isMissingNode() || statement.isEmpty()
+                        ? new byte[0] : MAPPER.writeValueAsBytes(canonicalize(root));
+            } catch (Exception e) {
+                // 无法解析时按原文比较
+                canonical = policy.trim().getBytes(StandardCharsets.UTF_8);
+            }
+        }
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(canonical));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Object canonicalize(JsonNode node) {
+        if (node.isObject()) {
+            Map<String, Object> fields = new TreeMap<>();
+            for (Map.Entry<String, JsonNode> field : node.properties()) {
+                fields.put(field.getKey(), canonicalize(field.getValue()));
+            }
+            return fields;
+        }
+        if (node.isArray()) {
+            List<Object> elements = new ArrayList<>(node.size());
+            boolean textual = true;
+            for (JsonNode element : node) {
+                textual &= element.isTextual();
+                elements.add(canonicalize(element));
+            }
+            if (textual) {
+                // Action / Resource / Principal 等字符串集合与顺序无关，单个元素时可写作字符串
+                elements.sort((a, b) -> ((String) a).compareTo((String) b));
+                return elements.size() == 1 ? elements.get(0) : elements;
+            }
+            return elements;
+        }
+        if (node.isTextual()) {
+            return node.textValue();
+        }
+        return node;
+    }
+}
@@ -18,17 +18,21 @@ package com.luckykuang.oss.processor;
 
 import com.luckykuang.oss.base.BusinessException;
 import com.luckykuang.oss.base.ErrorCode;
+import com.luckykuang.oss.dedup.DedupStore;
+import com.luckykuang.oss.storage.ObjectStat;
+import com.luckykuang.oss.storage.StorageRouter;
 import com.luckykuang.oss.util.ApplicationContextUtils;
-import io.minio.BucketExistsArgs;
-import io.minio.MinioClient;
-import io.minio.StatObjectArgs;
-import io.minio.StatObjectResponse;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
+import java.util.UUID;
 
 /**
  * 抽取的方法
@@ -39,7 +43,21 @@ import java.util.List;
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public final class OssProcessor {
 
-    private static final MinioClient minioClient = ApplicationContextUtils.getBean("minioClient", MinioClient.class);
+    // 日期格式化
+    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("/yyyy/MM/dd/");
+
+    // 分片文件后缀
+    private static final String CHUNK_SUFFIX = ".chunk";
+
+    // 分片上传临时路径前缀，分片位于 .chunk-uploads/{uploadSessionId}/{fileMd5}/{chunkNumber}.chunk
+    public static final String CHUNK_UPLOAD_PREFIX = ".chunk-uploads/";
+
+    /**
+     * 延迟获取 Spring Bean，纯计算方法（策略拼接、路径解析等）不依赖容器即可调用
+     */
+    private static final class Beans {
+        private static final StorageRouter storageRouter = ApplicationContextUtils.getBean(StorageRouter.class);
+    }
 
     /**
      * 判断存储桶是否存在
@@ -47,11 +65,10 @@ public final class OssProcessor {
      * @return 存在-true 不存在-false
      */
     public static boolean bucketExists(String bucketName){
-        BucketExistsArgs args = BucketExistsArgs.builder()
-                .bucket(bucketName)
-                .build();
         try {
-            return minioClient.bucketExists(args);
+            return Beans.storageRouter.forBucket(bucketName).bucketExists(bucketName);
+        } catch (BusinessException e){
+            throw e;
         } catch (Exception e){
             log.error("查询存储桶状态异常",e);
             throw new BusinessException(ErrorCode.UNKNOWN);
@@ -64,13 +81,11 @@ public final class OssProcessor {
      * @param objectName url
      * @return 返回文件信息
      */
-    public static StatObjectResponse getStatObject(String bucketName, String objectName) {
-        StatObjectArgs args = StatObjectArgs.builder()
-                .bucket(bucketName)
-                .object(objectName)
-                .build();
+    public static ObjectStat getStatObject(String bucketName, String objectName) {
         try {
-            return minioClient.statObject(args);
+            return Beans.storageRouter.forBucket(bucketName).statObject(bucketName, objectName);
+        } catch (BusinessException e){
+            throw e;
         } catch (Exception e){
             log.error("获取对象信息异常",e);
             throw new BusinessException(ErrorCode.UNKNOWN);
@@ -92,6 +107,58 @@ public final class OssProcessor {
         return lastDotIndex == -1 ? nameAndExt : nameAndExt.substring(0, lastDotIndex);
     }
 
+    /**
+     * 生成对象路径：根据日期打散目录，使用 UUID 重命名文件
+     * @param ext 文件后缀（包含"."）
+     * @return 对象路径，如 /2026/10/19/015dcf1955124393bce7e37fb664e985.png
+     */
+    public static String generateObjectName(String ext){
+        return formatter.format(LocalDate.now()) +
+                UUID.randomUUID().toString().replace("-", "") +
+                ext;
+    }
+
+    /**
+     * 解析分片序号
+     * @param objectName 分片路径，如 .chunk-uploads/{uploadSessionId}/{fileMd5}/{chunkNumber}.chunk
+     * @return 分片序号，非分片文件或解析失败返回 -1
+     */
+    public static int parseChunkNumber(String objectName){
+        if (objectName == null || !objectName.endsWith(CHUNK_SUFFIX)) {
+            return -1;
+        }
+        String chunkFileName = objectName.substring(objectName.lastIndexOf("/") + 1,
+                objectName.length() - CHUNK_SUFFIX.length());
+        try {
+            return Integer.parseInt(chunkFileName);
+        } catch (NumberFormatException e) {
+            log.warn("解析分片序号失败: {}", chunkFileName);
+            return -1;
+        }
+    }
+
+    /**
+     * 是否为服务内部对象（分片上传的临时分片、去重存储的块与引用计数），不出现在文件列表、打包下载与迁移中，
+     * 客户端也不能读写；按路径段规范化后判断第一段，"//.dedup/"、"a/../.dedup/" 等写法同样识别
+     * @param objectName 对象路径
+     * @return 是否为内部对象
+     */
+    public static boolean isInternalObject(String objectName){
+        if (objectName == null) {
+            return false;
+        }
+        Deque<String> segments = new ArrayDeque<>();
+        for (String segment : objectName.split("/")) {
+            if ("..".equals(segment)) {
+                segments.pollLast();
+            } else if (!segment.isEmpty() && !".".equals(segment)) {
+                segments.addLast(segment);
+            }
+        }
+        String first = segments.peekFirst() + "/";
+        return CHUNK_UPLOAD_PREFIX.equals(first) || DedupStore.DEDUP_PREFIX.equals(first);
+    }
+
     /**
      * 存储桶默认策略
      * @param bucketName 存储桶名称
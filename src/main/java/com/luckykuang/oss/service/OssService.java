@@ -18,6 +18,7 @@ package com.luckykuang.oss.service;
 
 import com.luckykuang.oss.base.ApiResult;
 import com.luckykuang.oss.vo.*;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -59,6 +60,14 @@ public interface OssService {
      */
     ApiResult<String> uploadFile(MultipartFile file, String bucketName);
 
+    /**
+     * 批量文件上传，并发上传到存储后端，单个文件失败不影响其他文件
+     * @param files 上传的文件
+     * @param bucketName 存储桶名称
+     * @return 按上传顺序返回每个文件的结果
+     */
+    ApiResult<List<BatchUploadResultVO>> uploadFiles(List<MultipartFile> files, String bucketName);
+
     /**
      * 文件上传
      * @param uploadFileVO 入参对象
@@ -66,11 +75,18 @@ public interface OssService {
     ApiResult<String> uploadFileByStream(UploadFileVO uploadFileVO);
 
     /**
-     * 下载文件
+     * 下载文件：压缩存储的文件，客户端支持该编码时原样返回，否则解压后返回；
+     * 响应携带 ETag / Last-Modified / Cache-Control，条件请求命中时返回 304
      * @param bucketName 存储桶名称
      * @param filePath 下载的文件路径
      */
-    void downloadFile(String bucketName, String filePath, HttpServletResponse response);
+    void downloadFile(String bucketName, String filePath, HttpServletRequest request, HttpServletResponse response);
+
+    /**
+     * 打包下载：按前缀或文件路径列表，边读取边输出 ZIP/TAR
+     * @param archiveDownloadVO 入参对象
+     */
+    void downloadArchive(ArchiveDownloadVO archiveDownloadVO, HttpServletResponse response);
 
     /**
      * 删除文件
@@ -105,6 +121,13 @@ public interface OssService {
      */
     String getPresignedObjectUrl(String bucketName, String objectName, Integer expirySeconds);
 
+    /**
+     * 批量生成临时访问url，单个对象失败不影响其他对象
+     * @param batchPresignVO 入参对象
+     * @return 按请求顺序返回每个对象的结果
+     */
+    ApiResult<List<BatchPresignResultVO>> getPresignedObjectUrls(BatchPresignVO batchPresignVO);
+
     /**
      * 根据指定步长，得到文件被分片的数量
      * @param bucketName 存储桶名称
@@ -126,16 +149,30 @@ public interface OssService {
     /**
      * 初始化分片上传
      * @param chunkUploadInitVO 入参对象
+     * @param request 请求，按客户端网段给出分片大小与并发数建议
      * @return 分片上传状态信息
      */
-    ApiResult<ChunkUploadStatusVO> initChunkUpload(ChunkUploadInitVO chunkUploadInitVO);
+    ApiResult<ChunkUploadStatusVO> initChunkUpload(ChunkUploadInitVO chunkUploadInitVO, HttpServletRequest request);
 
     /**
      * 上传分片文件
      * @param chunkUploadVO 入参对象
      * @return 上传结果
      */
-    ApiResult<String> uploadChunk(ChunkUploadVO chunkUploadVO);
+    ApiResult<String> uploadChunk(ChunkUploadVO chunkUploadVO, HttpServletRequest request);
+
+    /**
+     * 上传分片文件：请求体即分片内容，不经过 multipart 解析，按声明的长度直接写入存储后端
+     * @param uploadSessionId 上传会话ID
+     * @param fileMd5 文件MD5
+     * @param chunkNumber 分片序号，从0开始
+     * @param totalChunks 总分片数
+     * @param fileName 文件名(URL 编码)，只用于日志，可为空
+     * @param request 请求，请求体为分片内容，Content-Length 为分片大小
+     * @return 上传结果
+     */
+    ApiResult<String> uploadChunk(String uploadSessionId, String fileMd5, Integer chunkNumber, Integer totalChunks,
+                                  String fileName, HttpServletRequest request);
 
     /**
      * 合并分片文件
@@ -161,6 +198,64 @@ public interface OssService {
      */
     ApiResult<String> cancelChunkUpload(String fileMd5, String bucketName, String uploadSessionId);
 
+    /**
+     * 初始化客户端直传：小文件签发 PUT / POST 表单上传凭证，大文件创建分片上传并签发每个分片的上传 url
+     * @param directUploadInitVO 入参对象
+     * @return 上传凭证
+     */
+    ApiResult<DirectUploadVO> initDirectUpload(DirectUploadInitVO directUploadInitVO);
+
+    /**
+     * 完成客户端直传：分片上传时合并分片，校验对象已写入
+     * @param directUploadCompleteVO 入参对象
+     * @return 文件访问URL
+     */
+    ApiResult<String> completeDirectUpload(DirectUploadCompleteVO directUploadCompleteVO);
+
+    /**
+     * 取消客户端直传的分片上传，存储服务删除已上传的分片
+     * @param bucketName 存储桶名称
+     * @param objectName 文件路径
+     * @param uploadId 分片上传ID
+     * @return 取消结果
+     */
+    ApiResult<String> abortDirectUpload(String bucketName, String objectName, String uploadId);
+
+    /**
+     * 服务端拷贝对象，对象内容不经过本服务
+     * @param copyObjectVO 入参对象
+     * @return 目标文件访问URL
+     */
+    ApiResult<String> copyObject(CopyObjectVO copyObjectVO);
+
+    /**
+     * 服务端移动对象：拷贝成功后删除源对象
+     * @param copyObjectVO 入参对象
+     * @return 目标文件访问URL
+     */
+    ApiResult<String> moveObject(CopyObjectVO copyObjectVO);
+
+    /**
+     * 提交批量迁移，按前缀或对象列表在存储桶之间拷贝/移动对象，后台执行
+     * @param migrationVO 入参对象
+     * @return 迁移进度
+     */
+    ApiResult<MigrationStatusVO> migrateObjects(MigrationVO migrationVO);
+
+    /**
+     * 查询批量迁移进度
+     * @param migrationId 迁移ID
+     * @return 迁移进度
+     */
+    ApiResult<MigrationStatusVO> getMigrationStatus(String migrationId);
+
+    /**
+     * 取消批量迁移，已拷贝的对象保留，重新提交可续传
+     * @param migrationId 迁移ID
+     * @return 迁移进度
+     */
+    ApiResult<MigrationStatusVO> cancelMigration(String migrationId);
+
     /**
      * 创建策略模板
      * @param policyTemplateVO 策略模板对象
@@ -202,4 +297,11 @@ public interface OssService {
      * @return 应用结果
      */
     ApiResult<String> applyPolicyTemplate(String bucketName, String templateName);
+
+    /**
+     * 批量应用策略模板：按存储桶列表、通配或全部存储桶选择，当前策略与模板一致的存储桶跳过，其余并行写入
+     * @param policyRolloutVO 入参对象
+     * @return 每个存储桶的结果
+     */
+    ApiResult<List<PolicyRolloutResultVO>> applyPolicyTemplates(PolicyRolloutVO policyRolloutVO);
 }
\ No newline at end of file
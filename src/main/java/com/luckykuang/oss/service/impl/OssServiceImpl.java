@@ -16,36 +16,72 @@
 
 package com.luckykuang.oss.service.impl;
 
+import com.luckykuang.oss.archive.ObjectArchiver;
 import com.luckykuang.oss.base.ApiResult;
 import com.luckykuang.oss.base.BusinessException;
 import com.luckykuang.oss.base.ErrorCode;
+import com.luckykuang.oss.chunk.ChunkUploadAdvisor;
+import com.luckykuang.oss.compress.ObjectCompressor;
 import com.luckykuang.oss.config.OssProperties;
+import com.luckykuang.oss.dedup.DedupStore;
+import com.luckykuang.oss.download.ChunkReadAhead;
+import com.luckykuang.oss.download.RangedDownloader;
+import com.luckykuang.oss.metrics.OssMetrics;
+import com.luckykuang.oss.migrate.ObjectMigrator;
+import com.luckykuang.oss.policy.CompiledPolicy;
 import com.luckykuang.oss.processor.OssProcessor;
 import com.luckykuang.oss.service.OssService;
+import com.luckykuang.oss.storage.ObjectItem;
+import com.luckykuang.oss.storage.ObjectStat;
+import com.luckykuang.oss.storage.StorageBackend;
+import com.luckykuang.oss.storage.StorageRouter;
+import com.luckykuang.oss.storage.UploadPart;
+import com.luckykuang.oss.throttle.BandwidthLimiter;
 import com.luckykuang.oss.vo.*;
-import io.minio.*;
-import io.minio.messages.Bucket;
-import io.minio.messages.Item;
 import jakarta.annotation.Resource;
 import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.compress.utils.IOUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.UUID;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
 
 /**
@@ -56,17 +92,38 @@ import java.util.stream.Collectors;
 @Service
 public class OssServiceImpl implements OssService {
 
-    // 日期格式化
-    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("/yyyy/MM/dd/");
+    @Resource
+    private StorageRouter storageRouter;
 
-    @Resource(name = "minioClient")
-    private MinioClient minioClient;
+    @Resource
+    private OssProperties ossProperties;
 
-    @Resource(name = "minioCdnClient")
-    private MinioClient minioCdnClient;
+    @Resource
+    private OssMetrics ossMetrics;
 
     @Resource
-    private OssProperties ossProperties;
+    private ObjectArchiver objectArchiver;
+
+    @Resource
+    private ObjectCompressor objectCompressor;
+
+    @Resource
+    private ChunkUploadAdvisor chunkUploadAdvisor;
+
+    @Resource
+    private BandwidthLimiter bandwidthLimiter;
+
+    @Resource
+    private ObjectMigrator objectMigrator;
+
+    @Resource
+    private RangedDownloader rangedDownloader;
+
+    @Resource
+    private ChunkReadAhead chunkReadAhead;
+
+    @Resource
+    private DedupStore dedupStore;
 
     @Override
     public ApiResult<String> createBucket(String bucketName) {
@@ -75,17 +132,15 @@ public class OssServiceImpl implements OssService {
             if (found) {
                 return ApiResult.failed(ErrorCode.BUCKET_EXIST);
             }
-            MakeBucketArgs args2 = MakeBucketArgs.builder().bucket(bucketName).build();
+            StorageBackend backend = storageRouter.forBucket(bucketName);
             // 新建存储桶
-            minioClient.makeBucket(args2);
+            backend.makeBucket(bucketName);
             // 设置存储桶只读策略
             String bucketPolicy = OssProcessor.readOnlyBucketPolicy(bucketName);
-            SetBucketPolicyArgs args3 = SetBucketPolicyArgs.builder()
-                    .bucket(bucketName)
-                    .config(bucketPolicy)
-                    .build();
             // 设置存储桶策略
-            minioClient.setBucketPolicy(args3);
+            backend.setBucketPolicy(bucketName, bucketPolicy);
+        } catch (BusinessException e){
+            throw e;
         } catch (Exception e){
             log.error("存储桶创建异常",e);
             throw new BusinessException(ErrorCode.UNKNOWN);
@@ -100,19 +155,15 @@ public class OssServiceImpl implements OssService {
             if (found) {
                 return ApiResult.failed(ErrorCode.BUCKET_EXIST);
             }
-            MakeBucketArgs args2 = MakeBucketArgs.builder()
-                    .bucket(bucketVO.getBucketName())
-                    .build();
+            StorageBackend backend = storageRouter.forBucket(bucketVO.getBucketName());
             // 新建存储桶
-            minioClient.makeBucket(args2);
+            backend.makeBucket(bucketVO.getBucketName());
             // 设置存储桶自定义策略
             String bucketPolicy = OssProcessor.customBucketPolicy(bucketVO.getBucketName(),bucketVO.getBucketPolicyList());
-            SetBucketPolicyArgs args3 = SetBucketPolicyArgs.builder()
-                    .bucket(bucketVO.getBucketName())
-                    .config(bucketPolicy)
-                    .build();
             // 设置存储桶策略
-            minioClient.setBucketPolicy(args3);
+            backend.setBucketPolicy(bucketVO.getBucketName(), bucketPolicy);
+        } catch (BusinessException e){
+            throw e;
         } catch (Exception e){
             log.error("存储桶创建异常",e);
             throw new BusinessException(ErrorCode.UNKNOWN);
@@ -123,14 +174,13 @@ public class OssServiceImpl implements OssService {
     @Override
     public ApiResult<String> deleteBucket(String bucketName) {
         try {
-            boolean found = minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucketName).build());
+            boolean found = OssProcessor.bucketExists(bucketName);
             if (!found) {
                 return ApiResult.failed(ErrorCode.BUCKET_NOT_EXIST);
             }
-            RemoveBucketArgs args = RemoveBucketArgs.builder()
-                    .bucket(bucketName)
-                    .build();
-            minioClient.removeBucket(args);
+            storageRouter.forBucket(bucketName).removeBucket(bucketName);
+        } catch (BusinessException e){
+            throw e;
         } catch (Exception e){
             log.error("存储桶删除异常",e);
             throw new BusinessException(ErrorCode.UNKNOWN);
@@ -141,9 +191,18 @@ public class OssServiceImpl implements OssService {
     @Override
     public ApiResult<List<String>> listBuckets() {
         try {
-            List<Bucket> buckets = minioClient.listBuckets();
-            List<String> bucketNames = buckets.stream().map(Bucket::name).toList();
-            return ApiResult.success(bucketNames);
+            // 合并各存储后端的存储桶，只保留路由到该后端的存储桶
+            Set<String> bucketNames = new LinkedHashSet<>();
+            for (StorageBackend backend : storageRouter.activeBackends()) {
+                for (String bucketName : backend.listBuckets()) {
+                    if (storageRouter.forBucket(bucketName) == backend) {
+                        bucketNames.add(bucketName);
+                    }
+                }
+            }
+            return ApiResult.success(new ArrayList<>(bucketNames));
+        } catch (BusinessException e){
+            throw e;
         } catch (Exception e){
             log.error("获取存储桶异常",e);
             throw new BusinessException(ErrorCode.UNKNOWN);
@@ -152,59 +211,25 @@ public class OssServiceImpl implements OssService {
 
     @Override
     public ApiResult<String> uploadFile(MultipartFile file, String bucketName) {
-        String filePath;
         bucketName = StringUtils.isBlank(bucketName) ? ossProperties.getBucketName() : bucketName;
-        // 文件大小
-        long size = file.getSize();
-        if (size == 0) {
-            return ApiResult.failed(ErrorCode.NOT_UPLOAD_EMPTY_FILE);
+        ErrorCode invalid = checkUploadFile(file);
+        if (invalid != null) {
+            return ApiResult.failed(invalid);
         }
 
-        // 文件名称
         String fileName = file.getOriginalFilename();
-        if (StringUtils.isBlank(fileName)) {
-            return ApiResult.failed(ErrorCode.NOT_UPLOAD_EMPTY_NAME);
-        }
-
-        int index = fileName.lastIndexOf(".");
-        if (index == -1) {
-            return ApiResult.failed(ErrorCode.NOT_UPLOAD_EMPTY_EXT);
-        }
-
-        // 文件后缀
-        String ext = fileName.substring(index);
-
-        // 文件类型
-        String contentType = file.getContentType();
-        if (contentType == null) {
-            contentType = MediaType.APPLICATION_OCTET_STREAM_VALUE;
-        }
-
         // 根据日期打散目录，使用 UUID 重命名文件
-        filePath = formatter.format(LocalDate.now()) +
-                UUID.randomUUID().toString().replace("-", "") +
-                ext;
+        String filePath = OssProcessor.generateObjectName(fileName.substring(fileName.lastIndexOf(".")));
 
         log.info("文件名称：{}", fileName);
-        log.info("文件大小：{}", size);
-        log.info("文件类型：{}", contentType);
+        log.info("文件大小：{}", file.getSize());
+        log.info("文件类型：{}", uploadContentType(file));
         log.info("文件路径：{}", filePath);
 
-        try (InputStream inputStream = file.getInputStream()) {
-
-            PutObjectArgs args = PutObjectArgs.builder()
-                    // 指定 Bucket 存储桶名称,默认 public
-                    .bucket(bucketName)
-                    // 指定 Content Type
-                    .contentType(contentType)
-                    // 指定文件的路径
-                    .object(filePath)
-                    // 文件的 InputStream 流
-                    .stream(inputStream, size, -1)
-                    .build();
-
-            // 上传文件到客户端
-            minioClient.putObject(args);
+        try {
+            putUploadFile(file, bucketName, filePath, bandwidthLimiter.upload(bucketName));
+        } catch (BusinessException e){
+            throw e;
         } catch (Exception e){
             log.error("上传文件异常",e);
             throw new BusinessException(ErrorCode.UNKNOWN);
@@ -214,6 +239,143 @@ public class OssServiceImpl implements OssService {
         return ApiResult.success(ossProperties.getEndpointCdn() + bucketName + filePath);
     }
 
+    @Override
+    public ApiResult<List<BatchUploadResultVO>> uploadFiles(List<MultipartFile> files, String bucketName) {
+        OssProperties.Batch batch = ossProperties.getBatch();
+        if (files == null || files.isEmpty() || files.size() > batch.getMaxUploadFiles()) {
+            return ApiResult.failed(ErrorCode.INVALID_PARAMETER);
+        }
+        String bucket = StringUtils.isBlank(bucketName) ? ossProperties.getBucketName() : bucketName;
+        BatchUploadResultVO[] results = new BatchUploadResultVO[files.size()];
+        // 限速按当前请求解析，上传线程上取不到请求
+        BandwidthLimiter.Throttle throttle = bandwidthLimiter.upload(bucket);
+        long start = System.nanoTime();
+        fanOut(results, batch.getUploadParallelism(), index -> {
+            MultipartFile file = files.get(index);
+            ErrorCode invalid = checkUploadFile(file);
+            return invalid != null ? batchUploadResult(index, file, invalid.getCode(), invalid.getMessage(), null)
+                    : uploadBatchFile(index, file, bucket, throttle);
+        }, index -> batchUploadResult(index, files.get(index), ErrorCode.UNKNOWN.getCode(),
+                ErrorCode.UNKNOWN.getMessage(), null));
+        long failed = Arrays.stream(results).filter(result -> result.getUrl() == null).count();
+        log.info("批量上传完成 - 存储桶: {}, 文件数: {}, 失败数: {}, 耗时: {}ms", bucket, results.length, failed,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return ApiResult.success(Arrays.asList(results));
+    }
+
+    private BatchUploadResultVO uploadBatchFile(int index, MultipartFile file, String bucketName,
+                                                BandwidthLimiter.Throttle throttle) {
+        String fileName = file.getOriginalFilename();
+        String filePath = OssProcessor.generateObjectName(fileName.substring(fileName.lastIndexOf(".")));
+        try {
+            putUploadFile(file, bucketName, filePath, throttle);
+            return batchUploadResult(index, file, ErrorCode.SUCCESS.getCode(), ErrorCode.SUCCESS.getMessage(),
+                    ossProperties.getEndpointCdn() + bucketName + filePath);
+        } catch (BusinessException e) {
+            return batchUploadResult(index, file, e.getCode(), e.getMessage(), null);
+        } catch (Exception e) {
+            log.error("批量上传文件异常 - 文件: {}", fileName, e);
+            return batchUploadResult(index, file, ErrorCode.UNKNOWN.getCode(), ErrorCode.UNKNOWN.getMessage(), null);
+        }
+    }
+
+    /**
+     * 有界并发执行：请求线程按顺序提交，信号量限制同时执行的任务数，单个任务失败不影响其他任务
+     * @param results 结果，按任务下标写入
+     * @param parallelism 并发数
+     * @param task 按下标执行的任务
+     * @param failure 任务抛出异常时按下标生成的结果
+     */
+    private static <T> void fanOut(T[] results, int parallelism, IntFunction<T> task, IntFunction<T> failure) {
+        Semaphore permits = new Semaphore(Math.max(1, parallelism));
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < results.length; i++) {
+                int index = i;
+                permits.acquire();
+                executor.execute(() -> {
+                    try {
+                        results[index] = task.apply(index);
+                    } catch (RuntimeException e) {
+                        log.error("并发任务异常 - 下标: {}", index, e);
+                        results[index] = failure.apply(index);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.UNKNOWN);
+        }
+    }
+
+    private static BatchUploadResultVO batchUploadResult(int index, MultipartFile file, String code, String message,
+                                                         String url) {
+        return new BatchUploadResultVO(index, file.getOriginalFilename(), code, message, url);
+    }
+
+    /**
+     * 校验上传文件：非空、有文件名、有后缀
+     * @param file 上传的文件
+     * @return 校验失败的错误码，通过时返回 null
+     */
+    private static ErrorCode checkUploadFile(MultipartFile file) {
+        if (file.getSize() == 0) {
+            return ErrorCode.NOT_UPLOAD_EMPTY_FILE;
+        }
+        String fileName = file.getOriginalFilename();
+        if (StringUtils.isBlank(fileName)) {
+            return ErrorCode.NOT_UPLOAD_EMPTY_NAME;
+        }
+        if (fileName.lastIndexOf(".") == -1) {
+            return ErrorCode.NOT_UPLOAD_EMPTY_EXT;
+        }
+        return null;
+    }
+
+    private static String uploadContentType(MultipartFile file) {
+        String contentType = file.getContentType();
+        return contentType == null ? MediaType.APPLICATION_OCTET_STREAM_VALUE : contentType;
+    }
+
+    /**
+     * 上传文件到存储后端
+     * @param file 上传的文件
+     * @param bucketName 存储桶名称
+     * @param filePath 文件路径
+     * @param throttle 带宽限制
+     */
+    private void putUploadFile(MultipartFile file, String bucketName, String filePath,
+                               BandwidthLimiter.Throttle throttle) throws Exception {
+        try (InputStream inputStream = file.getInputStream()) {
+            putObject(bucketName, filePath, throttle.wrap(inputStream), file.getSize(), uploadContentType(file));
+        }
+    }
+
+    /**
+     * 写入存储后端：存储桶开启去重时分块去重写入；开启压缩且内容可压缩时边读边压缩；按实际写入的字节数统计流入
+     * @param bucketName 存储桶名称
+     * @param objectName 文件路径
+     * @param inputStream 文件内容，由调用方关闭
+     * @param size 文件大小
+     * @param contentType 文件类型
+     */
+    private void putObject(String bucketName, String objectName, InputStream inputStream, long size,
+                           String contentType) throws Exception {
+        if (dedupStore.isEnabled(bucketName)) {
+            long stored = dedupStore.put(storageRouter.forBucket(bucketName), bucketName, objectName, inputStream,
+                    contentType);
+            ossMetrics.recordIngress(OssMetrics.PUT, bucketName, stored);
+            return;
+        }
+        ObjectCompressor.Prepared prepared = objectCompressor.prepare(bucketName, contentType, inputStream, size);
+        try (InputStream stream = prepared.stream()) {
+            storageRouter.forBucket(bucketName).putObject(bucketName, objectName, stream, prepared.size(),
+                    contentType, prepared.contentEncoding(), prepared.metadata());
+        }
+        ossMetrics.recordIngress(OssMetrics.PUT, bucketName, prepared.storedSize());
+    }
+
     @Override
     public ApiResult<String> uploadFileByStream(UploadFileVO uploadFileVO) {
         String fileName = uploadFileVO.getFileName();
@@ -239,28 +401,19 @@ public class OssServiceImpl implements OssService {
         String ext = fileName.substring(index);
 
         // 根据日期打散目录，使用 UUID 重命名文件
-        filePath = formatter.format(LocalDate.now()) +
-                UUID.randomUUID().toString().replace("-", "") +
-                ext;
+        filePath = OssProcessor.generateObjectName(ext);
 
         log.info("文件名称：{}", fileName);
         log.info("文件类型：{}", contentType);
         log.info("文件路径：{}", filePath);
 
         try {
-            PutObjectArgs args = PutObjectArgs.builder()
-                    // 指定 Bucket 存储桶名称,默认 public
-                    .bucket(ossProperties.getBucketName())
-                    // 指定 Content Type
-                    .contentType(contentType)
-                    // 指定文件的路径
-                    .object(filePath)
-                    // 文件的 InputStream 流
-                    .stream(inputStream, inputStream.available(), -1)
-                    .build();
-
-            // 上传文件到客户端
-            minioClient.putObject(args);
+            long size = inputStream.available();
+            // 上传文件到默认存储桶
+            putObject(ossProperties.getBucketName(), filePath,
+                    bandwidthLimiter.upload(ossProperties.getBucketName()).wrap(inputStream), size, contentType);
+        } catch (BusinessException e){
+            throw e;
         } catch (Exception e){
             log.error("上传文件异常",e);
             throw new BusinessException(ErrorCode.UNKNOWN);
@@ -271,9 +424,11 @@ public class OssServiceImpl implements OssService {
     }
 
     @Override
-    public void downloadFile(String bucketName, String filePath, HttpServletResponse response) {
+    public void downloadFile(String bucketName, String filePath, HttpServletRequest request,
+                             HttpServletResponse response) {
         bucketName = StringUtils.isBlank(bucketName) ? ossProperties.getBucketName() : bucketName;
         String objectName = filePath.replace(ossProperties.getEndpointCdn() + bucketName,"");
+        rejectInternalObject(objectName);
         String[] fileSplits = filePath.split("/");
         if (fileSplits.length == 0){
             throw new BusinessException(ErrorCode.FILE_PATH_INCORRECT);
@@ -289,31 +444,213 @@ public class OssServiceImpl implements OssService {
         response.addHeader("X-Original-File-Name", filename);
         response.setContentType("application/octet-stream");
 
-        GetObjectArgs args = GetObjectArgs.builder()
-                .bucket(bucketName)
-                .object(objectName)
-                .build();
-
-        try(InputStream fileInputStream = minioClient.getObject(args);
-            ServletOutputStream fileOutputStream = response.getOutputStream()) {
-            IOUtils.copy(fileInputStream, fileOutputStream);
-            fileOutputStream.flush();
+        try {
+            StorageBackend backend = storageRouter.forBucket(bucketName);
+            ObjectStat stat = backend.statObject(bucketName, objectName);
+            String contentEncoding = stat.contentEncoding();
+            boolean passthrough = contentEncoding == null
+                    || ObjectCompressor.accepts(request.getHeader(HttpHeaders.ACCEPT_ENCODING), contentEncoding);
+            if (contentEncoding != null) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            }
+            // 缓存策略与校验值；对象未变化时直接返回 304，不读取对象内容
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl(bucketName));
+            if (checkNotModified(request, response, stat, passthrough)) {
+                return;
+            }
+            try (ServletOutputStream fileOutputStream = response.getOutputStream()) {
+                OutputStream out = bandwidthLimiter.download(bucketName).wrap(fileOutputStream);
+                if (DedupStore.isManifest(stat)) {
+                    // 去重存储的文件按清单读取各块
+                    response.setContentLengthLong(DedupStore.size(stat));
+                    try (InputStream in = dedupStore.open(backend, stat, 0, null)) {
+                        ossMetrics.recordEgress(OssMetrics.GET, bucketName, in.transferTo(out));
+                    }
+                } else if (passthrough) {
+                    // 未压缩或客户端支持该编码：原样返回存储中的数据
+                    if (contentEncoding != null) {
+                        response.setHeader(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+                    }
+                    response.setContentLengthLong(stat.size());
+                    // 大对象并发范围读取，按顺序写出
+                    long transferred = rangedDownloader.accepts(backend, stat.size())
+                            ? rangedDownloader.transferTo(backend, stat, out)
+                            : backend.transferTo(bucketName, objectName, 0, null, out);
+                    ossMetrics.recordEgress(OssMetrics.GET, bucketName, transferred);
+                } else {
+                    response.setContentLengthLong(ObjectCompressor.uncompressedSize(stat));
+                    try (InputStream in = openDecompressed(backend, bucketName, objectName, contentEncoding)) {
+                        in.transferTo(out);
+                    }
+                }
+                fileOutputStream.flush();
+            }
+        } catch (BusinessException e) {
+            throw e;
         } catch (Exception e) {
             log.error("下载文件异常",e);
             throw new BusinessException(ErrorCode.UNKNOWN);
         }
     }
 
+    /**
+     * 存储桶的 Cache-Control 响应头
+     */
+    private String cacheControl(String bucketName) {
+        OssProperties.Cache cache = ossProperties.getCache();
+        OssProperties.CachePolicy policy = cache.getBuckets().getOrDefault(bucketName, cache.getDefaults());
+        Duration maxAge = policy.getMaxAge();
+        if (maxAge == null || maxAge.isZero() || maxAge.isNegative()) {
+            CacheControl cacheControl = CacheControl.noCache();
+            return (policy.isShared() ? cacheControl.cachePublic() : cacheControl.cachePrivate()).getHeaderValue();
+        }
+        CacheControl cacheControl = CacheControl.maxAge(maxAge);
+        cacheControl = policy.isShared() ? cacheControl.cachePublic() : cacheControl.cachePrivate();
+        return (policy.isImmutable() ? cacheControl.immutable() : cacheControl).getHeaderValue();
+    }
+
+    /**
+     * 按对象 ETag / 最后修改时间处理 If-None-Match / If-Modified-Since，并写入 ETag / Last-Modified 响应头
+     * <p>服务端解压返回的内容与存储中的压缩数据字节不同，使用弱 ETag</p>
+     * @return 对象未变化，已设置 304 状态码
+     */
+    private boolean checkNotModified(HttpServletRequest request, HttpServletResponse response, ObjectStat stat,
+                                     boolean passthrough) {
+        String etag = null;
+        if (StringUtils.isNotBlank(stat.etag())) {
+            etag = (passthrough ? "\"" : "W/\"") + stat.etag() + "\"";
+        }
+        long lastModified = stat.lastModified() == null ? -1 : stat.lastModified().toInstant().toEpochMilli();
+        return new ServletWebRequest(request, response).checkNotModified(etag, lastModified);
+    }
+
+    /**
+     * 打开压缩存储的对象并边读边解压，流出字节数按存储中的压缩数据统计
+     */
+    private InputStream openDecompressed(StorageBackend backend, String bucketName, String objectName,
+                                         String contentEncoding) throws Exception {
+        InputStream in = ossMetrics.countEgress(OssMetrics.GET, bucketName,
+                backend.getObject(bucketName, objectName, 0, null));
+        try {
+            return objectCompressor.decompress(in, contentEncoding);
+        } catch (Exception e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void downloadArchive(ArchiveDownloadVO archiveDownloadVO, HttpServletResponse response) {
+        String bucketName = StringUtils.isBlank(archiveDownloadVO.getBucketName())
+                ? ossProperties.getBucketName() : archiveDownloadVO.getBucketName();
+        String format = StringUtils.isBlank(archiveDownloadVO.getFormat())
+                ? ObjectArchiver.ZIP : archiveDownloadVO.getFormat().toLowerCase(Locale.ROOT);
+        if (!ObjectArchiver.ZIP.equals(format) && !ObjectArchiver.TAR.equals(format)) {
+            throw new BusinessException(ErrorCode.INVALID_PARAMETER);
+        }
+        List<String> objectNames = archiveDownloadVO.getObjectNames();
+        boolean byObjectNames = objectNames != null && !objectNames.isEmpty();
+        if (!byObjectNames && StringUtils.isBlank(archiveDownloadVO.getPrefix())) {
+            throw new BusinessException(ErrorCode.INVALID_PARAMETER);
+        }
+        int maxEntries = ossProperties.getArchive().getMaxEntries();
+        StorageBackend backend = storageRouter.forBucket(bucketName);
+
+        List<ObjectArchiver.Entry> entries = new ArrayList<>();
+        // 压缩包内路径去重：重复的路径在 zip 中途写入时才报错，客户端只能拿到截断的压缩包
+        Set<String> entryNames = new HashSet<>();
+        try {
+            if (byObjectNames) {
+                // 支持传入访问路径；大小在预读时查询
+                for (String filePath : new LinkedHashSet<>(objectNames)) {
+                    String objectName = filePath.replace(ossProperties.getEndpointCdn() + bucketName, "");
+                    rejectInternalObject(objectName);
+                    String entryName = archiveEntryName(objectName, "");
+                    if (entryNames.add(entryName)) {
+                        entries.add(new ObjectArchiver.Entry(objectName, entryName, -1));
+                    }
+                }
+            } else {
+                String prefix = StringUtils.removeStart(archiveDownloadVO.getPrefix(), "/");
+                String base = prefix.substring(0, prefix.lastIndexOf('/') + 1);
+                for (ObjectItem item : backend.listObjects(bucketName, prefix, true, 0)) {
+                    if (item.dir() || item.objectName().endsWith("/")
+                            || OssProcessor.isInternalObject(item.objectName())) {
+                        continue;
+                    }
+                    String entryName = archiveEntryName(item.objectName(), base);
+                    if (entryNames.add(entryName)) {
+                        entries.add(new ObjectArchiver.Entry(item.objectName(), entryName, item.size()));
+                    }
+                }
+            }
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("查询打包文件列表异常", e);
+            throw new BusinessException(ErrorCode.UNKNOWN);
+        }
+        if (entries.isEmpty() || entries.size() > maxEntries) {
+            throw new BusinessException(ErrorCode.INVALID_PARAMETER);
+        }
+
+        String archiveName = StringUtils.isNotBlank(archiveDownloadVO.getArchiveName())
+                ? archiveDownloadVO.getArchiveName() : defaultArchiveName(archiveDownloadVO.getPrefix());
+        String fileName = archiveName + "." + format;
+        response.setHeader("Content-Disposition", "attachment;filename=" + URLEncoder.encode(fileName, StandardCharsets.UTF_8));
+        response.addHeader("Access-Control-Allow-Headers", "Origin, X-Requested-With, Content-Type, Accept");
+        response.addHeader("X-Original-File-Name", fileName);
+        response.setContentType(ObjectArchiver.ZIP.equals(format) ? "application/zip" : "application/x-tar");
+
+        long start = System.nanoTime();
+        try (ServletOutputStream outputStream = response.getOutputStream()) {
+            long transferred = objectArchiver.write(backend, bucketName, entries, format,
+                    bandwidthLimiter.download(bucketName).wrap(outputStream));
+            outputStream.flush();
+            log.info("打包下载完成 - 存储桶: {}, 文件数: {}, 字节数: {}, 耗时: {}ms", bucketName, entries.size(),
+                    transferred, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("打包下载异常", e);
+            throw new BusinessException(ErrorCode.UNKNOWN);
+        }
+    }
+
+    /**
+     * 压缩包内的路径：去掉公共目录，过滤空白、. 和 .. 路径段，避免解压时越出目标目录
+     */
+    private static String archiveEntryName(String objectName, String base) {
+        String name = StringUtils.removeStart(StringUtils.removeStart(objectName, "/"), base);
+        StringBuilder sb = new StringBuilder(name.length());
+        for (String segment : name.split("/")) {
+            if (segment.isEmpty() || ".".equals(segment) || "..".equals(segment)) {
+                continue;
+            }
+            if (!sb.isEmpty()) {
+                sb.append('/');
+            }
+            sb.append(segment);
+        }
+        return sb.isEmpty() ? "unnamed" : sb.toString();
+    }
+
+    private static String defaultArchiveName(String prefix) {
+        String[] segments = StringUtils.strip(StringUtils.defaultString(prefix), "/").split("/");
+        String last = segments[segments.length - 1];
+        return StringUtils.isBlank(last) ? "archive" : last;
+    }
+
     @Override
     public void removeFile(String bucketName, String filePath) {
         bucketName = StringUtils.isBlank(bucketName) ? ossProperties.getBucketName() : bucketName;
         String objectName = filePath.replace(ossProperties.getEndpointCdn() + bucketName,"");
-        RemoveObjectArgs args = RemoveObjectArgs.builder()
-                .bucket(bucketName)
-                .object(objectName)
-                .build();
+        rejectInternalObject(objectName);
         try {
-            minioClient.removeObject(args);
+            // 去重存储的文件删除清单后释放块引用
+            dedupStore.remove(storageRouter.forBucket(bucketName), bucketName, objectName);
+        } catch (BusinessException e) {
+            throw e;
         } catch (Exception e) {
             log.error("删除文件异常",e);
             throw new BusinessException(ErrorCode.UNKNOWN);
@@ -330,52 +667,63 @@ public class OssServiceImpl implements OssService {
 
         log.info("查询文件列表 - 存储桶: {}, 前缀: {}", bucketName, effectivePrefix);
 
-        ListObjectsArgs args = ListObjectsArgs.builder()
-                .bucket(bucketName)
-                // 前缀
-                .prefix(effectivePrefix)
-                // 不递归，只返回直接子项
-                .recursive(false)
-                // 避免性能问题，暂时最多查询100条数据
-                .maxKeys(size > 100 ? 100 : size)
-                .build();
-        Iterable<Result<Item>> results = minioClient.listObjects(args);
-        List<String> files = new ArrayList<>();
+        List<String> files;
         try {
-            for (Result<Item> result : results) {
-                Item item = result.get();
-                String objectName = item.objectName();
-
-                // 跳过前缀本身
-                if (effectivePrefix != null && effectivePrefix.equals(objectName)) {
-                    log.info("跳过前缀本身: {}", objectName);
-                    continue;
-                }
+            // 不递归，只返回直接子项；避免性能问题，暂时最多查询100条数据
+            List<ObjectItem> items = storageRouter.forBucket(bucketName)
+                    .listObjects(bucketName, effectivePrefix, false, size > 100 ? 100 : size);
+            files = collectDirectChildren(items, effectivePrefix);
+        } catch (BusinessException e){
+            throw e;
+        } catch (Exception e){
+            log.error("查询文件列表异常",e);
+            throw new BusinessException(ErrorCode.UNKNOWN);
+        }
 
-                // 判断是否为文件夹（以/结尾）
-                boolean isFolder = objectName.endsWith("/");
+        log.info("查询完成，返回 {} 个文件", files.size());
+        return files;
+    }
 
-                // 移除前缀，获取相对路径用于过滤
-                String relativePath = effectivePrefix != null ?
-                        objectName.substring(effectivePrefix.length()) : objectName;
+    /**
+     * 遍历列表结果，只保留前缀下的直接子项
+     * @param items 列表结果
+     * @param effectivePrefix 路径前缀
+     * @return 文件列表
+     */
+    private List<String> collectDirectChildren(List<ObjectItem> items, String effectivePrefix) {
+        List<String> files = new ArrayList<>();
+        for (ObjectItem item : items) {
+            String objectName = item.objectName();
 
-                // 过滤出直接子项：相对路径中不应该再包含斜杠（文件夹除外）
-                if (!isFolder && relativePath.contains("/")) {
-                    log.info("跳过深层文件: {}", objectName);
-                    continue;
-                }
+            // 跳过前缀本身
+            if (effectivePrefix != null && effectivePrefix.equals(objectName)) {
+                log.info("跳过前缀本身: {}", objectName);
+                continue;
+            }
+
+            // 跳过分片上传、去重存储的内部对象
+            if (OssProcessor.isInternalObject(objectName)) {
+                continue;
+            }
+
+            // 判断是否为文件夹（以/结尾）
+            boolean isFolder = objectName.endsWith("/");
 
-                // 返回完整路径（带前缀），方便前端处理
-                files.add(objectName);
+            // 移除前缀，获取相对路径用于过滤
+            String relativePath = effectivePrefix != null ?
+                    objectName.substring(effectivePrefix.length()) : objectName;
 
-                log.debug("添加文件: {} (文件夹: {})", objectName, isFolder);
+            // 过滤出直接子项：相对路径中不应该再包含斜杠（文件夹除外）
+            if (!isFolder && relativePath.contains("/")) {
+                log.info("跳过深层文件: {}", objectName);
+                continue;
             }
-        } catch (Exception e){
-            log.error("查询文件列表异常",e);
-            throw new BusinessException(ErrorCode.UNKNOWN);
-        }
 
-        log.info("查询完成，返回 {} 个文件", files.size());
+            // 返回完整路径（带前缀），方便前端处理
+            files.add(objectName);
+
+            log.debug("添加文件: {} (文件夹: {})", objectName, isFolder);
+        }
         return files;
     }
 
@@ -383,14 +731,11 @@ public class OssServiceImpl implements OssService {
     public ApiResult<String> setBucketPolicy(BucketPolicyVO bucketPolicyVO) {
         String bucketName = bucketPolicyVO.getBucketName();
         String policy = bucketPolicyVO.getPolicy();
-        SetBucketPolicyArgs args = SetBucketPolicyArgs.builder()
-                .bucket(bucketName)
-                // 策略配置
-                .config(policy)
-                .build();
         try {
             // 设置存储桶策略
-            minioClient.setBucketPolicy(args);
+            storageRouter.forBucket(bucketName).setBucketPolicy(bucketName, policy);
+        } catch (BusinessException e){
+            throw e;
         } catch (Exception e){
             log.error("设置存储桶策略异常",e);
             throw new BusinessException(ErrorCode.UNKNOWN);
@@ -400,12 +745,11 @@ public class OssServiceImpl implements OssService {
 
     @Override
     public String getBucketPolicy(String bucketName) {
-        GetBucketPolicyArgs args = GetBucketPolicyArgs.builder()
-                .bucket(bucketName)
-                .build();
         try {
             // 查询存储桶策略
-            return minioClient.getBucketPolicy(args);
+            return storageRouter.forBucket(bucketName).getBucketPolicy(bucketName);
+        } catch (BusinessException e){
+            throw e;
         } catch (Exception e){
             log.error("查询存储桶策略异常",e);
             throw new BusinessException(ErrorCode.UNKNOWN);
@@ -416,37 +760,91 @@ public class OssServiceImpl implements OssService {
     public String getPresignedObjectUrl(String bucketName, String objectName, Integer expirySeconds) {
         // 如果未指定过期时间，默认为1小时（3600秒）
         int expiry = (expirySeconds != null && expirySeconds > 0) ? expirySeconds : 3600;
+        rejectInternalObject(objectName);
 
-        GetPresignedObjectUrlArgs args = GetPresignedObjectUrlArgs.builder()
-                .bucket(bucketName)
-                .object(objectName)
-                .method(io.minio.http.Method.GET)
-                .expiry(expiry, TimeUnit.SECONDS)
-                .build();
         try {
-            // 使用 CDN 客户端生成 presigned URL，这样访问时会通过 CDN
-            String presignedUrl = minioCdnClient.getPresignedObjectUrl(args);
+            String presignedUrl = storageRouter.forBucket(bucketName).getPresignedObjectUrl(bucketName, objectName, expiry);
             log.info("生成的 presigned URL: {}", presignedUrl);
             return presignedUrl;
+        } catch (BusinessException e){
+            throw e;
         } catch (Exception e){
             log.error("生成临时访问url异常",e);
             throw new BusinessException(ErrorCode.UNKNOWN);
         }
     }
 
+    @Override
+    public ApiResult<List<BatchPresignResultVO>> getPresignedObjectUrls(BatchPresignVO batchPresignVO) {
+        List<PresignObjectVO> objects = batchPresignVO.getObjects();
+        if (objects.size() > ossProperties.getBatch().getMaxPresignObjects()) {
+            return ApiResult.failed(ErrorCode.INVALID_PARAMETER);
+        }
+        int defaultExpiry = batchPresignVO.getExpirySeconds() != null && batchPresignVO.getExpirySeconds() > 0
+                ? batchPresignVO.getExpirySeconds() : 3600;
+
+        // 按 存储桶 + 过期时间 分组，每组一次批量签名
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        int[] expiries = new int[objects.size()];
+        BatchPresignResultVO[] results = new BatchPresignResultVO[objects.size()];
+        for (int i = 0; i < objects.size(); i++) {
+            PresignObjectVO object = objects.get(i);
+            if (OssProcessor.isInternalObject(object.getObjectName())) {
+                results[i] = new BatchPresignResultVO(object.getBucketName(), object.getObjectName(),
+                        ErrorCode.FILE_PATH_INCORRECT.getCode(), ErrorCode.FILE_PATH_INCORRECT.getMessage(), null);
+                continue;
+            }
+            Integer expirySeconds = object.getExpirySeconds();
+            expiries[i] = expirySeconds != null && expirySeconds > 0 ? expirySeconds : defaultExpiry;
+            groups.computeIfAbsent(object.getBucketName() + "\n" + expiries[i], k -> new ArrayList<>()).add(i);
+        }
+
+        for (List<Integer> indexes : groups.values()) {
+            String bucketName = objects.get(indexes.get(0)).getBucketName();
+            List<String> objectNames = indexes.stream().map(i -> objects.get(i).getObjectName()).toList();
+            try {
+                List<String> urls = storageRouter.forBucket(bucketName)
+                        .getPresignedObjectUrls(bucketName, objectNames, expiries[indexes.get(0)]);
+                for (int i = 0; i < indexes.size(); i++) {
+                    results[indexes.get(i)] = new BatchPresignResultVO(bucketName, objectNames.get(i),
+                            ErrorCode.SUCCESS.getCode(), ErrorCode.SUCCESS.getMessage(), urls.get(i));
+                }
+            } catch (BusinessException e) {
+                presignFailed(results, indexes, bucketName, objectNames, e.getCode(), e.getMessage());
+            } catch (Exception e) {
+                log.error("批量生成临时访问url异常 - 存储桶: {}", bucketName, e);
+                presignFailed(results, indexes, bucketName, objectNames,
+                        ErrorCode.UNKNOWN.getCode(), ErrorCode.UNKNOWN.getMessage());
+            }
+        }
+        log.info("批量生成临时访问url - 对象数: {}, 分组数: {}", objects.size(), groups.size());
+        return ApiResult.success(Arrays.asList(results));
+    }
+
+    private static void presignFailed(BatchPresignResultVO[] results, List<Integer> indexes, String bucketName,
+                                      List<String> objectNames, String code, String message) {
+        for (int i = 0; i < indexes.size(); i++) {
+            results[indexes.get(i)] = new BatchPresignResultVO(bucketName, objectNames.get(i), code, message, null);
+        }
+    }
+
     @Override
     public Long getFileChunkNumber(String bucketName, String objectName, Long length) {
-        StatObjectResponse statObject = OssProcessor.getStatObject(bucketName, objectName);
-        // 文件的长度
-        long size = statObject.size();
+        rejectInternalObject(objectName);
+        ObjectStat statObject = OssProcessor.getStatObject(bucketName, objectName);
+        // 文件的长度，去重存储的文件按清单记录的长度、压缩存储的文件按解压后的长度计算
+        long size = DedupStore.isManifest(statObject) ? DedupStore.size(statObject)
+                : ObjectCompressor.uncompressedSize(statObject);
         return size / length;
     }
 
     @Override
     public void downloadFileChunk(String bucketName,String objectName,Long offset,Long length,HttpServletResponse response) {
-        StatObjectResponse statObject = OssProcessor.getStatObject(bucketName, objectName);
-        // 文件的长度
-        long size = statObject.size();
+        rejectInternalObject(objectName);
+        ObjectStat statObject = OssProcessor.getStatObject(bucketName, objectName);
+        // 文件的长度，去重存储的文件按清单记录的长度、压缩存储的文件按解压后的长度计算
+        long size = DedupStore.isManifest(statObject) ? DedupStore.size(statObject)
+                : ObjectCompressor.uncompressedSize(statObject);
         if (offset > size) {
             throw new BusinessException(ErrorCode.UNKNOWN);
         }
@@ -468,29 +866,61 @@ public class OssServiceImpl implements OssService {
         response.addHeader("X-Original-File-Name", filename);
         response.setContentType("application/octet-stream");
 
-        GetObjectArgs args = GetObjectArgs.builder()
-                .bucket(bucketName)
-                .object(objectName)
-                .offset(offset)
-                .length(length)
-                .build();
-        try(InputStream fileInputStream = minioClient.getObject(args);
-            ServletOutputStream fileOutputStream = response.getOutputStream()) {
-            IOUtils.copy(fileInputStream, fileOutputStream);
+        try (ServletOutputStream fileOutputStream = response.getOutputStream()) {
+            StorageBackend backend = storageRouter.forBucket(bucketName);
+            String contentEncoding = statObject.contentEncoding();
+            OutputStream out = bandwidthLimiter.download(bucketName).wrap(fileOutputStream);
+            if (DedupStore.isManifest(statObject)) {
+                // 去重存储的文件只读取覆盖该范围的块
+                try (InputStream in = dedupStore.open(backend, statObject, offset, length)) {
+                    ossMetrics.recordEgress(OssMetrics.GET, bucketName, in.transferTo(out));
+                }
+            } else if (contentEncoding == null) {
+                // 顺序逐块读取时从预读数据返回
+                long transferred = chunkReadAhead.transferTo(backend, statObject, offset, length, out);
+                ossMetrics.recordEgress(OssMetrics.GET, bucketName, transferred);
+            } else {
+                // 压缩数据不能按偏移定位，解压后跳过 offset 再输出
+                try (InputStream in = openDecompressed(backend, bucketName, objectName, contentEncoding)) {
+                    in.skipNBytes(offset);
+                    copyRange(in, out, length == null ? size - offset : length);
+                }
+            }
             fileOutputStream.flush();
+        } catch (BusinessException e) {
+            throw e;
         } catch (Exception e) {
             log.error("下载文件块异常",e);
             throw new BusinessException(ErrorCode.UNKNOWN);
         }
     }
 
+    private static void copyRange(InputStream in, OutputStream out, long length) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long remaining = length;
+        while (remaining > 0) {
+            int n = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (n < 0) {
+                break;
+            }
+            out.write(buffer, 0, n);
+            remaining -= n;
+        }
+    }
+
     /**
      * 分片上传临时路径前缀
      */
-    private static final String CHUNK_UPLOAD_PREFIX = ".chunk-uploads/";
+    private static final String CHUNK_UPLOAD_PREFIX = OssProcessor.CHUNK_UPLOAD_PREFIX;
+
+    /**
+     * 上传会话选定的分片大小，与分片保存在同一目录，续传时沿用
+     */
+    private static final String CHUNK_SIZE_FILE = "chunk-size";
 
     @Override
-    public ApiResult<ChunkUploadStatusVO> initChunkUpload(ChunkUploadInitVO chunkUploadInitVO) {
+    public ApiResult<ChunkUploadStatusVO> initChunkUpload(ChunkUploadInitVO chunkUploadInitVO,
+                                                          HttpServletRequest request) {
         String fileName = chunkUploadInitVO.getFileName();
         String fileMd5 = chunkUploadInitVO.getFileMd5();
         String uploadSessionId = chunkUploadInitVO.getUploadSessionId();
@@ -505,9 +935,29 @@ public class OssServiceImpl implements OssService {
             return ApiResult.failed(ErrorCode.INVALID_PARAMETER.getCode(), "上传会话ID不能为空");
         }
 
+        if (totalSize == null || totalSize <= 0) {
+            return ApiResult.failed(ErrorCode.INVALID_PARAMETER.getCode(), "文件总大小有误");
+        }
+
+        // 分片上传到默认存储桶的临时路径，使用 uploadSessionId 区分不同的上传会话
+        // 路径格式: .chunk-uploads/{uploadSessionId}/{fileMd5}/
+        String chunkUploadDir = CHUNK_UPLOAD_PREFIX + uploadSessionId + "/" + fileMd5 + "/";
+        String bucketName = ossProperties.getBucketName();
+
+        // 按文件大小、服务端负载与该客户端网段近期上传速度给出建议；未指定分片大小时按建议分片
+        ChunkUploadAdvisor.Advice advice = chunkUploadAdvisor.advise(ChunkUploadAdvisor.clientKey(request), totalSize);
+        // 续传沿用会话首次选定的分片大小：建议值随负载变化，换用新值会使已上传分片的序号错位
+        Long sessionChunkSize = readChunkSize(bucketName, chunkUploadDir);
+        boolean newSession = sessionChunkSize == null;
+        if (!newSession) {
+            chunkSize = sessionChunkSize;
+        } else if (chunkSize == null) {
+            chunkSize = advice.chunkSize();
+        }
+
         // 验证分片大小 >= 5MB
         final long MIN_CHUNK_SIZE = 5 * 1024 * 1024; // 5MB
-        if (chunkSize == null || chunkSize < MIN_CHUNK_SIZE) {
+        if (chunkSize < MIN_CHUNK_SIZE) {
             log.warn("分片大小 {} 小于最小值 5MB", chunkSize);
             return ApiResult.failed(ErrorCode.INVALID_PARAMETER.getCode(), "分片大小不能低于 5MB");
         }
@@ -520,32 +970,17 @@ public class OssServiceImpl implements OssService {
         // 计算分片数量
         int totalChunks = (int) Math.ceil((double) totalSize / chunkSize);
 
-        // 分片上传到默认存储桶的临时路径，使用 uploadSessionId 区分不同的上传会话
-        // 路径格式: .chunk-uploads/{uploadSessionId}/{fileMd5}/
-        String chunkUploadDir = CHUNK_UPLOAD_PREFIX + uploadSessionId + "/" + fileMd5 + "/";
-        String bucketName = ossProperties.getBucketName();
+        if (newSession) {
+            writeChunkSize(bucketName, chunkUploadDir, chunkSize);
+        }
 
         // 查询已上传的分片
         List<Integer> uploadedChunks = new ArrayList<>();
         try {
-            ListObjectsArgs args = ListObjectsArgs.builder()
-                    .bucket(bucketName)
-                    .prefix(chunkUploadDir)
-                    .recursive(true)
-                    .build();
-            Iterable<Result<Item>> results = minioClient.listObjects(args);
-            for (Result<Item> result : results) {
-                Item item = result.get();
-                String objectName = item.objectName();
-                if (objectName.endsWith(".chunk")) {
-                    String chunkFileName = objectName.substring(objectName.lastIndexOf("/") + 1);
-                    chunkFileName = chunkFileName.replace(".chunk", "");
-                    try {
-                        int chunkIndex = Integer.parseInt(chunkFileName);
-                        uploadedChunks.add(chunkIndex);
-                    } catch (NumberFormatException e) {
-                        log.warn("解析分片序号失败: {}", chunkFileName);
-                    }
+            for (String objectName : listObjectNames(bucketName, chunkUploadDir)) {
+                int chunkIndex = OssProcessor.parseChunkNumber(objectName);
+                if (chunkIndex >= 0) {
+                    uploadedChunks.add(chunkIndex);
                 }
             }
         } catch (Exception e) {
@@ -561,12 +996,14 @@ public class OssServiceImpl implements OssService {
         statusVO.setTotalChunks(totalChunks);
         statusVO.setUploadedChunks(uploadedChunks);
         statusVO.setIsCompleted(uploadedChunks.size() >= totalChunks);
+        statusVO.setRecommendedChunkSize(advice.chunkSize());
+        statusVO.setRecommendedConcurrency(advice.concurrency());
 
         return ApiResult.success(statusVO);
     }
 
     @Override
-    public ApiResult<String> uploadChunk(ChunkUploadVO chunkUploadVO) {
+    public ApiResult<String> uploadChunk(ChunkUploadVO chunkUploadVO, HttpServletRequest request) {
         String fileName = chunkUploadVO.getFileName();
         String fileMd5 = chunkUploadVO.getFileMd5();
         String uploadSessionId = chunkUploadVO.getUploadSessionId();
@@ -593,15 +1030,43 @@ public class OssServiceImpl implements OssService {
         log.info("上传分片 - 文件: {}, MD5: {}, 会话ID: {}, 分片: {}/{}, 大小: {}",
                 fileName, fileMd5, uploadSessionId, chunkNumber + 1, totalChunks, file.getSize());
 
-        try (InputStream inputStream = file.getInputStream()) {
-            PutObjectArgs args = PutObjectArgs.builder()
-                    .bucket(bucketName)
-                    .object(chunkPath)
-                    .stream(inputStream, file.getSize(), -1)
-                    .contentType("application/octet-stream")
-                    .build();
-
-            minioClient.putObject(args);
+        try (InputStream inputStream = bandwidthLimiter.upload(bucketName).wrap(file.getInputStream())) {
+            // multipart 文件已由容器接收完毕，写入耗时只反映存储后端速度，不作为客户端上传速度样本
+            putChunk(bucketName, chunkPath, inputStream, file.getSize(), ChunkUploadAdvisor.clientKey(request), false);
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("上传分片异常", e);
+            throw new BusinessException(ErrorCode.UNKNOWN);
+        }
+
+        return ApiResult.success("分片上传成功");
+    }
+
+    @Override
+    public ApiResult<String> uploadChunk(String uploadSessionId, String fileMd5, Integer chunkNumber,
+                                         Integer totalChunks, String fileName, HttpServletRequest request) {
+        long size = request.getContentLengthLong();
+        if (size <= 0 || size > MAX_PART_SIZE) {
+            // 必须声明 Content-Length，请求体按声明的长度直接写入存储后端
+            return ApiResult.failed(ErrorCode.INVALID_PARAMETER, "分片大小有误或缺少 Content-Length");
+        }
+        if (StringUtils.isBlank(uploadSessionId) || StringUtils.isBlank(fileMd5)
+                || chunkNumber < 0 || chunkNumber >= totalChunks) {
+            return ApiResult.failed(ErrorCode.INVALID_PARAMETER);
+        }
+
+        String chunkPath = CHUNK_UPLOAD_PREFIX + uploadSessionId + "/" + fileMd5 + "/" + chunkNumber + ".chunk";
+        String bucketName = ossProperties.getBucketName();
+
+        log.info("上传分片 - 文件: {}, MD5: {}, 会话ID: {}, 分片: {}/{}, 大小: {}",
+                decodeFileName(fileName),
+                fileMd5, uploadSessionId, chunkNumber + 1, totalChunks, size);
+
+        try (InputStream inputStream = bandwidthLimiter.upload(bucketName).wrap(request.getInputStream())) {
+            putChunk(bucketName, chunkPath, inputStream, size, ChunkUploadAdvisor.clientKey(request), true);
+        } catch (BusinessException e) {
+            throw e;
         } catch (Exception e) {
             log.error("上传分片异常", e);
             throw new BusinessException(ErrorCode.UNKNOWN);
@@ -610,6 +1075,39 @@ public class OssServiceImpl implements OssService {
         return ApiResult.success("分片上传成功");
     }
 
+    /**
+     * 解码请求头中 URL 编码的文件名，仅用于日志，格式有误时原样返回
+     */
+    private static String decodeFileName(String fileName) {
+        if (fileName == null) {
+            return null;
+        }
+        try {
+            return URLDecoder.decode(fileName, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return fileName;
+        }
+    }
+
+    /**
+     * 写入分片
+     * @param sample 是否把耗时作为该客户端网段的上传速度样本：请求体边读边写时耗时包含客户端传输
+     */
+    private void putChunk(String bucketName, String chunkPath, InputStream inputStream, long size, String clientKey,
+                          boolean sample) throws Exception {
+        chunkUploadAdvisor.begin(clientKey);
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            storageRouter.forBucket(bucketName).putObject(bucketName, chunkPath, inputStream, size,
+                    "application/octet-stream");
+            success = true;
+        } finally {
+            chunkUploadAdvisor.end(clientKey, size, System.nanoTime() - start, success && sample);
+        }
+        ossMetrics.recordIngress(OssMetrics.PUT, bucketName, size);
+    }
+
     @Override
     public ApiResult<String> completeChunkUpload(ChunkUploadCompleteVO chunkUploadCompleteVO) {
         String fileName = chunkUploadCompleteVO.getFileName();
@@ -629,9 +1127,7 @@ public class OssServiceImpl implements OssService {
         String ext = fileName.substring(index);
 
         // 最终文件路径
-        String finalFilePath = formatter.format(LocalDate.now()) +
-                UUID.randomUUID().toString().replace("-", "") +
-                ext;
+        String finalFilePath = OssProcessor.generateObjectName(ext);
 
         // 分片文件目录（在目标存储桶的临时路径中）
         String chunkUploadDir = CHUNK_UPLOAD_PREFIX + uploadSessionId + "/" + fileMd5 + "/";
@@ -641,60 +1137,43 @@ public class OssServiceImpl implements OssService {
                 fileName, fileMd5, uploadSessionId, totalChunks, bucketName);
 
         try {
-            // 验证分片大小 >= 5MB (MinIO composeObject API 硬性要求)
-            String firstChunkPath = chunkUploadDir + "0.chunk";
-            StatObjectArgs statArgs = StatObjectArgs.builder()
-                    .bucket(bucketName)
-                    .object(firstChunkPath)
-                    .build();
-            long firstChunkSize = minioClient.statObject(statArgs).size();
-
-            final long MIN_CHUNK_SIZE = 5 * 1024 * 1024; // 5MB
-            if (firstChunkSize < MIN_CHUNK_SIZE) {
-                log.error("分片大小 {} 小于最小值 5MB，无法使用 composeObject", firstChunkSize);
-                return ApiResult.failed(ErrorCode.INVALID_PARAMETER, "分片大小不能低于 5MB");
-            }
-
-            // 使用 MinIO 原生的 composeObject API 在服务端合并分片
-            log.info("使用 composeObject 服务端合并分片");
-            List<io.minio.ComposeSource> sources = new ArrayList<>();
+            StorageBackend backend = storageRouter.forBucket(bucketName);
+            List<String> sources = new ArrayList<>();
             for (int i = 0; i < totalChunks; i++) {
                 String chunkPath = chunkUploadDir + i + ".chunk";
-                sources.add(io.minio.ComposeSource.builder()
-                        .bucket(bucketName)
-                        .object(chunkPath)
-                        .build());
+                sources.add(chunkPath);
                 log.info("添加分片 {} 到合并列表: {}", i + 1, chunkPath);
             }
 
-            ComposeObjectArgs composeArgs = ComposeObjectArgs.builder()
-                    .bucket(bucketName)
-                    .object(finalFilePath)
-                    .sources(sources)
-                    .build();
+            if (dedupStore.isEnabled(bucketName)) {
+                // 去重存储：按顺序读取各分片重新分块写入，不受 composeObject 的分片大小限制
+                try (InputStream in = concatObjects(backend, bucketName, sources)) {
+                    dedupStore.put(backend, bucketName, finalFilePath, in, null);
+                }
+                log.info("分片去重写入成功: {}", finalFilePath);
+            } else {
+                // 验证分片大小 >= 5MB (MinIO composeObject API 硬性要求)
+                String firstChunkPath = chunkUploadDir + "0.chunk";
+                long firstChunkSize = backend.statObject(bucketName, firstChunkPath).size();
+
+                final long MIN_CHUNK_SIZE = 5 * 1024 * 1024; // 5MB
+                if (firstChunkSize < MIN_CHUNK_SIZE) {
+                    log.error("分片大小 {} 小于最小值 5MB，无法使用 composeObject", firstChunkSize);
+                    return ApiResult.failed(ErrorCode.INVALID_PARAMETER, "分片大小不能低于 5MB");
+                }
 
-            minioClient.composeObject(composeArgs);
+                // 使用存储后端的 composeObject 在服务端合并分片
+                log.info("使用 composeObject 服务端合并分片");
+                backend.composeObject(bucketName, finalFilePath, sources);
 
-            log.info("使用 composeObject 服务端合并分片成功: {}", finalFilePath);
+                log.info("使用 composeObject 服务端合并分片成功: {}", finalFilePath);
+            }
 
             // 删除本次上传会话的所有临时分片文件（包含整个会话目录）
-            ListObjectsArgs listArgs = ListObjectsArgs.builder()
-                    .bucket(bucketName)
-                    .prefix(CHUNK_UPLOAD_PREFIX + uploadSessionId + "/")
-                    .recursive(true)
-                    .build();
-            Iterable<Result<Item>> results = minioClient.listObjects(listArgs);
-
             int deletedCount = 0;
-            for (Result<Item> result : results) {
+            for (String objectName : listObjectNames(bucketName, CHUNK_UPLOAD_PREFIX + uploadSessionId + "/")) {
                 try {
-                    Item item = result.get();
-                    String objectName = item.objectName();
-                    RemoveObjectArgs removeArgs = RemoveObjectArgs.builder()
-                            .bucket(bucketName)
-                            .object(objectName)
-                            .build();
-                    minioClient.removeObject(removeArgs);
+                    backend.removeObject(bucketName, objectName);
                     deletedCount++;
                     log.info("已删除临时文件: {}", objectName);
                 } catch (Exception e) {
@@ -709,12 +1188,37 @@ public class OssServiceImpl implements OssService {
             // 返回文件访问URL
             return ApiResult.success(ossProperties.getEndpointCdn() + bucketName + finalFilePath);
 
+        } catch (BusinessException e) {
+            throw e;
         } catch (Exception e) {
             log.error("合并分片异常", e);
             throw new BusinessException(ErrorCode.UNKNOWN);
         }
     }
 
+    /**
+     * 按顺序拼接多个对象，读到时才打开下一个对象
+     */
+    private static InputStream concatObjects(StorageBackend backend, String bucketName, List<String> objectNames) {
+        Iterator<String> names = objectNames.iterator();
+        return new SequenceInputStream(new Enumeration<>() {
+            @Override
+            public boolean hasMoreElements() {
+                return names.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                String objectName = names.next();
+                try {
+                    return backend.getObject(bucketName, objectName, 0, null);
+                } catch (Exception e) {
+                    throw new UncheckedIOException(new IOException("读取分片失败: " + objectName, e));
+                }
+            }
+        });
+    }
+
     @Override
     public ApiResult<ChunkUploadStatusVO> getChunkUploadStatus(String fileMd5, String bucketName) {
         // 使用默认存储桶
@@ -732,29 +1236,11 @@ public class OssServiceImpl implements OssService {
         boolean isCompleted = false;
 
         try {
-            ListObjectsArgs args = ListObjectsArgs.builder()
-                    .bucket(useBucketName)
-                    .prefix(chunkUploadDir)
-                    .recursive(true)
-                    .build();
-            Iterable<Result<Item>> results = minioClient.listObjects(args);
-
-            for (Result<Item> result : results) {
-                Item item = result.get();
-                String objectName = item.objectName();
-
-                if (objectName.endsWith(".chunk")) {
-                    String chunkFileName = objectName.substring(objectName.lastIndexOf("/") + 1);
-                    chunkFileName = chunkFileName.replace(".chunk", "");
-                    try {
-                        int chunkIndex = Integer.parseInt(chunkFileName);
-                        // 避免重复添加同一分片（不同会话可能有相同分片）
-                        if (!uploadedChunks.contains(chunkIndex)) {
-                            uploadedChunks.add(chunkIndex);
-                        }
-                    } catch (NumberFormatException e) {
-                        log.warn("解析分片序号失败: {}", chunkFileName);
-                    }
+            for (String objectName : listObjectNames(useBucketName, chunkUploadDir)) {
+                int chunkIndex = OssProcessor.parseChunkNumber(objectName);
+                // 避免重复添加同一分片（不同会话可能有相同分片）
+                if (chunkIndex >= 0 && !uploadedChunks.contains(chunkIndex)) {
+                    uploadedChunks.add(chunkIndex);
                 }
             }
 
@@ -797,23 +1283,10 @@ public class OssServiceImpl implements OssService {
                 prefix = CHUNK_UPLOAD_PREFIX + fileMd5 + "/";
             }
 
-            ListObjectsArgs listArgs = ListObjectsArgs.builder()
-                    .bucket(useBucketName)
-                    .prefix(prefix)
-                    .recursive(true)
-                    .build();
-            Iterable<Result<Item>> results = minioClient.listObjects(listArgs);
-
             int deletedCount = 0;
-            for (Result<Item> result : results) {
+            for (String objectName : listObjectNames(useBucketName, prefix)) {
                 try {
-                    Item item = result.get();
-                    String objectName = item.objectName();
-                    RemoveObjectArgs removeArgs = RemoveObjectArgs.builder()
-                            .bucket(useBucketName)
-                            .object(objectName)
-                            .build();
-                    minioClient.removeObject(removeArgs);
+                    storageRouter.forBucket(useBucketName).removeObject(useBucketName, objectName);
                     deletedCount++;
                     log.info("已删除临时文件: {}", objectName);
                 } catch (Exception e) {
@@ -825,17 +1298,313 @@ public class OssServiceImpl implements OssService {
 
             return ApiResult.success("分片上传已取消");
 
+        } catch (BusinessException e) {
+            throw e;
         } catch (Exception e) {
             log.error("取消分片上传异常", e);
             throw new BusinessException(ErrorCode.UNKNOWN);
         }
     }
 
+    /**
+     * 递归列出前缀下所有对象名称
+     * @param bucketName 存储桶名称
+     * @param prefix 路径前缀
+     * @return 对象名称列表
+     */
+    /**
+     * 读取上传会话保存的分片大小
+     * @return 分片大小，会话尚未保存时返回 null
+     */
+    private Long readChunkSize(String bucketName, String chunkUploadDir) {
+        StorageBackend backend = storageRouter.forBucket(bucketName);
+        try (InputStream in = backend.getObject(bucketName, chunkUploadDir + CHUNK_SIZE_FILE, 0, null)) {
+            return Long.valueOf(new String(in.readAllBytes(), StandardCharsets.UTF_8).trim());
+        } catch (Exception e) {
+            if (!backend.isNotFound(e)) {
+                log.warn("读取分片大小失败 - 路径: {}", chunkUploadDir, e);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 保存上传会话选定的分片大小，失败时仅记录日志，续传会重新选择分片大小
+     */
+    private void writeChunkSize(String bucketName, String chunkUploadDir, long chunkSize) {
+        byte[] content = Long.toString(chunkSize).getBytes(StandardCharsets.UTF_8);
+        try {
+            storageRouter.forBucket(bucketName).putObject(bucketName, chunkUploadDir + CHUNK_SIZE_FILE,
+                    new ByteArrayInputStream(content), content.length, "text/plain");
+        } catch (Exception e) {
+            log.warn("保存分片大小失败 - 路径: {}", chunkUploadDir, e);
+        }
+    }
+
+    private List<String> listObjectNames(String bucketName, String prefix) throws Exception {
+        List<ObjectItem> items = storageRouter.forBucket(bucketName).listObjects(bucketName, prefix, true, 0);
+        List<String> objectNames = new ArrayList<>(items.size());
+        for (ObjectItem item : items) {
+            objectNames.add(item.objectName());
+        }
+        return objectNames;
+    }
+
+    // ==================== 客户端直传 ====================
+
+    /**
+     * 分片上传的分片大小下限与分片数上限（S3 协议限制）
+     */
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    private static final long MAX_PART_SIZE = 5L * 1024 * 1024 * 1024;
+    private static final int MAX_PARTS = 10000;
+
+    @Override
+    public ApiResult<DirectUploadVO> initDirectUpload(DirectUploadInitVO directUploadInitVO) {
+        String bucketName = StringUtils.isBlank(directUploadInitVO.getBucketName())
+                ? ossProperties.getBucketName() : directUploadInitVO.getBucketName();
+        String fileName = directUploadInitVO.getFileName();
+        int index = fileName.lastIndexOf(".");
+        if (index == -1) {
+            return ApiResult.failed(ErrorCode.NOT_UPLOAD_EMPTY_EXT);
+        }
+        String contentType = StringUtils.isBlank(directUploadInitVO.getContentType())
+                ? null : directUploadInitVO.getContentType();
+        long size = directUploadInitVO.getSize();
+        OssProperties.DirectUpload config = ossProperties.getDirectUpload();
+        int expirySeconds = (int) config.getUrlExpiry().toSeconds();
+        // 根据日期打散目录，使用 UUID 重命名文件
+        String objectName = OssProcessor.generateObjectName(fileName.substring(index));
+
+        DirectUploadVO directUploadVO = new DirectUploadVO();
+        directUploadVO.setBucketName(bucketName);
+        directUploadVO.setObjectName(objectName);
+        directUploadVO.setExpirySeconds(expirySeconds);
+        try {
+            StorageBackend backend = storageRouter.forBucket(bucketName);
+            if (size <= config.getSinglePutThreshold()) {
+                directUploadVO.setPutUrl(backend.getPresignedPutObjectUrl(bucketName, objectName, expirySeconds));
+                directUploadVO.setPostUrl(ossProperties.getEndpointCdn() + bucketName);
+                directUploadVO.setPostFormData(backend.getPresignedPostFormData(bucketName, objectName, contentType,
+                        size, expirySeconds));
+            } else {
+                long partSize = directUploadPartSize(directUploadInitVO.getPartSize(), size);
+                int partCount = (int) ((size + partSize - 1) / partSize);
+                String uploadId = backend.createMultipartUpload(bucketName, objectName, contentType);
+                directUploadVO.setUploadId(uploadId);
+                directUploadVO.setPartSize(partSize);
+                directUploadVO.setPartUrls(backend.getPresignedUploadPartUrls(bucketName, objectName, uploadId,
+                        partCount, expirySeconds));
+            }
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("初始化直传异常", e);
+            throw new BusinessException(ErrorCode.UNKNOWN);
+        }
+
+        log.info("初始化直传 - 文件: {}, 大小: {}, 存储桶: {}, 文件路径: {}, 分片数: {}", fileName, size, bucketName,
+                objectName, directUploadVO.getPartUrls() == null ? 0 : directUploadVO.getPartUrls().size());
+        return ApiResult.success(directUploadVO);
+    }
+
+    /**
+     * 分片大小：不低于 5MB，分片数不超过 10000
+     * @param requested 期望的分片大小，为空时取配置值
+     * @param size 文件大小
+     * @return 分片大小
+     */
+    private long directUploadPartSize(Long requested, long size) {
+        long partSize = requested != null && requested > 0
+                ? requested : ossProperties.getDirectUpload().getDefaultPartSize();
+        partSize = Math.max(partSize, (size + MAX_PARTS - 1) / MAX_PARTS);
+        return Math.min(Math.max(partSize, MIN_PART_SIZE), MAX_PART_SIZE);
+    }
+
+    @Override
+    public ApiResult<String> completeDirectUpload(DirectUploadCompleteVO directUploadCompleteVO) {
+        String bucketName = StringUtils.isBlank(directUploadCompleteVO.getBucketName())
+                ? ossProperties.getBucketName() : directUploadCompleteVO.getBucketName();
+        String objectName = directUploadCompleteVO.getObjectName();
+        String uploadId = directUploadCompleteVO.getUploadId();
+        rejectInternalObject(objectName);
+
+        try {
+            StorageBackend backend = storageRouter.forBucket(bucketName);
+            if (StringUtils.isNotBlank(uploadId)) {
+                // 客户端未回传分片时，以存储服务记录的分片为准
+                List<UploadPart> parts = directUploadCompleteVO.getParts() == null
+                        || directUploadCompleteVO.getParts().isEmpty()
+                        ? backend.listUploadParts(bucketName, objectName, uploadId)
+                        : directUploadCompleteVO.getParts().stream()
+                                .map(part -> new UploadPart(part.getPartNumber(), part.getEtag()))
+                                .sorted(Comparator.comparingInt(UploadPart::partNumber))
+                                .toList();
+                if (parts.isEmpty()) {
+                    return ApiResult.failed(ErrorCode.UPLOAD_NOT_COMPLETED);
+                }
+                backend.completeMultipartUpload(bucketName, objectName, uploadId, parts);
+                log.info("直传分片合并成功 - 文件路径: {}, 分片数: {}", objectName, parts.size());
+            }
+
+            // 校验对象已写入，并按实际大小统计流入字节数
+            ObjectStat stat;
+            try {
+                stat = backend.statObject(bucketName, objectName);
+            } catch (Exception e) {
+                if (!backend.isNotFound(e)) {
+                    throw e;
+                }
+                log.warn("直传文件不存在 - 存储桶: {}, 文件路径: {}", bucketName, objectName);
+                return ApiResult.failed(ErrorCode.UPLOAD_NOT_COMPLETED);
+            }
+            ossMetrics.recordIngress(OssMetrics.PUT, bucketName, stat.size());
+            log.info("直传完成 - 存储桶: {}, 文件路径: {}, 大小: {}", bucketName, objectName, stat.size());
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("完成直传异常", e);
+            throw new BusinessException(ErrorCode.UNKNOWN);
+        }
+
+        return ApiResult.success(ossProperties.getEndpointCdn() + bucketName + objectName);
+    }
+
+    @Override
+    public ApiResult<String> abortDirectUpload(String bucketName, String objectName, String uploadId) {
+        String useBucketName = StringUtils.isBlank(bucketName) ? ossProperties.getBucketName() : bucketName;
+        rejectInternalObject(objectName);
+        try {
+            storageRouter.forBucket(useBucketName).abortMultipartUpload(useBucketName, objectName, uploadId);
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("取消直传异常", e);
+            throw new BusinessException(ErrorCode.UNKNOWN);
+        }
+        log.info("取消直传 - 存储桶: {}, 文件路径: {}, 分片上传ID: {}", useBucketName, objectName, uploadId);
+        return ApiResult.success("直传已取消");
+    }
+
+    // ==================== 服务端拷贝与迁移 ====================
+
+    @Override
+    public ApiResult<String> copyObject(CopyObjectVO copyObjectVO) {
+        return copyObject(copyObjectVO, false);
+    }
+
+    @Override
+    public ApiResult<String> moveObject(CopyObjectVO copyObjectVO) {
+        return copyObject(copyObjectVO, true);
+    }
+
+    private ApiResult<String> copyObject(CopyObjectVO copyObjectVO, boolean move) {
+        String sourceBucketName = StringUtils.isBlank(copyObjectVO.getSourceBucketName())
+                ? ossProperties.getBucketName() : copyObjectVO.getSourceBucketName();
+        String bucketName = StringUtils.isBlank(copyObjectVO.getBucketName())
+                ? sourceBucketName : copyObjectVO.getBucketName();
+        String sourceObjectName = copyObjectVO.getSourceObjectName()
+                .replace(ossProperties.getEndpointCdn() + sourceBucketName, "");
+        String objectName = StringUtils.isBlank(copyObjectVO.getObjectName())
+                ? sourceObjectName : copyObjectVO.getObjectName();
+        if (sourceBucketName.equals(bucketName) && sourceObjectName.equals(objectName)) {
+            return ApiResult.failed(ErrorCode.INVALID_PARAMETER);
+        }
+        rejectInternalObject(sourceObjectName);
+        rejectInternalObject(objectName);
+
+        try {
+            StorageBackend backend = sameBackend(sourceBucketName, bucketName);
+            ObjectStat source;
+            try {
+                source = backend.statObject(sourceBucketName, sourceObjectName);
+            } catch (Exception e) {
+                if (!backend.isNotFound(e)) {
+                    throw e;
+                }
+                log.warn("拷贝源文件不存在 - 存储桶: {}, 文件路径: {}", sourceBucketName, sourceObjectName);
+                return ApiResult.failed(ErrorCode.FILE_PATH_INCORRECT);
+            }
+            objectMigrator.copy(backend, source, bucketName, objectName);
+            if (move) {
+                dedupStore.remove(backend, sourceBucketName, sourceObjectName);
+            }
+            log.info("服务端{}完成 - 源存储桶: {}, 源文件路径: {}, 目标存储桶: {}, 目标文件路径: {}, 大小: {}",
+                    move ? "移动" : "拷贝", sourceBucketName, sourceObjectName, bucketName, objectName, source.size());
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("服务端拷贝异常", e);
+            throw new BusinessException(ErrorCode.UNKNOWN);
+        }
+        return ApiResult.success(ossProperties.getEndpointCdn() + bucketName + objectName);
+    }
+
+    /**
+     * 拒绝客户端读写分片上传、去重存储的内部对象，避免删除或覆盖共享的块与引用计数
+     */
+    private static void rejectInternalObject(String objectName) {
+        if (OssProcessor.isInternalObject(objectName)) {
+            throw new BusinessException(ErrorCode.FILE_PATH_INCORRECT);
+        }
+    }
+
+    /**
+     * 服务端拷贝要求源与目标存储桶使用同一存储后端，否则对象内容需经过本服务中转
+     */
+    private StorageBackend sameBackend(String sourceBucketName, String bucketName) {
+        StorageBackend backend = storageRouter.forBucket(sourceBucketName);
+        if (storageRouter.forBucket(bucketName) != backend) {
+            throw new BusinessException(ErrorCode.STORAGE_NOT_SUPPORTED);
+        }
+        return backend;
+    }
+
+    @Override
+    public ApiResult<MigrationStatusVO> migrateObjects(MigrationVO migrationVO) {
+        if (StringUtils.isBlank(migrationVO.getSourceBucketName())) {
+            migrationVO.setSourceBucketName(ossProperties.getBucketName());
+        }
+        boolean byNames = migrationVO.getObjectNames() != null && !migrationVO.getObjectNames().isEmpty();
+        // 前缀与对象列表二选一；同一存储桶内目标路径不能与源路径相同
+        if (byNames == StringUtils.isNotBlank(migrationVO.getPrefix())) {
+            return ApiResult.failed(ErrorCode.INVALID_PARAMETER);
+        }
+        if (migrationVO.getSourceBucketName().equals(migrationVO.getBucketName())
+                && (byNames || StringUtils.isBlank(migrationVO.getTargetPrefix())
+                || StringUtils.stripStart(migrationVO.getTargetPrefix(), "/")
+                        .equals(StringUtils.stripStart(migrationVO.getPrefix(), "/")))) {
+            return ApiResult.failed(ErrorCode.INVALID_PARAMETER);
+        }
+        rejectInternalObject(migrationVO.getPrefix());
+        rejectInternalObject(migrationVO.getTargetPrefix());
+        if (byNames) {
+            migrationVO.getObjectNames().forEach(OssServiceImpl::rejectInternalObject);
+        }
+        sameBackend(migrationVO.getSourceBucketName(), migrationVO.getBucketName());
+        return ApiResult.success(objectMigrator.submit(migrationVO));
+    }
+
+    @Override
+    public ApiResult<MigrationStatusVO> getMigrationStatus(String migrationId) {
+        MigrationStatusVO status = objectMigrator.status(migrationId);
+        return status == null ? ApiResult.failed(ErrorCode.MIGRATION_NOT_FOUND) : ApiResult.success(status);
+    }
+
+    @Override
+    public ApiResult<MigrationStatusVO> cancelMigration(String migrationId) {
+        MigrationStatusVO status = objectMigrator.cancel(migrationId);
+        return status == null ? ApiResult.failed(ErrorCode.MIGRATION_NOT_FOUND) : ApiResult.success(status);
+    }
+
     // ==================== 策略模板管理 ====================
 
     // 使用内存存储策略模板（生产环境应使用数据库）
     private static final java.util.Map<String, PolicyTemplateVO> policyTemplateMap = new java.util.concurrent.ConcurrentHashMap<>();
 
+    // 预编译的策略模板，模板内容变化时重新编译
+    private static final java.util.Map<String, CompiledPolicy> compiledPolicyMap = new java.util.concurrent.ConcurrentHashMap<>();
+
     // 预定义的策略
     private static final String PUBLIC_POLICY = "{\n" +
             "  \"Version\": \"2012-10-17\",\n" +
@@ -980,6 +1749,7 @@ public class OssServiceImpl implements OssService {
         }
 
         policyTemplateMap.remove(templateName);
+        compiledPolicyMap.remove(templateName);
         log.info("删除策略模板成功: {}", templateName);
         return ApiResult.success();
     }
@@ -992,20 +1762,103 @@ public class OssServiceImpl implements OssService {
         }
 
         try {
-            String policy = template.getPolicy().replace("{bucket}", bucketName);
-            SetBucketPolicyArgs args = SetBucketPolicyArgs.builder()
-                    .bucket(bucketName)
-                    .config(policy)
-                    .build();
-            minioClient.setBucketPolicy(args);
+            String policy = compiledPolicy(template).render(bucketName);
+            storageRouter.forBucket(bucketName).setBucketPolicy(bucketName, policy);
             log.info("应用策略模板成功 - 存储桶: {}, 模板: {}", bucketName, templateName);
             return ApiResult.success();
+        } catch (BusinessException e) {
+            throw e;
         } catch (Exception e) {
             log.error("应用策略模板失败", e);
             throw new BusinessException(ErrorCode.UNKNOWN);
         }
     }
 
+    @Override
+    public ApiResult<List<PolicyRolloutResultVO>> applyPolicyTemplates(PolicyRolloutVO policyRolloutVO) {
+        PolicyTemplateVO template = policyTemplateMap.get(policyRolloutVO.getTemplateName());
+        if (template == null) {
+            return ApiResult.failed("009", "策略模板不存在");
+        }
+        List<String> bucketNames = selectBuckets(policyRolloutVO);
+        if (bucketNames == null) {
+            return ApiResult.failed(ErrorCode.INVALID_PARAMETER);
+        }
+        CompiledPolicy compiled = compiledPolicy(template);
+        boolean dryRun = Boolean.TRUE.equals(policyRolloutVO.getDryRun());
+        PolicyRolloutResultVO[] results = new PolicyRolloutResultVO[bucketNames.size()];
+        long start = System.nanoTime();
+        fanOut(results, ossProperties.getBatch().getPolicyParallelism(),
+                index -> rolloutPolicy(bucketNames.get(index), compiled, dryRun),
+                index -> policyRolloutResult(bucketNames.get(index), PolicyRolloutResultVO.FAILED, ErrorCode.UNKNOWN));
+        Map<String, Long> counts = Arrays.stream(results)
+                .collect(Collectors.groupingBy(PolicyRolloutResultVO::getStatus, LinkedHashMap::new, Collectors.counting()));
+        log.info("批量应用策略模板完成 - 模板: {}, 存储桶数: {}, 结果: {}, dryRun: {}, 耗时: {}ms",
+                policyRolloutVO.getTemplateName(), results.length, counts, dryRun,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return ApiResult.success(Arrays.asList(results));
+    }
+
+    /**
+     * 按入参选择存储桶：列表、通配、全部三选一
+     * @return 存储桶名称，参数不合法时返回 null
+     */
+    private List<String> selectBuckets(PolicyRolloutVO policyRolloutVO) {
+        List<String> bucketNames = policyRolloutVO.getBucketNames();
+        boolean byNames = bucketNames != null && !bucketNames.isEmpty();
+        boolean byPattern = StringUtils.isNotBlank(policyRolloutVO.getBucketPattern());
+        boolean all = Boolean.TRUE.equals(policyRolloutVO.getAllBuckets());
+        if ((byNames ? 1 : 0) + (byPattern ? 1 : 0) + (all ? 1 : 0) != 1) {
+            return null;
+        }
+        if (byNames) {
+            return bucketNames.stream().filter(StringUtils::isNotBlank).distinct().toList();
+        }
+        List<String> existing = listBuckets().getData();
+        if (all) {
+            return existing;
+        }
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + policyRolloutVO.getBucketPattern());
+        return existing.stream().filter(bucketName -> matcher.matches(Path.of(bucketName))).toList();
+    }
+
+    /**
+     * 比较存储桶当前策略与模板渲染结果的规范化摘要，不一致时写入
+     */
+    private PolicyRolloutResultVO rolloutPolicy(String bucketName, CompiledPolicy compiled, boolean dryRun) {
+        try {
+            StorageBackend backend = storageRouter.forBucket(bucketName);
+            String policy = compiled.render(bucketName);
+            if (CompiledPolicy.digest(policy).equals(CompiledPolicy.digest(backend.getBucketPolicy(bucketName)))) {
+                return policyRolloutResult(bucketName, PolicyRolloutResultVO.UNCHANGED, ErrorCode.SUCCESS);
+            }
+            if (dryRun) {
+                return policyRolloutResult(bucketName, PolicyRolloutResultVO.CHANGED, ErrorCode.SUCCESS);
+            }
+            backend.setBucketPolicy(bucketName, policy);
+            return policyRolloutResult(bucketName, PolicyRolloutResultVO.APPLIED, ErrorCode.SUCCESS);
+        } catch (BusinessException e) {
+            return new PolicyRolloutResultVO(bucketName, PolicyRolloutResultVO.FAILED, e.getCode(), e.getMessage());
+        } catch (Exception e) {
+            log.error("批量应用策略模板异常 - 存储桶: {}", bucketName, e);
+            return policyRolloutResult(bucketName, PolicyRolloutResultVO.FAILED, ErrorCode.UNKNOWN);
+        }
+    }
+
+    private static PolicyRolloutResultVO policyRolloutResult(String bucketName, String status, ErrorCode errorCode) {
+        return new PolicyRolloutResultVO(bucketName, status, errorCode.getCode(), errorCode.getMessage());
+    }
+
+    private static CompiledPolicy compiledPolicy(PolicyTemplateVO template) {
+        CompiledPolicy compiled = compiledPolicyMap.get(template.getTemplateName());
+        String source = template.getPolicy() == null ? "" : template.getPolicy();
+        if (compiled == null || !compiled.source().equals(source)) {
+            compiled = CompiledPolicy.compile(source);
+            compiledPolicyMap.put(template.getTemplateName(), compiled);
+        }
+        return compiled;
+    }
+
     private boolean isBuiltInTemplate(String templateName) {
         return "public".equals(templateName) ||
                "readonly".equals(templateName) ||
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.storage;
+
+import com.luckykuang.oss.config.OssProperties;
+
+/**
+ * 节点熔断器
+ * <ul>
+ *     <li>关闭：记录最近 windowSize 个请求结果，失败率达到阈值后打开</li>
+ *     <li>打开：不再分配请求，openDuration 后进入半开</li>
+ *     <li>半开：放行 halfOpenCalls 个试探请求，全部成功则关闭，任一失败重新打开</li>
+ * </ul>
+ * 只统计节点故障（网络异常、5xx），业务错误按成功处理
+ * @author luckykuang
+ * @date 2026/10/19 15:00
+ */
+final class CircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final boolean enabled;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenCalls;
+
+    // 最近请求结果环形窗口，true 表示失败
+    private final boolean[] window;
+    private int index;
+    private int count;
+    private int failures;
+
+    private volatile State state = State.CLOSED;
+    private volatile long openedAt;
+    private volatile int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    CircuitBreaker(OssProperties.CircuitBreaker config) {
+        this.enabled = config.isEnabled();
+        this.window = new boolean[Math.max(1, config.getWindowSize())];
+        this.minimumCalls = Math.clamp(config.getMinimumCalls(), 1, window.length);
+        this.failureRateThreshold = config.getFailureRateThreshold();
+        this.openDurationNanos = config.getOpenDuration().toNanos();
+        this.halfOpenCalls = Math.max(1, config.getHalfOpenCalls());
+    }
+
+    State state() {
+        return state;
+    }
+
+    /**
+     * 是否可能放行请求，用于节点选择时过滤，不占用半开试探名额
+     */
+    boolean allowsRequest(long now) {
+        if (!enabled) {
+            return true;
+        }
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> now - openedAt >= openDurationNanos;
+            case HALF_OPEN -> halfOpenPermits > 0;
+        };
+    }
+
+    /**
+     * 申请放行一个请求，半开状态下占用一个试探名额
+     * @return 放行-true
+     */
+    synchronized boolean tryAcquire(long now) {
+        if (!enabled) {
+            return true;
+        }
+        if (state == State.OPEN) {
+            if (now - openedAt < openDurationNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            halfOpenPermits = halfOpenCalls;
+            halfOpenSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits == 0) {
+                return false;
+            }
+            halfOpenPermits--;
+        }
+        return true;
+    }
+
+    synchronized void onSuccess() {
+        if (!enabled) {
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(false);
+        } else if (state == State.HALF_OPEN && ++halfOpenSuccesses >= halfOpenCalls) {
+            state = State.CLOSED;
+            reset();
+        }
+    }
+
+    /**
+     * 记录一次节点故障
+     * @return 本次故障导致熔断打开-true
+     */
+    synchronized boolean onFailure(long now) {
+        if (!enabled) {
+            return false;
+        }
+        if (state == State.HALF_OPEN) {
+            open(now);
+            return true;
+        }
+        if (state == State.CLOSED) {
+            record(true);
+            if (count >= minimumCalls && failures >= failureRateThreshold * count) {
+                open(now);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 距离进入半开状态的剩余时间
+     */
+    long retryAfterNanos(long now) {
+        return state == State.OPEN ? Math.max(0, openedAt + openDurationNanos - now) : 0;
+    }
+
+    private void record(boolean failure) {
+        if (count == window.length) {
+            if (window[index]) {
+                failures--;
+            }
+        } else {
+            count++;
+        }
+        window[index] = failure;
+        if (failure) {
+            failures++;
+        }
+        index = (index + 1) % window.length;
+    }
+
+    private void open(long now) {
+        openedAt = now;
+        state = State.OPEN;
+        reset();
+    }
+
+    private void reset() {
+        index = 0;
+        count = 0;
+        failures = 0;
+    }
+}
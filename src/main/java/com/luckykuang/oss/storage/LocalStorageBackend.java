@@ -0,0 +1,640 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.storage;
+
+import com.luckykuang.oss.base.BusinessException;
+import com.luckykuang.oss.base.ErrorCode;
+import com.luckykuang.oss.config.StorageProperties;
+import com.luckykuang.oss.metrics.OssMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * 本地文件系统存储后端，适用于直接使用本地磁盘的边缘节点
+ * <p>目录结构：</p>
+ * <ul>
+ *     <li>{root}/{bucket}/{object}：对象数据</li>
+ *     <li>{root}/.meta/{bucket}/{object}.meta：对象元数据（文件类型、内容编码、用户元数据）</li>
+ *     <li>{root}/.policy/{bucket}.json：存储桶策略</li>
+ *     <li>{root}/.tmp/：写入中的临时文件，写完后原子重命名到目标路径，读者不会看到写了一半的对象</li>
+ * </ul>
+ * <p>对象间拷贝（合并分片、服务端拷贝）使用 {@link FileChannel#transferTo} 零拷贝；上传使用 {@link FileChannel#transferFrom}；
+ * 不超过 storage.local.mmap-threshold 的读取使用内存映射</p>
+ * @author luckykuang
+ * @date 2026/10/19 12:05
+ */
+@Slf4j
+@Component
+public class LocalStorageBackend implements StorageBackend {
+
+    public static final String TYPE = "local";
+
+    private static final String META_DIR = ".meta";
+    private static final String POLICY_DIR = ".policy";
+    private static final String TMP_DIR = ".tmp";
+    private static final String META_SUFFIX = ".meta";
+    private static final String CONTENT_TYPE = "contentType";
+    private static final String CONTENT_ENCODING = "contentEncoding";
+    private static final String USER_META_PREFIX = "meta.";
+
+    private final OssMetrics ossMetrics;
+    private final Path root;
+    private final long mmapThreshold;
+
+    public LocalStorageBackend(StorageProperties storageProperties, OssMetrics ossMetrics) {
+        this.ossMetrics = ossMetrics;
+        this.root = Path.of(storageProperties.getLocal().getRoot()).toAbsolutePath().normalize();
+        this.mmapThreshold = storageProperties.getLocal().getMmapThreshold();
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public boolean isNotFound(Exception e) {
+        return e instanceof NoSuchFileException;
+    }
+
+    @Override
+    public boolean bucketExists(String bucketName) throws Exception {
+        return ossMetrics.record(OssMetrics.BUCKET, bucketName, TYPE, () -> Files.isDirectory(bucketDir(bucketName)));
+    }
+
+    @Override
+    public void makeBucket(String bucketName) throws Exception {
+        ossMetrics.record(OssMetrics.BUCKET, bucketName, TYPE, () -> {
+            Path bucketDir = bucketDir(bucketName);
+            if (Files.isDirectory(bucketDir)) {
+                throw new FileAlreadyExistsException(bucketName);
+            }
+            return Files.createDirectories(bucketDir);
+        });
+    }
+
+    @Override
+    public void removeBucket(String bucketName) throws Exception {
+        ossMetrics.record(OssMetrics.BUCKET, bucketName, TYPE, () -> {
+            // 与 S3 一致，非空存储桶删除失败（DirectoryNotEmptyException）
+            Files.delete(bucketDir(bucketName));
+            Files.deleteIfExists(policyPath(bucketName));
+            deleteTree(root.resolve(META_DIR).resolve(bucketName));
+            return null;
+        });
+    }
+
+    @Override
+    public List<String> listBuckets() throws Exception {
+        return ossMetrics.record(OssMetrics.BUCKET, null, TYPE, () -> {
+            if (!Files.isDirectory(root)) {
+                return List.of();
+            }
+            try (Stream<Path> stream = Files.list(root)) {
+                return stream.filter(Files::isDirectory)
+                        .map(path -> path.getFileName().toString())
+                        .filter(name -> !name.startsWith("."))
+                        .sorted()
+                        .toList();
+            }
+        });
+    }
+
+    @Override
+    public void setBucketPolicy(String bucketName, String policy) throws Exception {
+        ossMetrics.record(OssMetrics.BUCKET, bucketName, TYPE, () -> {
+            requireBucket(bucketName);
+            Path tmp = tempFile();
+            Files.writeString(tmp, policy, StandardCharsets.UTF_8);
+            commit(tmp, policyPath(bucketName));
+            return null;
+        });
+    }
+
+    @Override
+    public String getBucketPolicy(String bucketName) throws Exception {
+        return ossMetrics.record(OssMetrics.BUCKET, bucketName, TYPE, () -> {
+            requireBucket(bucketName);
+            Path policyPath = policyPath(bucketName);
+            return Files.exists(policyPath) ? Files.readString(policyPath, StandardCharsets.UTF_8) : "";
+        });
+    }
+
+    @Override
+    public void putObject(String bucketName, String objectName, InputStream stream, long size, String contentType,
+                          String contentEncoding, Map<String, String> metadata) throws Exception {
+        ossMetrics.record(OssMetrics.PUT, bucketName, TYPE, () -> {
+            requireBucket(bucketName);
+            Path target = objectPath(bucketName, objectName);
+            Path tmp = tempFile();
+            Path metaTmp = null;
+            try {
+                try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                    // 大小未知时读到流结束
+                    long count = size < 0 ? Long.MAX_VALUE : size;
+                    long written = stream instanceof FileInputStream fileInputStream
+                            ? copy(fileInputStream.getChannel(), out, count)
+                            : receive(Channels.newChannel(stream), out, count);
+                    if (size >= 0 && written != size) {
+                        throw new EOFException("expected " + size + " bytes but got " + written);
+                    }
+                }
+                metaTmp = stageMeta(contentType, contentEncoding, metadata);
+                commit(tmp, target);
+                commitMeta(metaTmp, bucketName, objectName);
+            } finally {
+                deleteTemp(tmp, metaTmp);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public InputStream getObject(String bucketName, String objectName, long offset, Long length) throws Exception {
+        return ossMetrics.record(OssMetrics.GET, bucketName, TYPE, () -> {
+            Path path = objectPath(bucketName, objectName);
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                long size = channel.size();
+                if (offset < 0 || offset > size) {
+                    throw new IOException("invalid range: offset " + offset + ", size " + size);
+                }
+                long count = length == null ? size - offset : Math.min(length, size - offset);
+                if (count <= mmapThreshold) {
+                    // 小对象映射后即可关闭通道，映射区域在缓冲区被回收前一直有效
+                    ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, count);
+                    channel.close();
+                    return new ByteBufferInputStream(buffer);
+                }
+                return new FileChannelInputStream(channel, offset, offset + count);
+            } catch (Exception e) {
+                channel.close();
+                throw e;
+            }
+        });
+    }
+
+    @Override
+    public ObjectStat statObject(String bucketName, String objectName) throws Exception {
+        return ossMetrics.record(OssMetrics.STAT, bucketName, TYPE, () -> {
+            Path path = objectPath(bucketName, objectName);
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                throw new NoSuchFileException(objectName);
+            }
+            Properties meta = readMeta(bucketName, objectName);
+            return new ObjectStat(bucketName, objectName, attributes.size(), etag(attributes),
+                    ZonedDateTime.ofInstant(attributes.lastModifiedTime().toInstant(), ZoneOffset.UTC),
+                    meta.getProperty(CONTENT_TYPE, MediaType.APPLICATION_OCTET_STREAM_VALUE),
+                    meta.getProperty(CONTENT_ENCODING), userMetadata(meta));
+        });
+    }
+
+    @Override
+    public List<ObjectItem> listObjects(String bucketName, String prefix, boolean recursive, int maxKeys) throws Exception {
+        return ossMetrics.record(OssMetrics.LIST, bucketName, TYPE, () -> {
+            Path bucketDir = requireBucket(bucketName);
+            // S3 的前缀是字符串前缀：拆成目录部分与文件名前缀部分
+            String key = stripLeadingSlash(prefix == null ? "" : prefix);
+            int slash = key.lastIndexOf('/');
+            String dirPart = key.substring(0, slash + 1);
+            String namePart = key.substring(slash + 1);
+            Path dir = resolve(bucketDir, dirPart);
+            List<ObjectItem> items = new ArrayList<>();
+            if (Files.isDirectory(dir)) {
+                collect(dir, dirPart, namePart, recursive, items);
+            }
+            items.sort(Comparator.comparing(ObjectItem::objectName));
+            return items;
+        });
+    }
+
+    @Override
+    public void composeObject(String bucketName, String objectName, List<String> sources) throws Exception {
+        ossMetrics.record(OssMetrics.COMPOSE, bucketName, TYPE, () -> {
+            requireBucket(bucketName);
+            Path target = objectPath(bucketName, objectName);
+            Path tmp = tempFile();
+            try {
+                try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                    for (String source : sources) {
+                        try (FileChannel in = FileChannel.open(objectPath(bucketName, source), StandardOpenOption.READ)) {
+                            copy(in, out, in.size());
+                        }
+                    }
+                }
+                commit(tmp, target);
+                commitMeta(null, bucketName, objectName);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void copyObject(String sourceBucketName, String sourceObjectName, String bucketName, String objectName)
+            throws Exception {
+        ossMetrics.record(OssMetrics.COPY, bucketName, TYPE, () -> {
+            requireBucket(bucketName);
+            Path target = objectPath(bucketName, objectName);
+            Properties meta = readMeta(sourceBucketName, sourceObjectName);
+            Path tmp = tempFile();
+            Path metaTmp = null;
+            try {
+                Path source = objectPath(sourceBucketName, sourceObjectName);
+                try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                     FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                    copy(in, out, in.size());
+                }
+                // 保留源文件修改时间，拷贝与源对象的 ETag 相同（与 S3 拷贝保留 ETag 一致）
+                Files.setLastModifiedTime(tmp, Files.getLastModifiedTime(source));
+                metaTmp = stageMeta(meta.getProperty(CONTENT_TYPE), meta.getProperty(CONTENT_ENCODING),
+                        userMetadata(meta));
+                commit(tmp, target);
+                commitMeta(metaTmp, bucketName, objectName);
+            } finally {
+                deleteTemp(tmp, metaTmp);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void removeObject(String bucketName, String objectName) throws Exception {
+        ossMetrics.record(OssMetrics.REMOVE, bucketName, TYPE, () -> {
+            Path bucketDir = bucketDir(bucketName);
+            Path path = objectPath(bucketName, objectName);
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(metaPath(bucketName, objectName));
+            // 清理空目录，避免列表中出现空文件夹
+            pruneEmptyParents(path.getParent(), bucketDir);
+            return null;
+        });
+    }
+
+    @Override
+    public String getPresignedObjectUrl(String bucketName, String objectName, int expirySeconds) {
+        throw new BusinessException(ErrorCode.STORAGE_NOT_SUPPORTED);
+    }
+
+    private void collect(Path dir, String keyPrefix, String namePrefix, boolean recursive, List<ObjectItem> items)
+            throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path entry : stream) {
+                String name = entry.getFileName().toString();
+                if (!name.startsWith(namePrefix)) {
+                    continue;
+                }
+                BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class);
+                if (attributes.isDirectory()) {
+                    if (recursive) {
+                        collect(entry, keyPrefix + name + "/", "", true, items);
+                    } else {
+                        items.add(new ObjectItem(keyPrefix + name + "/", 0, true, null, null));
+                    }
+                } else if (attributes.isRegularFile()) {
+                    items.add(new ObjectItem(keyPrefix + name, attributes.size(), false,
+                            ZonedDateTime.ofInstant(attributes.lastModifiedTime().toInstant(), ZoneOffset.UTC),
+                            etag(attributes)));
+                }
+            }
+        }
+    }
+
+    /**
+     * 与 nginx 相同的 ETag 规则（修改时间-大小），无需读取文件内容计算摘要
+     */
+    private static String etag(BasicFileAttributes attributes) {
+        return Long.toHexString(attributes.lastModifiedTime().toMillis()) + "-" + Long.toHexString(attributes.size());
+    }
+
+    /**
+     * 文件到文件零拷贝（Linux 下为 copy_file_range/sendfile）
+     */
+    private static long copy(FileChannel in, FileChannel out, long count) throws IOException {
+        long start = in.position();
+        long position = out.position();
+        long transferred = 0;
+        while (transferred < count) {
+            long n = in.transferTo(start + transferred, count - transferred, out);
+            if (n <= 0) {
+                break;
+            }
+            transferred += n;
+        }
+        out.position(position + transferred);
+        return transferred;
+    }
+
+    /**
+     * 从任意通道写入文件，避免经过用户态的中间字节数组拷贝
+     */
+    private static long receive(ReadableByteChannel in, FileChannel out, long count) throws IOException {
+        long transferred = 0;
+        while (transferred < count) {
+            long n = out.transferFrom(in, transferred, count - transferred);
+            if (n <= 0) {
+                break;
+            }
+            transferred += n;
+        }
+        return transferred;
+    }
+
+    private Path requireBucket(String bucketName) throws NoSuchFileException {
+        Path bucketDir = bucketDir(bucketName);
+        if (!Files.isDirectory(bucketDir)) {
+            throw new NoSuchFileException("bucket " + bucketName + " does not exist");
+        }
+        return bucketDir;
+    }
+
+    private Path bucketDir(String bucketName) {
+        if (bucketName == null || bucketName.isBlank() || bucketName.startsWith(".")
+                || bucketName.contains("/") || bucketName.contains("\\")) {
+            throw new IllegalArgumentException("invalid bucket name: " + bucketName);
+        }
+        return root.resolve(bucketName);
+    }
+
+    private Path objectPath(String bucketName, String objectName) {
+        return resolve(bucketDir(bucketName), stripLeadingSlash(objectName));
+    }
+
+    private Path metaPath(String bucketName, String objectName) {
+        Path metaDir = root.resolve(META_DIR).resolve(bucketDir(bucketName).getFileName());
+        return resolve(metaDir, stripLeadingSlash(objectName) + META_SUFFIX);
+    }
+
+    private Path policyPath(String bucketName) {
+        return root.resolve(POLICY_DIR).resolve(bucketDir(bucketName).getFileName() + ".json");
+    }
+
+    /**
+     * 解析相对路径，禁止通过 ".." 跳出所在目录
+     */
+    private static Path resolve(Path base, String relative) {
+        Path path = base.resolve(relative).normalize();
+        if (!path.startsWith(base)) {
+            throw new IllegalArgumentException("invalid object name: " + relative);
+        }
+        return path;
+    }
+
+    private static String stripLeadingSlash(String key) {
+        int i = 0;
+        while (i < key.length() && key.charAt(i) == '/') {
+            i++;
+        }
+        return key.substring(i);
+    }
+
+    private Path tempFile() throws IOException {
+        Path tmpDir = root.resolve(TMP_DIR);
+        Files.createDirectories(tmpDir);
+        return Files.createFile(tmpDir.resolve(UUID.randomUUID().toString()));
+    }
+
+    /**
+     * 原子重命名提交，临时目录与目标在同一文件系统
+     */
+    private static void commit(Path tmp, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 元数据先写入临时文件，对象提交成功后再由 {@link #commitMeta} 移入，
+     * 写入失败或进程中断时不会留下描述不存在对象的元数据，也不会覆盖上一版本的元数据
+     * @return 元数据临时文件，无元数据时返回 null
+     */
+    private Path stageMeta(String contentType, String contentEncoding, Map<String, String> metadata)
+            throws IOException {
+        if (contentType == null && contentEncoding == null && metadata.isEmpty()) {
+            return null;
+        }
+        Properties meta = new Properties();
+        if (contentType != null) {
+            meta.setProperty(CONTENT_TYPE, contentType);
+        }
+        if (contentEncoding != null) {
+            meta.setProperty(CONTENT_ENCODING, contentEncoding);
+        }
+        metadata.forEach((name, value) -> meta.setProperty(USER_META_PREFIX + name, value));
+        Path tmp = tempFile();
+        try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            meta.store(writer, null);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        return tmp;
+    }
+
+    /**
+     * 对象提交后移入元数据，无元数据时删除上一版本留下的元数据
+     */
+    private void commitMeta(Path metaTmp, String bucketName, String objectName) throws IOException {
+        Path metaPath = metaPath(bucketName, objectName);
+        if (metaTmp == null) {
+            Files.deleteIfExists(metaPath);
+        } else {
+            commit(metaTmp, metaPath);
+        }
+    }
+
+    private static void deleteTemp(Path tmp, Path metaTmp) throws IOException {
+        Files.deleteIfExists(tmp);
+        if (metaTmp != null) {
+            Files.deleteIfExists(metaTmp);
+        }
+    }
+
+    private Properties readMeta(String bucketName, String objectName) throws IOException {
+        Properties meta = new Properties();
+        Path metaPath = metaPath(bucketName, objectName);
+        if (Files.exists(metaPath)) {
+            try (Reader reader = Files.newBufferedReader(metaPath, StandardCharsets.UTF_8)) {
+                meta.load(reader);
+            }
+        }
+        return meta;
+    }
+
+    private static Map<String, String> userMetadata(Properties meta) {
+        Map<String, String> metadata = new HashMap<>();
+        for (String name : meta.stringPropertyNames()) {
+            if (name.startsWith(USER_META_PREFIX)) {
+                metadata.put(name.substring(USER_META_PREFIX.length()), meta.getProperty(name));
+            }
+        }
+        return metadata;
+    }
+
+    private static void pruneEmptyParents(Path dir, Path stopAt) {
+        while (dir != null && dir.startsWith(stopAt) && !dir.equals(stopAt)) {
+            try {
+                Files.delete(dir);
+            } catch (IOException e) {
+                // 目录非空或已被删除
+                return;
+            }
+            dir = dir.getParent();
+        }
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> stream = Files.walk(dir)) {
+            for (Path path : stream.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * 内存映射区域的输入流
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public long transferTo(OutputStream out) throws IOException {
+            int n = buffer.remaining();
+            Channels.newChannel(out).write(buffer);
+            return n;
+        }
+    }
+
+    /**
+     * 基于文件通道的区间输入流，{@link #transferTo} 直接使用 {@link FileChannel#transferTo}
+     */
+    private static final class FileChannelInputStream extends InputStream {
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        FileChannelInputStream(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= end) {
+                return -1;
+            }
+            int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+            if (n > 0) {
+                position += n;
+            }
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, end - position);
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, end - position));
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public long transferTo(OutputStream out) throws IOException {
+            long start = position;
+            WritableByteChannel target = Channels.newChannel(out);
+            while (position < end) {
+                long n = channel.transferTo(position, end - position, target);
+                if (n <= 0) {
+                    break;
+                }
+                position += n;
+            }
+            return position - start;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
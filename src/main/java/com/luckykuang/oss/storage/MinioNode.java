@@ -0,0 +1,125 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.storage;
+
+import io.minio.MinioAsyncClient;
+import io.minio.MinioClient;
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * MinIO 节点：节点客户端与负载均衡所需的运行状态
+ * @author luckykuang
+ * @date 2026/10/19 13:40
+ */
+public final class MinioNode {
+
+    // 延迟平滑系数
+    private static final double EWMA_ALPHA = 0.2;
+
+    @Getter
+    private final String endpoint;
+
+    // 指标中使用的 endpoint 标签
+    @Getter
+    private final String tag;
+
+    @Getter
+    private final MinioClient client;
+
+    // 异步客户端，用于同步客户端未公开的分片上传接口
+    @Getter
+    private final MinioAsyncClient asyncClient;
+
+    // 进行中的请求数
+    final AtomicInteger outstanding = new AtomicInteger();
+
+    // 连续失败次数
+    final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    // 平均延迟(ns)，用于选择节点，并发更新时允许丢失少量样本
+    volatile double ewmaNanos;
+
+    // 按操作类型的平均延迟(ns)，用于判定慢节点：不同操作的耗时差异很大，混在一起会误判承担大对象请求的节点
+    final Map<String, Double> operationEwmaNanos = new ConcurrentHashMap<>();
+
+    // 最近一次健康检查结果
+    volatile boolean probeHealthy = true;
+
+    // 摘除截止时间(System.nanoTime)，0 表示未摘除
+    volatile long ejectedUntil;
+
+    // 连续被摘除的次数，用于摘除时长退避
+    int ejections;
+
+    // 最近一次恢复时间(System.nanoTime)
+    long readmittedAt;
+
+    // 熔断器
+    final CircuitBreaker breaker;
+
+    MinioNode(String endpoint, String tag, MinioClient client, MinioAsyncClient asyncClient, CircuitBreaker breaker) {
+        this.endpoint = endpoint;
+        this.tag = tag;
+        this.client = client;
+        this.asyncClient = asyncClient;
+        this.breaker = breaker;
+    }
+
+    /**
+     * 是否可参与负载均衡
+     */
+    boolean isAvailable(long now) {
+        return probeHealthy && (ejectedUntil == 0 || now - ejectedUntil >= 0);
+    }
+
+    boolean isEjected() {
+        return ejectedUntil != 0;
+    }
+
+    void recordLatency(String operation, long nanos) {
+        double current = ewmaNanos;
+        ewmaNanos = current == 0 ? nanos : current + EWMA_ALPHA * (nanos - current);
+        if (operation != null) {
+            operationEwmaNanos.merge(operation, (double) nanos, (old, sample) -> old + EWMA_ALPHA * (sample - old));
+        }
+    }
+
+    void resetLatency() {
+        ewmaNanos = 0;
+        operationEwmaNanos.clear();
+    }
+
+    /**
+     * 负载开销：平均延迟 x (进行中请求数 + 1)，未采样的节点优先被探索
+     */
+    double cost() {
+        return Math.max(ewmaNanos, 1.0) * (outstanding.get() + 1);
+    }
+
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    @Override
+    public String toString() {
+        return tag;
+    }
+}
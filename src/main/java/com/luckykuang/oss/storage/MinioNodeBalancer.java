@@ -0,0 +1,407 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.storage;
+
+import com.luckykuang.oss.base.ServiceUnavailableException;
+import com.luckykuang.oss.config.OssConfig;
+import com.luckykuang.oss.config.OssProperties;
+import com.luckykuang.oss.metrics.BackendCall;
+import com.luckykuang.oss.metrics.OssMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.minio.MinioAsyncClient;
+import io.minio.MinioClient;
+import io.minio.errors.ErrorResponseException;
+import io.minio.errors.ServerException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MinIO 多节点客户端负载均衡
+ * <ul>
+ *     <li>节点选择：p2c（随机取两个可用节点，选 平均延迟 x 进行中请求数 较小者）或 least-outstanding</li>
+ *     <li>摘除：连续失败达到阈值，或同类操作的平均延迟远高于其他节点；摘除时长按次数翻倍</li>
+ *     <li>恢复：摘除时间到期且健康检查通过后自动重新参与负载均衡</li>
+ *     <li>全部节点不可用时退化为在所有节点中选择，不直接拒绝请求</li>
+ *     <li>熔断：按节点统计失败率，熔断打开的节点不分配请求；全部节点熔断时快速失败并返回 503</li>
+ * </ul>
+ * @author luckykuang
+ * @date 2026/10/19 13:50
+ */
+@Slf4j
+@Component
+public class MinioNodeBalancer {
+
+    private static final String LEAST_OUTSTANDING = "least-outstanding";
+
+    // 耗时随传输字节数增长的操作，延迟反映的是对象大小而不是节点快慢，不参与慢节点判定
+    private static final Set<String> SIZE_BOUND_OPERATIONS = Set.of(OssMetrics.PUT, OssMetrics.COPY,
+            OssMetrics.COMPOSE, OssMetrics.MULTIPART);
+
+    private final OssProperties.Balancer config;
+    private final OssProperties.CircuitBreaker breakerConfig;
+    private final MinioNode[] nodes;
+    private final boolean leastOutstanding;
+    private final OkHttpClient probeClient;
+    private final MeterRegistry meterRegistry;
+    private final ScheduledExecutorService healthChecker;
+
+    public MinioNodeBalancer(OssProperties ossProperties, OkHttpClient minioHttpClient, MeterRegistry meterRegistry) {
+        this.config = ossProperties.getBalancer();
+        this.breakerConfig = ossProperties.getCircuitBreaker();
+        this.meterRegistry = meterRegistry;
+        this.leastOutstanding = LEAST_OUTSTANDING.equalsIgnoreCase(config.getStrategy());
+        List<String> endpoints = ossProperties.getEndpoints().isEmpty()
+                ? List.of(ossProperties.getEndpoint()) : ossProperties.getEndpoints();
+        List<MinioNode> list = new ArrayList<>(endpoints.size());
+        for (String endpoint : endpoints) {
+            OkHttpClient httpClient = OssConfig.forEndpoint(minioHttpClient, endpoint, ossProperties.getHttp().isHttp2());
+            MinioClient client = MinioClient.builder()
+                    .endpoint(endpoint)
+                    .credentials(ossProperties.getAccessKey(), ossProperties.getSecretKey())
+                    .region(ossProperties.getRegion())
+                    .httpClient(httpClient)
+                    .build();
+            MinioAsyncClient asyncClient = MinioAsyncClient.builder()
+                    .endpoint(endpoint)
+                    .credentials(ossProperties.getAccessKey(), ossProperties.getSecretKey())
+                    .region(ossProperties.getRegion())
+                    .httpClient(httpClient)
+                    .build();
+            MinioNode node = new MinioNode(endpoint, OssMetrics.endpointTag(endpoint), client, asyncClient,
+                    new CircuitBreaker(breakerConfig));
+            Gauge.builder("oss.balancer.node.outstanding", node, MinioNode::getOutstanding)
+                    .description("In-flight requests per object storage node")
+                    .tag("endpoint", node.getTag())
+                    .register(meterRegistry);
+            Gauge.builder("oss.balancer.node.available", node, n -> n.isAvailable(System.nanoTime()) ? 1 : 0)
+                    .description("Whether the object storage node is in rotation")
+                    .tag("endpoint", node.getTag())
+                    .register(meterRegistry);
+            Gauge.builder("oss.circuit.state", node, n -> n.breaker.state().ordinal())
+                    .description("Circuit breaker state per object storage node (0=closed, 1=open, 2=half-open)")
+                    .tag("endpoint", node.getTag())
+                    .register(meterRegistry);
+            list.add(node);
+        }
+        this.nodes = list.toArray(new MinioNode[0]);
+        this.probeClient = minioHttpClient.newBuilder()
+                .callTimeout(config.getHealthCheckTimeout())
+                .eventListener(EventListener.NONE)
+                .build();
+        // 单节点无需健康检查：不可用时也只能继续使用该节点
+        if (nodes.length > 1) {
+            long interval = config.getHealthCheckInterval().toMillis();
+            this.healthChecker = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("minio-health-check").daemon(true).factory());
+            this.healthChecker.scheduleWithFixedDelay(this::checkNodes, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            this.healthChecker = null;
+        }
+        log.info("MinIO 节点: {}, 选择策略: {}", list, leastOutstanding ? LEAST_OUTSTANDING : "p2c");
+    }
+
+    /**
+     * 全部节点
+     */
+    public List<MinioNode> nodes() {
+        return Arrays.asList(nodes);
+    }
+
+    /**
+     * 选择一个节点
+     * @return 节点
+     */
+    public MinioNode select() {
+        return select(null);
+    }
+
+    /**
+     * 选择一个节点，尽量避开指定节点（用于重试、对冲请求）
+     * @param exclude 需要避开的节点，可为 null
+     * @return 节点，没有其他节点可用时可能返回 exclude
+     * @throws ServiceUnavailableException 全部节点熔断
+     */
+    public MinioNode select(MinioNode exclude) {
+        long now = System.nanoTime();
+        if (nodes.length == 1) {
+            return acquire(nodes[0], now);
+        }
+        MinioNode[] candidates = new MinioNode[nodes.length];
+        int count = 0;
+        for (MinioNode node : nodes) {
+            if (node != exclude && node.isAvailable(now) && node.breaker.allowsRequest(now)) {
+                candidates[count++] = node;
+            }
+        }
+        if (count == 0) {
+            // 没有可用节点时退化为全部未熔断节点
+            for (MinioNode node : nodes) {
+                if (node != exclude && node.breaker.allowsRequest(now)) {
+                    candidates[count++] = node;
+                }
+            }
+        }
+        if (count == 0) {
+            if (exclude == null) {
+                throw unavailable(now);
+            }
+            // 其他节点全部熔断，只能回到 exclude
+            return acquire(exclude, now);
+        }
+        MinioNode selected = pick(candidates, count);
+        if (selected.breaker.tryAcquire(now)) {
+            return selected;
+        }
+        // 半开试探名额被并发请求抢占，依次尝试其他候选节点
+        for (int i = 0; i < count; i++) {
+            if (candidates[i].breaker.tryAcquire(now)) {
+                return candidates[i];
+            }
+        }
+        throw unavailable(now);
+    }
+
+    private MinioNode pick(MinioNode[] candidates, int count) {
+        if (count == 1) {
+            return candidates[0];
+        }
+        if (leastOutstanding) {
+            return leastOutstanding(candidates, count);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(count);
+        int second = random.nextInt(count - 1);
+        if (second >= first) {
+            second++;
+        }
+        MinioNode a = candidates[first];
+        MinioNode b = candidates[second];
+        return a.cost() <= b.cost() ? a : b;
+    }
+
+    private MinioNode acquire(MinioNode node, long now) {
+        if (node.breaker.tryAcquire(now)) {
+            return node;
+        }
+        throw unavailable(now);
+    }
+
+    /**
+     * 全部节点熔断：Retry-After 取最早进入半开状态的节点
+     */
+    private ServiceUnavailableException unavailable(long now) {
+        long retryAfter = Long.MAX_VALUE;
+        for (MinioNode node : nodes) {
+            retryAfter = Math.min(retryAfter, node.breaker.retryAfterNanos(now));
+        }
+        return new ServiceUnavailableException(TimeUnit.NANOSECONDS.toSeconds(retryAfter + 999_999_999L));
+    }
+
+    /**
+     * 在指定节点上执行调用，统计进行中请求数、延迟与失败次数
+     * @param node 节点
+     * @param operation 操作类型，见 OssMetrics，延迟按操作类型分别统计
+     * @param call 调用
+     * @return 调用结果
+     */
+    public <T> T execute(MinioNode node, String operation, BackendCall<T> call) throws Exception {
+        node.outstanding.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            T result = call.call();
+            node.recordLatency(operation, System.nanoTime() - start);
+            node.consecutiveFailures.set(0);
+            node.breaker.onSuccess();
+            return result;
+        } catch (Exception e) {
+            if (isNodeFailure(e)) {
+                long now = System.nanoTime();
+                node.recordLatency(operation, now - start);
+                if (node.breaker.onFailure(now)) {
+                    log.warn("MinIO 节点 {} 熔断，时长: {}ms", node, breakerConfig.getOpenDuration().toMillis());
+                }
+                if (node.consecutiveFailures.incrementAndGet() >= config.getFailureThreshold()) {
+                    eject(node, "failure");
+                }
+            } else {
+                node.breaker.onSuccess();
+            }
+            throw e;
+        } finally {
+            node.outstanding.decrementAndGet();
+        }
+    }
+
+    /**
+     * 是否为节点故障（网络异常、5xx），业务错误（如对象不存在）不计入
+     */
+    static boolean isNodeFailure(Throwable e) {
+        if (e instanceof IOException || e instanceof ServerException) {
+            return true;
+        }
+        return e instanceof ErrorResponseException errorResponse
+                && errorResponse.response() != null && errorResponse.response().code() >= 500;
+    }
+
+    private static MinioNode leastOutstanding(MinioNode[] candidates, int count) {
+        // 从随机位置开始扫描，进行中请求数相同时分散到不同节点
+        int offset = ThreadLocalRandom.current().nextInt(count);
+        MinioNode best = null;
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            MinioNode node = candidates[(offset + i) % count];
+            int outstanding = node.outstanding.get();
+            if (outstanding < min) {
+                min = outstanding;
+                best = node;
+            }
+        }
+        return best;
+    }
+
+    private synchronized void eject(MinioNode node, String reason) {
+        long now = System.nanoTime();
+        if (node.isEjected() && !node.isAvailable(now)) {
+            return;
+        }
+        int ejected = 0;
+        for (MinioNode n : nodes) {
+            if (n != node && !n.isAvailable(now)) {
+                ejected++;
+            }
+        }
+        if (ejected + 1 > (int) (nodes.length * config.getMaxEjectionRatio())) {
+            log.warn("MinIO 节点 {} 满足摘除条件({})，但已达到最大摘除比例", node, reason);
+            return;
+        }
+        long duration = Math.min(config.getEjectDuration().toNanos() << Math.min(node.ejections, 16),
+                config.getMaxEjectDuration().toNanos());
+        node.ejections++;
+        node.ejectedUntil = now + duration;
+        Counter.builder("oss.balancer.ejections")
+                .description("Object storage node ejections")
+                .tags("endpoint", node.getTag(), "reason", reason)
+                .register(meterRegistry)
+                .increment();
+        log.warn("摘除 MinIO 节点 {}，原因: {}，时长: {}ms", node, reason, TimeUnit.NANOSECONDS.toMillis(duration));
+    }
+
+    /**
+     * 健康检查：探测节点存活、恢复到期节点、摘除慢节点
+     */
+    private void checkNodes() {
+        try {
+            for (MinioNode node : nodes) {
+                boolean healthy = probe(node);
+                if (node.probeHealthy != healthy) {
+                    log.warn("MinIO 节点 {} 健康检查{}", node, healthy ? "恢复" : "失败");
+                }
+                node.probeHealthy = healthy;
+            }
+            long now = System.nanoTime();
+            synchronized (this) {
+                for (MinioNode node : nodes) {
+                    if (node.isEjected() && node.isAvailable(now)) {
+                        node.ejectedUntil = 0;
+                        node.consecutiveFailures.set(0);
+                        node.resetLatency();
+                        node.readmittedAt = now;
+                        log.info("MinIO 节点 {} 恢复", node);
+                    } else if (!node.isEjected() && node.ejections > 0
+                            && now - node.readmittedAt > config.getMaxEjectDuration().toNanos()) {
+                        // 恢复后长期稳定，重置摘除退避
+                        node.ejections = 0;
+                    }
+                }
+            }
+            ejectSlowNodes(now);
+        } catch (Exception e) {
+            log.error("MinIO 节点健康检查异常", e);
+        }
+    }
+
+    /**
+     * 按操作类型分别比较各节点的平均延迟，任一类操作明显慢于其他节点即摘除
+     */
+    private void ejectSlowNodes(long now) {
+        Set<String> operations = new HashSet<>();
+        for (MinioNode node : nodes) {
+            operations.addAll(node.operationEwmaNanos.keySet());
+        }
+        operations.removeAll(SIZE_BOUND_OPERATIONS);
+        for (String operation : operations) {
+            List<MinioNode> available = new ArrayList<>(nodes.length);
+            List<Double> latencies = new ArrayList<>(nodes.length);
+            for (MinioNode node : nodes) {
+                Double latency = node.operationEwmaNanos.get(operation);
+                if (node.isAvailable(now) && latency != null) {
+                    available.add(node);
+                    latencies.add(latency);
+                }
+            }
+            // 至少三个节点才能可靠地判断离群
+            if (available.size() < 3) {
+                continue;
+            }
+            double[] sorted = latencies.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+            double median = sorted[sorted.length / 2];
+            double threshold = Math.max(median * config.getSlowFactor(), config.getSlowMinLatency().toNanos());
+            for (int i = 0; i < available.size(); i++) {
+                if (latencies.get(i) > threshold) {
+                    log.info("MinIO 节点 {} {} 平均延迟 {}ms，中位数 {}ms", available.get(i), operation,
+                            (long) (latencies.get(i) / 1_000_000), (long) (median / 1_000_000));
+                    eject(available.get(i), "slow");
+                }
+            }
+        }
+    }
+
+    private boolean probe(MinioNode node) {
+        String url = node.getEndpoint().replaceAll("/+$", "") + config.getHealthPath();
+        Request request = new Request.Builder().url(url).get().build();
+        try (Response response = probeClient.newCall(request).execute()) {
+            return response.isSuccessful();
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,555 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.storage;
+
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Multimap;
+import com.luckykuang.oss.metrics.OssMetrics;
+import io.minio.*;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.Bucket;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Expiration;
+import io.minio.messages.Item;
+import io.minio.messages.LifecycleConfiguration;
+import io.minio.messages.LifecycleRule;
+import io.minio.messages.ListPartsResult;
+import io.minio.messages.Part;
+import io.minio.messages.RuleFilter;
+import io.minio.messages.Status;
+import jakarta.annotation.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * MinIO 存储后端
+ * @author luckykuang
+ * @date 2026/10/19 11:50
+ */
+@Component
+public class MinioStorageBackend implements StorageBackend {
+
+    public static final String TYPE = "minio";
+
+    // 批量签名达到该数量时并行计算
+    private static final int PARALLEL_PRESIGN_THRESHOLD = 64;
+
+    // ListParts 单页最大分片数
+    private static final int LIST_PARTS_PAGE_SIZE = 1000;
+
+    @Resource
+    private MinioNodeBalancer minioNodeBalancer;
+
+    @Resource
+    private ReadHedger readHedger;
+
+    @Resource
+    private RetryPolicy retryPolicy;
+
+    @Resource(name = "minioCdnClient")
+    private MinioClient minioCdnClient;
+
+    @Resource
+    private OssMetrics ossMetrics;
+
+    @Resource
+    private PresignSigner presignSigner;
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public boolean isNotFound(Exception e) {
+        return e instanceof ErrorResponseException errorResponse
+                && "NoSuchKey".equals(errorResponse.errorResponse().code());
+    }
+
+    @Override
+    public boolean bucketExists(String bucketName) throws Exception {
+        BucketExistsArgs args = BucketExistsArgs.builder()
+                .bucket(bucketName)
+                .build();
+        return retrying(OssMetrics.BUCKET, bucketName, minioClient -> minioClient.bucketExists(args));
+    }
+
+    @Override
+    public void makeBucket(String bucketName) throws Exception {
+        MakeBucketArgs args = MakeBucketArgs.builder()
+                .bucket(bucketName)
+                .build();
+        execute(OssMetrics.BUCKET, bucketName, minioClient -> {
+            minioClient.makeBucket(args);
+            return null;
+        });
+    }
+
+    @Override
+    public void removeBucket(String bucketName) throws Exception {
+        RemoveBucketArgs args = RemoveBucketArgs.builder()
+                .bucket(bucketName)
+                .build();
+        execute(OssMetrics.BUCKET, bucketName, minioClient -> {
+            minioClient.removeBucket(args);
+            return null;
+        });
+    }
+
+    @Override
+    public List<String> listBuckets() throws Exception {
+        List<Bucket> buckets = retrying(OssMetrics.BUCKET, null, minioClient -> minioClient.listBuckets());
+        return buckets.stream().map(Bucket::name).toList();
+    }
+
+    @Override
+    public void setBucketPolicy(String bucketName, String policy) throws Exception {
+        SetBucketPolicyArgs args = SetBucketPolicyArgs.builder()
+                .bucket(bucketName)
+                // 策略配置
+                .config(policy)
+                .build();
+        retrying(OssMetrics.BUCKET, bucketName, minioClient -> {
+            minioClient.setBucketPolicy(args);
+            return null;
+        });
+    }
+
+    @Override
+    public String getBucketPolicy(String bucketName) throws Exception {
+        GetBucketPolicyArgs args = GetBucketPolicyArgs.builder()
+                .bucket(bucketName)
+                .build();
+        return retrying(OssMetrics.BUCKET, bucketName, minioClient -> minioClient.getBucketPolicy(args));
+    }
+
+    @Override
+    public void putObject(String bucketName, String objectName, InputStream stream, long size, String contentType,
+                          String contentEncoding, Map<String, String> metadata) throws Exception {
+        PutObjectArgs.Builder builder = PutObjectArgs.builder()
+                .bucket(bucketName)
+                .object(objectName)
+                // 大小未知时按最小分片缓冲，不足一个分片的对象仍是单次 PUT
+                .stream(stream, size, size < 0 ? ObjectWriteArgs.MIN_MULTIPART_SIZE : -1);
+        if (contentType != null) {
+            builder.contentType(contentType);
+        }
+        if (contentEncoding != null) {
+            builder.headers(Map.of("Content-Encoding", contentEncoding));
+        }
+        if (!metadata.isEmpty()) {
+            builder.userMetadata(metadata);
+        }
+        PutObjectArgs args = builder.build();
+        execute(OssMetrics.PUT, bucketName, minioClient -> minioClient.putObject(args));
+    }
+
+    @Override
+    public InputStream getObject(String bucketName, String objectName, long offset, Long length) throws Exception {
+        return getObject(bucketName, objectName, offset, length, null);
+    }
+
+    @Override
+    public InputStream getObject(String bucketName, String objectName, long offset, Long length, String matchETag)
+            throws Exception {
+        GetObjectArgs.Builder builder = GetObjectArgs.builder()
+                .bucket(bucketName)
+                .object(objectName);
+        // 全量读取不带 Range 头
+        if (offset > 0 || length != null) {
+            builder.offset(offset).length(length);
+        }
+        if (matchETag != null) {
+            builder.matchETag(matchETag);
+        }
+        GetObjectArgs args = builder.build();
+        return hedged(OssMetrics.GET, bucketName, minioClient -> minioClient.getObject(args), InputStream::close);
+    }
+
+    @Override
+    public ObjectStat statObject(String bucketName, String objectName) throws Exception {
+        StatObjectArgs args = StatObjectArgs.builder()
+                .bucket(bucketName)
+                .object(objectName)
+                .build();
+        StatObjectResponse stat = hedged(OssMetrics.STAT, bucketName, minioClient -> minioClient.statObject(args), null);
+        return new ObjectStat(bucketName, objectName, stat.size(), stat.etag(), stat.lastModified(), stat.contentType(),
+                stat.headers().get("Content-Encoding"), stat.userMetadata());
+    }
+
+    @Override
+    public List<ObjectItem> listObjects(String bucketName, String prefix, boolean recursive, int maxKeys) throws Exception {
+        ListObjectsArgs.Builder builder = ListObjectsArgs.builder()
+                .bucket(bucketName)
+                .prefix(prefix)
+                .recursive(recursive);
+        if (maxKeys > 0) {
+            builder.maxKeys(maxKeys);
+        }
+        ListObjectsArgs args = builder.build();
+        return retrying(OssMetrics.LIST, bucketName, minioClient -> {
+            List<ObjectItem> items = new ArrayList<>();
+            for (Result<Item> result : minioClient.listObjects(args)) {
+                Item item = result.get();
+                items.add(item.isDir() ? new ObjectItem(item.objectName(), 0, true, null, null)
+                        : new ObjectItem(item.objectName(), item.size(), false, item.lastModified(),
+                        item.etag() == null ? null : item.etag().replace("\"", "")));
+            }
+            return items;
+        });
+    }
+
+    @Override
+    public void composeObject(String bucketName, String objectName, List<String> sources) throws Exception {
+        List<ComposeSource> composeSources = new ArrayList<>(sources.size());
+        for (String source : sources) {
+            composeSources.add(ComposeSource.builder()
+                    .bucket(bucketName)
+                    .object(source)
+                    .build());
+        }
+        ComposeObjectArgs args = ComposeObjectArgs.builder()
+                .bucket(bucketName)
+                .object(objectName)
+                .sources(composeSources)
+                .build();
+        execute(OssMetrics.COMPOSE, bucketName, minioClient -> minioClient.composeObject(args));
+    }
+
+    /**
+     * CopyObject 单次请求最大 5GB，更大的对象需使用分片拷贝，见 {@link #uploadPartCopy}
+     */
+    @Override
+    public void copyObject(String sourceBucketName, String sourceObjectName, String bucketName, String objectName)
+            throws Exception {
+        CopyObjectArgs args = CopyObjectArgs.builder()
+                .bucket(bucketName)
+                .object(objectName)
+                // 默认元数据指令为 COPY，保留源对象的文件类型、内容编码与用户元数据
+                .source(CopySource.builder()
+                        .bucket(sourceBucketName)
+                        .object(sourceObjectName)
+                        .build())
+                .build();
+        // 目标内容只由源对象决定，重复执行结果一致
+        retrying(OssMetrics.COPY, bucketName, minioClient -> minioClient.copyObject(args));
+    }
+
+    @Override
+    public void removeObject(String bucketName, String objectName) throws Exception {
+        RemoveObjectArgs args = RemoveObjectArgs.builder()
+                .bucket(bucketName)
+                .object(objectName)
+                .build();
+        retrying(OssMetrics.REMOVE, bucketName, minioClient -> {
+            minioClient.removeObject(args);
+            return null;
+        });
+    }
+
+    /**
+     * 使用 DeleteObjects 批量删除，SDK 按每批 1000 个对象自动分批
+     */
+    @Override
+    public List<String> removeObjects(String bucketName, List<String> objectNames) throws Exception {
+        List<DeleteObject> objects = objectNames.stream().map(DeleteObject::new).toList();
+        RemoveObjectsArgs args = RemoveObjectsArgs.builder()
+                .bucket(bucketName)
+                .objects(objects)
+                .build();
+        return retrying(OssMetrics.REMOVE, bucketName, minioClient -> {
+            // 结果是惰性的，遍历时才发出请求，只返回删除失败的对象
+            List<String> failed = new ArrayList<>();
+            for (Result<DeleteError> result : minioClient.removeObjects(args)) {
+                failed.add(result.get().objectName());
+            }
+            return failed;
+        });
+    }
+
+    @Override
+    public void setExpirationRule(String bucketName, String ruleId, String prefix, int days) throws Exception {
+        LifecycleRule rule = new LifecycleRule(Status.ENABLED, null, new Expiration((ZonedDateTime) null, days, null),
+                new RuleFilter(prefix), ruleId, null, null, null);
+        retrying(OssMetrics.BUCKET, bucketName, minioClient -> {
+            LifecycleConfiguration current = minioClient.getBucketLifecycle(GetBucketLifecycleArgs.builder()
+                    .bucket(bucketName)
+                    .build());
+            List<LifecycleRule> rules = new ArrayList<>();
+            if (current != null) {
+                for (LifecycleRule existing : current.rules()) {
+                    if (!ruleId.equals(existing.id())) {
+                        rules.add(existing);
+                    }
+                }
+            }
+            rules.add(rule);
+            minioClient.setBucketLifecycle(SetBucketLifecycleArgs.builder()
+                    .bucket(bucketName)
+                    .config(new LifecycleConfiguration(rules))
+                    .build());
+            return null;
+        });
+    }
+
+    @Override
+    public String getPresignedObjectUrl(String bucketName, String objectName, int expirySeconds) throws Exception {
+        GetPresignedObjectUrlArgs args = GetPresignedObjectUrlArgs.builder()
+                .bucket(bucketName)
+                .object(objectName)
+                .method(io.minio.http.Method.GET)
+                .expiry(expirySeconds, TimeUnit.SECONDS)
+                .build();
+        // 使用 CDN 客户端生成 presigned URL，这样访问时会通过 CDN
+        return ossMetrics.record(OssMetrics.PRESIGN, bucketName, ossMetrics.cdnEndpoint(),
+                () -> minioCdnClient.getPresignedObjectUrl(args));
+    }
+
+    /**
+     * 批量签名在进程内完成：共用签名时间与派生的签名密钥，数量较多时并行计算
+     */
+    @Override
+    public List<String> getPresignedObjectUrls(String bucketName, List<String> objectNames, int expirySeconds)
+            throws Exception {
+        ZonedDateTime signedAt = presignSigner.now();
+        Stream<String> stream = objectNames.size() >= PARALLEL_PRESIGN_THRESHOLD
+                ? objectNames.parallelStream() : objectNames.stream();
+        return ossMetrics.record(OssMetrics.PRESIGN, bucketName, ossMetrics.cdnEndpoint(),
+                () -> stream.map(objectName -> presignSigner.presign(io.minio.http.Method.GET.name(), bucketName,
+                        objectName, null, expirySeconds, signedAt)).toList());
+    }
+
+    @Override
+    public String getPresignedPutObjectUrl(String bucketName, String objectName, int expirySeconds) throws Exception {
+        return ossMetrics.record(OssMetrics.PRESIGN, bucketName, ossMetrics.cdnEndpoint(),
+                () -> presignSigner.presign(io.minio.http.Method.PUT.name(), bucketName, objectName, null,
+                        expirySeconds, presignSigner.now()));
+    }
+
+    @Override
+    public Map<String, String> getPresignedPostFormData(String bucketName, String objectName, String contentType,
+                                                        long maxSize, int expirySeconds) throws Exception {
+        return ossMetrics.record(OssMetrics.PRESIGN, bucketName, ossMetrics.cdnEndpoint(),
+                () -> presignSigner.postFormData(bucketName, objectName, contentType, maxSize, expirySeconds));
+    }
+
+    @Override
+    public String createMultipartUpload(String bucketName, String objectName, String contentType,
+                                        String contentEncoding, Map<String, String> metadata) throws Exception {
+        ImmutableMultimap.Builder<String, String> builder = ImmutableMultimap.builder();
+        if (contentType != null) {
+            builder.put("Content-Type", contentType);
+        }
+        if (contentEncoding != null) {
+            builder.put("Content-Encoding", contentEncoding);
+        }
+        metadata.forEach((name, value) -> builder.put("x-amz-meta-" + name, value));
+        ImmutableMultimap<String, String> headers = builder.build();
+        CreateMultipartUploadResponse response = executeAsync(OssMetrics.MULTIPART, bucketName,
+                client -> client.createMultipartUploadAsync(bucketName, null, objectName, headers.isEmpty() ? null : headers,
+                        null));
+        return response.result().uploadId();
+    }
+
+    @Override
+    public UploadPart uploadPartCopy(String bucketName, String objectName, String uploadId, int partNumber,
+                                     String sourceBucketName, String sourceObjectName, long offset, long length)
+            throws Exception {
+        Multimap<String, String> headers = ImmutableMultimap.of(
+                "x-amz-copy-source", S3Escaper.encodePath(sourceBucketName + "/" + sourceObjectName),
+                "x-amz-copy-source-range", "bytes=" + offset + "-" + (offset + length - 1));
+        // 同一分片序号重复上传会覆盖，可安全重试
+        UploadPartCopyResponse response = retryingAsync(OssMetrics.COPY, bucketName, client ->
+                client.uploadPartCopyAsync(bucketName, null, objectName, uploadId, partNumber, headers, null));
+        return new UploadPart(partNumber, response.result().etag());
+    }
+
+    /**
+     * 分片 url 在进程内签名，共用签名时间与派生的签名密钥
+     */
+    @Override
+    public List<String> getPresignedUploadPartUrls(String bucketName, String objectName, String uploadId,
+                                                   int partCount, int expirySeconds) throws Exception {
+        ZonedDateTime signedAt = presignSigner.now();
+        return ossMetrics.record(OssMetrics.PRESIGN, bucketName, ossMetrics.cdnEndpoint(), () -> {
+            List<String> urls = new ArrayList<>(partCount);
+            for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+                urls.add(presignSigner.presign(io.minio.http.Method.PUT.name(), bucketName, objectName,
+                        Map.of("partNumber", String.valueOf(partNumber), "uploadId", uploadId),
+                        expirySeconds, signedAt));
+            }
+            return urls;
+        });
+    }
+
+    @Override
+    public List<UploadPart> listUploadParts(String bucketName, String objectName, String uploadId) throws Exception {
+        return retryingAsync(OssMetrics.MULTIPART, bucketName, client -> {
+            // 逐页查询，分页串行，整体作为一次调用计入指标
+            CompletableFuture<List<UploadPart>> future = new CompletableFuture<>();
+            listPartsPage(client, bucketName, objectName, uploadId, null, new ArrayList<>(), future);
+            return future;
+        });
+    }
+
+    private void listPartsPage(MinioAsyncClient client, String bucketName, String objectName, String uploadId,
+                               Integer marker, List<UploadPart> parts, CompletableFuture<List<UploadPart>> future) {
+        try {
+            client.listPartsAsync(bucketName, null, objectName, LIST_PARTS_PAGE_SIZE, marker, uploadId, null, null)
+                    .whenComplete((response, e) -> {
+                        if (e != null) {
+                            future.completeExceptionally(e);
+                            return;
+                        }
+                        ListPartsResult result = response.result();
+                        for (Part part : result.partList()) {
+                            parts.add(new UploadPart(part.partNumber(), part.etag()));
+                        }
+                        if (result.isTruncated()) {
+                            listPartsPage(client, bucketName, objectName, uploadId, result.nextPartNumberMarker(),
+                                    parts, future);
+                        } else {
+                            future.complete(parts);
+                        }
+                    });
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    @Override
+    public void completeMultipartUpload(String bucketName, String objectName, String uploadId,
+                                        List<UploadPart> parts) throws Exception {
+        Part[] completeParts = new Part[parts.size()];
+        for (int i = 0; i < completeParts.length; i++) {
+            completeParts[i] = new Part(parts.get(i).partNumber(), parts.get(i).etag());
+        }
+        executeAsync(OssMetrics.MULTIPART, bucketName, client -> client.completeMultipartUploadAsync(bucketName, null,
+                objectName, uploadId, completeParts, null, null));
+    }
+
+    @Override
+    public void abortMultipartUpload(String bucketName, String objectName, String uploadId) throws Exception {
+        retryingAsync(OssMetrics.MULTIPART, bucketName,
+                client -> client.abortMultipartUploadAsync(bucketName, null, objectName, uploadId, null, null));
+    }
+
+    /**
+     * 由负载均衡选择节点执行调用，并记录指标；用于非幂等操作（上传、合并、创建存储桶），不重试
+     */
+    private <T> T execute(String operation, String bucketName, NodeCall<T> call) throws Exception {
+        return executeOn(minioNodeBalancer.select(), operation, bucketName, call);
+    }
+
+    /**
+     * 幂等操作：节点故障时换一个节点重试
+     */
+    private <T> T retrying(String operation, String bucketName, NodeCall<T> call) throws Exception {
+        MinioNode[] last = new MinioNode[1];
+        return retryPolicy.execute(operation, () -> {
+            MinioNode node = minioNodeBalancer.select(last[0]);
+            last[0] = node;
+            return executeOn(node, operation, bucketName, call);
+        });
+    }
+
+    /**
+     * 幂等读请求：开启对冲读时，主请求过慢则向另一个节点发送相同请求；对冲后仍失败则整体重试
+     */
+    private <T> T hedged(String operation, String bucketName, NodeCall<T> call, ReadHedger.Discard<T> discard)
+            throws Exception {
+        if (!readHedger.isEnabled()) {
+            return retrying(operation, bucketName, call);
+        }
+        MinioNode[] last = new MinioNode[1];
+        return retryPolicy.execute(operation, () -> {
+            MinioNode primary = minioNodeBalancer.select(last[0]);
+            last[0] = primary;
+            return readHedger.execute(operation, primary, () -> minioNodeBalancer.select(primary),
+                    node -> executeOn(node, operation, bucketName, call), discard);
+        });
+    }
+
+    private <T> T executeOn(MinioNode node, String operation, String bucketName, NodeCall<T> call) throws Exception {
+        return minioNodeBalancer.execute(node, operation,
+                () -> ossMetrics.record(operation, bucketName, node.getTag(), () -> call.call(node.getClient())));
+    }
+
+    /**
+     * 异步客户端调用，不重试；同步客户端未公开的接口（分片上传）使用
+     */
+    private <T> T executeAsync(String operation, String bucketName, AsyncNodeCall<T> call) throws Exception {
+        return executeAsyncOn(minioNodeBalancer.select(), operation, bucketName, call);
+    }
+
+    /**
+     * 幂等的异步客户端调用：节点故障时换一个节点重试
+     */
+    private <T> T retryingAsync(String operation, String bucketName, AsyncNodeCall<T> call) throws Exception {
+        MinioNode[] last = new MinioNode[1];
+        return retryPolicy.execute(operation, () -> {
+            MinioNode node = minioNodeBalancer.select(last[0]);
+            last[0] = node;
+            return executeAsyncOn(node, operation, bucketName, call);
+        });
+    }
+
+    private <T> T executeAsyncOn(MinioNode node, String operation, String bucketName, AsyncNodeCall<T> call)
+            throws Exception {
+        return minioNodeBalancer.execute(node, operation, () -> ossMetrics.record(operation, bucketName, node.getTag(),
+                () -> await(call.call(node.getAsyncClient()))));
+    }
+
+    /**
+     * 等待异步调用完成，抛出原始异常，便于按节点故障分类
+     */
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException | CompletionException e) {
+            Throwable cause = e.getCause();
+            while (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    private interface NodeCall<T> {
+        T call(MinioClient minioClient) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface AsyncNodeCall<T> {
+        CompletableFuture<T> call(MinioAsyncClient minioClient) throws Exception;
+    }
+}
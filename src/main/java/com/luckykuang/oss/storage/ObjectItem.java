@@ -0,0 +1,33 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.storage;
+
+import java.time.ZonedDateTime;
+
+/**
+ * 列表结果项
+ * @param objectName 对象路径，目录以 "/" 结尾
+ * @param size 对象大小，目录为 0
+ * @param dir 是否为目录
+ * @param lastModified 最后修改时间，目录为 null
+ * @param etag 对象 ETag（不含引号），目录为 null
+ * @author luckykuang
+ * @date 2026/10/19 11:43
+ */
+public record ObjectItem(String objectName, long size, boolean dir, ZonedDateTime lastModified,
+                         String etag) {
+}
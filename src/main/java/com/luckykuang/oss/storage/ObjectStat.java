@@ -0,0 +1,38 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.storage;
+
+import java.time.ZonedDateTime;
+import java.util.Map;
+
+/**
+ * 对象信息
+ * @param bucketName 存储桶名称
+ * @param objectName 对象路径
+ * @param size 对象大小
+ * @param etag 对象 ETag（不含引号）
+ * @param lastModified 最后修改时间
+ * @param contentType 文件类型
+ * @param contentEncoding 内容编码（如 gzip），未编码时为 null
+ * @param metadata 用户元数据（不含 x-amz-meta- 前缀），不为 null
+ * @author luckykuang
+ * @date 2026/10/19 11:42
+ */
+public record ObjectStat(String bucketName, String objectName, long size, String etag,
+                         ZonedDateTime lastModified, String contentType, String contentEncoding,
+                         Map<String, String> metadata) {
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.storage;
+
+import com.luckykuang.oss.config.OssProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对冲读
+ * <p>主请求在延迟阈值（该操作近期延迟的分位数）内未返回时，向另一个节点发送相同请求，先成功者胜出。
+ * 落败请求不会被中断（中断会使 MinIO 客户端丢失响应导致连接泄漏），而是在返回后立即丢弃结果：
+ * 对象流会被关闭，未读取的响应体随之放弃</p>
+ * <p>对冲预算：每个读请求积累 budget-ratio 次对冲额度，最多累积 budget-burst 次，额度不足时不对冲</p>
+ * @author luckykuang
+ * @date 2026/10/19 14:20
+ */
+@Slf4j
+@Component
+public class ReadHedger {
+
+    private final OssProperties.Hedge config;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, OperationState> states = new ConcurrentHashMap<>();
+    private final RequestBudget budget;
+
+    public ReadHedger(OssProperties ossProperties, MeterRegistry meterRegistry) {
+        this.config = ossProperties.getHedge();
+        this.meterRegistry = meterRegistry;
+        this.budget = new RequestBudget(config.getBudgetRatio(), config.getBudgetBurst());
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * 对冲执行读请求
+     * @param operation 操作
+     * @param primary 主请求节点
+     * @param alternate 对冲请求节点选择
+     * @param attempt 在指定节点上执行的请求
+     * @param discard 丢弃落败请求结果（如关闭对象流），可为 null
+     * @return 先成功返回的结果
+     */
+    public <T> T execute(String operation, MinioNode primary, Callable<MinioNode> alternate,
+                         Attempt<T> attempt, Discard<T> discard) throws Exception {
+        OperationState state = states.computeIfAbsent(operation, this::newState);
+        budget.deposit();
+
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        submit(state, primary, attempt, discard, winner, pending, false);
+        try {
+            return winner.get(state.delayNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // 主请求超过对冲延迟仍未返回
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+
+        MinioNode secondary = budget.tryAcquire() ? selectAlternate(alternate) : null;
+        if (secondary != null) {
+            state.fired.increment();
+            pending.incrementAndGet();
+            submit(state, secondary, attempt, discard, winner, pending, true);
+        } else {
+            state.skipped.increment();
+        }
+        try {
+            return winner.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    /**
+     * 选择对冲节点，没有可用节点（如全部熔断）时放弃对冲，继续等待主请求
+     */
+    private static MinioNode selectAlternate(Callable<MinioNode> alternate) {
+        try {
+            return alternate.call();
+        } catch (Exception e) {
+            log.debug("对冲节点选择失败", e);
+            return null;
+        }
+    }
+
+    private <T> void submit(OperationState state, MinioNode node, Attempt<T> attempt, Discard<T> discard,
+                            CompletableFuture<T> winner, AtomicInteger pending, boolean hedge) {
+        executor.execute(() -> {
+            long start = System.nanoTime();
+            T result;
+            try {
+                result = attempt.call(node);
+            } catch (Throwable e) {
+                // 两个请求都失败时才返回异常
+                if (pending.decrementAndGet() == 0) {
+                    winner.completeExceptionally(e);
+                }
+                return;
+            }
+            state.record(System.nanoTime() - start);
+            if (winner.complete(result)) {
+                if (hedge) {
+                    state.won.increment();
+                }
+            } else if (discard != null) {
+                try {
+                    discard.discard(result);
+                } catch (Exception e) {
+                    log.debug("丢弃对冲落败结果异常", e);
+                }
+            }
+        });
+    }
+
+    private static Exception unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof Exception exception) {
+            return exception;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return e;
+    }
+
+    private OperationState newState(String operation) {
+        OperationState state = new OperationState(operation, config, meterRegistry);
+        TimeGauge.builder("oss.hedge.delay", state, TimeUnit.NANOSECONDS, s -> s.delayNanos)
+                .description("Current hedging delay")
+                .tag("operation", operation)
+                .register(meterRegistry);
+        return state;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 在指定节点上执行的请求
+     */
+    @FunctionalInterface
+    public interface Attempt<T> {
+        T call(MinioNode node) throws Exception;
+    }
+
+    /**
+     * 丢弃落败请求的结果
+     */
+    @FunctionalInterface
+    public interface Discard<T> {
+        void discard(T result) throws Exception;
+    }
+
+    /**
+     * 单个操作的延迟样本与对冲指标
+     */
+    private static final class OperationState {
+        private static final int WINDOW = 512;
+        private static final int RECOMPUTE_EVERY = 64;
+
+        private final long[] samples = new long[WINDOW];
+        private final AtomicLong count = new AtomicLong();
+        private final double percentile;
+        private final long minDelay;
+        private final long maxDelay;
+        private final Counter fired;
+        private final Counter won;
+        private final Counter skipped;
+        private volatile long delayNanos;
+
+        OperationState(String operation, OssProperties.Hedge config, MeterRegistry meterRegistry) {
+            this.percentile = config.getPercentile();
+            this.minDelay = config.getMinDelay().toNanos();
+            this.maxDelay = config.getMaxDelay().toNanos();
+            this.delayNanos = maxDelay;
+            this.fired = Counter.builder("oss.hedge.requests")
+                    .description("Hedged read requests")
+                    .tags("operation", operation, "outcome", "fired")
+                    .register(meterRegistry);
+            this.won = Counter.builder("oss.hedge.requests")
+                    .description("Hedged read requests")
+                    .tags("operation", operation, "outcome", "won")
+                    .register(meterRegistry);
+            this.skipped = Counter.builder("oss.hedge.requests")
+                    .description("Hedged read requests")
+                    .tags("operation", operation, "outcome", "budget_exhausted")
+                    .register(meterRegistry);
+        }
+
+        /**
+         * 记录一次成功请求的延迟，每 RECOMPUTE_EVERY 个样本重新计算一次对冲延迟
+         */
+        void record(long nanos) {
+            long n = count.getAndIncrement();
+            samples[(int) (n % WINDOW)] = nanos;
+            if ((n + 1) % RECOMPUTE_EVERY == 0) {
+                long[] copy = Arrays.copyOf(samples, (int) Math.min(n + 1, WINDOW));
+                Arrays.sort(copy);
+                long value = copy[(int) Math.min(copy.length - 1, Math.floor(percentile * copy.length))];
+                delayNanos = Math.clamp(value, minDelay, maxDelay);
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.storage;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 请求预算（令牌桶）：每个请求存入 ratio 个令牌，最多累积 burst 个，额外请求（重试、对冲）消耗 1 个令牌
+ * <p>保证额外请求最多占总请求的 ratio，后端故障时不会因重试/对冲放大负载</p>
+ * @author luckykuang
+ * @date 2026/10/19 14:55
+ */
+final class RequestBudget {
+
+    // 令牌单位：千分之一个
+    private static final long PERMIT = 1000;
+
+    private final AtomicLong tokens = new AtomicLong();
+    private final long increment;
+    private final long max;
+
+    RequestBudget(double ratio, int burst) {
+        this.increment = Math.round(ratio * PERMIT);
+        this.max = burst * PERMIT;
+    }
+
+    /**
+     * 记录一次请求，存入令牌
+     */
+    void deposit() {
+        if (tokens.get() < max) {
+            tokens.getAndUpdate(current -> Math.min(current + increment, max));
+        }
+    }
+
+    /**
+     * 尝试消耗一个令牌
+     * @return 预算充足-true
+     */
+    boolean tryAcquire() {
+        while (true) {
+            long current = tokens.get();
+            if (current < PERMIT) {
+                return false;
+            }
+            if (tokens.compareAndSet(current, current - PERMIT)) {
+                return true;
+            }
+        }
+    }
+}
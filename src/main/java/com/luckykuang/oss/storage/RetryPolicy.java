@@ -0,0 +1,112 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.storage;
+
+import com.luckykuang.oss.config.OssProperties;
+import com.luckykuang.oss.metrics.BackendCall;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 幂等操作重试
+ * <ul>
+ *     <li>只重试节点故障（网络异常、5xx），业务错误与熔断拒绝直接返回</li>
+ *     <li>退避：指数增长 + 全抖动，等待时间在 [0, min(max-backoff, initial-backoff x 2^n)] 内随机</li>
+ *     <li>重试预算：每个请求积累 budget-ratio 次重试额度，最多累积 budget-burst 次，
+ *     后端整体故障时重试最多放大 budget-ratio 的流量</li>
+ * </ul>
+ * 调用方负责在重试时换一个节点（{@link MinioNodeBalancer#select(MinioNode)}）
+ * @author luckykuang
+ * @date 2026/10/19 15:10
+ */
+@Slf4j
+@Component
+public class RetryPolicy {
+
+    private final OssProperties.Retry config;
+    private final MeterRegistry meterRegistry;
+    private final RequestBudget budget;
+    private final Map<Tags, Counter> counters = new ConcurrentHashMap<>();
+
+    public RetryPolicy(OssProperties ossProperties, MeterRegistry meterRegistry) {
+        this.config = ossProperties.getRetry();
+        this.meterRegistry = meterRegistry;
+        this.budget = new RequestBudget(config.getBudgetRatio(), config.getBudgetBurst());
+    }
+
+    /**
+     * 执行调用，节点故障时按退避策略重试
+     * @param operation 操作
+     * @param call 单次调用，每次重试都会重新执行
+     * @return 调用结果
+     */
+    public <T> T execute(String operation, BackendCall<T> call) throws Exception {
+        budget.deposit();
+        int maxAttempts = Math.max(1, config.getMaxAttempts());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.call();
+            } catch (Exception e) {
+                if (!MinioNodeBalancer.isNodeFailure(e)) {
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    count(operation, "gave_up");
+                    throw e;
+                }
+                if (!budget.tryAcquire()) {
+                    count(operation, "budget_exhausted");
+                    throw e;
+                }
+                count(operation, "retried");
+                long backoff = backoffNanos(attempt);
+                log.debug("{} 请求失败，{}ms 后第 {} 次重试: {}", operation,
+                        TimeUnit.NANOSECONDS.toMillis(backoff), attempt, e.toString());
+                try {
+                    TimeUnit.NANOSECONDS.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private long backoffNanos(int attempt) {
+        long initial = config.getInitialBackoff().toNanos();
+        long max = config.getMaxBackoff().toNanos();
+        long cap = Math.min(max, initial << Math.min(attempt - 1, 20));
+        return cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    private void count(String operation, String outcome) {
+        counters.computeIfAbsent(Tags.of("operation", operation, "outcome", outcome),
+                t -> Counter.builder("oss.retry.attempts")
+                        .description("Retries of idempotent object storage calls")
+                        .tags(t)
+                        .register(meterRegistry))
+                .increment();
+    }
+}
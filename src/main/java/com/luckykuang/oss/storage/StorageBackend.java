@@ -0,0 +1,367 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.storage;
+
+import com.luckykuang.oss.base.BusinessException;
+import com.luckykuang.oss.base.ErrorCode;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 对象存储后端
+ * <p>服务层只依赖该接口，具体实现按存储桶在配置 storage.buckets 中选择，参见 {@link StorageRouter}</p>
+ * <p>对象路径允许以 "/" 开头，各实现需保持与 MinIO 一致的语义（前导 "/" 不影响对象定位）</p>
+ * @author luckykuang
+ * @date 2026/10/19 11:40
+ */
+public interface StorageBackend {
+
+    /**
+     * 后端类型，如 minio、local
+     */
+    String type();
+
+    /**
+     * 判断存储桶是否存在
+     * @param bucketName 存储桶名称
+     * @return 存在-true 不存在-false
+     */
+    boolean bucketExists(String bucketName) throws Exception;
+
+    /**
+     * 新建存储桶
+     * @param bucketName 存储桶名称
+     */
+    void makeBucket(String bucketName) throws Exception;
+
+    /**
+     * 删除存储桶，存储桶必须为空
+     * @param bucketName 存储桶名称
+     */
+    void removeBucket(String bucketName) throws Exception;
+
+    /**
+     * 查询全部存储桶名称
+     * @return 存储桶名称列表
+     */
+    List<String> listBuckets() throws Exception;
+
+    /**
+     * 设置存储桶策略
+     * @param bucketName 存储桶名称
+     * @param policy 策略 JSON
+     */
+    void setBucketPolicy(String bucketName, String policy) throws Exception;
+
+    /**
+     * 查询存储桶策略
+     * @param bucketName 存储桶名称
+     * @return 策略 JSON，未设置时返回空字符串
+     */
+    String getBucketPolicy(String bucketName) throws Exception;
+
+    /**
+     * 上传对象
+     * @param bucketName 存储桶名称
+     * @param objectName 对象路径
+     * @param stream 对象内容，由调用方关闭
+     * @param size 对象大小
+     * @param contentType 文件类型，可为 null
+     */
+    default void putObject(String bucketName, String objectName, InputStream stream, long size, String contentType)
+            throws Exception {
+        putObject(bucketName, objectName, stream, size, contentType, null, Map.of());
+    }
+
+    /**
+     * 上传对象，同时写入内容编码与用户元数据
+     * @param bucketName 存储桶名称
+     * @param objectName 对象路径
+     * @param stream 对象内容，由调用方关闭
+     * @param size 对象大小，未知时为 -1（边读边压缩的流）
+     * @param contentType 文件类型，可为 null
+     * @param contentEncoding 内容编码（如 gzip），可为 null
+     * @param metadata 用户元数据（不含 x-amz-meta- 前缀）
+     */
+    void putObject(String bucketName, String objectName, InputStream stream, long size, String contentType,
+                   String contentEncoding, Map<String, String> metadata) throws Exception;
+
+    /**
+     * 读取对象（支持范围读取）
+     * @param bucketName 存储桶名称
+     * @param objectName 对象路径
+     * @param offset 起始位置
+     * @param length 读取长度，null 表示读到末尾
+     * @return 对象流，由调用方关闭
+     */
+    InputStream getObject(String bucketName, String objectName, long offset, Long length) throws Exception;
+
+    /**
+     * 条件范围读取：对象 ETag 与 matchETag 不一致时失败，分多次读取同一对象时保证读到的是同一版本
+     * @param bucketName 存储桶名称
+     * @param objectName 对象路径
+     * @param offset 起始位置
+     * @param length 读取长度，null 表示读到末尾
+     * @param matchETag 期望的对象 ETag
+     * @return 对象流，由调用方关闭
+     */
+    default InputStream getObject(String bucketName, String objectName, long offset, Long length, String matchETag)
+            throws Exception {
+        throw new BusinessException(ErrorCode.STORAGE_NOT_SUPPORTED);
+    }
+
+    /**
+     * 把对象（或其中一段）写入输出流，默认实现基于 {@link #getObject}，本地实现可使用零拷贝
+     * @param bucketName 存储桶名称
+     * @param objectName 对象路径
+     * @param offset 起始位置
+     * @param length 读取长度，null 表示读到末尾
+     * @param out 输出流，由调用方关闭
+     * @return 写出的字节数
+     */
+    default long transferTo(String bucketName, String objectName, long offset, Long length, OutputStream out) throws Exception {
+        try (InputStream in = getObject(bucketName, objectName, offset, length)) {
+            return in.transferTo(out);
+        }
+    }
+
+    /**
+     * 异常是否表示对象不存在，用于区分对象不存在与读取失败
+     * @param e 读取对象或获取对象信息时的异常
+     */
+    default boolean isNotFound(Exception e) {
+        return false;
+    }
+
+    /**
+     * 获取对象信息
+     * @param bucketName 存储桶名称
+     * @param objectName 对象路径
+     * @return 对象信息
+     */
+    ObjectStat statObject(String bucketName, String objectName) throws Exception;
+
+    /**
+     * 列出对象
+     * @param bucketName 存储桶名称
+     * @param prefix 路径前缀，可为 null
+     * @param recursive 是否递归，不递归时子目录以 "xxx/" 形式返回
+     * @param maxKeys 单次请求最大返回数量（分页大小），结果仍会遍历全部分页
+     * @return 对象列表，按对象路径字典序
+     */
+    List<ObjectItem> listObjects(String bucketName, String prefix, boolean recursive, int maxKeys) throws Exception;
+
+    /**
+     * 服务端按顺序合并多个对象为一个新对象
+     * @param bucketName 存储桶名称
+     * @param objectName 目标对象路径
+     * @param sources 源对象路径（同一存储桶）
+     */
+    void composeObject(String bucketName, String objectName, List<String> sources) throws Exception;
+
+    /**
+     * 服务端拷贝对象，对象内容不经过本服务；保留文件类型、内容编码与用户元数据
+     * @param sourceBucketName 源存储桶名称
+     * @param sourceObjectName 源对象路径
+     * @param bucketName 目标存储桶名称，与源存储桶使用同一存储后端
+     * @param objectName 目标对象路径
+     */
+    default void copyObject(String sourceBucketName, String sourceObjectName, String bucketName, String objectName)
+            throws Exception {
+        throw new BusinessException(ErrorCode.STORAGE_NOT_SUPPORTED);
+    }
+
+    /**
+     * 删除对象，对象不存在时不报错
+     * @param bucketName 存储桶名称
+     * @param objectName 对象路径
+     */
+    void removeObject(String bucketName, String objectName) throws Exception;
+
+    /**
+     * 批量删除对象，对象不存在时不报错；默认逐个删除
+     * @param bucketName 存储桶名称
+     * @param objectNames 对象路径列表
+     * @return 删除失败的对象路径
+     */
+    default List<String> removeObjects(String bucketName, List<String> objectNames) throws Exception {
+        List<String> failed = new ArrayList<>();
+        for (String objectName : objectNames) {
+            try {
+                removeObject(bucketName, objectName);
+            } catch (Exception e) {
+                failed.add(objectName);
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * 在存储桶上设置按前缀过期的生命周期规则，同 id 的规则被替换，其他规则保留
+     * @param bucketName 存储桶名称
+     * @param ruleId 规则 id
+     * @param prefix 对象路径前缀
+     * @param days 对象创建多少天后过期删除
+     */
+    default void setExpirationRule(String bucketName, String ruleId, String prefix, int days) throws Exception {
+        throw new BusinessException(ErrorCode.STORAGE_NOT_SUPPORTED);
+    }
+
+    /**
+     * 生成临时访问 url
+     * @param bucketName 存储桶名称
+     * @param objectName 对象路径
+     * @param expirySeconds 过期时间(秒)
+     * @return 临时访问 url
+     */
+    String getPresignedObjectUrl(String bucketName, String objectName, int expirySeconds) throws Exception;
+
+    /**
+     * 批量生成临时访问 url
+     * @param bucketName 存储桶名称
+     * @param objectNames 对象路径列表
+     * @param expirySeconds 过期时间(秒)
+     * @return 与 objectNames 顺序一致的临时访问 url
+     */
+    default List<String> getPresignedObjectUrls(String bucketName, List<String> objectNames, int expirySeconds)
+            throws Exception {
+        List<String> urls = new ArrayList<>(objectNames.size());
+        for (String objectName : objectNames) {
+            urls.add(getPresignedObjectUrl(bucketName, objectName, expirySeconds));
+        }
+        return urls;
+    }
+
+    /**
+     * 生成直传用的临时上传 url（PUT），客户端直接把对象上传到存储服务
+     * @param bucketName 存储桶名称
+     * @param objectName 对象路径
+     * @param expirySeconds 过期时间(秒)
+     * @return 临时上传 url
+     */
+    default String getPresignedPutObjectUrl(String bucketName, String objectName, int expirySeconds) throws Exception {
+        throw new BusinessException(ErrorCode.STORAGE_NOT_SUPPORTED);
+    }
+
+    /**
+     * 生成直传用的 POST 表单策略，用于浏览器表单上传
+     * @param bucketName 存储桶名称
+     * @param objectName 对象路径
+     * @param contentType 文件类型，可为 null
+     * @param maxSize 允许上传的最大字节数
+     * @param expirySeconds 过期时间(秒)
+     * @return 表单字段（含 key、policy 与签名），需原样随文件一起提交
+     */
+    default Map<String, String> getPresignedPostFormData(String bucketName, String objectName, String contentType,
+                                                         long maxSize, int expirySeconds) throws Exception {
+        throw new BusinessException(ErrorCode.STORAGE_NOT_SUPPORTED);
+    }
+
+    /**
+     * 创建分片上传
+     * @param bucketName 存储桶名称
+     * @param objectName 对象路径
+     * @param contentType 文件类型，可为 null
+     * @return uploadId
+     */
+    default String createMultipartUpload(String bucketName, String objectName, String contentType) throws Exception {
+        return createMultipartUpload(bucketName, objectName, contentType, null, Map.of());
+    }
+
+    /**
+     * 创建分片上传，同时写入内容编码与用户元数据
+     * @param bucketName 存储桶名称
+     * @param objectName 对象路径
+     * @param contentType 文件类型，可为 null
+     * @param contentEncoding 内容编码（如 gzip），可为 null
+     * @param metadata 用户元数据（不含 x-amz-meta- 前缀）
+     * @return uploadId
+     */
+    default String createMultipartUpload(String bucketName, String objectName, String contentType,
+                                         String contentEncoding, Map<String, String> metadata) throws Exception {
+        throw new BusinessException(ErrorCode.STORAGE_NOT_SUPPORTED);
+    }
+
+    /**
+     * 以服务端拷贝的方式上传一个分片（UploadPartCopy），分片内容为源对象的一段
+     * @param bucketName 存储桶名称
+     * @param objectName 对象路径
+     * @param uploadId 分片上传ID
+     * @param partNumber 分片序号
+     * @param sourceBucketName 源存储桶名称
+     * @param sourceObjectName 源对象路径
+     * @param offset 源对象中的起始位置
+     * @param length 分片长度
+     * @return 已上传的分片
+     */
+    default UploadPart uploadPartCopy(String bucketName, String objectName, String uploadId, int partNumber,
+                                      String sourceBucketName, String sourceObjectName, long offset, long length)
+            throws Exception {
+        throw new BusinessException(ErrorCode.STORAGE_NOT_SUPPORTED);
+    }
+
+    /**
+     * 为分片上传的每个分片生成临时上传 url（PUT）
+     * @param bucketName 存储桶名称
+     * @param objectName 对象路径
+     * @param uploadId 分片上传ID
+     * @param partCount 分片数量，分片序号为 1..partCount
+     * @param expirySeconds 过期时间(秒)
+     * @return 按分片序号排列的临时上传 url
+     */
+    default List<String> getPresignedUploadPartUrls(String bucketName, String objectName, String uploadId,
+                                                    int partCount, int expirySeconds) throws Exception {
+        throw new BusinessException(ErrorCode.STORAGE_NOT_SUPPORTED);
+    }
+
+    /**
+     * 查询分片上传中已上传的分片
+     * @param bucketName 存储桶名称
+     * @param objectName 对象路径
+     * @param uploadId 分片上传ID
+     * @return 已上传的分片，按分片序号升序
+     */
+    default List<UploadPart> listUploadParts(String bucketName, String objectName, String uploadId) throws Exception {
+        throw new BusinessException(ErrorCode.STORAGE_NOT_SUPPORTED);
+    }
+
+    /**
+     * 完成分片上传，由存储服务按分片序号合并为对象
+     * @param bucketName 存储桶名称
+     * @param objectName 对象路径
+     * @param uploadId 分片上传ID
+     * @param parts 参与合并的分片，按分片序号升序
+     */
+    default void completeMultipartUpload(String bucketName, String objectName, String uploadId,
+                                         List<UploadPart> parts) throws Exception {
+        throw new BusinessException(ErrorCode.STORAGE_NOT_SUPPORTED);
+    }
+
+    /**
+     * 取消分片上传，存储服务删除已上传的分片
+     * @param bucketName 存储桶名称
+     * @param objectName 对象路径
+     * @param uploadId 分片上传ID
+     */
+    default void abortMultipartUpload(String bucketName, String objectName, String uploadId) throws Exception {
+        throw new BusinessException(ErrorCode.STORAGE_NOT_SUPPORTED);
+    }
+}
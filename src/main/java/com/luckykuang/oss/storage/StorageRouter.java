@@ -0,0 +1,81 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.storage;
+
+import com.luckykuang.oss.config.StorageProperties;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * 存储后端路由：按存储桶选择存储后端
+ * <pre>
+ * storage:
+ *   default-backend: minio
+ *   buckets:
+ *     edge-cache: local
+ * </pre>
+ * @author luckykuang
+ * @date 2026/10/19 12:30
+ */
+@Component
+public class StorageRouter {
+
+    private final Map<String, StorageBackend> backends = new HashMap<>();
+    private final Map<String, StorageBackend> bucketBackends = new HashMap<>();
+    private final StorageBackend defaultBackend;
+
+    public StorageRouter(List<StorageBackend> storageBackends, StorageProperties storageProperties) {
+        for (StorageBackend backend : storageBackends) {
+            backends.put(backend.type(), backend);
+        }
+        this.defaultBackend = backend(storageProperties.getDefaultBackend());
+        storageProperties.getBuckets().forEach((bucket, type) -> bucketBackends.put(bucket, backend(type)));
+    }
+
+    /**
+     * 获取存储桶对应的存储后端
+     * @param bucketName 存储桶名称
+     * @return 存储后端
+     */
+    public StorageBackend forBucket(String bucketName) {
+        if (bucketName == null) {
+            return defaultBackend;
+        }
+        return bucketBackends.getOrDefault(bucketName, defaultBackend);
+    }
+
+    /**
+     * 配置中实际使用到的存储后端（默认后端在前）
+     * @return 存储后端列表
+     */
+    public List<StorageBackend> activeBackends() {
+        Set<StorageBackend> active = new LinkedHashSet<>();
+        active.add(defaultBackend);
+        active.addAll(bucketBackends.values());
+        return new ArrayList<>(active);
+    }
+
+    private StorageBackend backend(String type) {
+        StorageBackend backend = backends.get(StringUtils.trimToEmpty(type).toLowerCase(Locale.ROOT));
+        if (backend == null) {
+            throw new IllegalStateException("Unknown storage backend [" + type + "], available: " + backends.keySet());
+        }
+        return backend;
+    }
+}
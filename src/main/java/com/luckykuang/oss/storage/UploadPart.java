@@ -0,0 +1,27 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.storage;
+
+/**
+ * 分片上传中已上传的分片
+ * @param partNumber 分片序号，从 1 开始
+ * @param etag 分片 ETag
+ * @author luckykuang
+ * @date 2026/10/19 17:10
+ */
+public record UploadPart(int partNumber, String etag) {
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.throttle;
+
+import com.luckykuang.oss.config.OssProperties;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 自适应并发限制的舱壁：同时执行的请求数不超过 limit，超出的请求有限排队，队列已满或排队超时即拒绝
+ * <p>limit 按梯度算法随后端延迟调整，每个统计周期：</p>
+ * <ul>
+ *     <li>短期延迟取本周期的平均延迟，长期延迟为短期延迟的指数加权平均</li>
+ *     <li>梯度 = tolerance x 长期延迟 / 短期延迟，取值 [0.5, 1]；延迟上升时梯度小于 1，limit 按比例收缩</li>
+ *     <li>新 limit = limit x 梯度 + sqrt(limit)，平方根项使延迟平稳时 limit 缓慢增长以探测容量；
+ *     本周期峰值并发不到 limit 一半时不增长</li>
+ * </ul>
+ * @author luckykuang
+ * @date 2026/10/19 20:00
+ */
+public class AdaptiveBulkhead {
+
+    // 长期延迟的平滑窗口(统计周期数)
+    private static final int LONG_WINDOW = 60;
+
+    private final OssProperties.BulkheadLimit config;
+    private final double tolerance;
+    private final double smoothing;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+
+    // 以下计数只在持有 lock 时修改，volatile 供指标读取
+    private volatile int inflight;
+    private volatile int queued;
+    private int peakInflight;
+
+    private volatile double limit;
+    private volatile double shortRttNanos;
+    // 只在统计线程上读写
+    private double longRttNanos;
+
+    public AdaptiveBulkhead(OssProperties.BulkheadLimit config, double tolerance, double smoothing) {
+        this.config = config;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.limit = clamp(config.getInitialLimit());
+    }
+
+    /**
+     * 取得执行许可，没有空闲许可时排队等待
+     * @return 是否取得许可，false 表示应拒绝请求
+     */
+    public boolean acquire() throws InterruptedException {
+        long remaining = config.getQueueTimeout().toNanos();
+        lock.lock();
+        try {
+            // 有请求排队时新请求不插队
+            if (queued == 0 && inflight < (int) limit) {
+                enter();
+                return true;
+            }
+            if (queued >= config.getMaxQueue() || remaining <= 0) {
+                return false;
+            }
+            queued++;
+            try {
+                while (inflight >= (int) limit) {
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    remaining = available.awaitNanos(remaining);
+                }
+                enter();
+                return true;
+            } finally {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void enter() {
+        inflight++;
+        peakInflight = Math.max(peakInflight, inflight);
+    }
+
+    /**
+     * 归还许可
+     */
+    public void release() {
+        lock.lock();
+        try {
+            inflight--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 按本周期的后端调用延迟调整 limit，由统计线程周期调用
+     * @param count 本周期的调用次数
+     * @param totalNanos 本周期的调用总耗时
+     */
+    public void update(long count, long totalNanos) {
+        int peak;
+        lock.lock();
+        try {
+            peak = peakInflight;
+            peakInflight = inflight;
+        } finally {
+            lock.unlock();
+        }
+        if (count <= 0) {
+            return;
+        }
+        double rtt = (double) totalNanos / count;
+        shortRttNanos = rtt;
+        longRttNanos = longRttNanos == 0 ? rtt : longRttNanos + (rtt - longRttNanos) / LONG_WINDOW;
+        // 负载下降后长期延迟偏高，向短期延迟回落，避免掩盖随后的延迟上升
+        if (longRttNanos > rtt * 2) {
+            longRttNanos *= 0.95;
+        }
+
+        double current = limit;
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRttNanos / rtt));
+        double target = current * gradient + Math.sqrt(current);
+        if (target > current && peak < current / 2) {
+            // 并发远未用满，延迟不能说明还有余量
+            return;
+        }
+        double next = clamp(current * (1 - smoothing) + target * smoothing);
+        limit = next;
+        if ((int) next > (int) current) {
+            lock.lock();
+            try {
+                available.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private double clamp(double value) {
+        return Math.max(Math.max(1, config.getMinLimit()), Math.min(Math.max(1, config.getMaxLimit()), value));
+    }
+
+    /**
+     * 建议客户端重试的等待时间(秒)：按当前延迟估算排队请求全部执行完的时间
+     */
+    public long retryAfterSeconds() {
+        double drainNanos = shortRttNanos * (queued + 1) / Math.max(1, (int) limit);
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds((long) drainNanos + 999_999_999L));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInflight() {
+        return inflight;
+    }
+
+    public int getQueued() {
+        return queued;
+    }
+}
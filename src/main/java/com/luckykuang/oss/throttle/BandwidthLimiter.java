@@ -0,0 +1,302 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.throttle;
+
+import com.luckykuang.oss.config.OssProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 上传/下载带宽限制
+ * <p>按客户端 IP、API Key、存储桶三个维度分别限速，一次传输同时受所有命中维度的约束；
+ * 限速在上传读取请求体、下载写出响应体的拷贝循环中按块执行，每块从各维度的 {@link TokenBucket} 取令牌并等待其中最长的时长</p>
+ * <ul>
+ *     <li>oss.bandwidth.rate：各限速器最近一个统计周期的实际速率(字节/秒)，API Key 以 SHA-256 前缀作为标签</li>
+ *     <li>限速器空闲超过 idleTimeout 后回收，限速器数超过 maxKeys 时新的客户端 IP / API Key 共用一个溢出限速器</li>
+ * </ul>
+ * @author luckykuang
+ * @date 2026/10/19 19:20
+ */
+@Component
+public class BandwidthLimiter {
+
+    public static final String UPLOAD = "upload";
+    public static final String DOWNLOAD = "download";
+
+    private static final String CLIENT = "client";
+    private static final String API_KEY = "apiKey";
+    private static final String BUCKET = "bucket";
+    private static final String OVERFLOW = "_overflow";
+
+    // 单次取令牌的最大块，块越小限速越平滑
+    private static final int SLICE = 64 * 1024;
+
+    private final OssProperties.Bandwidth config;
+    private final MeterRegistry meterRegistry;
+    private final Map<Key, Limiter> limiters = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    private record Key(String scope, String id, String direction) {
+    }
+
+    /**
+     * 限速器及其速率统计，统计字段只在后台线程读写
+     */
+    private static final class Limiter {
+        private final TokenBucket bucket;
+        private Gauge gauge;
+        private long lastBytes;
+        private volatile double rate;
+
+        Limiter(TokenBucket bucket) {
+            this.bucket = bucket;
+        }
+    }
+
+    public BandwidthLimiter(OssProperties ossProperties, MeterRegistry meterRegistry) {
+        this.config = ossProperties.getBandwidth();
+        this.meterRegistry = meterRegistry;
+        if (!config.isEnabled()) {
+            this.scheduler = null;
+            return;
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("bandwidth-sampler").daemon(true).factory());
+        long interval = Math.max(100, config.getSampleInterval().toMillis());
+        scheduler.scheduleAtFixedRate(() -> sample(interval), interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 当前请求上传到存储桶的限速
+     * @param bucketName 存储桶名称
+     * @return 限速，未开启或没有命中的限制时不做任何包装
+     */
+    public Throttle upload(String bucketName) {
+        return throttle(UPLOAD, bucketName);
+    }
+
+    /**
+     * 当前请求从存储桶下载的限速
+     * @param bucketName 存储桶名称
+     * @return 限速，未开启或没有命中的限制时不做任何包装
+     */
+    public Throttle download(String bucketName) {
+        return throttle(DOWNLOAD, bucketName);
+    }
+
+    private Throttle throttle(String direction, String bucketName) {
+        if (!config.isEnabled()) {
+            return Throttle.NONE;
+        }
+        List<TokenBucket> buckets = new ArrayList<>(3);
+        // 客户端 IP 与 API Key 从请求线程上的当前请求读取
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletRequestAttributes) {
+            HttpServletRequest request = servletRequestAttributes.getRequest();
+            addLimiter(buckets, CLIENT, request.getRemoteAddr(), direction, config.getClient(), true);
+            String apiKey = request.getHeader(config.getApiKeyHeader());
+            if (StringUtils.isNotBlank(apiKey)) {
+                addLimiter(buckets, API_KEY, apiKey, direction,
+                        config.getApiKeys().getOrDefault(apiKey, config.getApiKey()), true);
+            }
+        }
+        if (bucketName != null) {
+            addLimiter(buckets, BUCKET, bucketName, direction,
+                    config.getBuckets().getOrDefault(bucketName, config.getBucket()), false);
+        }
+        return buckets.isEmpty() ? Throttle.NONE : new Throttle(buckets.toArray(new TokenBucket[0]));
+    }
+
+    private void addLimiter(List<TokenBucket> buckets, String scope, String id, String direction,
+                            OssProperties.BandwidthLimit limit, boolean bounded) {
+        long rate = UPLOAD.equals(direction) ? limit.getUploadRate() : limit.getDownloadRate();
+        if (id == null || rate <= 0) {
+            return;
+        }
+        Key key = new Key(scope, API_KEY.equals(scope) ? fingerprint(id) : id, direction);
+        Limiter limiter = limiters.get(key);
+        if (limiter == null) {
+            // 客户端 IP / API Key 由请求方决定，数量有上限，超出后共用溢出限速器
+            if (bounded && limiters.size() >= config.getMaxKeys()) {
+                key = new Key(scope, OVERFLOW, direction);
+            }
+            long burst = limit.getBurst() > 0 ? limit.getBurst() : rate;
+            limiter = limiters.computeIfAbsent(key, k -> register(k, new Limiter(new TokenBucket(rate, burst))));
+        }
+        buckets.add(limiter.bucket);
+    }
+
+    /**
+     * API Key 不直接出现在指标标签中，取 SHA-256 前 12 位
+     */
+    private static String fingerprint(String apiKey) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(apiKey.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 6);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Limiter register(Key key, Limiter limiter) {
+        limiter.gauge = Gauge.builder("oss.bandwidth.rate", limiter, l -> l.rate)
+                .baseUnit("bytes")
+                .description("Throttled transfer rate over the last sample interval")
+                .tags("scope", key.scope(), "key", key.id(), "direction", key.direction())
+                .register(meterRegistry);
+        return limiter;
+    }
+
+    /**
+     * 统计各限速器最近一个周期的速率，回收空闲的限速器
+     */
+    private void sample(long intervalMillis) {
+        long now = System.nanoTime();
+        long idle = config.getIdleTimeout().toNanos();
+        limiters.entrySet().removeIf(entry -> {
+            Limiter limiter = entry.getValue();
+            long bytes = limiter.bucket.bytes();
+            limiter.rate = (bytes - limiter.lastBytes) * 1000d / intervalMillis;
+            limiter.lastBytes = bytes;
+            if (now - limiter.bucket.lastUsedNanos() > idle) {
+                meterRegistry.remove(limiter.gauge);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 一次传输的限速，包装上传读取的输入流或下载写出的输出流
+     */
+    public static final class Throttle {
+        static final Throttle NONE = new Throttle(new TokenBucket[0]);
+
+        private final TokenBucket[] buckets;
+
+        private Throttle(TokenBucket[] buckets) {
+            this.buckets = buckets;
+        }
+
+        /**
+         * 包装输入流：每次读取后按读到的字节数取令牌
+         */
+        public InputStream wrap(InputStream in) {
+            if (buckets.length == 0) {
+                return in;
+            }
+            return new FilterInputStream(in) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b >= 0) {
+                        acquire(1);
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int n = super.read(b, off, Math.min(len, SLICE));
+                    if (n > 0) {
+                        acquire(n);
+                    }
+                    return n;
+                }
+            };
+        }
+
+        /**
+         * 包装输出流：按块取令牌后写出，关闭时不关闭被包装的流
+         */
+        public OutputStream wrap(OutputStream out) {
+            if (buckets.length == 0) {
+                return out;
+            }
+            return new FilterOutputStream(out) {
+                @Override
+                public void write(int b) throws IOException {
+                    acquire(1);
+                    out.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    while (len > 0) {
+                        int n = Math.min(len, SLICE);
+                        acquire(n);
+                        out.write(b, off, n);
+                        off += n;
+                        len -= n;
+                    }
+                }
+
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            };
+        }
+
+        private void acquire(int n) throws InterruptedIOException {
+            long wait = 0;
+            for (TokenBucket bucket : buckets) {
+                wait = Math.max(wait, bucket.reserve(n));
+            }
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("bandwidth throttle interrupted");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.throttle;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁令牌桶
+ * <p>不保存令牌数，只用一个 AtomicLong 记录"已预占的令牌全部生成完毕"的时间点 tat：桶内剩余令牌 = burst - (tat - now) x rate。
+ * 取令牌是一次 CAS，不足时返回需要等待的时长，由调用方在锁外等待，多个线程之间没有锁竞争</p>
+ * @author luckykuang
+ * @date 2026/10/19 19:10
+ */
+public final class TokenBucket {
+    private final double nanosPerByte;
+    private final long burstNanos;
+    private final AtomicLong tat;
+    private final LongAdder bytes = new LongAdder();
+    private volatile long lastUsedNanos;
+
+    /**
+     * @param rate 速率(字节/秒)
+     * @param burst 突发字节数，桶的容量
+     */
+    public TokenBucket(long rate, long burst) {
+        this.nanosPerByte = 1_000_000_000d / Math.max(1, rate);
+        this.burstNanos = (long) (Math.max(1, burst) * nanosPerByte);
+        long now = System.nanoTime();
+        // 初始满桶
+        this.tat = new AtomicLong(now);
+        this.lastUsedNanos = now;
+    }
+
+    /**
+     * 预占 n 字节的令牌，令牌不足时也会预占（记为欠账），后续请求按欠账排队
+     * @param n 字节数
+     * @return 需要等待的纳秒数，0 表示无需等待
+     */
+    public long reserve(long n) {
+        long now = System.nanoTime();
+        long cost = (long) (n * nanosPerByte);
+        long prev;
+        long next;
+        do {
+            prev = tat.get();
+            // 空闲期间令牌最多补满 burst
+            next = Math.max(prev, now) + cost;
+        } while (!tat.compareAndSet(prev, next));
+        bytes.add(n);
+        lastUsedNanos = now;
+        return Math.max(0, next - now - burstNanos);
+    }
+
+    /**
+     * 累计通过的字节数
+     */
+    public long bytes() {
+        return bytes.sum();
+    }
+
+    /**
+     * 最后一次取令牌的时间(System.nanoTime)
+     */
+    public long lastUsedNanos() {
+        return lastUsedNanos;
+    }
+}
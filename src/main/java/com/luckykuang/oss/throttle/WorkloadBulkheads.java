@@ -0,0 +1,173 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.throttle;
+
+import com.luckykuang.oss.base.ServiceUnavailableException;
+import com.luckykuang.oss.config.OssProperties;
+import com.luckykuang.oss.enums.WorkloadEnum;
+import com.luckykuang.oss.metrics.OssMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按负载类型隔离的接口舱壁
+ * <p>大文件传输、元数据调用、分片合并共用 Tomcat 线程池和 MinIO 客户端，各类接口分别限制并发并有限排队，
+ * 大量下载不会让毫秒级的元数据调用排队数秒；超出的请求直接返回 503 与 Retry-After，不在服务端堆积</p>
+ * <p>各类的并发限制按该类依赖的后端调用延迟自适应调整，见 {@link AdaptiveBulkhead}：</p>
+ * <ul>
+ *     <li>transfer：get（打开对象流的首字节延迟），上传耗时取决于文件大小与客户端网速，不参与</li>
+ *     <li>metadata：stat / list / bucket / remove，预签名在进程内完成，不参与</li>
+ *     <li>merge：compose / multipart</li>
+ * </ul>
+ * <p>指标：oss.bulkhead.limit / oss.bulkhead.inflight / oss.bulkhead.queued / oss.bulkhead.rejected</p>
+ * @author luckykuang
+ * @date 2026/10/19 20:10
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class WorkloadBulkheads {
+
+    private static final Map<WorkloadEnum, List<String>> OPERATIONS = Map.of(
+            WorkloadEnum.TRANSFER, List.of(OssMetrics.GET),
+            WorkloadEnum.METADATA, List.of(OssMetrics.STAT, OssMetrics.LIST, OssMetrics.BUCKET, OssMetrics.REMOVE),
+            WorkloadEnum.MERGE, List.of(OssMetrics.COMPOSE, OssMetrics.MULTIPART, OssMetrics.COPY));
+
+    private final OssMetrics ossMetrics;
+    private final boolean enabled;
+    private final Map<WorkloadEnum, AdaptiveBulkhead> bulkheads = new EnumMap<>(WorkloadEnum.class);
+    private final Map<WorkloadEnum, Counter> rejected = new EnumMap<>(WorkloadEnum.class);
+    // 接口方法 -> 负载类型
+    private final Map<Method, WorkloadEnum> workloadCache = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    public WorkloadBulkheads(OssProperties ossProperties, OssMetrics ossMetrics, MeterRegistry meterRegistry) {
+        OssProperties.Bulkhead config = ossProperties.getBulkhead();
+        this.ossMetrics = ossMetrics;
+        this.enabled = config.isEnabled();
+        if (!enabled) {
+            this.scheduler = null;
+            return;
+        }
+        for (WorkloadEnum workload : WorkloadEnum.values()) {
+            OssProperties.BulkheadLimit limit = switch (workload) {
+                case TRANSFER -> config.getTransfer();
+                case METADATA -> config.getMetadata();
+                case MERGE -> config.getMerge();
+            };
+            AdaptiveBulkhead bulkhead = new AdaptiveBulkhead(limit, config.getTolerance(), config.getSmoothing());
+            bulkheads.put(workload, bulkhead);
+            Gauge.builder("oss.bulkhead.limit", bulkhead, AdaptiveBulkhead::getLimit)
+                    .description("Adaptive concurrency limit of the workload class")
+                    .tag("workload", workload.getTag())
+                    .register(meterRegistry);
+            Gauge.builder("oss.bulkhead.inflight", bulkhead, AdaptiveBulkhead::getInflight)
+                    .description("Requests executing in the workload class")
+                    .tag("workload", workload.getTag())
+                    .register(meterRegistry);
+            Gauge.builder("oss.bulkhead.queued", bulkhead, AdaptiveBulkhead::getQueued)
+                    .description("Requests waiting for the workload class")
+                    .tag("workload", workload.getTag())
+                    .register(meterRegistry);
+            rejected.put(workload, Counter.builder("oss.bulkhead.rejected")
+                    .description("Requests shed with 503 by the workload class")
+                    .tag("workload", workload.getTag())
+                    .register(meterRegistry));
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("bulkhead-limit").daemon(true).factory());
+        long interval = Math.max(100, config.getSampleInterval().toMillis());
+        scheduler.scheduleAtFixedRate(this::updateLimits, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Pointcut("execution(public * com.luckykuang.oss.controller..*.*(..))")
+    public void controller(){}
+
+    @Around("controller()")
+    public Object isolate(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!enabled) {
+            return joinPoint.proceed();
+        }
+        WorkloadEnum workload = workloadCache.computeIfAbsent(((MethodSignature) joinPoint.getSignature()).getMethod(),
+                m -> {
+                    Workload annotation = m.getAnnotation(Workload.class);
+                    return annotation == null ? WorkloadEnum.METADATA : annotation.value();
+                });
+        AdaptiveBulkhead bulkhead = bulkheads.get(workload);
+        boolean acquired;
+        try {
+            acquired = bulkhead.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException(1);
+        }
+        if (!acquired) {
+            rejected.get(workload).increment();
+            throw new ServiceUnavailableException(bulkhead.retryAfterSeconds());
+        }
+        try {
+            return joinPoint.proceed();
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private void updateLimits() {
+        try {
+            for (Map.Entry<WorkloadEnum, AdaptiveBulkhead> entry : bulkheads.entrySet()) {
+                long count = 0;
+                long totalNanos = 0;
+                for (String operation : OPERATIONS.get(entry.getKey())) {
+                    OssMetrics.Latency latency = ossMetrics.drainLatency(operation);
+                    count += latency.count();
+                    totalNanos += latency.totalNanos();
+                }
+                entry.getValue().update(count, totalNanos);
+            }
+        } catch (Exception e) {
+            log.warn("更新并发限制异常", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
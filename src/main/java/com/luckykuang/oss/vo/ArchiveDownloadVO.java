@@ -0,0 +1,47 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 打包下载VO
+ * @author luckykuang
+ * @date 2026/10/19 16:10
+ */
+@Data
+@Schema(description = "打包下载VO类")
+public class ArchiveDownloadVO {
+
+    @Schema(description = "存储桶名称，为空时使用默认存储桶")
+    private String bucketName;
+
+    @Schema(description = "路径前缀，打包前缀下的所有文件（与 objectNames 二选一）")
+    private String prefix;
+
+    @Schema(description = "文件路径或访问路径列表，按列表顺序打包（与 prefix 二选一）")
+    private List<String> objectNames;
+
+    @Schema(description = "压缩包格式：zip / tar，默认 zip")
+    private String format;
+
+    @Schema(description = "压缩包文件名（不含后缀），默认取前缀最后一级目录名")
+    private String archiveName;
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * @author luckykuang
+ * @date 2026/10/19 16:40
+ */
+@Data
+@Schema(description = "批量预签名VO类")
+public class BatchPresignVO {
+    @NotEmpty
+    @Valid
+    @Schema(description = "预签名对象列表")
+    private List<PresignObjectVO> objects;
+    @Schema(description = "过期时间（秒），默认3600")
+    private Integer expirySeconds;
+}
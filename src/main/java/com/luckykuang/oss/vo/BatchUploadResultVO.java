@@ -0,0 +1,49 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量上传单个文件结果VO
+ * @author luckykuang
+ * @date 2026/10/19 15:30
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "批量上传单个文件结果VO")
+public class BatchUploadResultVO {
+
+    @Schema(description = "文件在请求中的序号，从0开始")
+    private Integer index;
+
+    @Schema(description = "上传的文件名")
+    private String fileName;
+
+    @Schema(description = "错误码，成功为0000")
+    private String code;
+
+    @Schema(description = "错误提示")
+    private String message;
+
+    @Schema(description = "访问路径，上传失败时为空")
+    private String url;
+}
@@ -24,7 +24,7 @@ public class ChunkUploadInitVO {
     @Schema(description = "文件总大小")
     private Long totalSize;
 
-    @Schema(description = "分片大小")
+    @Schema(description = "分片大小，不低于 5MB；为空时使用服务端建议的分片大小")
     private Long chunkSize;
 
     @Schema(description = "上传会话ID，用于区分不同的上传任务")
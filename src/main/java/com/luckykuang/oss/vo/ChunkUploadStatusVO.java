@@ -37,4 +37,10 @@ public class ChunkUploadStatusVO {
 
     @Schema(description = "是否已全部上传完成")
     private Boolean isCompleted;
+
+    @Schema(description = "服务端建议的分片大小，初始化时未指定分片大小则按该值分片")
+    private Long recommendedChunkSize;
+
+    @Schema(description = "服务端建议的并发上传分片数")
+    private Integer recommendedConcurrency;
 }
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+/**
+ * @author luckykuang
+ * @date 2026/10/19 20:20
+ */
+@Data
+@Schema(description = "服务端拷贝/移动对象VO类，源与目标存储桶需使用同一存储后端")
+public class CopyObjectVO {
+    @Schema(description = "源存储桶名称，为空时使用默认存储桶")
+    private String sourceBucketName;
+
+    @NotBlank
+    @Schema(description = "源文件路径")
+    private String sourceObjectName;
+
+    @Schema(description = "目标存储桶名称，为空时与源存储桶相同")
+    private String bucketName;
+
+    @Schema(description = "目标文件路径，为空时与源文件路径相同")
+    private String objectName;
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * @author luckykuang
+ * @date 2026/10/19 17:15
+ */
+@Data
+@Schema(description = "完成直传VO类")
+public class DirectUploadCompleteVO {
+    @Schema(description = "存储桶名称，为空时使用默认存储桶")
+    private String bucketName;
+    @NotBlank
+    @Schema(description = "文件路径，取初始化直传返回的 objectName")
+    private String objectName;
+    @Schema(description = "分片上传ID，单个文件上传时为空")
+    private String uploadId;
+    @Valid
+    @Schema(description = "已上传的分片，为空时从存储服务查询")
+    private List<DirectUploadPartVO> parts;
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+/**
+ * @author luckykuang
+ * @date 2026/10/19 17:15
+ */
+@Data
+@Schema(description = "直传分片VO类")
+public class DirectUploadPartVO {
+    @NotNull
+    @Positive
+    @Schema(description = "分片序号，从 1 开始")
+    private Integer partNumber;
+    @NotBlank
+    @Schema(description = "上传分片时响应头中的 ETag")
+    private String etag;
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author luckykuang
+ * @date 2026/10/19 17:15
+ */
+@Data
+@Schema(description = "直传上传凭证VO类")
+public class DirectUploadVO {
+    @Schema(description = "存储桶名称")
+    private String bucketName;
+    @Schema(description = "文件路径，完成上传时回传")
+    private String objectName;
+    @Schema(description = "分片上传ID，单个文件上传时为空")
+    private String uploadId;
+    @Schema(description = "分片大小（字节），最后一个分片可以更小")
+    private Long partSize;
+    @Schema(description = "分片上传 url，第 i 个元素对应分片序号 i+1，使用 PUT 上传并记录响应头 ETag")
+    private List<String> partUrls;
+    @Schema(description = "单个文件上传 url，使用 PUT 上传")
+    private String putUrl;
+    @Schema(description = "POST 表单上传地址")
+    private String postUrl;
+    @Schema(description = "POST 表单字段，需原样提交，文件字段 file 放在最后")
+    private Map<String, String> postFormData;
+    @Schema(description = "上传 url 有效期（秒）")
+    private Integer expirySeconds;
+}
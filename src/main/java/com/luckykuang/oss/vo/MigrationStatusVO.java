@@ -0,0 +1,84 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量迁移进度VO
+ * @author luckykuang
+ * @date 2026/10/19 20:20
+ */
+@Data
+@Schema(description = "批量迁移进度VO")
+public class MigrationStatusVO {
+
+    // 等待其他迁移任务结束
+    public static final String QUEUED = "queued";
+    // 正在列出源对象
+    public static final String LISTING = "listing";
+    // 正在拷贝
+    public static final String RUNNING = "running";
+    // 全部对象已拷贝或跳过
+    public static final String COMPLETED = "completed";
+    // 有对象拷贝失败，重新提交可续传
+    public static final String FAILED = "failed";
+    // 已取消
+    public static final String CANCELLED = "cancelled";
+
+    @Schema(description = "迁移任务ID")
+    private String migrationId;
+
+    @Schema(description = "状态：queued(排队), listing(列出源对象), running(拷贝中), completed(完成), failed(部分失败), cancelled(已取消)")
+    private String state;
+
+    @Schema(description = "源存储桶名称")
+    private String sourceBucketName;
+
+    @Schema(description = "目标存储桶名称")
+    private String bucketName;
+
+    @Schema(description = "是否移动")
+    private Boolean move;
+
+    @Schema(description = "对象总数，列出源对象完成前为 0")
+    private Long total;
+
+    @Schema(description = "已拷贝的对象数")
+    private Long copied;
+
+    @Schema(description = "目标已存在而跳过的对象数")
+    private Long skipped;
+
+    @Schema(description = "拷贝失败的对象数")
+    private Long failed;
+
+    @Schema(description = "已拷贝的字节数")
+    private Long bytes;
+
+    @Schema(description = "开始时间戳(毫秒)")
+    private Long startTime;
+
+    @Schema(description = "结束时间戳(毫秒)，未结束时为空")
+    private Long endTime;
+
+    @Schema(description = "失败的对象及原因，最多记录 minio.copy.max-reported-failures 条")
+    private List<String> failures;
+}
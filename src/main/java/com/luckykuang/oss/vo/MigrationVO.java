@@ -0,0 +1,56 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * @author luckykuang
+ * @date 2026/10/19 20:20
+ */
+@Data
+@Schema(description = "批量迁移对象VO类，prefix / objectNames 二选一；目标已存在且不旧于源对象的对象跳过，失败或中断后重新提交即可续传")
+public class MigrationVO {
+    @Schema(description = "迁移任务ID，为空时自动生成；与运行中的任务相同时直接返回该任务进度")
+    private String migrationId;
+
+    @Schema(description = "源存储桶名称，为空时使用默认存储桶")
+    private String sourceBucketName;
+
+    @NotBlank
+    @Schema(description = "目标存储桶名称，需与源存储桶使用同一存储后端")
+    private String bucketName;
+
+    @Schema(description = "迁移的对象路径前缀，迁移前缀下的全部对象")
+    private String prefix;
+
+    @Schema(description = "目标路径前缀，替换源对象路径中的 prefix；为空时保持原路径")
+    private String targetPrefix;
+
+    @Schema(description = "迁移的对象路径列表，目标路径与源路径相同")
+    private List<String> objectNames;
+
+    @Schema(description = "是否移动：拷贝成功后删除源对象")
+    private Boolean move;
+
+    @Schema(description = "同时拷贝的对象数，不超过配置的 minio.copy.migration-parallelism")
+    private Integer parallelism;
+}
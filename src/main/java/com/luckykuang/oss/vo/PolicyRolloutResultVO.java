@@ -0,0 +1,55 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量应用策略模板单个存储桶结果VO
+ * @author luckykuang
+ * @date 2026/10/19 17:20
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "批量应用策略模板单个存储桶结果VO")
+public class PolicyRolloutResultVO {
+
+    // 已写入新策略
+    public static final String APPLIED = "applied";
+    // 当前策略与模板一致，未写入
+    public static final String UNCHANGED = "unchanged";
+    // dryRun 时需要变更
+    public static final String CHANGED = "changed";
+    // 失败
+    public static final String FAILED = "failed";
+
+    @Schema(description = "存储桶名称")
+    private String bucketName;
+
+    @Schema(description = "结果：applied(已应用), unchanged(未变化), changed(dryRun 时需要变更), failed(失败)")
+    private String status;
+
+    @Schema(description = "错误码，成功为0000")
+    private String code;
+
+    @Schema(description = "错误提示")
+    private String message;
+}
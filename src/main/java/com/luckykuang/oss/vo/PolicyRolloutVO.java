@@ -0,0 +1,47 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * @author luckykuang
+ * @date 2026/10/19 17:20
+ */
+@Data
+@Schema(description = "批量应用策略模板VO类，bucketNames / bucketPattern / allBuckets 三选一")
+public class PolicyRolloutVO {
+    @NotBlank
+    @Schema(description = "模板名称")
+    private String templateName;
+
+    @Schema(description = "存储桶名称列表")
+    private List<String> bucketNames;
+
+    @Schema(description = "存储桶名称通配，支持 * 与 ?，如 tenant-*")
+    private String bucketPattern;
+
+    @Schema(description = "应用到全部存储桶")
+    private Boolean allBuckets;
+
+    @Schema(description = "只比较不写入，返回每个存储桶是否需要变更")
+    private Boolean dryRun;
+}
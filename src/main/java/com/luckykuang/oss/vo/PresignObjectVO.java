@@ -0,0 +1,38 @@
+/*
+ * Copyright 2015-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.luckykuang.oss.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+/**
+ * @author luckykuang
+ * @date 2026/10/19 16:40
+ */
+@Data
+@Schema(description = "预签名对象VO类")
+public class PresignObjectVO {
+    @NotBlank
+    @Schema(description = "存储桶名称")
+    private String bucketName;
+    @NotBlank
+    @Schema(description = "文件路径")
+    private String objectName;
+    @Schema(description = "过期时间（秒），为空时使用请求的过期时间")
+    private Integer expirySeconds;
+}